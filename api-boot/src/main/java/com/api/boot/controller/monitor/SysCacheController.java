@@ -0,0 +1,59 @@
+package com.api.boot.controller.monitor;
+
+import com.api.common.domain.AjaxResult;
+import com.api.common.redis.CircuitBreakingRedisCache;
+import com.api.common.redis.RedisCircuitBreaker;
+import com.api.common.redis.ShardedRedisCache;
+import com.api.common.redis.codec.RedisValueCodecs;
+import com.api.framework.cache.TwoLevelCacheManager;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/** Cache statistics of this node, for tuning cache sizes and the compression threshold. */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/monitor/cache")
+public class SysCacheController {
+
+  private final RedisValueCodecs redisValueCodecs;
+  private final TwoLevelCacheManager cacheManager;
+  private final RedisCircuitBreaker redisCircuitBreaker;
+  private final ObjectProvider<ShardedRedisCache> shardedRedisCache;
+
+  /** Hit/miss counters of the local and Redis levels of every Spring cache. */
+  @GetMapping("/stats")
+  public AjaxResult stats() {
+    return AjaxResult.success(cacheManager.stats());
+  }
+
+  /** Compression ratio, counts and average CPU time of Redis value compression. */
+  @GetMapping("/compression")
+  public AjaxResult compression() {
+    return AjaxResult.success(redisValueCodecs.getCompressionStats().snapshot());
+  }
+
+  /**
+   * State and counters of the Redis circuit breaker, and any injected faults; with sharding, those
+   * of every shard's breaker keyed by shard name.
+   */
+  @GetMapping("/redis")
+  public AjaxResult redis() {
+    ShardedRedisCache sharded = shardedRedisCache.getIfAvailable();
+    if (sharded == null) {
+      return AjaxResult.success(redisCircuitBreaker.snapshot());
+    }
+    Map<String, Object> breakers = new LinkedHashMap<>();
+    for (ShardedRedisCache.Shard shard : sharded.getShards()) {
+      if (shard.cache() instanceof CircuitBreakingRedisCache guarded
+          && guarded.getBreaker() != null) {
+        breakers.put(shard.name(), guarded.getBreaker().snapshot());
+      }
+    }
+    return AjaxResult.success(breakers);
+  }
+}
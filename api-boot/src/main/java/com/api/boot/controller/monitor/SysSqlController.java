@@ -1,27 +1,32 @@
 package com.api.boot.controller.monitor;
 
-import com.api.framework.aspectj.TrackSQLDetailAspect;
 import com.api.common.constant.CacheConstants;
 import com.api.common.controller.BaseController;
 import com.api.common.domain.AjaxResult;
 import com.api.common.redis.RedisCache;
 import com.api.common.utils.StringUtils;
 import com.api.common.utils.pagination.TableDataInfo;
-import com.api.framework.interceptor.TrackSQLDetailInspector;
+import com.api.common.utils.pagination.TopNPage;
+import com.api.framework.domain.WindowStats;
+import com.api.framework.metrics.LatencyHistogram;
+import com.api.framework.metrics.SqlStatsCollector;
+import com.api.framework.metrics.WindowedMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * REST Controller for monitoring SQL performance and statistics.
  *
- * <p>Retrieves SQL metrics collected via {@link TrackSQLDetailAspect} and {@link
- * TrackSQLDetailInspector}.
+ * <p>Retrieves per-statement SQL metrics collected by {@link SqlStatsCollector}, keyed by
+ * statement fingerprint: normalized text, an example statement, call counts, rows and the latency
+ * distribution.
  *
- * <p>Data source: Redis keys with pattern "metrics:sqlDetail:*"
+ * <p>Data source: Redis keys with pattern "metrics:sqlDetail:*", walked with SCAN.
  */
 @Slf4j
 @RestController
@@ -30,6 +35,7 @@ import java.util.stream.Collectors;
 public class SysSqlController extends BaseController {
 
   private final RedisCache redisCache;
+  private final WindowedMetrics windowedMetrics;
 
   /**
    * List all tracked SQL metrics.
@@ -37,95 +43,223 @@ public class SysSqlController extends BaseController {
    * @param keyword Optional filter for SQL method or text
    * @param page Page number (default = 1)
    * @param size Page size (default = 10)
+   * @param sort Field to sort by, highest first: "ExecuteCount", "TotalTime", "Rows" or "P99"
    * @return Paginated SQL metrics
    */
   @GetMapping("/list")
   public TableDataInfo list(
+      @RequestParam(required = false) String keyword,
+      @RequestParam(defaultValue = "1") int page,
+      @RequestParam(defaultValue = "10") int size,
+      @RequestParam(defaultValue = "ExecuteCount") String sort) {
+
+    String filter = StringUtils.isNotEmpty(keyword) ? keyword.toLowerCase() : null;
+    String field = switch (sort) {
+      case "TotalTime", "Rows", "P99" -> sort;
+      default -> "ExecuteCount";
+    };
+    Comparator<Map<String, Object>> comparator =
+        Comparator.comparingDouble((Map<String, Object> m) -> parseDouble(m.get(field)))
+            .reversed();
+    TopNPage<Map<String, Object>> topN =
+        new TopNPage<>(comparator, Math.max((page - 1) * size, 0), size);
+
+    // 1️⃣ Walk keys with SCAN, 2️⃣ fetch each chunk in one pipeline,
+    // 3️⃣ filter by keyword (method or SQL), 4️⃣ keep the top rows
+    redisCache.scan(
+        CacheConstants.MONITOR_SQL_KEY,
+        chunk ->
+            redisCache
+                .<Object>getCacheMaps(chunk)
+                .values()
+                .forEach(
+                    (key, metrics) -> {
+                      Map<String, Object> m = toView(key, metrics);
+                      if (filter == null || matches(m, filter)) {
+                        topN.offer(m);
+                      }
+                    }));
+
+    // 5️⃣ Return the requested page
+    List<Map<String, Object>> pageData = topN.getRows();
+    log.debug("Retrieved {} SQL metrics (page={}, size={})", topN.getTotal(), page, size);
+
+    return new TableDataInfo(pageData, topN.getTotal());
+  }
+
+  /**
+   * SQL metrics over a rolling window (e.g. 1, 5 or 60 minutes) per statement fingerprint, slowest
+   * p99 first.
+   *
+   * @param minutes window length, capped at {@code metrics.window.retentionMinutes}
+   */
+  @GetMapping("/window")
+  public TableDataInfo listWindow(
+      @RequestParam(defaultValue = "5") int minutes,
       @RequestParam(required = false) String keyword,
       @RequestParam(defaultValue = "1") int page,
       @RequestParam(defaultValue = "10") int size) {
+    String filter = StringUtils.isNotEmpty(keyword) ? keyword.toLowerCase() : null;
+    TopNPage<WindowStats> topN =
+        new TopNPage<>(
+            Comparator.comparingDouble(WindowStats::getP99).reversed(),
+            Math.max((page - 1) * size, 0),
+            size);
+    redisCache.scan(
+        CacheConstants.MONITOR_SQL_KEY,
+        chunk -> {
+          List<String> series =
+              chunk.stream()
+                  .map(key -> key.substring(CacheConstants.MONITOR_SQL_PREFIX.length()))
+                  .filter(id -> filter == null || id.toLowerCase().contains(filter))
+                  .map(id -> WindowedMetrics.SQL + id)
+                  .collect(Collectors.toList());
+          windowedMetrics
+              .query(series, minutes)
+              .values()
+              .forEach(
+                  stats -> {
+                    if (stats.getCalls() > 0) {
+                      stats.setSeries(stats.getSeries().substring(WindowedMetrics.SQL.length()));
+                      topN.offer(stats);
+                    }
+                  });
+        });
+    return new TableDataInfo(topN.getRows(), topN.getTotal());
+  }
 
-    // 1️⃣ Get all keys
-    Set<String> keys = redisCache.keys(CacheConstants.MONITOR_SQL_PREFIX + "*");
+  /**
+   * Possible N+1 query patterns found by {@link
+   * com.api.framework.metrics.RequestQueryAccounting}: endpoint, repeated statement, the stack of
+   * its first repeated execution, how many requests repeated it and at most how often.
+   *
+   * @param keyword Optional filter for endpoint or SQL text
+   * @param page Page number (default = 1)
+   * @param size Page size (default = 10)
+   * @return Paginated findings, most frequent first
+   */
+  @GetMapping("/nplusone")
+  public TableDataInfo listNPlusOne(
+      @RequestParam(required = false) String keyword,
+      @RequestParam(defaultValue = "1") int page,
+      @RequestParam(defaultValue = "10") int size) {
+    String filter = StringUtils.isNotEmpty(keyword) ? keyword.toLowerCase() : null;
+    TopNPage<Map<String, Object>> topN =
+        new TopNPage<>(
+            Comparator.comparingDouble((Map<String, Object> m) -> parseDouble(m.get("Occurrences")))
+                .reversed(),
+            Math.max((page - 1) * size, 0),
+            size);
+    redisCache.scan(
+        CacheConstants.MONITOR_N_PLUS_ONE_KEY,
+        chunk ->
+            redisCache
+                .<Object>getCacheMaps(chunk)
+                .values()
+                .forEach(
+                    (key, finding) -> {
+                      if (filter == null
+                          || matches(finding, filter, "Endpoint", "SQLNormalized")) {
+                        topN.offer(new LinkedHashMap<>(finding));
+                      }
+                    }));
+    return new TableDataInfo(topN.getRows(), topN.getTotal());
+  }
 
-    if (keys.isEmpty()) {
-      return getDataTable(Collections.emptyList());
-    }
+  /**
+   * Clear all N+1 query findings from Redis.
+   *
+   * @return success message
+   */
+  @DeleteMapping("/nplusone")
+  public AjaxResult clearNPlusOne() {
+    long cleared = redisCache.scan(CacheConstants.MONITOR_N_PLUS_ONE_KEY, redisCache::deleteObject);
+    return AjaxResult.success("Cleared " + cleared + " N+1 query findings.");
+  }
 
-    // 2️⃣ Fetch metrics from Redis
-    List<Map<String, Object>> allMetrics =
-        keys.stream()
-            .map(redisCache::getCacheMap)
-            .filter(Objects::nonNull)
-            .map(HashMap::new)
-            .peek(m -> m.put("key", m.getOrDefault("SQLMethod", "<unknown>")))
-            .collect(Collectors.toList());
-
-    // 3️⃣ Filter by keyword (method or SQL)
-    if (StringUtils.isNotEmpty(keyword)) {
-      allMetrics =
-          allMetrics.stream()
-              .filter(
-                  m ->
-                      m.values().stream()
-                          .anyMatch(
-                              v ->
-                                  v != null
-                                      && v.toString()
-                                          .toLowerCase()
-                                          .contains(keyword.toLowerCase())))
-              .collect(Collectors.toList());
-    }
+  private boolean matches(Map<String, Object> metrics, String filter) {
+    return matches(metrics, filter, "Fingerprint", "SQLNormalized", "SQLExample", "SQLMethod");
+  }
+
+  private boolean matches(Map<String, Object> metrics, String filter, String... fields) {
+    return Stream.of(fields)
+        .map(metrics::get)
+        .anyMatch(v -> v != null && v.toString().toLowerCase().contains(filter));
+  }
 
-    // 4️⃣ Sort by execution count (descending)
-    allMetrics.sort(
-        Comparator.comparingLong(
-                (Map<String, Object> m) ->
-                    Long.parseLong(m.getOrDefault("ExecuteCount", "0").toString()))
-            .reversed());
+  /** Counters plus derived averages and percentiles (ms); raw histogram buckets are left out. */
+  private Map<String, Object> toView(String redisKey, Map<String, Object> metrics) {
+    Map<String, Object> view = new LinkedHashMap<>();
+    view.put("Fingerprint", redisKey.substring(CacheConstants.MONITOR_SQL_PREFIX.length()));
+    metrics.forEach(
+        (field, value) -> {
+          if (!field.startsWith(LatencyHistogram.FIELD_PREFIX)) {
+            view.put(field, value);
+          }
+        });
+    long count = parseLong(metrics.get("ExecuteCount"));
+    long totalMicros = parseLong(metrics.get("TotalTimeMicros"));
+    view.put("key", view.getOrDefault("SQLMethod", view.get("Fingerprint")));
+    view.put("TotalTime", totalMicros / 1000.0);
+    view.put("TimeAverage", count == 0 ? 0 : Math.round(totalMicros / 10.0 / count) / 100.0);
+    view.put("RowsAverage", count == 0 ? 0 : parseLong(metrics.get("Rows")) / (double) count);
 
-    // 5️⃣ Apply pagination
-    int total = allMetrics.size();
-    int fromIndex = Math.max((page - 1) * size, 0);
-    int toIndex = Math.min(fromIndex + size, total);
-    List<Map<String, Object>> pageData =
-        total == 0 ? Collections.emptyList() : allMetrics.subList(fromIndex, toIndex);
+    LatencyHistogram latency = new LatencyHistogram().addFields(metrics);
+    view.put("P50", latency.percentile(50) / 1000.0);
+    view.put("P95", latency.percentile(95) / 1000.0);
+    view.put("P99", latency.percentile(99) / 1000.0);
+    view.put("P999", latency.percentile(99.9) / 1000.0);
+    return view;
+  }
 
-    log.debug("Retrieved {} SQL metrics (page={}, size={})", total, page, size);
+  private static long parseLong(Object value) {
+    if (value == null) return 0L;
+    try {
+      return Long.parseLong(value.toString());
+    } catch (NumberFormatException e) {
+      return 0L;
+    }
+  }
 
-    return getDataTable(pageData);
+  private static double parseDouble(Object value) {
+    if (value == null) return 0.0;
+    try {
+      return Double.parseDouble(value.toString());
+    } catch (NumberFormatException e) {
+      return 0.0;
+    }
   }
 
   /**
-   * Get a specific SQL metric detail by method name.
+   * Get a specific SQL metric detail by fingerprint.
    *
-   * @param method Repository method name, e.g. SysDeptRepository.countByParentIdAndDelFlag
-   * @return Detailed metrics for that method
+   * @param fingerprint Statement fingerprint, as listed
+   * @return Detailed metrics for that statement
    */
-  @GetMapping("/{method}")
-  public AjaxResult getMetricDetail(@PathVariable String method) {
-    String redisKey = CacheConstants.MONITOR_SQL_PREFIX + method;
+  @GetMapping("/{fingerprint}")
+  public AjaxResult getMetricDetail(@PathVariable String fingerprint) {
+    String redisKey = CacheConstants.MONITOR_SQL_PREFIX + fingerprint;
     Map<String, Object> metrics = redisCache.getCacheMap(redisKey);
     if (metrics == null || metrics.isEmpty()) {
-      return AjaxResult.error("No metrics found for method: " + method);
+      return AjaxResult.error("No metrics found for statement: " + fingerprint);
     }
-    return AjaxResult.success(metrics);
+    return AjaxResult.success(toView(redisKey, metrics));
   }
 
   /**
-   * Delete SQL metrics by method.
+   * Delete SQL metrics by fingerprint.
    *
-   * @param method Repository method name
+   * @param fingerprint Statement fingerprint
    * @return success message
    */
-  @DeleteMapping("/{method}")
-  public AjaxResult deleteMetric(@PathVariable String method) {
-    String redisKey = CacheConstants.MONITOR_SQL_PREFIX + method;
+  @DeleteMapping("/{fingerprint}")
+  public AjaxResult deleteMetric(@PathVariable String fingerprint) {
+    String redisKey = CacheConstants.MONITOR_SQL_PREFIX + fingerprint;
     boolean deleted = redisCache.deleteObject(redisKey);
     if (deleted) {
-      return AjaxResult.success("Deleted metrics for " + method);
+      return AjaxResult.success("Deleted metrics for " + fingerprint);
     }
-    return AjaxResult.error("No metrics found for method: " + method);
+    return AjaxResult.error("No metrics found for statement: " + fingerprint);
   }
 
   /**
@@ -135,11 +269,10 @@ public class SysSqlController extends BaseController {
    */
   @DeleteMapping("/clear")
   public AjaxResult clearAll() {
-    Set<String> keys = redisCache.keys(CacheConstants.MONITOR_SQL_PREFIX + "*");
-    if (keys.isEmpty()) {
+    long cleared = redisCache.scan(CacheConstants.MONITOR_SQL_KEY, redisCache::deleteObject);
+    if (cleared == 0) {
       return AjaxResult.success("No SQL metrics to clear.");
     }
-    redisCache.deleteObject(keys);
-    return AjaxResult.success("Cleared " + keys.size() + " SQL metrics.");
+    return AjaxResult.success("Cleared " + cleared + " SQL metrics.");
   }
 }
@@ -1,10 +1,15 @@
 package com.api.boot.controller.monitor;
 
 import com.api.common.domain.AjaxResult;
+import com.api.common.redis.BatchResult;
 import com.api.common.redis.RedisCache;
 import com.api.common.utils.StringUtils;
 import com.api.common.utils.pagination.TableDataInfo;
+import com.api.common.utils.pagination.TopNPage;
 import com.api.framework.domain.EndpointStats;
+import com.api.framework.domain.WindowStats;
+import com.api.framework.metrics.LatencyHistogram;
+import com.api.framework.metrics.WindowedMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
@@ -17,10 +22,14 @@ import static com.api.common.constant.CacheConstants.MONITOR_URI_KEY;
 /**
  * Controller for exposing tracked URI performance metrics.
  *
- * <p>Retrieves data stored in Redis (by {@link com.api.framework.aop.EndpointStatsAspect}) and
+ * <p>Retrieves data stored in Redis (by {@link com.api.framework.aspectj.EndpointStatsAspect}) and
  * transforms it into structured API responses for dashboards.
  *
- * <p>Supports search, sorting, and pagination.
+ * <p>Latency percentiles (p50/p95/p99/p99.9) come from the bucket fields of the histogram every
+ * node merges into the same hash (see {@link LatencyHistogram}).
+ *
+ * <p>Supports search, sorting (including by {@code RequestTimeP99}), and pagination. Keys are
+ * walked with SCAN and fetched per chunk, and only the requested page is kept in memory.
  *
  * <p>Example Redis key format:
  *
@@ -37,6 +46,7 @@ import static com.api.common.constant.CacheConstants.MONITOR_URI_KEY;
 public class SysUriController {
 
   private final RedisCache redisCache;
+  private final WindowedMetrics windowedMetrics;
 
   /**
    * Retrieve all tracked endpoint metrics.
@@ -44,7 +54,8 @@ public class SysUriController {
    * @param keyword Optional keyword to filter URIs.
    * @param page Current page number (0-based).
    * @param size Page size.
-   * @param sort Optional field to sort by (e.g. "RequestCount", "RequestTimeAverage").
+   * @param sort Optional field to sort by (e.g. "RequestCount", "RequestTimeAverage",
+   *     "RequestTimeP99").
    * @param order Sort order ("asc" or "desc").
    * @return TableDataInfo containing endpoint metrics.
    */
@@ -56,39 +67,84 @@ public class SysUriController {
       @RequestParam(required = false, defaultValue = "RequestCount") String sort,
       @RequestParam(required = false, defaultValue = "desc") String order) {
 
-    Set<String> keys = redisCache.keys(MONITOR_URI_KEY);
-    log.debug("🔍 Found {} metric keys in Redis", keys.size());
-
-    // Map to DTOs
-    List<EndpointStats> allStats =
-        keys.stream()
-            .map(this::mapToEndpointStats)
-            .filter(Objects::nonNull)
-            .collect(Collectors.toList());
-
-    // Apply keyword filtering
-    if (StringUtils.hasText(keyword)) {
-      allStats =
-          allStats.stream()
-              .filter(s -> s.getUri().toLowerCase().contains(keyword.toLowerCase()))
-              .collect(Collectors.toList());
-    }
-
     // Sort dynamically
     Comparator<EndpointStats> comparator = getComparator(sort);
     if ("desc".equalsIgnoreCase(order)) {
       comparator = comparator.reversed();
     }
-    allStats.sort(comparator);
+    String filter = StringUtils.hasText(keyword) ? keyword.toLowerCase() : null;
+
+    // Walk the keys with SCAN, fetch each chunk in one pipeline and keep only the requested page
+    TopNPage<EndpointStats> topN = new TopNPage<>(comparator, page * size, size);
+    long scanned =
+        redisCache.scan(
+            MONITOR_URI_KEY,
+            chunk -> {
+              List<String> keys =
+                  filter == null
+                      ? chunk
+                      : chunk.stream()
+                          .filter(k -> uriOf(k).toLowerCase().contains(filter))
+                          .collect(Collectors.toList());
+              BatchResult<Map<String, Object>> maps = redisCache.getCacheMaps(keys);
+              maps.values().forEach((key, map) -> topN.offer(mapToEndpointStats(key, map)));
+            });
 
-    // Pagination
-    int start = Math.max(page * size, 0);
-    int end = Math.min(start + size, allStats.size());
-    List<EndpointStats> paged =
-        start > end ? Collections.emptyList() : allStats.subList(start, end);
+    List<EndpointStats> paged = topN.getRows();
+    log.debug(
+        "📊 Returning {} of {} metrics from {} keys (page={}, size={})",
+        paged.size(),
+        topN.getTotal(),
+        scanned,
+        page,
+        size);
+    return new TableDataInfo(paged, topN.getTotal());
+  }
+
+  /**
+   * Endpoint metrics over a rolling window (e.g. 1, 5 or 60 minutes): call rate, error rate and
+   * latency percentiles, so a regression shows up minutes after it starts.
+   *
+   * @param minutes window length, capped at {@code metrics.window.retentionMinutes}
+   * @param sort "RatePerSecond", "ErrorRate", "P50", "P95", "P99", "P999" or "Calls"
+   */
+  @GetMapping("/window")
+  public TableDataInfo listWindow(
+      @RequestParam(defaultValue = "5") int minutes,
+      @RequestParam(required = false) String keyword,
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "10") int size,
+      @RequestParam(required = false, defaultValue = "P99") String sort,
+      @RequestParam(required = false, defaultValue = "desc") String order) {
+    Comparator<WindowStats> comparator = getWindowComparator(sort);
+    if ("desc".equalsIgnoreCase(order)) {
+      comparator = comparator.reversed();
+    }
+    String filter = StringUtils.hasText(keyword) ? keyword.toLowerCase() : null;
 
-    log.debug("📊 Returning {} metrics (page={}, size={})", paged.size(), page, size);
-    return new TableDataInfo(paged, allStats.size());
+    // Endpoints are those with lifetime stats; their windows are fetched per SCAN chunk
+    TopNPage<WindowStats> topN = new TopNPage<>(comparator, page * size, size);
+    redisCache.scan(
+        MONITOR_URI_KEY,
+        chunk -> {
+          List<String> series =
+              chunk.stream()
+                  .map(this::uriOf)
+                  .filter(uri -> filter == null || uri.toLowerCase().contains(filter))
+                  .map(uri -> WindowedMetrics.ENDPOINT + uri)
+                  .collect(Collectors.toList());
+          windowedMetrics
+              .query(series, minutes)
+              .values()
+              .forEach(
+                  stats -> {
+                    if (stats.getCalls() > 0) {
+                      stats.setSeries(uriOf(stats.getSeries(), WindowedMetrics.ENDPOINT));
+                      topN.offer(stats);
+                    }
+                  });
+        });
+    return new TableDataInfo(topN.getRows(), topN.getTotal());
   }
 
   /** Retrieve a specific URI metric by key. */
@@ -104,19 +160,19 @@ public class SysUriController {
 
   // ---------------------- Helper Methods ----------------------
 
-  private EndpointStats mapToEndpointStats(String redisKey) {
-    Map<String, Object> map = redisCache.getCacheMap(redisKey);
-    if (map == null || map.isEmpty()) return null;
-    return mapToEndpointStats(redisKey, map);
-  }
-
   private EndpointStats mapToEndpointStats(String redisKey, Map<String, Object> map) {
     try {
+      LatencyHistogram latency = new LatencyHistogram().addFields(map);
       return EndpointStats.builder()
-          .uri(redisKey.replace(MONITOR_URI_KEY, ""))
+          .uri(uriOf(redisKey))
           .requestCount(parseLong(map.get("RequestCount")))
-          .requestTimeAverage(parseDouble(map.get("RequestTimeAverage")))
+          .requestTimeAverage(averageOf(map))
           .requestTimeMillisMax(parseLong(map.get("RequestTimeMillisMax")))
+          .requestTimeMillisMin(parseLong(map.get("RequestTimeMillisMin")))
+          .requestTimeP50(millis(latency.percentile(50)))
+          .requestTimeP95(millis(latency.percentile(95)))
+          .requestTimeP99(millis(latency.percentile(99)))
+          .requestTimeP999(millis(latency.percentile(99.9)))
           .concurrentMax(parseInt(map.get("ConcurrentMax")))
           .successCount(parseLong(map.get("SuccessCount")))
           .failCount(parseLong(map.get("FailCount")))
@@ -127,11 +183,50 @@ public class SysUriController {
     }
   }
 
+  /** Derived from the merged totals; entries written before those were kept store the average. */
+  private double averageOf(Map<String, Object> map) {
+    long count = parseLong(map.get("RequestCount"));
+    if (count == 0 || !map.containsKey("RequestTimeTotal")) {
+      return parseDouble(map.get("RequestTimeAverage"));
+    }
+    return Math.round(parseLong(map.get("RequestTimeTotal")) * 100.0 / count) / 100.0;
+  }
+
+  private static double millis(long micros) {
+    return micros / 1000.0;
+  }
+
+  private String uriOf(String redisKey) {
+    return redisKey.replace(MONITOR_URI_KEY, "");
+  }
+
+  private String uriOf(String series, String prefix) {
+    return series.substring(prefix.length());
+  }
+
+  private Comparator<WindowStats> getWindowComparator(String field) {
+    return switch (field) {
+      case "RatePerSecond" -> Comparator.comparingDouble(WindowStats::getRatePerSecond);
+      case "ErrorRate" -> Comparator.comparingDouble(WindowStats::getErrorRate);
+      case "P50" -> Comparator.comparingDouble(WindowStats::getP50);
+      case "P95" -> Comparator.comparingDouble(WindowStats::getP95);
+      case "P999" -> Comparator.comparingDouble(WindowStats::getP999);
+      case "Calls" -> Comparator.comparingLong(WindowStats::getCalls);
+      default -> Comparator.comparingDouble(WindowStats::getP99);
+    };
+  }
+
   private Comparator<EndpointStats> getComparator(String field) {
     return switch (field) {
       case "RequestTimeAverage" -> Comparator.comparingDouble(EndpointStats::getRequestTimeAverage);
       case "RequestTimeMillisMax" ->
           Comparator.comparingLong(EndpointStats::getRequestTimeMillisMax);
+      case "RequestTimeMillisMin" ->
+          Comparator.comparingLong(EndpointStats::getRequestTimeMillisMin);
+      case "RequestTimeP50" -> Comparator.comparingDouble(EndpointStats::getRequestTimeP50);
+      case "RequestTimeP95" -> Comparator.comparingDouble(EndpointStats::getRequestTimeP95);
+      case "RequestTimeP99" -> Comparator.comparingDouble(EndpointStats::getRequestTimeP99);
+      case "RequestTimeP999" -> Comparator.comparingDouble(EndpointStats::getRequestTimeP999);
       case "ConcurrentMax" -> Comparator.comparingInt(EndpointStats::getConcurrentMax);
       case "SuccessCount" -> Comparator.comparingLong(EndpointStats::getSuccessCount);
       case "FailCount" -> Comparator.comparingLong(EndpointStats::getFailCount);
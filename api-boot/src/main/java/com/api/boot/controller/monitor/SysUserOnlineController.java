@@ -1,19 +1,21 @@
 package com.api.boot.controller.monitor;
 
-import com.api.common.constant.CacheConstants;
 import com.api.common.controller.BaseController;
 import com.api.common.domain.AjaxResult;
-import com.api.common.domain.LoginUser;
-import com.api.common.redis.RedisCache;
+import com.api.common.redis.RedisUnavailableException;
 import com.api.common.utils.StringUtils;
 import com.api.common.utils.pagination.TableDataInfo;
+import com.api.framework.service.TokenService;
+import com.api.framework.session.SessionIndex;
+import com.api.framework.session.SessionSummary;
 import com.api.system.domain.system.SysUserOnline;
 import com.api.system.domain.system.SysUserOnlineService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.*;
+import java.util.List;
+import java.util.function.Predicate;
 
 /** REST controller for monitoring and managing online users. */
 @Slf4j
@@ -25,70 +27,67 @@ public class SysUserOnlineController extends BaseController {
   /** Online user management service. */
   private final SysUserOnlineService userOnlineService;
 
-  /** Redis cache for token/session data. */
-  private final RedisCache redisCache;
+  /** Token service, so removals also invalidate every node's session near-cache. */
+  private final TokenService tokenService;
 
   /**
-   * Retrieves a paginated list of currently active (online) users.
+   * Retrieves a paginated list of currently active (online) users, most recently active first.
+   *
+   * <p>Reads the Redis session index instead of scanning the keyspace; filters are applied to the
+   * lightweight session summaries.
    *
    * @param ipaddr Optional IP address filter
    * @param userName Optional username filter
+   * @param pageNum Page number (1-based)
+   * @param pageSize Page size
    * @return Paginated list of online users
    */
   // @PreAuthorize("@ss.hasPermi('monitor:online:list')")
   @GetMapping("/list")
   public TableDataInfo list(
       @RequestParam(required = false) String ipaddr,
-      @RequestParam(required = false) String userName) {
+      @RequestParam(required = false) String userName,
+      @RequestParam(value = "pageNum", required = false, defaultValue = "1") Integer pageNum,
+      @RequestParam(value = "pageSize", required = false, defaultValue = "10") Integer pageSize) {
 
     log.info("Fetching online users with filters: ipaddr='{}', userName='{}'", ipaddr, userName);
 
-    Collection<String> keys = redisCache.keys(CacheConstants.LOGIN_TOKEN_KEY + "*");
-    List<SysUserOnline> userOnlineList = new ArrayList<>();
-
-    for (String key : keys) {
-      LoginUser user = redisCache.getCacheObject(key, LoginUser.class);
-      if (user == null) {
-        continue;
-      }
-
-      SysUserOnline onlineUser = null;
-
-      if (StringUtils.isNotEmpty(ipaddr) && StringUtils.isNotEmpty(userName)) {
-        onlineUser = userOnlineService.selectOnlineByInfo(ipaddr, userName, user);
-      } else if (StringUtils.isNotEmpty(ipaddr)) {
-        onlineUser = userOnlineService.selectOnlineByIpaddr(ipaddr, user);
-      } else if (StringUtils.isNotEmpty(userName) && StringUtils.isNotNull(user.getUser())) {
-        onlineUser = userOnlineService.selectOnlineByUserName(userName, user);
-      } else {
-        onlineUser = userOnlineService.loginUserToUserOnline(user);
-      }
-
-      if (onlineUser != null) {
-        userOnlineList.add(onlineUser);
-      }
+    Predicate<SessionSummary> filter = null;
+    if (StringUtils.isNotEmpty(ipaddr) || StringUtils.isNotEmpty(userName)) {
+      filter =
+          s ->
+              (StringUtils.isEmpty(ipaddr) || ipaddr.equals(s.ipaddr()))
+                  && (StringUtils.isEmpty(userName) || userName.equals(s.userName()));
     }
 
-    Collections.reverse(userOnlineList);
+    int page = Math.max(pageNum, 1);
+    int size = Math.max(pageSize, 1);
+    SessionIndex.SessionPage sessions = tokenService.listSessions((page - 1) * size, size, filter);
+    List<SysUserOnline> userOnlineList =
+        sessions.rows().stream().map(userOnlineService::summaryToUserOnline).toList();
 
-    log.info("Found {} online users.", userOnlineList.size());
-    return getDataTable(userOnlineList);
+    log.info("Found {} online users.", sessions.total());
+    return TableDataInfo.success("Query successful", userOnlineList, sessions.total());
   }
 
   /**
    * Forces a user to log out (invalidates their token).
    *
    * @param tokenId The token identifier of the user to force logout
-   * @return AjaxResult with success or failure response
+   * @return AjaxResult with success or failure response; an error if Redis is unavailable
    */
   // @PreAuthorize("@ss.hasPermi('monitor:online:forceLogout')")
   @DeleteMapping("/{tokenId}")
   public AjaxResult forceLogout(@PathVariable String tokenId) {
-    String redisKey = CacheConstants.LOGIN_TOKEN_KEY + tokenId;
-
     log.warn("Forcing logout for token: {}", tokenId);
 
-    boolean exists = Boolean.TRUE.equals(redisCache.deleteObject(redisKey));
+    boolean exists;
+    try {
+      exists = tokenService.delLoginUser(tokenId);
+    } catch (RedisUnavailableException e) {
+      log.error("Failed to remove session for token {}: {}", tokenId, e.getMessage());
+      return error("Session store unavailable, the session is still active on other nodes; retry");
+    }
     if (exists) {
       log.info("Successfully removed session for token: {}", tokenId);
       return success("User forcibly logged out successfully");
@@ -97,4 +96,24 @@ public class SysUserOnlineController extends BaseController {
       return error("User session not found or already logged out");
     }
   }
+
+  /**
+   * Forces every session of a user to log out.
+   *
+   * @param userId The user whose sessions are removed
+   * @return AjaxResult with the number of sessions removed; an error if Redis is unavailable
+   */
+  // @PreAuthorize("@ss.hasPermi('monitor:online:forceLogout')")
+  @DeleteMapping("/user/{userId}")
+  public AjaxResult forceLogoutUser(@PathVariable Long userId) {
+    log.warn("Forcing logout for all sessions of user: {}", userId);
+    int removed;
+    try {
+      removed = tokenService.delLoginUsers(userId);
+    } catch (RedisUnavailableException e) {
+      log.error("Failed to remove sessions of user {}: {}", userId, e.getMessage());
+      return error("Session store unavailable, sessions may still be active on other nodes; retry");
+    }
+    return success("Logged out " + removed + " session(s)");
+  }
 }
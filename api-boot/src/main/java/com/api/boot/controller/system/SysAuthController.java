@@ -13,6 +13,7 @@ import com.api.system.repository.SysUserRepository;
 import com.api.system.service.SysLoginService;
 import com.api.system.service.SysPermissionService;
 import com.api.framework.service.TokenService;
+import com.api.framework.session.LoginUserCodec;
 
 import com.api.system.service.SysMenuService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -76,11 +77,20 @@ public class SysAuthController {
   public AjaxResult getInfo() {
     LoginUser loginUser = SecurityUtils.getLoginUser();
     SysUser user = loginUser.getUser();
+    // Sessions written before the profile was kept in them get it loaded and stored once
+    boolean stale = !LoginUserCodec.hasProfile(user);
+    if (stale) {
+      user = userRepository.findById(loginUser.getUserId()).orElse(user);
+      loginUser.setUser(user);
+    }
 
     Set<String> roles = permissionService.getRolePermission(user);
     Set<String> permissions = permissionService.getMenuPermission(user);
     if (!loginUser.getPermissions().equals(permissions)) {
       loginUser.setPermissions(permissions);
+      stale = true;
+    }
+    if (stale) {
       tokenService.refreshToken(loginUser);
     }
     AjaxResult ajax = AjaxResult.success();
@@ -93,7 +103,7 @@ public class SysAuthController {
   /** Get routers endpoint. */
   @GetMapping("getRouters")
   public AjaxResult getRouters() {
-    List<SysMenu> menus = menuService.selectMenuTreeByUserId();
+    List<SysMenu> menus = menuService.selectMenuTreeByUserId(SecurityUtils.getUserId());
     return AjaxResult.success(menus);
   }
 
@@ -0,0 +1,181 @@
+package com.api.common.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-process cache with per-entry expiry.
+ *
+ * <p>Reads are lock-free (a {@link ConcurrentHashMap} lookup plus an expiry check). When the size
+ * limit is exceeded, a single thread evicts expired entries first and then the least recently
+ * accessed ones, so eviction cost is amortized over many writes.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class LocalCache<K, V> {
+
+  /** Fraction of entries removed when the cache overflows. */
+  private static final double EVICTION_RATIO = 0.1;
+
+  private final String name;
+  private final int maxSize;
+  private final long ttlMillis;
+
+  private final ConcurrentHashMap<K, Entry<V>> store = new ConcurrentHashMap<>();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * @param name cache name (used in logs and statistics)
+   * @param maxSize maximum number of entries kept
+   * @param ttl default time-to-live of an entry
+   */
+  public LocalCache(String name, int maxSize, Duration ttl) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+    }
+    this.name = name;
+    this.maxSize = maxSize;
+    this.ttlMillis = ttl.toMillis();
+  }
+
+  /** Get a live entry, or null if absent/expired. */
+  public V get(K key) {
+    if (key == null) {
+      return null;
+    }
+    Entry<V> entry = store.get(key);
+    long now = System.currentTimeMillis();
+    if (entry == null || entry.expireAt <= now) {
+      if (entry != null) {
+        store.remove(key, entry);
+      }
+      misses.increment();
+      return null;
+    }
+    entry.lastAccess = now;
+    hits.increment();
+    return entry.value;
+  }
+
+  /** Put an entry with the default TTL. */
+  public void put(K key, V value) {
+    put(key, value, System.currentTimeMillis() + ttlMillis);
+  }
+
+  /**
+   * Put an entry that expires at the given epoch millis, capped by the default TTL.
+   *
+   * @param key key
+   * @param value value (null removes the entry)
+   * @param expireAtMillis absolute expiry time
+   */
+  public void put(K key, V value, long expireAtMillis) {
+    if (key == null) {
+      return;
+    }
+    if (value == null) {
+      invalidate(key);
+      return;
+    }
+    long now = System.currentTimeMillis();
+    long expireAt = Math.min(expireAtMillis, now + ttlMillis);
+    if (expireAt <= now) {
+      invalidate(key);
+      return;
+    }
+    store.put(key, new Entry<>(value, expireAt, now));
+    if (store.size() > maxSize) {
+      evict();
+    }
+  }
+
+  /** Remove a single entry. */
+  public void invalidate(K key) {
+    if (key != null) {
+      store.remove(key);
+    }
+  }
+
+  /** Remove several entries. */
+  public void invalidateAll(Collection<K> keys) {
+    if (keys != null) {
+      keys.forEach(this::invalidate);
+    }
+  }
+
+  /** Remove all entries. */
+  public void clear() {
+    store.clear();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int size() {
+    return store.size();
+  }
+
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  public long missCount() {
+    return misses.sum();
+  }
+
+  public long evictionCount() {
+    return evictions.sum();
+  }
+
+  /** Evict expired entries, then the least recently used ones until under the limit. */
+  private void evict() {
+    if (!evictionLock.tryLock()) {
+      return; // another thread is already evicting
+    }
+    try {
+      long now = System.currentTimeMillis();
+      store.entrySet().removeIf(e -> e.getValue().expireAt <= now);
+      int overflow = store.size() - maxSize;
+      if (overflow <= 0) {
+        return;
+      }
+
+      int toRemove = Math.max(overflow, (int) (maxSize * EVICTION_RATIO));
+      List<Map.Entry<K, Entry<V>>> snapshot = new ArrayList<>(store.entrySet());
+      snapshot.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+      for (int i = 0; i < toRemove && i < snapshot.size(); i++) {
+        Map.Entry<K, Entry<V>> e = snapshot.get(i);
+        if (store.remove(e.getKey(), e.getValue())) {
+          evictions.increment();
+        }
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private static final class Entry<V> {
+    private final V value;
+    private final long expireAt;
+    private volatile long lastAccess;
+
+    private Entry(V value, long expireAt, long lastAccess) {
+      this.value = value;
+      this.expireAt = expireAt;
+      this.lastAccess = lastAccess;
+    }
+  }
+}
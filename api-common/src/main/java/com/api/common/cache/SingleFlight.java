@@ -0,0 +1,87 @@
+package com.api.common.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the loader, every caller that
+ * arrives while it runs waits for and shares its result (or its exception).
+ *
+ * <p>Only in-flight loads are tracked; once a load finishes the key is forgotten, so results are
+ * never cached here.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class SingleFlight<K, V> {
+
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+
+  /**
+   * Run the loader for the key, or wait for the load already running for it.
+   *
+   * @param key key
+   * @param loader loader, run by at most one thread per key at a time
+   * @return the loaded value
+   * @throws Exception whatever the loader threw
+   */
+  public V load(K key, Callable<V> loader) throws Exception {
+    CompletableFuture<V> mine = new CompletableFuture<>();
+    CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+    if (running != null) {
+      coalesced.increment();
+      return await(running);
+    }
+
+    loads.increment();
+    try {
+      V value = loader.call();
+      mine.complete(value);
+      return value;
+    } catch (Throwable e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  /** Whether a load for the key is running right now. */
+  public boolean isLoading(K key) {
+    return inFlight.containsKey(key);
+  }
+
+  /** Number of loads actually run. */
+  public long loadCount() {
+    return loads.sum();
+  }
+
+  /** Number of callers that shared another caller's load. */
+  public long coalescedCount() {
+    return coalesced.sum();
+  }
+
+  private static <V> V await(CompletableFuture<V> future) throws Exception {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception ex) {
+        throw ex;
+      }
+      if (cause instanceof Error err) {
+        throw err;
+      }
+      throw e;
+    } catch (CancellationException e) {
+      throw new IllegalStateException("Load was cancelled", e);
+    }
+  }
+}
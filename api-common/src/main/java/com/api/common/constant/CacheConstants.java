@@ -5,11 +5,32 @@ public class CacheConstants {
   /** user redis key */
   public static final String LOGIN_TOKEN_KEY = "login_user_tokens:";
 
+  /** shared session permission sets, addressed by content hash */
+  public static final String LOGIN_PERMS_KEY = "login_perms:";
+
+  /** active sessions sorted by expiry (token -> expiry epoch millis) */
+  public static final String LOGIN_SESSION_INDEX_KEY = "login_session_index";
+
+  /** per-user set of active session tokens */
+  public static final String LOGIN_USER_SESSIONS_KEY = "login_user_sessions:";
+
+  /** lightweight per-session summary hash used by the online-user listing */
+  public static final String LOGIN_SESSION_SUMMARY_KEY = "login_session_summary:";
+
+  /** role id -> menu permission set */
+  public static final String ROLE_PERMS_KEY = "role_perms:";
+
+  /** counter bumped by every role permission eviction, checked by concurrent loads */
+  public static final String ROLE_PERMS_GENERATION_KEY = "role_perms_generation";
+
   /** captcha redis key */
   public static final String CAPTCHA_CODE_KEY = "captcha_codes:";
 
-  /** parameters cache key */
-  public static final String SYS_CONFIG_KEY = "sys_config:";
+  /** Pub/sub channel announcing system configuration changes across nodes */
+  public static final String SYS_CONFIG_CHANGED_CHANNEL = "channel:sys_config:changed";
+
+  /** counter bumped by every system configuration change, polled by nodes that missed one */
+  public static final String SYS_CONFIG_VERSION_KEY = "sys_config:version";
 
   /** dict cache key */
   public static final String SYS_DICT_KEY = "sys_dict:";
@@ -31,4 +52,28 @@ public class CacheConstants {
 
   /** SQL metrics key prefix */
   public static final String MONITOR_SQL_PREFIX = "metrics:sqlDetail:";
+
+  /** Per-minute metric buckets ({@code metrics:window:<series>:<epoch minute>}) */
+  public static final String MONITOR_WINDOW_PREFIX = "metrics:window:";
+
+  /** N+1 query findings ({@code metrics:nPlusOne:<fingerprint>:<endpoint>}) */
+  public static final String MONITOR_N_PLUS_ONE_PREFIX = "metrics:nPlusOne:";
+
+  /** N+1 query findings Redis key pattern */
+  public static final String MONITOR_N_PLUS_ONE_KEY = "metrics:nPlusOne:*";
+
+  /** Pub/sub channel for login session invalidation across nodes */
+  public static final String SESSION_INVALIDATE_CHANNEL = "channel:session:invalidate";
+
+  /** Pub/sub channel for role permission cache invalidation across nodes */
+  public static final String ROLE_PERMS_INVALIDATE_CHANNEL = "channel:role_perms:invalidate";
+
+  /** Redis key prefix of the second level of Spring caches ({@code cache:<name>:<key>}) */
+  public static final String CACHE_KEY_PREFIX = "cache:";
+
+  /** Pub/sub channel for Spring cache (first level) invalidation across nodes */
+  public static final String CACHE_INVALIDATE_CHANNEL = "channel:cache:invalidate";
+
+  /** Spring cache: menu tree of a user, keyed by user id */
+  public static final String MENU_TREE_CACHE = "menuTree";
 }
@@ -2,13 +2,16 @@ package com.api.common.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.io.Serial;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -59,6 +62,16 @@ public class LoginUser implements UserDetails {
   private String oauth2Provider; // github / google / facebook
   private String oauth2UserId; // GitHub user id / Google user id / Facebook user id
 
+  /** Permissions as interned-id bitset, derived lazily from {@link #permissions} (not stored) */
+  @JsonIgnore @EqualsAndHashCode.Exclude @ToString.Exclude
+  private transient volatile BitSet permissionBits;
+
+  /** Replace the permissions and drop the derived bitset. */
+  public void setPermissions(Set<String> permissions) {
+    this.permissions = permissions;
+    this.permissionBits = null;
+  }
+
   @Override
   @JsonIgnore
   public String getPassword() {
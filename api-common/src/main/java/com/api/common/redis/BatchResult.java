@@ -0,0 +1,59 @@
+package com.api.common.redis;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of a multi-key Redis operation.
+ *
+ * <p>{@link #values()} holds the per-key result of every key that was processed (absent keys are
+ * simply missing for reads). {@link #failures()} holds the keys whose command failed, with the
+ * cause, so callers can retry or report them instead of losing the whole batch.
+ *
+ * @param <T> per-key result type
+ */
+public final class BatchResult<T> {
+
+  private final Map<String, T> values = new LinkedHashMap<>();
+  private final Map<String, Exception> failures = new LinkedHashMap<>();
+
+  void success(String key, T value) {
+    if (value != null) {
+      values.put(key, value);
+    }
+  }
+
+  void fail(String key, Exception cause) {
+    failures.put(key, cause);
+  }
+
+  /** Per-key results in request order; read misses are not included. */
+  public Map<String, T> values() {
+    return Collections.unmodifiableMap(values);
+  }
+
+  /** Keys whose command failed, with the cause. */
+  public Map<String, Exception> failures() {
+    return Collections.unmodifiableMap(failures);
+  }
+
+  /** Result of a single key, or null if absent or failed. */
+  public T get(String key) {
+    return values.get(key);
+  }
+
+  public boolean hasFailures() {
+    return !failures.isEmpty();
+  }
+
+  /** Number of keys whose result is {@link Boolean#TRUE} (e.g. keys deleted or expired). */
+  public long countTrue() {
+    return values.values().stream().filter(Boolean.TRUE::equals).count();
+  }
+
+  @Override
+  public String toString() {
+    return "BatchResult{values=" + values.size() + ", failures=" + failures.size() + "}";
+  }
+}
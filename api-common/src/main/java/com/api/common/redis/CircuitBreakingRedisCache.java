@@ -0,0 +1,330 @@
+package com.api.common.redis;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * The {@link RedisCache} callers get when Redis is in use: every call to {@link
+ * RedisTemplateCache} goes through {@link RedisCircuitBreaker}. When sharding is configured, calls
+ * go to the {@link ShardedRedisCache} instead, whose shards are each wrapped in a {@code
+ * CircuitBreakingRedisCache} with a breaker of their own, so an unreachable shard only fails its
+ * own keys.
+ *
+ * <p>Calls that were always best-effort (single-key object reads and writes, publish) stay so:
+ * while Redis is unavailable they read as a miss or do nothing. Batch calls report every key as
+ * failed. All other calls throw {@link RedisUnavailableException}, which callers with a degraded
+ * mode (sessions, rate limiting, metrics, repeat-submit checks) catch.
+ */
+@Slf4j
+@Primary
+@Component
+@Profile("!standalone")
+public class CircuitBreakingRedisCache implements RedisCache {
+
+  private final RedisCache delegate;
+  /** Null when routing to shards that guard themselves. */
+  private final RedisCircuitBreaker breaker;
+
+  @Autowired
+  public CircuitBreakingRedisCache(
+      RedisTemplateCache primary,
+      ObjectProvider<ShardedRedisCache> sharded,
+      RedisCircuitBreaker breaker) {
+    RedisCache shards = sharded.getIfAvailable();
+    this.delegate = shards != null ? shards : primary;
+    this.breaker = shards != null ? null : breaker;
+  }
+
+  /** Guard a single store, e.g. one shard, with its own breaker. */
+  public CircuitBreakingRedisCache(RedisCache delegate, RedisCircuitBreaker breaker) {
+    this.delegate = delegate;
+    this.breaker = breaker;
+  }
+
+  /** The breaker of this store, or null if it routes to self-guarding shards. */
+  public RedisCircuitBreaker getBreaker() {
+    return breaker;
+  }
+
+  @Override
+  public <T> void setCacheObject(final String key, final T value) {
+    bestEffort("SET", () -> delegate.setCacheObject(key, value));
+  }
+
+  @Override
+  public <T> void setCacheObject(
+      final String key, final T value, final Integer timeout, final TimeUnit unit) {
+    bestEffort("SET", () -> delegate.setCacheObject(key, value, timeout, unit));
+  }
+
+  @Override
+  public void setCacheBytes(
+      final String key, final byte[] value, final long timeout, final TimeUnit unit) {
+    bestEffort("SET", () -> delegate.setCacheBytes(key, value, timeout, unit));
+  }
+
+  @Override
+  public byte[] getCacheBytes(final String key) {
+    return call("GET", () -> delegate.getCacheBytes(key));
+  }
+
+  @Override
+  public List<byte[]> getCacheBytes(final List<String> keys) {
+    return call("MGET", () -> delegate.getCacheBytes(keys));
+  }
+
+  @Override
+  public void replaceCacheBytes(final Map<String, byte[]> values) {
+    run("SET XX", () -> delegate.replaceCacheBytes(values));
+  }
+
+  @Override
+  public boolean tryLock(
+      final String key, final String token, final long timeout, final TimeUnit unit) {
+    return call("SET NX", () -> delegate.tryLock(key, token, timeout, unit));
+  }
+
+  @Override
+  public boolean unlock(final String key, final String token) {
+    return call("EVAL", () -> delegate.unlock(key, token));
+  }
+
+  @Override
+  public boolean expire(final String key, final long timeout, final TimeUnit unit) {
+    return call("EXPIRE", () -> delegate.expire(key, timeout, unit));
+  }
+
+  @Override
+  public long getExpire(final String key, final TimeUnit unit) {
+    return call("TTL", () -> delegate.getExpire(key, unit));
+  }
+
+  @Override
+  public Boolean hasKey(final String key) {
+    return call("EXISTS", () -> delegate.hasKey(key));
+  }
+
+  @Override
+  public long increment(final String key, final long delta) {
+    return call("INCRBY", () -> delegate.increment(key, delta));
+  }
+
+  @Override
+  public long hIncrement(final String key, final String hKey, final long delta) {
+    return call("HINCRBY", () -> delegate.hIncrement(key, hKey, delta));
+  }
+
+  @Override
+  public <T> T getCacheObject(final String key) {
+    try {
+      return call("GET", () -> delegate.getCacheObject(key));
+    } catch (RedisUnavailableException e) {
+      log.debug("Redis unavailable, treating key={} as a miss: {}", key, e.getMessage());
+      return null;
+    }
+  }
+
+  @Override
+  public <T> T getCacheObject(final String key, final Class<T> clazz) {
+    try {
+      return call("GET", () -> delegate.getCacheObject(key, clazz));
+    } catch (RedisUnavailableException e) {
+      log.debug("Redis unavailable, treating key={} as a miss: {}", key, e.getMessage());
+      return null;
+    }
+  }
+
+  @Override
+  public boolean deleteObject(final String key) {
+    return call("DEL", () -> delegate.deleteObject(key));
+  }
+
+  @Override
+  public boolean deleteObject(final Collection<String> keys) {
+    return call("DEL", () -> delegate.deleteObject(keys));
+  }
+
+  @Override
+  public <T> BatchResult<T> getCacheObjects(final Collection<String> keys, final Class<T> clazz) {
+    return batch("MGET", keys, () -> delegate.getCacheObjects(keys, clazz));
+  }
+
+  @Override
+  public <T> BatchResult<Boolean> setCacheObjects(
+      final Map<String, T> values, final long timeout, final TimeUnit unit) {
+    return batch(
+        "SET",
+        values == null ? null : values.keySet(),
+        () -> delegate.setCacheObjects(values, timeout, unit));
+  }
+
+  @Override
+  public BatchResult<Boolean> deleteObjects(final Collection<String> keys) {
+    return batch("DEL", keys, () -> delegate.deleteObjects(keys));
+  }
+
+  @Override
+  public BatchResult<Boolean> expireAll(
+      final Collection<String> keys, final long timeout, final TimeUnit unit) {
+    return batch("EXPIRE", keys, () -> delegate.expireAll(keys, timeout, unit));
+  }
+
+  @Override
+  public <T> BatchResult<Map<String, T>> getCacheMaps(final Collection<String> keys) {
+    return batch("HGETALL", keys, () -> delegate.getCacheMaps(keys));
+  }
+
+  @Override
+  public <T> void setCacheMap(final String key, final Map<String, T> dataMap) {
+    run("HMSET", () -> delegate.setCacheMap(key, dataMap));
+  }
+
+  @Override
+  public <T> Map<String, T> getCacheMap(final String key) {
+    return call("HGETALL", () -> delegate.getCacheMap(key));
+  }
+
+  @Override
+  public <T> void setCacheMapValue(final String key, final String hKey, final T value) {
+    run("HSET", () -> delegate.setCacheMapValue(key, hKey, value));
+  }
+
+  @Override
+  public <T> T getCacheMapValue(final String key, final String hKey) {
+    return call("HGET", () -> delegate.getCacheMapValue(key, hKey));
+  }
+
+  @Override
+  public boolean deleteCacheMapValue(final String key, final String hKey) {
+    return call("HDEL", () -> delegate.deleteCacheMapValue(key, hKey));
+  }
+
+  @Override
+  public BatchResult<Boolean> mergeCounters(
+      final Map<String, CounterDelta> deltas, final long timeout, final TimeUnit unit) {
+    return batch(
+        "EVAL",
+        deltas == null ? null : deltas.keySet(),
+        () -> delegate.mergeCounters(deltas, timeout, unit));
+  }
+
+  @Override
+  public void executeBatch(final RedisBatch batch) {
+    run("PIPELINE", () -> delegate.executeBatch(batch));
+  }
+
+  @Override
+  public long scan(final String pattern, final Consumer<List<String>> consumer) {
+    // The consumer's own work is not Redis latency
+    return execute("SCAN", () -> delegate.scan(pattern, consumer), false);
+  }
+
+  @Override
+  public long scan(final String pattern, final int count, final Consumer<List<String>> consumer) {
+    return execute("SCAN", () -> delegate.scan(pattern, count, consumer), false);
+  }
+
+  @Override
+  public boolean zAdd(final String key, final String member, final double score) {
+    return call("ZADD", () -> delegate.zAdd(key, member, score));
+  }
+
+  @Override
+  public long zRemove(final String key, final Collection<String> members) {
+    return call("ZREM", () -> delegate.zRemove(key, members));
+  }
+
+  @Override
+  public long zRemoveRangeByScore(final String key, final double min, final double max) {
+    return call("ZREMRANGEBYSCORE", () -> delegate.zRemoveRangeByScore(key, min, max));
+  }
+
+  @Override
+  public List<String> zRevRange(final String key, final long start, final long end) {
+    return call("ZREVRANGE", () -> delegate.zRevRange(key, start, end));
+  }
+
+  @Override
+  public long zCard(final String key) {
+    return call("ZCARD", () -> delegate.zCard(key));
+  }
+
+  @Override
+  public long sAdd(final String key, final String... members) {
+    return call("SADD", () -> delegate.sAdd(key, members));
+  }
+
+  @Override
+  public long sRemove(final String key, final String... members) {
+    return call("SREM", () -> delegate.sRemove(key, members));
+  }
+
+  @Override
+  public Set<String> sMembers(final String key) {
+    return call("SMEMBERS", () -> delegate.sMembers(key));
+  }
+
+  @Override
+  public void publish(final String channel, final String message) {
+    bestEffort("PUBLISH", () -> delegate.publish(channel, message));
+  }
+
+  @Override
+  public void subscribe(final String channel, final Consumer<String> listener) {
+    // Registers with the listener container, which reconnects on its own
+    delegate.subscribe(channel, listener);
+  }
+
+  private <T> T execute(final String operation, final Supplier<T> call, final boolean timed) {
+    return breaker != null ? breaker.execute(operation, call, timed) : call.get();
+  }
+
+  private <T> T call(final String operation, final Supplier<T> call) {
+    return execute(operation, call, true);
+  }
+
+  private void run(final String operation, final Runnable call) {
+    execute(
+        operation,
+        () -> {
+          call.run();
+          return null;
+        },
+        true);
+  }
+
+  private void bestEffort(final String operation, final Runnable call) {
+    try {
+      run(operation, call);
+    } catch (RedisUnavailableException e) {
+      log.debug("Redis unavailable, skipped {}: {}", operation, e.getMessage());
+    }
+  }
+
+  private <R> BatchResult<R> batch(
+      final String operation,
+      final Collection<String> keys,
+      final Supplier<BatchResult<R>> call) {
+    try {
+      // Large batches are slow by nature: only their failures count
+      return execute(operation, call, false);
+    } catch (RedisUnavailableException e) {
+      BatchResult<R> result = new BatchResult<>();
+      if (keys != null) {
+        keys.forEach(key -> result.fail(key, e));
+      }
+      return result;
+    }
+  }
+}
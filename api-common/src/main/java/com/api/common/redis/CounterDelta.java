@@ -0,0 +1,31 @@
+package com.api.common.redis;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Changes to merge into the integer fields of one hash with {@link RedisCache#mergeCounters}:
+ * amounts to add, and values a field is raised ({@code maxima}) or lowered ({@code minima}) to.
+ */
+public record CounterDelta(
+    Map<String, Long> increments, Map<String, Long> maxima, Map<String, Long> minima) {
+
+  public CounterDelta() {
+    this(new LinkedHashMap<>(), new LinkedHashMap<>(), new LinkedHashMap<>());
+  }
+
+  public CounterDelta add(String field, long delta) {
+    increments.merge(field, delta, Long::sum);
+    return this;
+  }
+
+  public CounterDelta max(String field, long value) {
+    maxima.merge(field, value, Math::max);
+    return this;
+  }
+
+  public CounterDelta min(String field, long value) {
+    minima.merge(field, value, Math::min);
+    return this;
+  }
+}
@@ -0,0 +1,872 @@
+package com.api.common.redis;
+
+import com.api.common.redis.codec.RedisValueCodecs;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process {@link RedisCache} for single-node deployments and offline runs, active with the
+ * {@code standalone} profile (which also turns off the Redis auto-configuration).
+ *
+ * <p>Keys live in one concurrent map; every write to a key is atomic (a {@code compute} on it), so
+ * counters, leases and set updates behave like their Redis commands. Values are stored as bytes
+ * encoded exactly as they would be in Redis (value codecs for objects, JSON for hash fields), so
+ * callers never share mutable instances and see the same types back. Expired keys are dropped on
+ * access and by a sweeper every {@code redis.memory.sweepMillis}. Pub/sub delivers to the
+ * listeners of this JVM on the publishing thread.
+ *
+ * <p>Nothing is persisted or shared: sessions and caches do not survive a restart, and running
+ * more than one node on this profile gives each node its own view.
+ */
+@Slf4j
+@Component
+@Profile("standalone")
+@RequiredArgsConstructor
+@SuppressWarnings("unchecked")
+public class InMemoryRedisCache implements RedisCache {
+
+  private static final long PERSISTENT = 0L;
+
+  private final ObjectMapper objectMapper;
+  private final RedisValueCodecs codecs;
+
+  /** Same encoding as the template's value serializer. */
+  private final RedisSerializer<Object> serializer = RedisSerializer.json();
+
+  private final ConcurrentHashMap<String, Entry> store = new ConcurrentHashMap<>();
+
+  private final ConcurrentHashMap<String, List<Consumer<String>>> listeners =
+      new ConcurrentHashMap<>();
+
+  @Value("${redis.scan.count:1000}")
+  private int scanCount;
+
+  @Value("${redis.memory.sweepMillis:1000}")
+  private long sweepMillis;
+
+  private ScheduledExecutorService sweeper;
+
+  @PostConstruct
+  public void init() {
+    sweeper =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "in-memory-redis-sweeper");
+              thread.setDaemon(true);
+              return thread;
+            });
+    sweeper.scheduleWithFixedDelay(this::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    log.warn("Using the in-memory RedisCache: data is neither persisted nor shared across nodes");
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    sweeper.shutdownNow();
+  }
+
+  // ---------------------- Strings ----------------------
+
+  @Override
+  public <T> void setCacheObject(final String key, final T value) {
+    writeObject(key, value, PERSISTENT);
+  }
+
+  @Override
+  public <T> void setCacheObject(
+      final String key, final T value, final Integer timeout, final TimeUnit unit) {
+    writeObject(key, value, expireAt(timeout, unit));
+  }
+
+  private void writeObject(final String key, final Object value, final long expireAt) {
+    if (key == null || key.isBlank()) {
+      return;
+    }
+    if (value == null) {
+      deleteObject(key);
+      return;
+    }
+    try {
+      store.put(key, new Entry(codecs.encode(key, value), expireAt));
+    } catch (Exception e) {
+      log.error("Failed to write key={}", key, e);
+    }
+  }
+
+  @Override
+  public void setCacheBytes(
+      final String key, final byte[] value, final long timeout, final TimeUnit unit) {
+    if (key == null || key.isBlank() || value == null) {
+      return;
+    }
+    store.put(key, new Entry(value.clone(), expireAt(timeout, unit)));
+  }
+
+  @Override
+  public byte[] getCacheBytes(final String key) {
+    Entry entry = live(key);
+    return entry == null ? null : valueOf(entry, byte[].class, key).clone();
+  }
+
+  @Override
+  public List<byte[]> getCacheBytes(final List<String> keys) {
+    if (keys == null || keys.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<byte[]> values = new ArrayList<>(keys.size());
+    for (String key : keys) {
+      Entry entry = live(key);
+      // MGET answers nil for keys of another type
+      values.add(entry != null && entry.value instanceof byte[] b ? b.clone() : null);
+    }
+    return values;
+  }
+
+  @Override
+  public void replaceCacheBytes(final Map<String, byte[]> values) {
+    if (values == null || values.isEmpty()) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    values.forEach(
+        (key, value) ->
+            store.computeIfPresent(
+                key, (k, e) -> e.isExpired(now) ? null : new Entry(value.clone(), e.expireAt)));
+  }
+
+  @Override
+  public boolean tryLock(
+      final String key, final String token, final long timeout, final TimeUnit unit) {
+    byte[] rawToken = token.getBytes(StandardCharsets.UTF_8);
+    long expireAt = expireAt(timeout, unit);
+    boolean[] taken = new boolean[1];
+    store.compute(
+        key,
+        (k, e) -> {
+          if (e != null && !e.isExpired(System.currentTimeMillis())) {
+            return e;
+          }
+          taken[0] = true;
+          return new Entry(rawToken, expireAt);
+        });
+    return taken[0];
+  }
+
+  @Override
+  public boolean unlock(final String key, final String token) {
+    byte[] rawToken = token.getBytes(StandardCharsets.UTF_8);
+    boolean[] released = new boolean[1];
+    store.computeIfPresent(
+        key,
+        (k, e) -> {
+          if (e.isExpired(System.currentTimeMillis())) {
+            return null;
+          }
+          if (e.value instanceof byte[] b && Arrays.equals(b, rawToken)) {
+            released[0] = true;
+            return null;
+          }
+          return e;
+        });
+    return released[0];
+  }
+
+  @Override
+  public long increment(final String key, final long delta) {
+    long[] result = new long[1];
+    store.compute(
+        key,
+        (k, e) -> {
+          boolean exists = e != null && !e.isExpired(System.currentTimeMillis());
+          long current = exists ? parseInteger(valueOf(e, byte[].class, key)) : 0L;
+          result[0] = Math.addExact(current, delta);
+          return new Entry(integerBytes(result[0]), exists ? e.expireAt : PERSISTENT);
+        });
+    return result[0];
+  }
+
+  // ---------------------- Keys and TTL ----------------------
+
+  @Override
+  public boolean expire(final String key, final long timeout, final TimeUnit unit) {
+    boolean[] found = new boolean[1];
+    store.computeIfPresent(
+        key,
+        (k, e) -> {
+          if (e.isExpired(System.currentTimeMillis())) {
+            return null;
+          }
+          found[0] = true;
+          // A non-positive TTL deletes the key, as in Redis
+          return timeout > 0 ? e.withExpireAt(expireAt(timeout, unit)) : null;
+        });
+    return found[0];
+  }
+
+  @Override
+  public long getExpire(final String key, final TimeUnit unit) {
+    Entry entry = live(key);
+    if (entry == null) {
+      return -2L;
+    }
+    if (entry.expireAt == PERSISTENT) {
+      return -1L;
+    }
+    long remaining = Math.max(entry.expireAt - System.currentTimeMillis(), 0L);
+    return unit.convert(remaining, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public Boolean hasKey(final String key) {
+    return live(key) != null;
+  }
+
+  @Override
+  public <T> T getCacheObject(final String key) {
+    try {
+      return (T) readObject(getCacheBytes(key), Object.class);
+    } catch (Exception e) {
+      log.error("Failed to deserialize key={}", key, e);
+      return null;
+    }
+  }
+
+  @Override
+  public <T> T getCacheObject(final String key, final Class<T> clazz) {
+    try {
+      return readObject(getCacheBytes(key), clazz);
+    } catch (Exception e) {
+      log.error("Failed to deserialize key={} to {}", key, clazz.getSimpleName(), e);
+      return null;
+    }
+  }
+
+  /** Same decoding as {@link RedisTemplateCache}: framed values, else plain JSON (counters). */
+  private <T> T readObject(final byte[] bytes, final Class<T> clazz) throws Exception {
+    if (bytes == null) {
+      return null;
+    }
+    if (codecs.isFramed(bytes)) {
+      return codecs.decode(bytes, clazz);
+    }
+    Object value = serializer.deserialize(bytes);
+    if (value == null || clazz == Object.class || clazz.isInstance(value)) {
+      return (T) value;
+    }
+    if (clazz == String.class) {
+      return clazz.cast(value.toString());
+    }
+    return objectMapper.readValue(value.toString(), clazz);
+  }
+
+  @Override
+  public boolean deleteObject(final String key) {
+    Entry removed = store.remove(key);
+    return removed != null && !removed.isExpired(System.currentTimeMillis());
+  }
+
+  @Override
+  public boolean deleteObject(final Collection<String> keys) {
+    if (keys == null || keys.isEmpty()) {
+      return false;
+    }
+    boolean deleted = false;
+    for (String key : keys) {
+      deleted |= deleteObject(key);
+    }
+    return deleted;
+  }
+
+  // ---------------------- Batch operations ----------------------
+
+  @Override
+  public <T> BatchResult<T> getCacheObjects(final Collection<String> keys, final Class<T> clazz) {
+    BatchResult<T> result = new BatchResult<>();
+    if (keys == null) {
+      return result;
+    }
+    for (String key : keys) {
+      try {
+        Entry entry = live(key);
+        byte[] bytes = entry != null && entry.value instanceof byte[] b ? b : null;
+        result.success(key, readObject(bytes, clazz));
+      } catch (Exception e) {
+        result.fail(key, e);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public <T> BatchResult<Boolean> setCacheObjects(
+      final Map<String, T> values, final long timeout, final TimeUnit unit) {
+    BatchResult<Boolean> result = new BatchResult<>();
+    if (values == null) {
+      return result;
+    }
+    long expireAt = timeout > 0 ? expireAt(timeout, unit) : PERSISTENT;
+    values.forEach(
+        (key, value) -> {
+          if (value == null) {
+            return;
+          }
+          try {
+            store.put(key, new Entry(codecs.encode(key, value), expireAt));
+            result.success(key, Boolean.TRUE);
+          } catch (Exception e) {
+            result.fail(key, e);
+          }
+        });
+    return result;
+  }
+
+  @Override
+  public BatchResult<Boolean> deleteObjects(final Collection<String> keys) {
+    BatchResult<Boolean> result = new BatchResult<>();
+    if (keys != null) {
+      keys.forEach(key -> result.success(key, deleteObject(key)));
+    }
+    return result;
+  }
+
+  @Override
+  public BatchResult<Boolean> expireAll(
+      final Collection<String> keys, final long timeout, final TimeUnit unit) {
+    BatchResult<Boolean> result = new BatchResult<>();
+    if (keys != null) {
+      keys.forEach(key -> result.success(key, expire(key, timeout, unit)));
+    }
+    return result;
+  }
+
+  @Override
+  public <T> BatchResult<Map<String, T>> getCacheMaps(final Collection<String> keys) {
+    BatchResult<Map<String, T>> result = new BatchResult<>();
+    if (keys == null) {
+      return result;
+    }
+    for (String key : keys) {
+      try {
+        Map<String, T> map = getCacheMap(key);
+        result.success(key, map.isEmpty() ? null : map);
+      } catch (Exception e) {
+        result.fail(key, e);
+      }
+    }
+    return result;
+  }
+
+  // ---------------------- Hashes ----------------------
+
+  @Override
+  public <T> void setCacheMap(final String key, final Map<String, T> dataMap) {
+    if (dataMap == null || dataMap.isEmpty()) {
+      return;
+    }
+    Map<String, byte[]> encoded = new HashMap<>(dataMap.size());
+    dataMap.forEach((field, value) -> encoded.put(field, serializer.serialize(value)));
+    updateHash(key, hash -> hash.putAll(encoded));
+  }
+
+  @Override
+  public <T> Map<String, T> getCacheMap(final String key) {
+    Entry entry = live(key);
+    if (entry == null) {
+      return new HashMap<>();
+    }
+    Map<String, byte[]> hash = valueOf(entry, Map.class, key);
+    Map<String, T> result = new HashMap<>(hash.size());
+    hash.forEach((field, value) -> result.put(field, (T) serializer.deserialize(value)));
+    return result;
+  }
+
+  @Override
+  public <T> void setCacheMapValue(final String key, final String hKey, final T value) {
+    byte[] encoded = serializer.serialize(value);
+    updateHash(key, hash -> hash.put(hKey, encoded));
+  }
+
+  @Override
+  public <T> T getCacheMapValue(final String key, final String hKey) {
+    Entry entry = live(key);
+    if (entry == null) {
+      return null;
+    }
+    byte[] value = ((Map<String, byte[]>) valueOf(entry, Map.class, key)).get(hKey);
+    return value == null ? null : (T) serializer.deserialize(value);
+  }
+
+  @Override
+  public boolean deleteCacheMapValue(final String key, final String hKey) {
+    boolean[] removed = new boolean[1];
+    updateHash(key, hash -> removed[0] = hash.remove(hKey) != null);
+    return removed[0];
+  }
+
+  @Override
+  public long hIncrement(final String key, final String hKey, final long delta) {
+    long[] result = new long[1];
+    updateHash(
+        key,
+        hash -> {
+          byte[] current = hash.get(hKey);
+          result[0] = Math.addExact(current == null ? 0L : parseInteger(current), delta);
+          hash.put(hKey, integerBytes(result[0]));
+        });
+    return result[0];
+  }
+
+  @Override
+  public void executeBatch(final RedisBatch batch) {
+    if (batch != null) {
+      batch.commands().forEach(command -> command.applyTo(this));
+    }
+  }
+
+  @Override
+  public BatchResult<Boolean> mergeCounters(
+      final Map<String, CounterDelta> deltas, final long timeout, final TimeUnit unit) {
+    BatchResult<Boolean> result = new BatchResult<>();
+    if (deltas == null) {
+      return result;
+    }
+    long expireAt = timeout > 0 ? expireAt(timeout, unit) : PERSISTENT;
+    deltas.forEach(
+        (key, delta) -> {
+          try {
+            updateHash(key, hash -> merge(hash, delta), expireAt);
+            result.success(key, true);
+          } catch (RuntimeException e) {
+            result.fail(key, e);
+          }
+        });
+    return result;
+  }
+
+  private static void merge(final Map<String, byte[]> hash, final CounterDelta delta) {
+    delta
+        .increments()
+        .forEach(
+            (field, amount) -> {
+              byte[] current = hash.get(field);
+              long value = current == null ? 0L : parseInteger(current);
+              hash.put(field, integerBytes(Math.addExact(value, amount)));
+            });
+    delta.maxima().forEach((field, value) -> extend(hash, field, value, 1));
+    delta.minima().forEach((field, value) -> extend(hash, field, value, -1));
+  }
+
+  /** Store value unless the field already holds a number at least as far in that direction. */
+  private static void extend(
+      final Map<String, byte[]> hash, final String field, final long value, final int direction) {
+    byte[] current = hash.get(field);
+    if (current != null) {
+      try {
+        if (Long.compare(value, parseInteger(current)) * direction <= 0) {
+          return;
+        }
+      } catch (IllegalStateException e) {
+        // Not a number yet: overwrite, as the Lua merge does
+      }
+    }
+    hash.put(field, integerBytes(value));
+  }
+
+  /** Mutate the hash of a key atomically, creating it if needed and dropping it when emptied. */
+  private void updateHash(final String key, final Consumer<Map<String, byte[]>> update) {
+    updateHash(key, update, -1L);
+  }
+
+  /**
+   * As {@link #updateHash(String, Consumer)}, also setting the key's expiry unless {@code expireAt}
+   * is negative.
+   */
+  private void updateHash(
+      final String key, final Consumer<Map<String, byte[]>> update, final long expireAt) {
+    store.compute(
+        key,
+        (k, e) -> {
+          boolean exists = e != null && !e.isExpired(System.currentTimeMillis());
+          Map<String, byte[]> hash =
+              exists ? valueOf(e, Map.class, key) : new ConcurrentHashMap<>();
+          update.accept(hash);
+          if (hash.isEmpty()) {
+            return null;
+          }
+          if (expireAt >= 0) {
+            return exists ? e.withExpireAt(expireAt) : new Entry(hash, expireAt);
+          }
+          return exists ? e : new Entry(hash, PERSISTENT);
+        });
+  }
+
+  // ---------------------- Keyspace ----------------------
+
+  @Override
+  public long scan(final String pattern, final Consumer<List<String>> consumer) {
+    return scan(pattern, scanCount, consumer);
+  }
+
+  @Override
+  public long scan(final String pattern, final int count, final Consumer<List<String>> consumer) {
+    int chunkSize = Math.max(count, 1);
+    Pattern regex = globToRegex(pattern);
+    long now = System.currentTimeMillis();
+    long visited = 0;
+    List<String> chunk = new ArrayList<>(chunkSize);
+    // Weakly consistent, like a SCAN cursor: concurrent writes never fail the walk
+    for (Map.Entry<String, Entry> e : store.entrySet()) {
+      if (e.getValue().isExpired(now) || !regex.matcher(e.getKey()).matches()) {
+        continue;
+      }
+      chunk.add(e.getKey());
+      if (chunk.size() >= chunkSize) {
+        consumer.accept(chunk);
+        visited += chunk.size();
+        chunk = new ArrayList<>(chunkSize);
+      }
+    }
+    if (!chunk.isEmpty()) {
+      consumer.accept(chunk);
+      visited += chunk.size();
+    }
+    return visited;
+  }
+
+  // ---------------------- Sorted sets and sets ----------------------
+
+  @Override
+  public boolean zAdd(final String key, final String member, final double score) {
+    boolean[] added = new boolean[1];
+    store.compute(
+        key,
+        (k, e) -> {
+          boolean exists = e != null && !e.isExpired(System.currentTimeMillis());
+          ZSet zset = exists ? valueOf(e, ZSet.class, key) : new ZSet();
+          added[0] = zset.add(member, score);
+          return exists ? e : new Entry(zset, PERSISTENT);
+        });
+    return added[0];
+  }
+
+  @Override
+  public long zRemove(final String key, final Collection<String> members) {
+    if (members == null || members.isEmpty()) {
+      return 0L;
+    }
+    long[] removed = new long[1];
+    store.computeIfPresent(
+        key,
+        (k, e) -> {
+          if (e.isExpired(System.currentTimeMillis())) {
+            return null;
+          }
+          ZSet zset = valueOf(e, ZSet.class, key);
+          removed[0] = zset.remove(members);
+          return zset.size() == 0 ? null : e;
+        });
+    return removed[0];
+  }
+
+  @Override
+  public long zRemoveRangeByScore(final String key, final double min, final double max) {
+    long[] removed = new long[1];
+    store.computeIfPresent(
+        key,
+        (k, e) -> {
+          if (e.isExpired(System.currentTimeMillis())) {
+            return null;
+          }
+          ZSet zset = valueOf(e, ZSet.class, key);
+          removed[0] = zset.removeRangeByScore(min, max);
+          return zset.size() == 0 ? null : e;
+        });
+    return removed[0];
+  }
+
+  @Override
+  public List<String> zRevRange(final String key, final long start, final long end) {
+    Entry entry = live(key);
+    if (entry == null) {
+      return Collections.emptyList();
+    }
+    return valueOf(entry, ZSet.class, key).revRange(start, end);
+  }
+
+  @Override
+  public long zCard(final String key) {
+    Entry entry = live(key);
+    return entry == null ? 0L : valueOf(entry, ZSet.class, key).size();
+  }
+
+  @Override
+  public long sAdd(final String key, final String... members) {
+    long[] added = new long[1];
+    store.compute(
+        key,
+        (k, e) -> {
+          boolean exists = e != null && !e.isExpired(System.currentTimeMillis());
+          Set<String> set = exists ? valueOf(e, Set.class, key) : ConcurrentHashMap.newKeySet();
+          for (String member : members) {
+            added[0] += set.add(member) ? 1 : 0;
+          }
+          if (set.isEmpty()) {
+            return null;
+          }
+          return exists ? e : new Entry(set, PERSISTENT);
+        });
+    return added[0];
+  }
+
+  @Override
+  public long sRemove(final String key, final String... members) {
+    long[] removed = new long[1];
+    store.computeIfPresent(
+        key,
+        (k, e) -> {
+          if (e.isExpired(System.currentTimeMillis())) {
+            return null;
+          }
+          Set<String> set = valueOf(e, Set.class, key);
+          for (String member : members) {
+            removed[0] += set.remove(member) ? 1 : 0;
+          }
+          return set.isEmpty() ? null : e;
+        });
+    return removed[0];
+  }
+
+  @Override
+  public Set<String> sMembers(final String key) {
+    Entry entry = live(key);
+    if (entry == null) {
+      return Collections.emptySet();
+    }
+    return new HashSet<String>(valueOf(entry, Set.class, key));
+  }
+
+  // ---------------------- Pub/sub ----------------------
+
+  @Override
+  public void publish(final String channel, final String message) {
+    for (Consumer<String> listener : listeners.getOrDefault(channel, List.of())) {
+      try {
+        listener.accept(message);
+      } catch (Exception e) {
+        log.error("Failed to handle message on channel={}", channel, e);
+      }
+    }
+  }
+
+  @Override
+  public void subscribe(final String channel, final Consumer<String> listener) {
+    listeners.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(listener);
+  }
+
+  // ---------------------- Internals ----------------------
+
+  /** The entry of a key if it exists and has not expired. */
+  private Entry live(final String key) {
+    Entry entry = store.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.isExpired(System.currentTimeMillis())) {
+      store.remove(key, entry);
+      return null;
+    }
+    return entry;
+  }
+
+  private void sweep() {
+    try {
+      long now = System.currentTimeMillis();
+      store.entrySet().removeIf(e -> e.getValue().isExpired(now));
+    } catch (Exception e) {
+      log.warn("In-memory RedisCache sweep failed: {}", e.getMessage());
+    }
+  }
+
+  private static <V> V valueOf(final Entry entry, final Class<V> type, final String key) {
+    if (!type.isInstance(entry.value)) {
+      throw new IllegalStateException(
+          "WRONGTYPE Operation against a key holding the wrong kind of value: " + key);
+    }
+    return type.cast(entry.value);
+  }
+
+  private static long expireAt(final long timeout, final TimeUnit unit) {
+    return System.currentTimeMillis() + unit.toMillis(timeout);
+  }
+
+  private static long parseInteger(final byte[] bytes) {
+    try {
+      return Long.parseLong(new String(bytes, StandardCharsets.UTF_8));
+    } catch (NumberFormatException e) {
+      throw new IllegalStateException("ERR value is not an integer or out of range", e);
+    }
+  }
+
+  /** Counters are stored as decimal text, as Redis does. */
+  private static byte[] integerBytes(final long value) {
+    return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /** Translate a Redis glob ({@code * ? [abc] [^a] \x}) into a regex. */
+  static Pattern globToRegex(final String glob) {
+    StringBuilder regex = new StringBuilder(glob.length() + 8);
+    boolean inClass = false;
+    for (int i = 0; i < glob.length(); i++) {
+      char c = glob.charAt(i);
+      if (inClass) {
+        if (c == ']') {
+          inClass = false;
+          regex.append(']');
+        } else if (c == '\\' && i + 1 < glob.length()) {
+          regex.append('\\').append(glob.charAt(++i));
+        } else {
+          regex.append(c == '[' ? "\\[" : String.valueOf(c));
+        }
+        continue;
+      }
+      switch (c) {
+        case '*' -> regex.append(".*");
+        case '?' -> regex.append('.');
+        case '[' -> {
+          inClass = true;
+          regex.append('[');
+          if (i + 1 < glob.length() && glob.charAt(i + 1) == '^') {
+            regex.append('^');
+            i++;
+          }
+        }
+        case '\\' -> {
+          if (i + 1 < glob.length()) {
+            regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+          }
+        }
+        default -> regex.append(Pattern.quote(String.valueOf(c)));
+      }
+    }
+    if (inClass) {
+      regex.append(']');
+    }
+    return Pattern.compile(regex.toString(), Pattern.DOTALL);
+  }
+
+  /** A stored value (byte[], hash, set or sorted set) and its absolute expiry (0 = none). */
+  private static final class Entry {
+
+    final Object value;
+    final long expireAt;
+
+    Entry(Object value, long expireAt) {
+      this.value = value;
+      this.expireAt = expireAt;
+    }
+
+    boolean isExpired(long now) {
+      return expireAt != PERSISTENT && expireAt <= now;
+    }
+
+    Entry withExpireAt(long expireAt) {
+      return new Entry(value, expireAt);
+    }
+  }
+
+  /** Sorted set: member scores plus members ordered by (score, member), as in Redis. */
+  private static final class ZSet {
+
+    private static final Comparator<Map.Entry<String, Double>> ORDER =
+        Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey());
+
+    private final Map<String, Double> scores = new HashMap<>();
+    private final NavigableSet<Map.Entry<String, Double>> ordered = new TreeSet<>(ORDER);
+
+    synchronized boolean add(String member, double score) {
+      Double previous = scores.put(member, score);
+      if (previous != null) {
+        ordered.remove(Map.entry(member, previous));
+      }
+      ordered.add(Map.entry(member, score));
+      return previous == null;
+    }
+
+    synchronized long remove(Collection<String> members) {
+      long removed = 0;
+      for (String member : members) {
+        Double score = scores.remove(member);
+        if (score != null) {
+          ordered.remove(Map.entry(member, score));
+          removed++;
+        }
+      }
+      return removed;
+    }
+
+    synchronized long removeRangeByScore(double min, double max) {
+      long removed = 0;
+      for (var it = ordered.iterator(); it.hasNext(); ) {
+        Map.Entry<String, Double> entry = it.next();
+        if (entry.getValue() > max) {
+          break;
+        }
+        if (entry.getValue() >= min) {
+          it.remove();
+          scores.remove(entry.getKey());
+          removed++;
+        }
+      }
+      return removed;
+    }
+
+    synchronized int size() {
+      return scores.size();
+    }
+
+    synchronized List<String> revRange(long start, long end) {
+      int size = scores.size();
+      long from = start < 0 ? Math.max(size + start, 0) : start;
+      long to = end < 0 ? size + end : Math.min(end, size - 1L);
+      if (from > to || from >= size) {
+        return Collections.emptyList();
+      }
+      List<String> members = new ArrayList<>((int) (to - from + 1));
+      Iterator<Map.Entry<String, Double>> it = ordered.descendingIterator();
+      for (long rank = 0; it.hasNext() && rank <= to; rank++) {
+        String member = it.next().getKey();
+        if (rank >= from) {
+          members.add(member);
+        }
+      }
+      return members;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.api.common.redis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.springframework.data.redis.core.RedisOperations;
+
+/**
+ * Write commands sent together with {@link RedisCache#executeBatch}, in one pipeline per store.
+ * Commands run in order but not atomically, and their replies are not returned.
+ *
+ * <pre>{@code
+ * redisCache.executeBatch(
+ *     new RedisBatch().putAll(key, fields).expire(key, 30, TimeUnit.MINUTES).zAdd(index, id, 1));
+ * }</pre>
+ */
+public final class RedisBatch {
+
+  private final List<Command> commands = new ArrayList<>();
+
+  /** HSET of several fields. */
+  public RedisBatch putAll(String key, Map<String, ?> fields) {
+    if (fields != null && !fields.isEmpty()) {
+      commands.add(
+          new Command(
+              key,
+              cache -> cache.setCacheMap(key, fields),
+              ops -> ops.opsForHash().putAll(key, fields)));
+    }
+    return this;
+  }
+
+  /** EXPIRE; a non-positive timeout deletes the key, as in Redis. */
+  public RedisBatch expire(String key, long timeout, TimeUnit unit) {
+    commands.add(
+        new Command(
+            key, cache -> cache.expire(key, timeout, unit), ops -> ops.expire(key, timeout, unit)));
+    return this;
+  }
+
+  /** ZADD of one member. */
+  public RedisBatch zAdd(String key, String member, double score) {
+    commands.add(
+        new Command(
+            key,
+            cache -> cache.zAdd(key, member, score),
+            ops -> ops.opsForZSet().add(key, member, score)));
+    return this;
+  }
+
+  /** SADD. */
+  public RedisBatch sAdd(String key, String... members) {
+    commands.add(
+        new Command(
+            key,
+            cache -> cache.sAdd(key, members),
+            ops -> ops.opsForSet().add(key, (Object[]) members)));
+    return this;
+  }
+
+  public boolean isEmpty() {
+    return commands.isEmpty();
+  }
+
+  public List<Command> commands() {
+    return Collections.unmodifiableList(commands);
+  }
+
+  /** Append a command, e.g. when splitting a batch by shard. */
+  RedisBatch add(Command command) {
+    commands.add(command);
+    return this;
+  }
+
+  /**
+   * One write command on one key, runnable against a {@link RedisCache} one call at a time or
+   * queued on the {@link RedisOperations} of a pipeline.
+   */
+  public record Command(
+      String key,
+      Consumer<RedisCache> onCache,
+      Consumer<RedisOperations<Object, Object>> onPipeline) {
+
+    public void applyTo(RedisCache cache) {
+      onCache.accept(cache);
+    }
+
+    public void applyTo(RedisOperations<Object, Object> ops) {
+      onPipeline.accept(ops);
+    }
+  }
+}
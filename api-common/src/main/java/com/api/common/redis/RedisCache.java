@@ -1,171 +1,196 @@
 package com.api.common.redis;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.util.*;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.HashOperations;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
-import org.springframework.stereotype.Component;
-
-@Slf4j
-@Component
-@RequiredArgsConstructor
-@SuppressWarnings({"unchecked", "rawtypes"})
-public class RedisCache {
-
-  private final RedisTemplate<Object, Object> redisTemplate;
-  private final ObjectMapper objectMapper;
-
-  /** Store any object. String will be stored as raw string; others stored as JSON. */
-  public <T> void setCacheObject(final String key, final T value) {
-    if (key == null || key.isBlank()) {
-      return;
-    }
-    if (value == null) {
-      deleteObject(key);
-      return;
-    }
-    try {
-      if (value instanceof String str) {
-        redisTemplate.opsForValue().set(key, str);
-        return;
-      }
-      String json = objectMapper.writeValueAsString(value);
-      redisTemplate.opsForValue().set(key, json);
-    } catch (Exception e) {
-      log.error("Failed to write Redis key={}", key, e);
-    }
-  }
+import java.util.function.Consumer;
+
+/**
+ * Key-value store behind sessions, caches, rate limiting and metrics.
+ *
+ * <p>{@link RedisTemplateCache} talks to Redis; {@link InMemoryRedisCache} keeps everything in the
+ * JVM for single-node deployments and offline runs ({@code standalone} profile). Both follow Redis
+ * semantics: keys hold one type, expire on their own and disappear when their hash or set is
+ * emptied.
+ */
+public interface RedisCache {
+
+  /** Store any object without expiry, encoded with the value codec configured for the key. */
+  <T> void setCacheObject(String key, T value);
+
+  /** Store any object with expiration, encoded with the value codec configured for the key. */
+  <T> void setCacheObject(String key, T value, Integer timeout, TimeUnit unit);
+
+  /** Store raw bytes with expiration, bypassing the value codecs. */
+  void setCacheBytes(String key, byte[] value, long timeout, TimeUnit unit);
+
+  /** Raw bytes stored under a key, or null if absent. */
+  byte[] getCacheBytes(String key);
+
+  /** Raw bytes of several keys; absent keys yield null at their position. */
+  List<byte[]> getCacheBytes(List<String> keys);
+
+  /** Overwrite the raw bytes of keys that still exist, keeping their TTL. */
+  void replaceCacheBytes(Map<String, byte[]> values);
 
   /**
-   * Store any object with expiration. String will be stored as raw string; others stored as JSON.
+   * Take a short-lived lease identified by a caller token. Returns false if someone else holds it.
    */
-  public <T> void setCacheObject(
-      final String key, final T value, final Integer timeout, final TimeUnit unit) {
-    if (key == null || key.isBlank()) {
-      return;
-    }
-    if (value == null) {
-      deleteObject(key);
-      return;
-    }
-    try {
-      if (value instanceof String str) {
-        redisTemplate.opsForValue().set(key, str, timeout, unit);
-        return;
-      }
-      String json = objectMapper.writeValueAsString(value);
-      redisTemplate.opsForValue().set(key, json, timeout, unit);
-    } catch (Exception e) {
-      log.error("Failed to write Redis key={} with TTL", key, e);
-    }
-  }
+  boolean tryLock(String key, String token, long timeout, TimeUnit unit);
+
+  /** Release a lease taken with {@link #tryLock}, only if it is still held with the same token. */
+  boolean unlock(String key, String token);
 
-  public boolean expire(final String key, final long timeout) {
+  default boolean expire(String key, long timeout) {
     return expire(key, timeout, TimeUnit.SECONDS);
   }
 
-  public boolean expire(final String key, final long timeout, final TimeUnit unit) {
-    Boolean ok = redisTemplate.expire(key, timeout, unit);
-    return Boolean.TRUE.equals(ok);
-  }
+  boolean expire(String key, long timeout, TimeUnit unit);
 
-  public long getExpire(final String key) {
-    Long ttl = redisTemplate.getExpire(key);
-    return ttl == null ? -1L : ttl;
+  /** Remaining TTL in seconds; see {@link #getExpire(String, TimeUnit)}. */
+  default long getExpire(String key) {
+    return getExpire(key, TimeUnit.SECONDS);
   }
 
-  public Boolean hasKey(final String key) {
-    return redisTemplate.hasKey(key);
-  }
+  /**
+   * Remaining TTL in the given unit. Returns -2 when the key does not exist and -1 when it has no
+   * expiry.
+   */
+  long getExpire(String key, TimeUnit unit);
+
+  Boolean hasKey(String key);
 
   /**
-   * Raw get: returns the stored value as-is. - For JSON stored entries: returns JSON string - For
-   * String entries: returns raw string
+   * Atomically add to an integer counter (INCRBY), creating it at 0 without expiry.
+   *
+   * @return the value after the increment
    */
-  public <T> T getCacheObject(final String key) {
-    ValueOperations<String, T> operation = (ValueOperations) redisTemplate.opsForValue();
-    return operation.get(key);
-  }
+  long increment(String key, long delta);
 
-  /** Typed get: reads raw String or JSON String and converts to clazz. */
-  public <T> T getCacheObject(final String key, Class<T> clazz) {
-    try {
-      ValueOperations<Object, Object> ops = redisTemplate.opsForValue();
-      Object value = ops.get(key);
-      if (value == null) {
-        return null;
-      }
-
-      if (clazz.isInstance(value)) {
-        return clazz.cast(value);
-      }
-
-      // If it was stored as raw string and caller expects String
-      if (clazz == String.class) {
-        return clazz.cast(value.toString());
-      }
-
-      // Otherwise treat it as JSON
-      return objectMapper.readValue(value.toString(), clazz);
-    } catch (Exception e) {
-      log.error("Failed to deserialize Redis key={} to {}", key, clazz.getSimpleName(), e);
-      return null;
-    }
-  }
+  /**
+   * Atomically add to an integer field of a hash (HINCRBY), creating it at 0.
+   *
+   * @return the value after the increment
+   */
+  long hIncrement(String key, String hKey, long delta);
 
-  public boolean deleteObject(final String key) {
-    return Boolean.TRUE.equals(redisTemplate.delete(key));
-  }
+  /** Untyped get: returns the codec's natural representation (String, Number, Map, List...). */
+  <T> T getCacheObject(String key);
+
+  /** Typed get: decodes the stored value to clazz. */
+  <T> T getCacheObject(String key, Class<T> clazz);
+
+  boolean deleteObject(String key);
 
   /** Delete multiple keys. Returns true if at least one key was deleted. */
-  public boolean deleteObject(Collection<String> keys) {
-    if (keys == null || keys.isEmpty()) {
-      return false;
-    }
-    Long deleted =
-        redisTemplate.delete(
-            new ArrayList<>(keys)); // returns count :contentReference[oaicite:2]{index=2}
-    long count = deleted == null ? 0L : deleted;
-    log.debug("Deleted {} keys from Redis", count);
-    return count > 0;
-  }
+  boolean deleteObject(Collection<String> keys);
 
-  public <T> void setCacheMap(final String key, final Map<String, T> dataMap) {
-    if (dataMap != null) {
-      redisTemplate.opsForHash().putAll(key, dataMap);
-    }
-  }
+  // ---------------------- Batch operations ----------------------
 
-  public <T> Map<String, T> getCacheMap(final String key) {
-    Map<Object, Object> rawMap = redisTemplate.opsForHash().entries(key);
-    Map<String, T> result = new HashMap<>();
-    rawMap.forEach((mapKey, value) -> result.put(String.valueOf(mapKey), (T) value));
-    return result;
-  }
+  /**
+   * Typed multi-get. Absent keys are left out of the result; keys whose value cannot be converted
+   * are reported as failures.
+   */
+  <T> BatchResult<T> getCacheObjects(Collection<String> keys, Class<T> clazz);
 
-  public <T> void setCacheMapValue(final String key, final String hKey, final T value) {
-    redisTemplate.opsForHash().put(key, hKey, value);
-  }
+  /**
+   * Multi-set with the same encoding as {@link #setCacheObject(String, Object)}. A non-positive
+   * timeout stores the keys without expiry; null values are skipped. Results are {@code true} per
+   * written key.
+   */
+  <T> BatchResult<Boolean> setCacheObjects(Map<String, T> values, long timeout, TimeUnit unit);
 
-  public <T> T getCacheMapValue(final String key, final String hKey) {
-    HashOperations<String, String, T> opsForHash = (HashOperations) redisTemplate.opsForHash();
-    return opsForHash.get(key, hKey);
-  }
+  /** Per-key delete; each result tells whether that key existed. */
+  BatchResult<Boolean> deleteObjects(Collection<String> keys);
 
-  public boolean deleteCacheMapValue(final String key, final String hKey) {
-    return redisTemplate.opsForHash().delete(key, hKey) > 0;
-  }
+  /** Per-key expire; each result tells whether the key existed and got the new TTL. */
+  BatchResult<Boolean> expireAll(Collection<String> keys, long timeout, TimeUnit unit);
 
-  public Set<String> keys(final String pattern) {
-    Set<Object> rawKeys = redisTemplate.keys(pattern);
-    if (rawKeys == null) {
-      return Collections.emptySet();
-    }
-    return rawKeys.stream().map(Object::toString).collect(Collectors.toSet());
+  /** Whole hashes of several keys; keys with an empty or missing hash are left out. */
+  <T> BatchResult<Map<String, T>> getCacheMaps(Collection<String> keys);
+
+  // ---------------------- Hashes ----------------------
+
+  <T> void setCacheMap(String key, Map<String, T> dataMap);
+
+  <T> Map<String, T> getCacheMap(String key);
+
+  <T> void setCacheMapValue(String key, String hKey, T value);
+
+  <T> T getCacheMapValue(String key, String hKey);
+
+  boolean deleteCacheMapValue(String key, String hKey);
+
+  /**
+   * Merge counter changes into several hashes in one round trip. Each key is updated atomically:
+   * increments are added (HINCRBY), maxima and minima replace the field only if they extend it,
+   * and the key gets the given TTL (none if not positive). Results are {@code true} per merged key.
+   */
+  BatchResult<Boolean> mergeCounters(Map<String, CounterDelta> deltas, long timeout, TimeUnit unit);
+
+  /**
+   * Send several write commands in one round trip (one pipeline per store when sharded). Not
+   * atomic: a failure may leave some commands applied.
+   */
+  void executeBatch(RedisBatch batch);
+
+  // ---------------------- Keyspace ----------------------
+
+  /**
+   * All keys matching a pattern. Materializes every key: prefer {@link #scan(String, Consumer)}
+   * for prefixes that may hold many keys.
+   */
+  default Set<String> keys(String pattern) {
+    Set<String> keys = new HashSet<>();
+    scan(pattern, keys::addAll);
+    return keys;
   }
+
+  /** {@link #scan(String, int, Consumer)} with the configured {@code redis.scan.count}. */
+  long scan(String pattern, Consumer<List<String>> consumer);
+
+  /**
+   * Walk the keys matching a glob-style pattern and hand them to the consumer in chunks of at most
+   * {@code count} keys. A key may be seen twice, and keys written during the walk may be missed.
+   *
+   * @return number of keys visited
+   */
+  long scan(String pattern, int count, Consumer<List<String>> consumer);
+
+  // ---------------------- Sorted sets and sets ----------------------
+
+  /** Add (or re-score) a member of a sorted set; true if it was newly added. */
+  boolean zAdd(String key, String member, double score);
+
+  /** Remove members from a sorted set; returns the number removed. */
+  long zRemove(String key, Collection<String> members);
+
+  /** Remove the members scored within [min, max]; returns the number removed. */
+  long zRemoveRangeByScore(String key, double min, double max);
+
+  /** Members of a sorted set by rank, highest score first (inclusive range, negative from end). */
+  List<String> zRevRange(String key, long start, long end);
+
+  /** Number of members in a sorted set. */
+  long zCard(String key);
+
+  /** Add members to a set; returns the number newly added. */
+  long sAdd(String key, String... members);
+
+  /** Remove members from a set; returns the number removed. */
+  long sRemove(String key, String... members);
+
+  /** All members of a set. */
+  Set<String> sMembers(String key);
+
+  // ---------------------- Pub/sub ----------------------
+
+  /** Publish a message to a pub/sub channel (delivered to every subscribed node). */
+  void publish(String channel, String message);
+
+  /** Subscribe to a pub/sub channel. The listener receives the published string payload. */
+  void subscribe(String channel, Consumer<String> listener);
 }
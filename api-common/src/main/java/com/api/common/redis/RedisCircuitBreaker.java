@@ -0,0 +1,297 @@
+package com.api.common.redis;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Circuit breaker in front of Redis, so a slow or unreachable server costs callers nothing instead
+ * of a command timeout per call.
+ *
+ * <p>The outcome of the last {@code redis.breaker.windowSize} calls is kept. Once at least {@code
+ * minimumCalls} are recorded, the breaker opens when the share of failed calls reaches {@code
+ * failureRateThreshold} percent, or the share of calls slower than {@code slowCallMillis} reaches
+ * {@code slowCallRateThreshold} percent. While open, calls fail at once with {@link
+ * RedisUnavailableException}. After {@code openMillis} it lets {@code halfOpenProbes} calls
+ * through: if all succeed quickly it closes, any failed or slow probe opens it again.
+ *
+ * <p>Only connection and command errors ({@link DataAccessException}) count as failures; errors
+ * of the caller, such as a value that cannot be decoded, do not.
+ *
+ * <p>With sharding, this bean guards the primary connection and every other shard gets its own
+ * breaker with the same settings ({@link #forShard}), so one unreachable shard does not cut off
+ * the others.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisCircuitBreaker {
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private static final byte OK = 0;
+  private static final byte FAILED = 1;
+  private static final byte SLOW = 2;
+
+  private final RedisFaultInjector faults;
+
+  /** Shard guarded by this breaker, null for the primary connection. */
+  private String shard;
+
+  @Value("${redis.breaker.enabled:true}")
+  private boolean enabled;
+
+  @Value("${redis.breaker.windowSize:100}")
+  private int windowSize;
+
+  @Value("${redis.breaker.minimumCalls:20}")
+  private int minimumCalls;
+
+  @Value("${redis.breaker.failureRateThreshold:50}")
+  private int failureRateThreshold;
+
+  @Value("${redis.breaker.slowCallMillis:250}")
+  private long slowCallMillis;
+
+  @Value("${redis.breaker.slowCallRateThreshold:80}")
+  private int slowCallRateThreshold;
+
+  @Value("${redis.breaker.openMillis:5000}")
+  private long openMillis;
+
+  @Value("${redis.breaker.halfOpenProbes:5}")
+  private int halfOpenProbes;
+
+  private volatile State state = State.CLOSED;
+  private volatile long openedAt;
+
+  private final AtomicInteger probePermits = new AtomicInteger();
+  private final AtomicInteger probeSuccesses = new AtomicInteger();
+
+  /** Ring of recent outcomes, guarded by {@code this}. */
+  private byte[] outcomes;
+
+  private int cursor;
+  private int recorded;
+  private int failures;
+  private int slowCalls;
+
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder failedCalls = new LongAdder();
+  private final LongAdder slowCallsTotal = new LongAdder();
+  private final LongAdder rejectedCalls = new LongAdder();
+  private final LongAdder trips = new LongAdder();
+
+  /**
+   * Run a Redis call through the breaker.
+   *
+   * @param operation name used in logs and exception messages
+   * @param call the call
+   * @param timed whether the call's latency counts (false for calls that run caller code, e.g.
+   *     SCAN consumers)
+   * @throws RedisUnavailableException if the breaker is open or the call failed in Redis
+   */
+  public <T> T execute(String operation, Supplier<T> call, boolean timed) {
+    if (!enabled) {
+      faults.apply();
+      return call.get();
+    }
+    boolean probe = acquire();
+    long start = System.nanoTime();
+    try {
+      faults.apply();
+      T result = call.get();
+      long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      onResult(probe, timed && millis >= slowCallMillis ? SLOW : OK);
+      return result;
+    } catch (DataAccessException e) {
+      onResult(probe, FAILED);
+      throw new RedisUnavailableException("Redis " + operation + " failed: " + e.getMessage(), e);
+    } catch (RuntimeException e) {
+      onResult(probe, OK);
+      throw e;
+    }
+  }
+
+  /**
+   * A new breaker with this one's settings for another shard; it trips independently.
+   *
+   * @param shard shard name, used in logs and exception messages
+   */
+  public RedisCircuitBreaker forShard(String shard) {
+    RedisCircuitBreaker breaker = new RedisCircuitBreaker(faults);
+    breaker.shard = shard;
+    breaker.enabled = enabled;
+    breaker.windowSize = windowSize;
+    breaker.minimumCalls = minimumCalls;
+    breaker.failureRateThreshold = failureRateThreshold;
+    breaker.slowCallMillis = slowCallMillis;
+    breaker.slowCallRateThreshold = slowCallRateThreshold;
+    breaker.openMillis = openMillis;
+    breaker.halfOpenProbes = halfOpenProbes;
+    return breaker;
+  }
+
+  /**
+   * Whether calls are currently let through. Lets callers skip optional work (e.g. metrics) without
+   * even trying while Redis is known to be down.
+   */
+  public boolean isAvailable() {
+    if (!enabled) {
+      return true;
+    }
+    State current = state;
+    if (current == State.OPEN) {
+      return System.currentTimeMillis() - openedAt >= openMillis;
+    }
+    return current == State.CLOSED || probePermits.get() > 0;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  /** Snapshot for monitoring endpoints. */
+  public synchronized Map<String, Object> snapshot() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("shard", shard);
+    map.put("enabled", enabled);
+    map.put("state", state.name());
+    map.put("windowCalls", recorded);
+    map.put("windowFailureRate", percent(failures, recorded));
+    map.put("windowSlowCallRate", percent(slowCalls, recorded));
+    map.put("calls", calls.sum());
+    map.put("failedCalls", failedCalls.sum());
+    map.put("slowCalls", slowCallsTotal.sum());
+    map.put("rejectedCalls", rejectedCalls.sum());
+    map.put("trips", trips.sum());
+    map.put("slowCallMillis", slowCallMillis);
+    map.put("openMillis", openMillis);
+    map.put("faultInjection", faults.isEnabled());
+    map.put("injectedDelayMillis", faults.getDelayMillis());
+    map.put("injectedFailureRate", faults.getFailureRate());
+    return map;
+  }
+
+  /** @return true if the call runs as a half-open probe */
+  private boolean acquire() {
+    State current = state;
+    if (current == State.CLOSED) {
+      return false;
+    }
+    if (current == State.OPEN
+        && (System.currentTimeMillis() - openedAt < openMillis || !toHalfOpen())) {
+      throw rejected();
+    }
+    if (probePermits.getAndDecrement() > 0) {
+      return true;
+    }
+    throw rejected();
+  }
+
+  private RedisUnavailableException rejected() {
+    rejectedCalls.increment();
+    return new RedisUnavailableException(label() + " is " + state);
+  }
+
+  private synchronized boolean toHalfOpen() {
+    if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+      probePermits.set(halfOpenProbes);
+      probeSuccesses.set(0);
+      state = State.HALF_OPEN;
+      log.info("{} half-open: probing with {} calls", label(), halfOpenProbes);
+    }
+    return state == State.HALF_OPEN;
+  }
+
+  private void onResult(boolean probe, byte outcome) {
+    calls.increment();
+    if (outcome == FAILED) {
+      failedCalls.increment();
+    } else if (outcome == SLOW) {
+      slowCallsTotal.increment();
+    }
+    if (probe) {
+      onProbeResult(outcome);
+    } else {
+      record(outcome);
+    }
+  }
+
+  private synchronized void onProbeResult(byte outcome) {
+    if (state != State.HALF_OPEN) {
+      return;
+    }
+    if (outcome != OK) {
+      open("probe " + (outcome == FAILED ? "failed" : "was slow"));
+    } else if (probeSuccesses.incrementAndGet() >= halfOpenProbes) {
+      resetWindow();
+      state = State.CLOSED;
+      log.info("{} closed: Redis is responding again", label());
+    }
+  }
+
+  private synchronized void record(byte outcome) {
+    if (state != State.CLOSED) {
+      return; // a call that started before the breaker opened
+    }
+    if (outcomes == null || outcomes.length != Math.max(windowSize, 1)) {
+      outcomes = new byte[Math.max(windowSize, 1)];
+      cursor = recorded = failures = slowCalls = 0;
+    }
+    if (recorded == outcomes.length) {
+      byte evicted = outcomes[cursor];
+      failures -= evicted == FAILED ? 1 : 0;
+      slowCalls -= evicted == SLOW ? 1 : 0;
+    } else {
+      recorded++;
+    }
+    outcomes[cursor] = outcome;
+    cursor = (cursor + 1) % outcomes.length;
+    failures += outcome == FAILED ? 1 : 0;
+    slowCalls += outcome == SLOW ? 1 : 0;
+
+    if (recorded < minimumCalls) {
+      return;
+    }
+    if (failures * 100 >= failureRateThreshold * recorded) {
+      open(percent(failures, recorded) + "% of recent calls failed");
+    } else if (slowCalls * 100 >= slowCallRateThreshold * recorded) {
+      open(percent(slowCalls, recorded) + "% of recent calls took over " + slowCallMillis + "ms");
+    }
+  }
+
+  private void open(String reason) {
+    state = State.OPEN;
+    openedAt = System.currentTimeMillis();
+    probePermits.set(0);
+    resetWindow();
+    trips.increment();
+    log.warn("{} opened for {}ms: {}", label(), openMillis, reason);
+  }
+
+  private void resetWindow() {
+    cursor = recorded = failures = slowCalls = 0;
+    outcomes = null;
+  }
+
+  private String label() {
+    return shard == null ? "Redis circuit breaker" : "Redis circuit breaker of shard " + shard;
+  }
+
+  private static double percent(int part, int total) {
+    return total == 0 ? 0.0 : Math.round(part * 1000.0 / total) / 10.0;
+  }
+}
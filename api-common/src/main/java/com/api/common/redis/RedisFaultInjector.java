@@ -0,0 +1,71 @@
+package com.api.common.redis;
+
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Simulates a slow or failing Redis for resilience testing: every call guarded by {@link
+ * RedisCircuitBreaker} is delayed by {@code redis.faults.delayMillis} and fails with a connection
+ * error at {@code redis.faults.failureRate} (0..1).
+ *
+ * <p>Inert unless {@code redis.faults.enabled=true}, e.g. in a test profile; tests then change the
+ * faults between steps with {@link #configure}.
+ */
+@Slf4j
+@Component
+public class RedisFaultInjector {
+
+  @Value("${redis.faults.enabled:false}")
+  private boolean enabled;
+
+  @Value("${redis.faults.delayMillis:0}")
+  private volatile long delayMillis;
+
+  @Value("${redis.faults.failureRate:0}")
+  private volatile double failureRate;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public long getDelayMillis() {
+    return delayMillis;
+  }
+
+  public double getFailureRate() {
+    return failureRate;
+  }
+
+  /** Change the injected faults; rejected unless fault injection is enabled. */
+  public void configure(long delayMillis, double failureRate) {
+    if (!enabled) {
+      throw new IllegalStateException("Redis fault injection is disabled (redis.faults.enabled)");
+    }
+    this.delayMillis = Math.max(delayMillis, 0);
+    this.failureRate = Math.min(Math.max(failureRate, 0), 1);
+    log.warn(
+        "Redis fault injection: delay={}ms, failureRate={}", this.delayMillis, this.failureRate);
+  }
+
+  /** Apply the configured faults to one call. */
+  void apply() {
+    if (!enabled) {
+      return;
+    }
+    long delay = delayMillis;
+    if (delay > 0) {
+      try {
+        Thread.sleep(delay);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    double rate = failureRate;
+    if (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) {
+      throw new RedisConnectionFailureException("Injected Redis fault");
+    }
+  }
+}
@@ -0,0 +1,811 @@
+package com.api.common.redis;
+
+import com.api.common.redis.codec.RedisValueCodecs;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link RedisCache} backed by {@link RedisTemplate}; active unless the standalone profile is.
+ *
+ * <p>Connection and command errors propagate as Spring {@code DataAccessException}s so {@link
+ * CircuitBreakingRedisCache}, the bean callers actually get, can count them.
+ */
+@Slf4j
+@Component
+@Profile("!standalone")
+@RequiredArgsConstructor
+@SuppressWarnings({"unchecked", "rawtypes"})
+public class RedisTemplateCache implements RedisCache {
+
+  /** Keys per MGET / pipeline, keeping single replies and server buffers bounded. */
+  private static final int BATCH_CHUNK = 500;
+
+  /** Compare-and-delete, so a lease that expired and was re-taken is not released by mistake. */
+  private static final byte[] UNLOCK_SCRIPT =
+      ("if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) "
+              + "else return 0 end")
+          .getBytes(StandardCharsets.UTF_8);
+
+  /**
+   * Counter merge: HINCRBY the increments, then raise or lower fields to the maxima and minima
+   * (fields that do not hold a number yet are overwritten), then PEXPIRE if a TTL is given. Sent
+   * by SHA1 with EVALSHA; see {@link #mergeCounters}.
+   */
+  private static final RedisScript<Long> MERGE_COUNTERS_SCRIPT =
+      RedisScript.of(
+          """
+      local i = 4
+      for _ = 1, tonumber(ARGV[2]) do
+        redis.call('hincrby', KEYS[1], ARGV[i - 1], ARGV[i])
+        i = i + 2
+      end
+      local maxima = tonumber(ARGV[i - 1])
+      i = i + 1
+      local n = 0
+      while i <= #ARGV do
+        local value = tonumber(ARGV[i])
+        local current = tonumber(redis.call('hget', KEYS[1], ARGV[i - 1]))
+        if not current or (n < maxima and value > current) or (n >= maxima and value < current) then
+          redis.call('hset', KEYS[1], ARGV[i - 1], ARGV[i])
+        end
+        n = n + 1
+        i = i + 2
+      end
+      if tonumber(ARGV[1]) > 0 then
+        redis.call('pexpire', KEYS[1], ARGV[1])
+      end
+      return 1
+      """,
+          Long.class);
+
+  private final RedisTemplate<Object, Object> redisTemplate;
+  private final ObjectMapper objectMapper;
+  private final RedisMessageListenerContainer listenerContainer;
+  private final RedisValueCodecs codecs;
+
+  @Value("${redis.scan.count:1000}")
+  private int scanCount;
+
+  /** Store any object, encoded with the value codec configured for the key. */
+  @Override
+  public <T> void setCacheObject(final String key, final T value) {
+    writeObject(key, value, Expiration.persistent());
+  }
+
+  /** Store any object with expiration, encoded with the value codec configured for the key. */
+  @Override
+  public <T> void setCacheObject(
+      final String key, final T value, final Integer timeout, final TimeUnit unit) {
+    writeObject(key, value, Expiration.from(timeout, unit));
+  }
+
+  private void writeObject(final String key, final Object value, final Expiration expiration) {
+    if (key == null || key.isBlank()) {
+      return;
+    }
+    if (value == null) {
+      deleteObject(key);
+      return;
+    }
+    byte[] bytes;
+    try {
+      bytes = codecs.encode(key, value);
+    } catch (Exception e) {
+      log.error("Failed to encode Redis key={}", key, e);
+      return;
+    }
+    writeBytes(key, bytes, expiration);
+  }
+
+  /**
+   * Store raw bytes with expiration, bypassing the template's JSON value serializer. Used for
+   * values that carry their own binary encoding (e.g. login sessions).
+   */
+  @Override
+  public void setCacheBytes(
+      final String key, final byte[] value, final long timeout, final TimeUnit unit) {
+    if (key == null || key.isBlank() || value == null) {
+      return;
+    }
+    writeBytes(key, value, Expiration.from(timeout, unit));
+  }
+
+  private void writeBytes(final String key, final byte[] value, final Expiration expiration) {
+    byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+    redisTemplate.execute(
+        (RedisCallback<Boolean>)
+            connection ->
+                connection.stringCommands().set(rawKey, value, expiration, SetOption.upsert()));
+  }
+
+  /** Read raw bytes stored under a key, or null if absent. */
+  @Override
+  public byte[] getCacheBytes(final String key) {
+    byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+    return redisTemplate.execute(
+        (RedisCallback<byte[]>) connection -> connection.stringCommands().get(rawKey));
+  }
+
+  /** Read raw bytes of several keys with one MGET; absent keys yield null at their position. */
+  @Override
+  public List<byte[]> getCacheBytes(final List<String> keys) {
+    if (keys == null || keys.isEmpty()) {
+      return Collections.emptyList();
+    }
+    byte[][] rawKeys =
+        keys.stream().map(k -> k.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+    List<byte[]> values =
+        redisTemplate.execute(
+            (RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(rawKeys));
+    return values != null ? values : Collections.nCopies(keys.size(), null);
+  }
+
+  /**
+   * Overwrite the raw bytes of keys that still exist, keeping their TTL (SET XX KEEPTTL), in one
+   * pipeline. Keys that expired in the meantime are not recreated.
+   */
+  @Override
+  public void replaceCacheBytes(final Map<String, byte[]> values) {
+    if (values == null || values.isEmpty()) {
+      return;
+    }
+    redisTemplate.executePipelined(
+        (RedisCallback<Object>)
+            connection -> {
+              values.forEach(
+                  (key, value) ->
+                      connection
+                          .stringCommands()
+                          .set(
+                              key.getBytes(StandardCharsets.UTF_8),
+                              value,
+                              Expiration.keepTtl(),
+                              SetOption.ifPresent()));
+              return null;
+            });
+  }
+
+  /**
+   * Take a short-lived lease (SET NX PX) identified by a caller token. Returns false if someone
+   * else holds it.
+   */
+  @Override
+  public boolean tryLock(
+      final String key, final String token, final long timeout, final TimeUnit unit) {
+    byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+    byte[] rawToken = token.getBytes(StandardCharsets.UTF_8);
+    Boolean ok =
+        redisTemplate.execute(
+            (RedisCallback<Boolean>)
+                connection ->
+                    connection
+                        .stringCommands()
+                        .set(
+                            rawKey,
+                            rawToken,
+                            Expiration.from(timeout, unit),
+                            SetOption.ifAbsent()));
+    return Boolean.TRUE.equals(ok);
+  }
+
+  /** Release a lease taken with {@link #tryLock}, only if it is still held with the same token. */
+  @Override
+  public boolean unlock(final String key, final String token) {
+    byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+    byte[] rawToken = token.getBytes(StandardCharsets.UTF_8);
+    Long released =
+        redisTemplate.execute(
+            (RedisCallback<Long>)
+                connection ->
+                    connection
+                        .scriptingCommands()
+                        .eval(UNLOCK_SCRIPT, ReturnType.INTEGER, 1, rawKey, rawToken));
+    return released != null && released > 0;
+  }
+
+  @Override
+  public boolean expire(final String key, final long timeout, final TimeUnit unit) {
+    Boolean ok = redisTemplate.expire(key, timeout, unit);
+    return Boolean.TRUE.equals(ok);
+  }
+
+  /**
+   * Remaining TTL in the given unit (PTTL when milliseconds). Returns -2 when the key does not
+   * exist and -1 when it has no expiry.
+   */
+  @Override
+  public long getExpire(final String key, final TimeUnit unit) {
+    Long ttl = redisTemplate.getExpire(key, unit);
+    return ttl == null ? -1L : ttl;
+  }
+
+  @Override
+  public Boolean hasKey(final String key) {
+    return redisTemplate.hasKey(key);
+  }
+
+  @Override
+  public long increment(final String key, final long delta) {
+    Long value = redisTemplate.opsForValue().increment(key, delta);
+    return value == null ? 0L : value;
+  }
+
+  @Override
+  public long hIncrement(final String key, final String hKey, final long delta) {
+    Long value = redisTemplate.opsForHash().increment(key, hKey, delta);
+    return value == null ? 0L : value;
+  }
+
+  /**
+   * Untyped get: returns the codec's natural representation (String, Number, Map, List...). Values
+   * written before the codec layer are returned as the template deserializes them.
+   */
+  @Override
+  public <T> T getCacheObject(final String key) {
+    byte[] bytes = getCacheBytes(key);
+    try {
+      return (T) readObject(bytes, Object.class);
+    } catch (Exception e) {
+      log.error("Failed to deserialize Redis key={}", key, e);
+      return null;
+    }
+  }
+
+  /** Typed get: decodes the stored value to clazz. */
+  @Override
+  public <T> T getCacheObject(final String key, Class<T> clazz) {
+    byte[] bytes = getCacheBytes(key);
+    try {
+      return readObject(bytes, clazz);
+    } catch (Exception e) {
+      log.error("Failed to deserialize Redis key={} to {}", key, clazz.getSimpleName(), e);
+      return null;
+    }
+  }
+
+  /** Decode stored bytes, falling back to the legacy template/JSON-string encoding. */
+  private <T> T readObject(byte[] bytes, Class<T> clazz) throws Exception {
+    if (bytes == null) {
+      return null;
+    }
+    if (codecs.isFramed(bytes)) {
+      return codecs.decode(bytes, clazz);
+    }
+    Object legacy = redisTemplate.getValueSerializer().deserialize(bytes);
+    return clazz == Object.class ? (T) legacy : convert(legacy, clazz);
+  }
+
+  private <T> T convert(Object value, Class<T> clazz) throws Exception {
+    if (value == null) {
+      return null;
+    }
+
+    if (clazz.isInstance(value)) {
+      return clazz.cast(value);
+    }
+
+    // If it was stored as raw string and caller expects String
+    if (clazz == String.class) {
+      return clazz.cast(value.toString());
+    }
+
+    // Otherwise treat it as JSON
+    return objectMapper.readValue(value.toString(), clazz);
+  }
+
+  @Override
+  public boolean deleteObject(final String key) {
+    return Boolean.TRUE.equals(redisTemplate.delete(key));
+  }
+
+  /** Delete multiple keys. Returns true if at least one key was deleted. */
+  @Override
+  public boolean deleteObject(Collection<String> keys) {
+    if (keys == null || keys.isEmpty()) {
+      return false;
+    }
+    Long deleted =
+        redisTemplate.delete(
+            new ArrayList<>(keys)); // returns count :contentReference[oaicite:2]{index=2}
+    long count = deleted == null ? 0L : deleted;
+    log.debug("Deleted {} keys from Redis", count);
+    return count > 0;
+  }
+
+  // ---------------------- Batch operations ----------------------
+
+  /**
+   * Typed multi-get: one MGET per chunk of keys. Absent keys are left out of the result; keys whose
+   * value cannot be converted, or whose chunk failed, are reported as failures.
+   */
+  @Override
+  public <T> BatchResult<T> getCacheObjects(final Collection<String> keys, final Class<T> clazz) {
+    BatchResult<T> result = new BatchResult<>();
+    for (List<String> chunk : chunks(keys)) {
+      List<byte[]> values;
+      try {
+        values = getCacheBytes(chunk);
+      } catch (Exception e) {
+        log.error("Redis MGET failed for {} keys", chunk.size(), e);
+        chunk.forEach(key -> result.fail(key, e));
+        continue;
+      }
+      for (int i = 0; i < chunk.size(); i++) {
+        String key = chunk.get(i);
+        try {
+          result.success(key, readObject(values.get(i), clazz));
+        } catch (Exception e) {
+          result.fail(key, e);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Pipelined multi-set with the same encoding as {@link #setCacheObject(String, Object)}. A
+   * non-positive timeout stores the keys without expiry; null values are skipped. Results are
+   * {@code true} per written key.
+   */
+  @Override
+  public <T> BatchResult<Boolean> setCacheObjects(
+      final Map<String, T> values, final long timeout, final TimeUnit unit) {
+    if (values == null || values.isEmpty()) {
+      return new BatchResult<>();
+    }
+    Expiration expiration =
+        timeout > 0 ? Expiration.from(timeout, unit) : Expiration.persistent();
+    Map<String, byte[]> encoded = new LinkedHashMap<>(values.size());
+    BatchResult<Boolean> invalid = new BatchResult<>();
+    values.forEach(
+        (key, value) -> {
+          if (value == null) {
+            return;
+          }
+          try {
+            encoded.put(key, codecs.encode(key, value));
+          } catch (Exception e) {
+            invalid.fail(key, e);
+          }
+        });
+    BatchResult<Boolean> result =
+        pipeline(
+            encoded.keySet(),
+            (ops, key) ->
+                ops.execute(
+                    (RedisCallback<Boolean>)
+                        connection ->
+                            connection
+                                .stringCommands()
+                                .set(
+                                    key.getBytes(StandardCharsets.UTF_8),
+                                    encoded.get(key),
+                                    expiration,
+                                    SetOption.upsert())),
+            raw -> Boolean.TRUE);
+    invalid.failures().forEach(result::fail);
+    return result;
+  }
+
+  /** Pipelined per-key delete; each result tells whether that key existed. */
+  @Override
+  public BatchResult<Boolean> deleteObjects(final Collection<String> keys) {
+    return pipeline(keys, RedisOperations::delete, RedisTemplateCache::isPositive);
+  }
+
+  /** Pipelined EXPIRE; each result tells whether the key existed and got the new TTL. */
+  @Override
+  public BatchResult<Boolean> expireAll(
+      final Collection<String> keys, final long timeout, final TimeUnit unit) {
+    return pipeline(
+        keys, (ops, key) -> ops.expire(key, timeout, unit), RedisTemplateCache::isPositive);
+  }
+
+  /**
+   * One {@link #MERGE_COUNTERS_SCRIPT} EVALSHA per key, pipelined, so only the SHA1 and the
+   * arguments go over the wire. Keys rejected with NOSCRIPT (the server restarted, failed over or
+   * flushed its script cache) never ran: the script is loaded once and those keys are retried.
+   */
+  @Override
+  public BatchResult<Boolean> mergeCounters(
+      final Map<String, CounterDelta> deltas, final long timeout, final TimeUnit unit) {
+    if (deltas == null || deltas.isEmpty()) {
+      return new BatchResult<>();
+    }
+    long ttlMillis = timeout > 0 ? unit.toMillis(timeout) : 0L;
+    BatchResult<Boolean> first = evalMergeCounters(deltas.keySet(), deltas, ttlMillis);
+    Set<String> noScript = new LinkedHashSet<>();
+    for (Map.Entry<String, Exception> failure : first.failures().entrySet()) {
+      if (isNoScript(failure.getValue())) {
+        noScript.add(failure.getKey());
+      }
+    }
+    if (noScript.isEmpty()) {
+      return first;
+    }
+    try {
+      redisTemplate.execute(
+          (RedisCallback<String>)
+              connection ->
+                  connection
+                      .scriptingCommands()
+                      .scriptLoad(
+                          MERGE_COUNTERS_SCRIPT
+                              .getScriptAsString()
+                              .getBytes(StandardCharsets.UTF_8)));
+    } catch (Exception e) {
+      log.warn("Failed to load the counter merge script: {}", e.getMessage());
+      return first;
+    }
+    BatchResult<Boolean> retried = evalMergeCounters(noScript, deltas, ttlMillis);
+    BatchResult<Boolean> result = new BatchResult<>();
+    for (String key : deltas.keySet()) {
+      BatchResult<Boolean> outcome = noScript.contains(key) ? retried : first;
+      Exception failure = outcome.failures().get(key);
+      if (failure != null) {
+        result.fail(key, failure);
+      } else {
+        result.success(key, outcome.get(key));
+      }
+    }
+    return result;
+  }
+
+  private BatchResult<Boolean> evalMergeCounters(
+      final Collection<String> keys, final Map<String, CounterDelta> deltas, final long ttlMillis) {
+    String sha1 = MERGE_COUNTERS_SCRIPT.getSha1();
+    return pipeline(
+        keys,
+        (ops, key) ->
+            ops.execute(
+                (RedisCallback<Long>)
+                    connection ->
+                        connection
+                            .scriptingCommands()
+                            .evalSha(
+                                sha1,
+                                ReturnType.INTEGER,
+                                1,
+                                mergeArgs(key, deltas.get(key), ttlMillis))),
+        RedisTemplateCache::isPositive);
+  }
+
+  private static boolean isNoScript(final Throwable error) {
+    for (Throwable t = error; t != null; t = t.getCause()) {
+      if (t.getMessage() != null && t.getMessage().contains("NOSCRIPT")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** The batch's commands queued on one pipeline (chunked like other pipelines). */
+  @Override
+  public void executeBatch(final RedisBatch batch) {
+    if (batch == null || batch.isEmpty()) {
+      return;
+    }
+    List<RedisBatch.Command> commands = batch.commands();
+    for (int from = 0; from < commands.size(); from += BATCH_CHUNK) {
+      List<RedisBatch.Command> chunk =
+          commands.subList(from, Math.min(from + BATCH_CHUNK, commands.size()));
+      redisTemplate.executePipelined(
+          new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+              RedisOperations<Object, Object> ops = (RedisOperations) operations;
+              chunk.forEach(command -> command.applyTo(ops));
+              return null;
+            }
+          });
+    }
+  }
+
+  /** KEYS[1], TTL, increment count, increment pairs, maxima count, maxima pairs, minima pairs. */
+  private static byte[][] mergeArgs(final String key, final CounterDelta delta, final long ttl) {
+    List<byte[]> args = new ArrayList<>();
+    args.add(key.getBytes(StandardCharsets.UTF_8));
+    args.add(bytes(ttl));
+    args.add(bytes(delta.increments().size()));
+    delta.increments().forEach((field, value) -> addPair(args, field, value));
+    args.add(bytes(delta.maxima().size()));
+    delta.maxima().forEach((field, value) -> addPair(args, field, value));
+    delta.minima().forEach((field, value) -> addPair(args, field, value));
+    return args.toArray(new byte[0][]);
+  }
+
+  private static void addPair(final List<byte[]> args, final String field, final long value) {
+    args.add(field.getBytes(StandardCharsets.UTF_8));
+    args.add(bytes(value));
+  }
+
+  private static byte[] bytes(final long value) {
+    return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /** Pipelined HGETALL; keys with an empty or missing hash are left out of the result. */
+  @Override
+  public <T> BatchResult<Map<String, T>> getCacheMaps(final Collection<String> keys) {
+    return pipeline(
+        keys,
+        (ops, key) -> ops.opsForHash().entries(key),
+        raw -> {
+          if (!(raw instanceof Map<?, ?> map) || map.isEmpty()) {
+            return null;
+          }
+          Map<String, T> entries = new HashMap<>(map.size());
+          map.forEach((k, v) -> entries.put(String.valueOf(k), (T) v));
+          return entries;
+        });
+  }
+
+  /**
+   * Run one command per key in pipelines of {@link #BATCH_CHUNK} keys. When a pipeline reports
+   * errors, only the keys whose command failed are marked failed; a chunk that cannot be sent at
+   * all fails as a whole.
+   */
+  private <R> BatchResult<R> pipeline(
+      final Collection<String> keys,
+      final BiConsumer<RedisOperations<Object, Object>, String> command,
+      final Function<Object, R> mapper) {
+    BatchResult<R> result = new BatchResult<>();
+    for (List<String> chunk : chunks(keys)) {
+      List<Object> replies;
+      try {
+        replies =
+            redisTemplate.executePipelined(
+                new SessionCallback<Object>() {
+                  @Override
+                  public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<Object, Object> ops = (RedisOperations) operations;
+                    chunk.forEach(key -> command.accept(ops, key));
+                    return null;
+                  }
+                });
+      } catch (RedisPipelineException e) {
+        replies = e.getPipelineResult().stream().map(this::deserializeRaw).toList();
+      } catch (Exception e) {
+        log.error("Redis pipeline failed for {} keys", chunk.size(), e);
+        chunk.forEach(key -> result.fail(key, e));
+        continue;
+      }
+      for (int i = 0; i < chunk.size(); i++) {
+        String key = chunk.get(i);
+        Object reply = i < replies.size() ? replies.get(i) : null;
+        if (reply instanceof Exception e) {
+          result.fail(key, e);
+          continue;
+        }
+        try {
+          result.success(key, mapper.apply(reply));
+        } catch (Exception e) {
+          result.fail(key, e);
+        }
+      }
+    }
+    if (result.hasFailures()) {
+      log.warn("Redis batch finished with {} failed keys", result.failures().size());
+    }
+    return result;
+  }
+
+  /** Deserialize a raw reply from a failed pipeline the way the template would have. */
+  private Object deserializeRaw(Object raw) {
+    if (raw instanceof byte[] bytes) {
+      return redisTemplate.getValueSerializer().deserialize(bytes);
+    }
+    if (raw instanceof Map<?, ?> map) {
+      Map<Object, Object> decoded = new HashMap<>(map.size());
+      map.forEach(
+          (k, v) ->
+              decoded.put(
+                  k instanceof byte[] kb ? redisTemplate.getHashKeySerializer().deserialize(kb) : k,
+                  v instanceof byte[] vb
+                      ? redisTemplate.getHashValueSerializer().deserialize(vb)
+                      : v));
+      return decoded;
+    }
+    return raw;
+  }
+
+  private static Boolean isPositive(Object raw) {
+    if (raw instanceof Boolean b) {
+      return b;
+    }
+    return raw instanceof Number n && n.longValue() > 0;
+  }
+
+  private static List<List<String>> chunks(final Collection<String> keys) {
+    if (keys == null || keys.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<String> all = new ArrayList<>(keys);
+    List<List<String>> chunks = new ArrayList<>((all.size() + BATCH_CHUNK - 1) / BATCH_CHUNK);
+    for (int i = 0; i < all.size(); i += BATCH_CHUNK) {
+      chunks.add(all.subList(i, Math.min(i + BATCH_CHUNK, all.size())));
+    }
+    return chunks;
+  }
+
+  @Override
+  public <T> void setCacheMap(final String key, final Map<String, T> dataMap) {
+    if (dataMap != null) {
+      redisTemplate.opsForHash().putAll(key, dataMap);
+    }
+  }
+
+  @Override
+  public <T> Map<String, T> getCacheMap(final String key) {
+    Map<Object, Object> rawMap = redisTemplate.opsForHash().entries(key);
+    Map<String, T> result = new HashMap<>();
+    rawMap.forEach((mapKey, value) -> result.put(String.valueOf(mapKey), (T) value));
+    return result;
+  }
+
+  @Override
+  public <T> void setCacheMapValue(final String key, final String hKey, final T value) {
+    redisTemplate.opsForHash().put(key, hKey, value);
+  }
+
+  @Override
+  public <T> T getCacheMapValue(final String key, final String hKey) {
+    HashOperations<String, String, T> opsForHash = (HashOperations) redisTemplate.opsForHash();
+    return opsForHash.get(key, hKey);
+  }
+
+  @Override
+  public boolean deleteCacheMapValue(final String key, final String hKey) {
+    return redisTemplate.opsForHash().delete(key, hKey) > 0;
+  }
+
+  /** {@link #scan(String, int, Consumer)} with the configured {@code redis.scan.count}. */
+  @Override
+  public long scan(final String pattern, final Consumer<List<String>> consumer) {
+    return scan(pattern, scanCount, consumer);
+  }
+
+  /**
+   * Walk the keys matching a pattern with a SCAN cursor and hand them to the consumer in chunks of
+   * at most {@code count} keys. The next SCAN step is only sent once the consumer returns, so a
+   * slow consumer (e.g. one that pipelines a fetch per chunk) throttles the walk instead of the
+   * keyspace being buffered. As with SCAN itself, a key may be seen twice if the keyspace is
+   * rehashed during the walk.
+   *
+   * @param pattern glob-style MATCH pattern
+   * @param count COUNT hint and maximum chunk size
+   * @param consumer receives each chunk; the list is not reused afterwards
+   * @return number of keys visited
+   */
+  @Override
+  public long scan(final String pattern, final int count, final Consumer<List<String>> consumer) {
+    int chunkSize = Math.max(count, 1);
+    ScanOptions options = ScanOptions.scanOptions().match(pattern).count(chunkSize).build();
+    long visited = 0;
+    List<String> chunk = new ArrayList<>(chunkSize);
+    try (Cursor<Object> cursor = redisTemplate.scan(options)) {
+      while (cursor.hasNext()) {
+        chunk.add(cursor.next().toString());
+        if (chunk.size() >= chunkSize) {
+          consumer.accept(chunk);
+          visited += chunk.size();
+          chunk = new ArrayList<>(chunkSize);
+        }
+      }
+    }
+    if (!chunk.isEmpty()) {
+      consumer.accept(chunk);
+      visited += chunk.size();
+    }
+    return visited;
+  }
+
+  /** Add (or re-score) a member of a sorted set. */
+  @Override
+  public boolean zAdd(final String key, final String member, final double score) {
+    return Boolean.TRUE.equals(redisTemplate.opsForZSet().add(key, member, score));
+  }
+
+  /** Remove members from a sorted set; returns the number removed. */
+  @Override
+  public long zRemove(final String key, final Collection<String> members) {
+    if (members == null || members.isEmpty()) {
+      return 0L;
+    }
+    Long removed = redisTemplate.opsForZSet().remove(key, members.toArray());
+    return removed == null ? 0L : removed;
+  }
+
+  /** Remove the members scored within [min, max] (ZREMRANGEBYSCORE). */
+  @Override
+  public long zRemoveRangeByScore(final String key, final double min, final double max) {
+    Long removed = redisTemplate.opsForZSet().removeRangeByScore(key, min, max);
+    return removed == null ? 0L : removed;
+  }
+
+  /** Members of a sorted set by rank, highest score first (inclusive range). */
+  @Override
+  public List<String> zRevRange(final String key, final long start, final long end) {
+    Set<Object> members = redisTemplate.opsForZSet().reverseRange(key, start, end);
+    if (members == null) {
+      return Collections.emptyList();
+    }
+    return members.stream().map(Object::toString).collect(Collectors.toList());
+  }
+
+  /** Number of members in a sorted set. */
+  @Override
+  public long zCard(final String key) {
+    Long size = redisTemplate.opsForZSet().zCard(key);
+    return size == null ? 0L : size;
+  }
+
+  /** Add members to a set; returns the number newly added. */
+  @Override
+  public long sAdd(final String key, final String... members) {
+    Long added = redisTemplate.opsForSet().add(key, (Object[]) members);
+    return added == null ? 0L : added;
+  }
+
+  /** Remove members from a set; returns the number removed. */
+  @Override
+  public long sRemove(final String key, final String... members) {
+    Long removed = redisTemplate.opsForSet().remove(key, (Object[]) members);
+    return removed == null ? 0L : removed;
+  }
+
+  /** All members of a set. */
+  @Override
+  public Set<String> sMembers(final String key) {
+    Set<Object> members = redisTemplate.opsForSet().members(key);
+    if (members == null) {
+      return Collections.emptySet();
+    }
+    return members.stream().map(Object::toString).collect(Collectors.toSet());
+  }
+
+  /** Publish a message to a pub/sub channel (delivered to every subscribed node). */
+  @Override
+  public void publish(final String channel, final String message) {
+    redisTemplate.convertAndSend(channel, message);
+  }
+
+  /** Subscribe to a pub/sub channel. The listener receives the published string payload. */
+  @Override
+  public void subscribe(final String channel, final Consumer<String> listener) {
+    listenerContainer.addMessageListener(
+        (message, pattern) -> {
+          try {
+            Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            listener.accept(body == null ? null : body.toString());
+          } catch (Exception e) {
+            log.error("Failed to handle message on Redis channel={}", channel, e);
+          }
+        },
+        new ChannelTopic(channel));
+  }
+}
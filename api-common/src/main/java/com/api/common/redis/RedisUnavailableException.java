@@ -0,0 +1,18 @@
+package com.api.common.redis;
+
+/**
+ * Redis could not serve a call: the circuit breaker is open, or the call failed at the connection
+ * or command level. Callers with a degraded mode catch this and fall back.
+ */
+public class RedisUnavailableException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public RedisUnavailableException(String message) {
+    super(message);
+  }
+
+  public RedisUnavailableException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,488 @@
+package com.api.common.redis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link RedisCache} partitioned across several stores (Redis servers or in-memory stand-ins).
+ *
+ * <p>A key goes to the shard of the longest matching prefix rule (e.g. sessions to one server,
+ * metrics to another); any other key is placed on a consistent-hash ring of the shards marked as
+ * hashed, so adding a shard moves only a fraction of the keys. For keys of the families listed as
+ * hash-tagged, only the part between the first {@code {} and the next {@code }} is hashed, as with
+ * Redis Cluster, so related keys can be kept together. Other keys are hashed whole: braces in them
+ * are data, e.g. the {@code {userId}} of a URI template inside a metrics key, and must not pile
+ * every such key onto one shard. Pub/sub channels are routed like keys, so publishers and
+ * subscribers of a channel always meet on the same shard.
+ *
+ * <p>Multi-key calls are split per shard, sent as one call per shard and merged back in request
+ * order. Keyspace scans visit every shard. Shards are usually each wrapped in a {@link
+ * CircuitBreakingRedisCache}, so a shard that is down only fails the keys it owns.
+ */
+@Slf4j
+public class ShardedRedisCache implements RedisCache {
+
+  /** A store and whether it takes part in the consistent-hash ring. */
+  public record Shard(String name, RedisCache cache, boolean hashed) {}
+
+  private final List<Shard> shards;
+
+  /** Prefix rules, longest prefix first. */
+  private final List<Map.Entry<String, Shard>> prefixRules;
+
+  private final NavigableMap<Long, Shard> ring = new TreeMap<>();
+
+  /** Key prefixes whose {@code {tag}} decides the shard. */
+  private final List<String> hashTagPrefixes;
+
+  private final List<Runnable> closers;
+
+  /**
+   * @param shards the stores
+   * @param prefixRoutes key prefix to shard name
+   * @param hashTagPrefixes key prefixes whose {@code {tag}} is hashed instead of the whole key
+   * @param virtualNodes ring positions per hashed shard; more spreads keys more evenly
+   * @param closers run on {@link #shutdown()} to release the stores' connections
+   */
+  public ShardedRedisCache(
+      List<Shard> shards,
+      Map<String, String> prefixRoutes,
+      Collection<String> hashTagPrefixes,
+      int virtualNodes,
+      List<Runnable> closers) {
+    if (shards.isEmpty()) {
+      throw new IllegalArgumentException("At least one Redis shard is required");
+    }
+    this.shards = List.copyOf(shards);
+    this.closers = List.copyOf(closers);
+    this.hashTagPrefixes = List.copyOf(hashTagPrefixes);
+
+    Map<String, Shard> byName = new LinkedHashMap<>();
+    shards.forEach(shard -> byName.put(shard.name(), shard));
+    List<Map.Entry<String, Shard>> rules = new ArrayList<>();
+    prefixRoutes.forEach(
+        (prefix, name) -> {
+          Shard shard = byName.get(name);
+          if (shard == null) {
+            throw new IllegalArgumentException(
+                "Unknown Redis shard for prefix " + prefix + ": " + name);
+          }
+          rules.add(Map.entry(prefix, shard));
+        });
+    rules.sort(Comparator.comparingInt(e -> -e.getKey().length()));
+    this.prefixRules = List.copyOf(rules);
+
+    for (Shard shard : shards) {
+      if (!shard.hashed()) {
+        continue;
+      }
+      for (int i = 0; i < Math.max(virtualNodes, 1); i++) {
+        ring.put(hash(shard.name() + "#" + i), shard);
+      }
+    }
+    if (ring.isEmpty()) {
+      throw new IllegalArgumentException("At least one Redis shard must be hashed");
+    }
+    log.info(
+        "Redis sharding: shards={}, prefixes={}, hashTagPrefixes={}, virtualNodes={}",
+        byName.keySet(),
+        prefixRoutes,
+        hashTagPrefixes,
+        virtualNodes);
+  }
+
+  /** Shard that owns a key (or channel). */
+  public Shard shardFor(final String key) {
+    for (Map.Entry<String, Shard> rule : prefixRules) {
+      if (key.startsWith(rule.getKey())) {
+        return rule.getValue();
+      }
+    }
+    Map.Entry<Long, Shard> entry = ring.ceilingEntry(hash(hashed(key)));
+    return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+  }
+
+  public List<Shard> getShards() {
+    return shards;
+  }
+
+  /** Release every shard's connections. */
+  public void shutdown() {
+    for (Runnable closer : closers) {
+      try {
+        closer.run();
+      } catch (Exception e) {
+        log.warn("Failed to close a Redis shard: {}", e.getMessage());
+      }
+    }
+  }
+
+  // ---------------------- Single-key operations ----------------------
+
+  @Override
+  public <T> void setCacheObject(final String key, final T value) {
+    cache(key).setCacheObject(key, value);
+  }
+
+  @Override
+  public <T> void setCacheObject(
+      final String key, final T value, final Integer timeout, final TimeUnit unit) {
+    cache(key).setCacheObject(key, value, timeout, unit);
+  }
+
+  @Override
+  public void setCacheBytes(
+      final String key, final byte[] value, final long timeout, final TimeUnit unit) {
+    cache(key).setCacheBytes(key, value, timeout, unit);
+  }
+
+  @Override
+  public byte[] getCacheBytes(final String key) {
+    return cache(key).getCacheBytes(key);
+  }
+
+  @Override
+  public boolean tryLock(
+      final String key, final String token, final long timeout, final TimeUnit unit) {
+    return cache(key).tryLock(key, token, timeout, unit);
+  }
+
+  @Override
+  public boolean unlock(final String key, final String token) {
+    return cache(key).unlock(key, token);
+  }
+
+  @Override
+  public boolean expire(final String key, final long timeout, final TimeUnit unit) {
+    return cache(key).expire(key, timeout, unit);
+  }
+
+  @Override
+  public long getExpire(final String key, final TimeUnit unit) {
+    return cache(key).getExpire(key, unit);
+  }
+
+  @Override
+  public Boolean hasKey(final String key) {
+    return cache(key).hasKey(key);
+  }
+
+  @Override
+  public long increment(final String key, final long delta) {
+    return cache(key).increment(key, delta);
+  }
+
+  @Override
+  public long hIncrement(final String key, final String hKey, final long delta) {
+    return cache(key).hIncrement(key, hKey, delta);
+  }
+
+  @Override
+  public <T> T getCacheObject(final String key) {
+    return cache(key).getCacheObject(key);
+  }
+
+  @Override
+  public <T> T getCacheObject(final String key, final Class<T> clazz) {
+    return cache(key).getCacheObject(key, clazz);
+  }
+
+  @Override
+  public boolean deleteObject(final String key) {
+    return cache(key).deleteObject(key);
+  }
+
+  @Override
+  public <T> void setCacheMap(final String key, final Map<String, T> dataMap) {
+    cache(key).setCacheMap(key, dataMap);
+  }
+
+  @Override
+  public <T> Map<String, T> getCacheMap(final String key) {
+    return cache(key).getCacheMap(key);
+  }
+
+  @Override
+  public <T> void setCacheMapValue(final String key, final String hKey, final T value) {
+    cache(key).setCacheMapValue(key, hKey, value);
+  }
+
+  @Override
+  public <T> T getCacheMapValue(final String key, final String hKey) {
+    return cache(key).getCacheMapValue(key, hKey);
+  }
+
+  @Override
+  public boolean deleteCacheMapValue(final String key, final String hKey) {
+    return cache(key).deleteCacheMapValue(key, hKey);
+  }
+
+  @Override
+  public boolean zAdd(final String key, final String member, final double score) {
+    return cache(key).zAdd(key, member, score);
+  }
+
+  @Override
+  public long zRemove(final String key, final Collection<String> members) {
+    return cache(key).zRemove(key, members);
+  }
+
+  @Override
+  public long zRemoveRangeByScore(final String key, final double min, final double max) {
+    return cache(key).zRemoveRangeByScore(key, min, max);
+  }
+
+  @Override
+  public List<String> zRevRange(final String key, final long start, final long end) {
+    return cache(key).zRevRange(key, start, end);
+  }
+
+  @Override
+  public long zCard(final String key) {
+    return cache(key).zCard(key);
+  }
+
+  @Override
+  public long sAdd(final String key, final String... members) {
+    return cache(key).sAdd(key, members);
+  }
+
+  @Override
+  public long sRemove(final String key, final String... members) {
+    return cache(key).sRemove(key, members);
+  }
+
+  @Override
+  public Set<String> sMembers(final String key) {
+    return cache(key).sMembers(key);
+  }
+
+  @Override
+  public void publish(final String channel, final String message) {
+    cache(channel).publish(channel, message);
+  }
+
+  @Override
+  public void subscribe(final String channel, final Consumer<String> listener) {
+    cache(channel).subscribe(channel, listener);
+  }
+
+  // ---------------------- Multi-key operations, one call per shard ----------------------
+
+  @Override
+  public List<byte[]> getCacheBytes(final List<String> keys) {
+    if (keys == null || keys.isEmpty()) {
+      return Collections.emptyList();
+    }
+    Map<Shard, List<Integer>> positions = new LinkedHashMap<>();
+    for (int i = 0; i < keys.size(); i++) {
+      positions.computeIfAbsent(shardFor(keys.get(i)), s -> new ArrayList<>()).add(i);
+    }
+    byte[][] values = new byte[keys.size()][];
+    positions.forEach(
+        (shard, indexes) -> {
+          List<byte[]> part = shard.cache().getCacheBytes(indexes.stream().map(keys::get).toList());
+          for (int i = 0; i < indexes.size(); i++) {
+            values[indexes.get(i)] = i < part.size() ? part.get(i) : null;
+          }
+        });
+    return Arrays.asList(values);
+  }
+
+  @Override
+  public void replaceCacheBytes(final Map<String, byte[]> values) {
+    if (values == null || values.isEmpty()) {
+      return;
+    }
+    Map<Shard, Map<String, byte[]>> groups = new LinkedHashMap<>();
+    values.forEach(
+        (key, value) ->
+            groups.computeIfAbsent(shardFor(key), s -> new LinkedHashMap<>()).put(key, value));
+    groups.forEach((shard, part) -> shard.cache().replaceCacheBytes(part));
+  }
+
+  @Override
+  public boolean deleteObject(final Collection<String> keys) {
+    boolean deleted = false;
+    for (Map.Entry<Shard, List<String>> group : group(keys).entrySet()) {
+      deleted |= group.getKey().cache().deleteObject(group.getValue());
+    }
+    return deleted;
+  }
+
+  @Override
+  public <T> BatchResult<T> getCacheObjects(final Collection<String> keys, final Class<T> clazz) {
+    return batch(keys, (cache, part) -> cache.getCacheObjects(part, clazz));
+  }
+
+  @Override
+  public <T> BatchResult<Boolean> setCacheObjects(
+      final Map<String, T> values, final long timeout, final TimeUnit unit) {
+    if (values == null || values.isEmpty()) {
+      return new BatchResult<>();
+    }
+    Map<Shard, Map<String, T>> groups = new LinkedHashMap<>();
+    values.forEach(
+        (key, value) ->
+            groups.computeIfAbsent(shardFor(key), s -> new LinkedHashMap<>()).put(key, value));
+    List<BatchResult<Boolean>> parts = new ArrayList<>();
+    groups.forEach((shard, part) -> parts.add(shard.cache().setCacheObjects(part, timeout, unit)));
+    return merge(values.keySet(), parts);
+  }
+
+  @Override
+  public BatchResult<Boolean> mergeCounters(
+      final Map<String, CounterDelta> deltas, final long timeout, final TimeUnit unit) {
+    if (deltas == null || deltas.isEmpty()) {
+      return new BatchResult<>();
+    }
+    Map<Shard, Map<String, CounterDelta>> groups = new LinkedHashMap<>();
+    deltas.forEach(
+        (key, delta) ->
+            groups.computeIfAbsent(shardFor(key), s -> new LinkedHashMap<>()).put(key, delta));
+    List<BatchResult<Boolean>> parts = new ArrayList<>();
+    groups.forEach((shard, part) -> parts.add(shard.cache().mergeCounters(part, timeout, unit)));
+    return merge(deltas.keySet(), parts);
+  }
+
+  @Override
+  public void executeBatch(final RedisBatch batch) {
+    if (batch == null || batch.isEmpty()) {
+      return;
+    }
+    Map<Shard, RedisBatch> groups = new LinkedHashMap<>();
+    for (RedisBatch.Command command : batch.commands()) {
+      groups.computeIfAbsent(shardFor(command.key()), s -> new RedisBatch()).add(command);
+    }
+    groups.forEach((shard, part) -> shard.cache().executeBatch(part));
+  }
+
+  @Override
+  public BatchResult<Boolean> deleteObjects(final Collection<String> keys) {
+    return batch(keys, RedisCache::deleteObjects);
+  }
+
+  @Override
+  public BatchResult<Boolean> expireAll(
+      final Collection<String> keys, final long timeout, final TimeUnit unit) {
+    return batch(keys, (cache, part) -> cache.expireAll(part, timeout, unit));
+  }
+
+  @Override
+  public <T> BatchResult<Map<String, T>> getCacheMaps(final Collection<String> keys) {
+    return batch(keys, RedisCache::getCacheMaps);
+  }
+
+  @Override
+  public long scan(final String pattern, final Consumer<List<String>> consumer) {
+    long visited = 0;
+    for (Shard shard : shards) {
+      visited += shard.cache().scan(pattern, consumer);
+    }
+    return visited;
+  }
+
+  @Override
+  public long scan(final String pattern, final int count, final Consumer<List<String>> consumer) {
+    long visited = 0;
+    for (Shard shard : shards) {
+      visited += shard.cache().scan(pattern, count, consumer);
+    }
+    return visited;
+  }
+
+  private RedisCache cache(final String key) {
+    return shardFor(key).cache();
+  }
+
+  private Map<Shard, List<String>> group(final Collection<String> keys) {
+    Map<Shard, List<String>> groups = new LinkedHashMap<>();
+    if (keys != null) {
+      keys.forEach(key -> groups.computeIfAbsent(shardFor(key), s -> new ArrayList<>()).add(key));
+    }
+    return groups;
+  }
+
+  private <R> BatchResult<R> batch(
+      final Collection<String> keys,
+      final BiFunction<RedisCache, List<String>, BatchResult<R>> call) {
+    List<BatchResult<R>> parts = new ArrayList<>();
+    group(keys).forEach((shard, part) -> parts.add(call.apply(shard.cache(), part)));
+    return merge(keys, parts);
+  }
+
+  /** Merge the per-shard results back into the order the keys were requested in. */
+  private static <R> BatchResult<R> merge(
+      final Collection<String> keys, final List<BatchResult<R>> parts) {
+    Map<String, R> values = new HashMap<>();
+    Map<String, Exception> failures = new HashMap<>();
+    for (BatchResult<R> part : parts) {
+      values.putAll(part.values());
+      failures.putAll(part.failures());
+    }
+    BatchResult<R> result = new BatchResult<>();
+    if (keys != null) {
+      for (String key : keys) {
+        Exception failure = failures.get(key);
+        if (failure != null) {
+          result.fail(key, failure);
+        } else {
+          result.success(key, values.get(key));
+        }
+      }
+    }
+    return result;
+  }
+
+  /** The part of a key that is hashed: its tag if its family is hash-tagged, else all of it. */
+  private String hashed(final String key) {
+    for (String prefix : hashTagPrefixes) {
+      if (key.startsWith(prefix)) {
+        return hashTag(key);
+      }
+    }
+    return key;
+  }
+
+  /** The {@code {tag}} part of a key if present and non-empty, else the whole key. */
+  static String hashTag(final String key) {
+    int open = key.indexOf('{');
+    if (open >= 0) {
+      int close = key.indexOf('}', open + 1);
+      if (close > open + 1) {
+        return key.substring(open + 1, close);
+      }
+    }
+    return key;
+  }
+
+  /** 64-bit FNV-1a with a final avalanche step, so nearby keys land far apart on the ring. */
+  static long hash(final String value) {
+    long h = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      h ^= b & 0xff;
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
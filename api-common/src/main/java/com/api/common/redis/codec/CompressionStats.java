@@ -0,0 +1,70 @@
+package com.api.common.redis.codec;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Counters for value compression, used to tune {@code redis.compression.threshold}. */
+public class CompressionStats {
+
+  private final LongAdder compressed = new LongAdder();
+  private final LongAdder notSmaller = new LongAdder();
+  private final LongAdder belowThreshold = new LongAdder();
+  private final LongAdder bytesIn = new LongAdder();
+  private final LongAdder bytesOut = new LongAdder();
+  private final LongAdder compressNanos = new LongAdder();
+  private final LongAdder decompressed = new LongAdder();
+  private final LongAdder decompressNanos = new LongAdder();
+
+  void recordBelowThreshold() {
+    belowThreshold.increment();
+  }
+
+  /** A compression attempt; {@code kept} is false when the output was not smaller. */
+  void recordCompress(int originalSize, int compressedSize, long nanos, boolean kept) {
+    compressNanos.add(nanos);
+    if (kept) {
+      compressed.increment();
+      bytesIn.add(originalSize);
+      bytesOut.add(compressedSize);
+    } else {
+      notSmaller.increment();
+    }
+  }
+
+  void recordDecompress(long nanos) {
+    decompressed.increment();
+    decompressNanos.add(nanos);
+  }
+
+  /** Stored size over original size for compressed values (1.0 when nothing was compressed). */
+  public double ratio() {
+    long in = bytesIn.sum();
+    return in == 0 ? 1.0 : (double) bytesOut.sum() / in;
+  }
+
+  /** Snapshot for monitoring endpoints. */
+  public Map<String, Object> snapshot() {
+    long compressCount = compressed.sum() + notSmaller.sum();
+    long decompressCount = decompressed.sum();
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("compressed", compressed.sum());
+    map.put("notSmaller", notSmaller.sum());
+    map.put("belowThreshold", belowThreshold.sum());
+    map.put("bytesIn", bytesIn.sum());
+    map.put("bytesOut", bytesOut.sum());
+    map.put("ratio", Math.round(ratio() * 1000) / 1000.0);
+    map.put("compressMicrosAvg", averageMicros(compressNanos.sum(), compressCount));
+    map.put("decompressed", decompressCount);
+    map.put("decompressMicrosAvg", averageMicros(decompressNanos.sum(), decompressCount));
+    return map;
+  }
+
+  private static double averageMicros(long nanos, long count) {
+    if (count == 0) {
+      return 0.0;
+    }
+    return Math.round((double) TimeUnit.NANOSECONDS.toMicros(nanos) / count * 100) / 100.0;
+  }
+}
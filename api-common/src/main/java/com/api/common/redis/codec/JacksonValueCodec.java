@@ -0,0 +1,37 @@
+package com.api.common.redis.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/** Jackson-based codec; used for both JSON text and Smile (binary JSON). */
+public class JacksonValueCodec implements RedisValueCodec {
+
+  private final byte id;
+  private final String name;
+  private final ObjectMapper mapper;
+
+  public JacksonValueCodec(byte id, String name, ObjectMapper mapper) {
+    this.id = id;
+    this.name = name;
+    this.mapper = mapper;
+  }
+
+  @Override
+  public byte id() {
+    return id;
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  @Override
+  public byte[] encode(Object value) throws Exception {
+    return mapper.writeValueAsBytes(value);
+  }
+
+  @Override
+  public <T> T decode(byte[] data, int offset, int length, Class<T> type) throws Exception {
+    return mapper.readValue(data, offset, length, type);
+  }
+}
@@ -0,0 +1,46 @@
+package com.api.common.redis.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Passthrough codec for values that are already bytes (or plain text). Strings are stored as UTF-8
+ * without quoting; any other type is rejected.
+ */
+public class RawBytesValueCodec implements RedisValueCodec {
+
+  static final byte ID = 3;
+
+  @Override
+  public byte id() {
+    return ID;
+  }
+
+  @Override
+  public String name() {
+    return "raw";
+  }
+
+  @Override
+  public byte[] encode(Object value) {
+    if (value instanceof byte[] bytes) {
+      return bytes;
+    }
+    if (value instanceof String str) {
+      return str.getBytes(StandardCharsets.UTF_8);
+    }
+    throw new IllegalArgumentException(
+        "Raw codec only stores byte[] or String, got " + value.getClass().getName());
+  }
+
+  @Override
+  public <T> T decode(byte[] data, int offset, int length, Class<T> type) {
+    if (type == String.class) {
+      return type.cast(new String(data, offset, length, StandardCharsets.UTF_8));
+    }
+    if (type == byte[].class || type == Object.class) {
+      return type.cast(Arrays.copyOfRange(data, offset, offset + length));
+    }
+    throw new IllegalArgumentException("Raw codec cannot decode to " + type.getName());
+  }
+}
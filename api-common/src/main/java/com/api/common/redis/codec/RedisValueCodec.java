@@ -0,0 +1,29 @@
+package com.api.common.redis.codec;
+
+/**
+ * Encodes cache values to the bytes stored in Redis and back.
+ *
+ * <p>Implementations are stateless and thread-safe. Framing (marker, codec id) is added by {@link
+ * RedisValueCodecs}; a codec only sees its own payload.
+ */
+public interface RedisValueCodec {
+
+  /** Stable id written into every stored value; never reuse an id for another format. */
+  byte id();
+
+  /** Name used in configuration (e.g. {@code json}, {@code smile}, {@code raw}). */
+  String name();
+
+  /** Encode a non-null value. */
+  byte[] encode(Object value) throws Exception;
+
+  /**
+   * Decode a payload produced by {@link #encode(Object)}.
+   *
+   * @param data buffer holding the payload
+   * @param offset start of the payload in {@code data}
+   * @param length payload length
+   * @param type target type; {@code Object.class} means the codec's natural representation
+   */
+  <T> T decode(byte[] data, int offset, int length, Class<T> type) throws Exception;
+}
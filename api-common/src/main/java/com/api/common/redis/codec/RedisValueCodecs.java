@@ -0,0 +1,319 @@
+package com.api.common.redis.codec;
+
+import com.api.common.utils.StringUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chooses the value codec per key prefix and frames the stored bytes.
+ *
+ * <p>Layout: {@code MAGIC, VERSION, codecId, flags, [originalLength], payload}. The codec and the
+ * compression are read back from the frame, not from the configuration, so changing {@code
+ * redis.codec.*} or {@code redis.compression.*} never makes existing values unreadable. Version 1
+ * frames (no flags byte) are still decoded. Values without the magic byte were written before this
+ * layer existed (template-serialized JSON) and are reported by {@link #isFramed(byte[])} so the
+ * caller can fall back.
+ *
+ * <p>Configuration: {@code redis.codec.default} (json, smile or raw) and {@code
+ * redis.codec.prefixes}, e.g. {@code login_perms:=smile,role_perms:=smile}. Payloads of at least
+ * {@code redis.compression.threshold} bytes are deflated when {@code redis.compression.default} or
+ * the matching {@code redis.compression.prefixes} rule (e.g. {@code repeat_submit:=none}) says
+ * {@code deflate}, and kept only if smaller. The longest matching prefix wins.
+ *
+ * <p>Nodes write version 1 frames until {@code redis.codec.frameVersion=2}; only version 2 frames
+ * carry the compression flag, so compression stays off until then. Switch it once every node of
+ * the deployment decodes version 2, otherwise nodes still on the old release cannot read the
+ * values written by the new ones during a rolling deploy.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisValueCodecs {
+
+  /** Marker byte; 0xC0 never starts valid UTF-8, so legacy JSON values cannot collide. */
+  static final byte MAGIC = (byte) 0xC0;
+
+  static final byte VERSION_1 = 1;
+
+  /** Adds the flags byte. */
+  static final byte VERSION_2 = 2;
+
+  /** Flag: payload is raw deflate, preceded by the original length (4 bytes). */
+  static final byte FLAG_DEFLATE = 1;
+
+  private static final int HEADER_LENGTH_V1 = 3;
+  private static final int HEADER_LENGTH = 4;
+
+  private static final String COMPRESSION_NONE = "none";
+  private static final String COMPRESSION_DEFLATE = "deflate";
+
+  private final ObjectMapper objectMapper;
+
+  @Value("${redis.codec.default:json}")
+  private String defaultCodecName;
+
+  @Value("${redis.codec.prefixes:}")
+  private String prefixMapping;
+
+  /** Frame version written: 1 until every node reads version 2, which enables compression. */
+  @Value("${redis.codec.frameVersion:1}")
+  private int frameVersion = VERSION_1;
+
+  @Value("${redis.compression.default:none}")
+  private String defaultCompression;
+
+  @Value("${redis.compression.prefixes:}")
+  private String compressionMapping;
+
+  /** Minimum encoded size in bytes before compression is tried; 0 or less disables it. */
+  @Value("${redis.compression.threshold:2048}")
+  private int compressionThreshold;
+
+  @Value("${redis.compression.level:1}")
+  private int compressionLevel;
+
+  private final CompressionStats compressionStats = new CompressionStats();
+
+  private final Map<Byte, RedisValueCodec> byId = new HashMap<>();
+  private final Map<String, RedisValueCodec> byName = new HashMap<>();
+
+  /** Prefix rules, longest prefix first. */
+  private List<Map.Entry<String, RedisValueCodec>> prefixes = List.of();
+
+  private List<Map.Entry<String, Boolean>> compressionPrefixes = List.of();
+
+  private RedisValueCodec defaultCodec;
+
+  private boolean compressByDefault;
+
+  @PostConstruct
+  public void init() {
+    register(new JacksonValueCodec((byte) 1, "json", objectMapper));
+    register(new JacksonValueCodec((byte) 2, "smile", objectMapper.copyWith(new SmileFactory())));
+    register(new RawBytesValueCodec());
+
+    defaultCodec = codec(defaultCodecName);
+    prefixes = parseRules("redis.codec.prefixes", prefixMapping, this::codec);
+    compressByDefault = compression(defaultCompression);
+    compressionPrefixes =
+        parseRules("redis.compression.prefixes", compressionMapping, this::compression);
+    if (frameVersion != VERSION_1 && frameVersion != VERSION_2) {
+      throw new IllegalArgumentException("Unsupported redis.codec.frameVersion: " + frameVersion);
+    }
+    if (frameVersion == VERSION_1
+        && (compressByDefault || compressionPrefixes.stream().anyMatch(Map.Entry::getValue))) {
+      log.warn("Redis value compression needs redis.codec.frameVersion=2, writing uncompressed");
+    }
+    log.info(
+        "Redis value codecs: default={}, prefixes={}, frames=v{}, compression={} (threshold={}B,"
+            + " prefixes={})",
+        defaultCodec.name(),
+        prefixMapping,
+        frameVersion,
+        defaultCompression,
+        compressionThreshold,
+        compressionMapping);
+  }
+
+  /** Whether the bytes were framed by this class (false for legacy values). */
+  public boolean isFramed(byte[] bytes) {
+    return bytes != null && bytes.length >= HEADER_LENGTH_V1 && bytes[0] == MAGIC;
+  }
+
+  /** Encode a value with the codec configured for the key, compressing it if worthwhile. */
+  public byte[] encode(String key, Object value) throws Exception {
+    RedisValueCodec codec = codecFor(key);
+    byte[] payload = codec.encode(value);
+
+    if (frameVersion == VERSION_2 && compressionThreshold > 0 && compressFor(key)) {
+      if (payload.length < compressionThreshold) {
+        compressionStats.recordBelowThreshold();
+      } else {
+        long start = System.nanoTime();
+        byte[] deflated = deflate(payload);
+        boolean kept = deflated.length + Integer.BYTES < payload.length;
+        compressionStats.recordCompress(
+            payload.length, deflated.length + Integer.BYTES, System.nanoTime() - start, kept);
+        if (kept) {
+          byte[] framed = header(codec, FLAG_DEFLATE, Integer.BYTES + deflated.length);
+          ByteBuffer.wrap(framed, HEADER_LENGTH, Integer.BYTES).putInt(payload.length);
+          System.arraycopy(deflated, 0, framed, HEADER_LENGTH + Integer.BYTES, deflated.length);
+          return framed;
+        }
+      }
+    }
+
+    if (frameVersion == VERSION_1) {
+      byte[] framed = new byte[HEADER_LENGTH_V1 + payload.length];
+      framed[0] = MAGIC;
+      framed[1] = VERSION_1;
+      framed[2] = codec.id();
+      System.arraycopy(payload, 0, framed, HEADER_LENGTH_V1, payload.length);
+      return framed;
+    }
+    byte[] framed = header(codec, (byte) 0, payload.length);
+    System.arraycopy(payload, 0, framed, HEADER_LENGTH, payload.length);
+    return framed;
+  }
+
+  /**
+   * Decode framed bytes with the codec recorded in the frame.
+   *
+   * @param bytes bytes that satisfy {@link #isFramed(byte[])}
+   * @param type target type; {@code Object.class} returns the codec's natural representation
+   */
+  public <T> T decode(byte[] bytes, Class<T> type) throws Exception {
+    RedisValueCodec codec = byId.get(bytes[2]);
+    if (codec == null) {
+      throw new IllegalStateException("Unknown Redis value codec id: " + bytes[2]);
+    }
+    if (bytes[1] == VERSION_1) {
+      return codec.decode(bytes, HEADER_LENGTH_V1, bytes.length - HEADER_LENGTH_V1, type);
+    }
+    if (bytes[1] != VERSION_2) {
+      throw new IllegalStateException("Unsupported Redis value frame version: " + bytes[1]);
+    }
+    if ((bytes[3] & FLAG_DEFLATE) == 0) {
+      return codec.decode(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH, type);
+    }
+    long start = System.nanoTime();
+    int originalLength = ByteBuffer.wrap(bytes, HEADER_LENGTH, Integer.BYTES).getInt();
+    if (originalLength < 0) {
+      throw new DataFormatException("Invalid original length: " + originalLength);
+    }
+    int offset = HEADER_LENGTH + Integer.BYTES;
+    byte[] payload = inflate(bytes, offset, bytes.length - offset, originalLength);
+    compressionStats.recordDecompress(System.nanoTime() - start);
+    return codec.decode(payload, 0, payload.length, type);
+  }
+
+  /** Compression counters since startup. */
+  public CompressionStats getCompressionStats() {
+    return compressionStats;
+  }
+
+  /** Codec configured for a key. */
+  public RedisValueCodec codecFor(String key) {
+    for (Map.Entry<String, RedisValueCodec> rule : prefixes) {
+      if (key.startsWith(rule.getKey())) {
+        return rule.getValue();
+      }
+    }
+    return defaultCodec;
+  }
+
+  private boolean compressFor(String key) {
+    for (Map.Entry<String, Boolean> rule : compressionPrefixes) {
+      if (key.startsWith(rule.getKey())) {
+        return rule.getValue();
+      }
+    }
+    return compressByDefault;
+  }
+
+  private static byte[] header(RedisValueCodec codec, byte flags, int bodyLength) {
+    byte[] framed = new byte[HEADER_LENGTH + bodyLength];
+    framed[0] = MAGIC;
+    framed[1] = VERSION_2;
+    framed[2] = codec.id();
+    framed[3] = flags;
+    return framed;
+  }
+
+  private byte[] deflate(byte[] input) {
+    Deflater deflater = new Deflater(compressionLevel, true);
+    try {
+      deflater.setInput(input);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2);
+      byte[] buffer = new byte[Math.min(input.length, 8192)];
+      while (!deflater.finished()) {
+        int n = deflater.deflate(buffer);
+        out.write(buffer, 0, n);
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] input, int offset, int length, int originalLength)
+      throws DataFormatException {
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(input, offset, length);
+      byte[] output = new byte[originalLength];
+      int written = 0;
+      while (written < originalLength && !inflater.finished()) {
+        int n = inflater.inflate(output, written, originalLength - written);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        written += n;
+      }
+      if (written != originalLength) {
+        throw new DataFormatException(
+            "Inflated " + written + " bytes, expected " + originalLength);
+      }
+      return output;
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static <V> List<Map.Entry<String, V>> parseRules(
+      String property, String mapping, Function<String, V> valueOf) {
+    if (StringUtils.isEmpty(mapping)) {
+      return List.of();
+    }
+    List<Map.Entry<String, V>> rules = new ArrayList<>();
+    for (String rule : mapping.split(",")) {
+      String[] parts = rule.trim().split("=", 2);
+      if (parts.length != 2 || parts[0].isBlank()) {
+        throw new IllegalArgumentException("Invalid " + property + " rule: " + rule);
+      }
+      rules.add(Map.entry(parts[0].trim(), valueOf.apply(parts[1].trim())));
+    }
+    rules.sort(Comparator.comparingInt(e -> -e.getKey().length()));
+    return rules;
+  }
+
+  private boolean compression(String name) {
+    if (COMPRESSION_DEFLATE.equalsIgnoreCase(name)) {
+      return true;
+    }
+    if (COMPRESSION_NONE.equalsIgnoreCase(name)) {
+      return false;
+    }
+    throw new IllegalArgumentException("Unknown Redis value compression: " + name);
+  }
+
+  private void register(RedisValueCodec codec) {
+    byId.put(codec.id(), codec);
+    byName.put(codec.name(), codec);
+  }
+
+  private RedisValueCodec codec(String name) {
+    RedisValueCodec codec = byName.get(name.toLowerCase());
+    if (codec == null) {
+      throw new IllegalArgumentException("Unknown Redis value codec: " + name);
+    }
+    return codec;
+  }
+}
@@ -1,67 +1,55 @@
 package com.api.common.utils.ip;
 
-import com.api.common.constant.Constants;
 import com.api.common.utils.StringUtils;
-import com.api.common.config.AppConfig;
-import com.api.common.utils.http.HttpUtils;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Utility for resolving geographic location from an IP address.
  *
- * <p>- Uses external IP lookup API (pconline) - Returns "Internal IP" for private/internal
- * addresses - Returns "XX XX" if lookup fails or is disabled
+ * <p>- Resolves locally through the {@link IpGeoLocator} registered at startup (no network call) -
+ * Returns "Internal IP" for private/internal addresses - Returns "XX XX" if the address is unknown
+ * or no locator is registered
  */
 public class AddressUtils {
 
   private static final Logger log = LoggerFactory.getLogger(AddressUtils.class);
 
-  /** External IP lookup service */
-  private static final String IP_LOOKUP_URL = "http://whois.pconline.com.cn/ipJson.jsp";
-
   /** Default value for unknown location */
   private static final String UNKNOWN = "XX XX";
 
-  /** Reusable Jackson ObjectMapper */
-  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  /** Offline locator, registered by the framework configuration at startup. */
+  private static volatile IpGeoLocator locator;
 
-  /** Injected application configuration for path resolution. */
-  private static final AppConfig appConfig = new AppConfig();
+  /** Register the locator used for lookups (null disables them). */
+  public static void setLocator(IpGeoLocator ipGeoLocator) {
+    locator = ipGeoLocator;
+  }
 
   /**
    * Get geographic location by IP address.
    *
-   * @param ip IP address
+   * @param ip IP address (IPv4 or IPv6)
    * @return location string (e.g. "Beijing Beijing") or "Internal IP" / "XX XX"
    */
   public static String getRealAddressByIP(String ip) {
+    if (StringUtils.isEmpty(ip)) {
+      return UNKNOWN;
+    }
+
     // Skip internal/private IP addresses
-    if (IpUtils.isInternalIp(ip)) {
+    boolean internal = ip.indexOf(':') >= 0 ? IpUtils.isInternalIpv6(ip) : IpUtils.isInternalIp(ip);
+    if (internal) {
       return "Internal IP";
     }
 
-    // If external address lookup is enabled
-    if (appConfig.isAddressEnabled()) {
+    IpGeoLocator current = locator;
+    if (current != null) {
       try {
-        String response =
-            HttpUtils.sendGet(IP_LOOKUP_URL, "ip=" + ip + "&json=true", Constants.GBK);
-
-        if (StringUtils.isEmpty(response)) {
-          log.error("Failed to retrieve geographic location for IP: {}", ip);
-          return UNKNOWN;
+        String region = current.lookup(ip);
+        if (region != null) {
+          return region;
         }
-
-        // Parse JSON using Jackson
-        JsonNode root = OBJECT_MAPPER.readTree(response);
-        String region = root.path("pro").asText("");
-        String city = root.path("city").asText("");
-
-        return String.format("%s %s", region, city).trim();
-
       } catch (Exception e) {
         log.error("Error while retrieving geographic location for IP: {}", ip, e);
       }
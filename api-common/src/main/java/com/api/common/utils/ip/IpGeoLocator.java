@@ -0,0 +1,92 @@
+package com.api.common.utils.ip;
+
+import com.api.common.cache.LocalCache;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Offline IP geolocation backed by an {@link IpRegionTable} loaded from a local file.
+ *
+ * <p>The table is swapped atomically by {@link #reloadIfChanged()} whenever the file's modification
+ * time changes, so lookups never block on a reload. Recent results are kept in a small LRU so
+ * repeated logins from the same address skip the binary search.
+ */
+@Slf4j
+public class IpGeoLocator {
+
+  /** Cache marker for addresses not covered by the table. */
+  private static final String MISS = "";
+
+  private final Path file;
+  private final LocalCache<String, String> recent;
+
+  private volatile IpRegionTable table = IpRegionTable.EMPTY;
+  private volatile long loadedModified = -1;
+
+  /**
+   * @param file range file (see {@link IpRegionTable} for the format); null disables lookups
+   * @param cacheSize number of recent lookups kept
+   */
+  public IpGeoLocator(Path file, int cacheSize) {
+    this.file = file;
+    this.recent = new LocalCache<>("ipGeo", Math.max(1, cacheSize), Duration.ofHours(1));
+  }
+
+  /**
+   * Reload the table if the file changed since the last load. A failed reload keeps the previous
+   * table.
+   *
+   * @return true if a new table was loaded
+   */
+  public synchronized boolean reloadIfChanged() {
+    if (file == null) {
+      return false;
+    }
+    try {
+      if (!Files.isReadable(file)) {
+        log.warn("IP region file not readable: {}", file);
+        return false;
+      }
+      long modified = Files.getLastModifiedTime(file).toMillis();
+      if (modified == loadedModified) {
+        return false;
+      }
+      long start = System.currentTimeMillis();
+      IpRegionTable loaded = IpRegionTable.load(file);
+      table = loaded;
+      loadedModified = modified;
+      recent.clear();
+      log.info(
+          "Loaded IP region table {}: {} IPv4 / {} IPv6 ranges in {} ms",
+          file,
+          loaded.v4Size(),
+          loaded.v6Size(),
+          System.currentTimeMillis() - start);
+      return true;
+    } catch (Exception e) {
+      log.error("Failed to load IP region file {}, keeping previous table", file, e);
+      return false;
+    }
+  }
+
+  /**
+   * Find the region of an IP address.
+   *
+   * @param ip IPv4 or IPv6 literal
+   * @return region, or null if unknown
+   */
+  public String lookup(String ip) {
+    if (ip == null) {
+      return null;
+    }
+    String cached = recent.get(ip);
+    if (cached != null) {
+      return cached.isEmpty() ? null : cached;
+    }
+    String region = table.lookup(ip);
+    recent.put(ip, region != null ? region : MISS);
+    return region;
+  }
+}
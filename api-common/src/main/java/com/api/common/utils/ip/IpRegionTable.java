@@ -0,0 +1,328 @@
+package com.api.common.utils.ip;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable in-memory IP range table for offline geolocation.
+ *
+ * <p>Source format is one range per line: {@code startIp,endIp,region}. IPv4 and IPv6 ranges may be
+ * mixed; blank lines and lines starting with {@code #} are ignored. Ranges are kept as sorted
+ * primitive arrays (IPv4 as unsigned ints, IPv6 as two unsigned longs) and looked up by binary
+ * search. Region strings are interned so repeated regions share one instance.
+ */
+public final class IpRegionTable {
+
+  /** Table without any range; every lookup misses. */
+  public static final IpRegionTable EMPTY =
+      new IpRegionTable(
+          new int[0],
+          new int[0],
+          new String[0],
+          new long[0],
+          new long[0],
+          new long[0],
+          new long[0],
+          new String[0]);
+
+  private final int[] v4Start;
+  private final int[] v4End;
+  private final String[] v4Region;
+
+  private final long[] v6StartHi;
+  private final long[] v6StartLo;
+  private final long[] v6EndHi;
+  private final long[] v6EndLo;
+  private final String[] v6Region;
+
+  private IpRegionTable(
+      int[] v4Start,
+      int[] v4End,
+      String[] v4Region,
+      long[] v6StartHi,
+      long[] v6StartLo,
+      long[] v6EndHi,
+      long[] v6EndLo,
+      String[] v6Region) {
+    this.v4Start = v4Start;
+    this.v4End = v4End;
+    this.v4Region = v4Region;
+    this.v6StartHi = v6StartHi;
+    this.v6StartLo = v6StartLo;
+    this.v6EndHi = v6EndHi;
+    this.v6EndLo = v6EndLo;
+    this.v6Region = v6Region;
+  }
+
+  /**
+   * Load a table from a range file.
+   *
+   * @param file CSV range file
+   * @return loaded table
+   * @throws IOException if the file cannot be read
+   * @throws IllegalArgumentException if a line is malformed
+   */
+  public static IpRegionTable load(Path file) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      return parse(reader);
+    }
+  }
+
+  /** Parse a table from CSV lines (see class doc for the format). */
+  public static IpRegionTable parse(BufferedReader reader) throws IOException {
+    List<long[]> v4 = new ArrayList<>();
+    List<String> v4Regions = new ArrayList<>();
+    List<long[]> v6 = new ArrayList<>();
+    List<String> v6Regions = new ArrayList<>();
+    Map<String, String> interned = new HashMap<>();
+
+    String line;
+    int lineNo = 0;
+    while ((line = reader.readLine()) != null) {
+      lineNo++;
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] parts = line.split(",", 3);
+      if (parts.length < 3) {
+        throw new IllegalArgumentException("Malformed IP range at line " + lineNo + ": " + line);
+      }
+      byte[] start = toBytes(parts[0].trim());
+      byte[] end = toBytes(parts[1].trim());
+      if (start == null || end == null || start.length != end.length) {
+        throw new IllegalArgumentException("Malformed IP range at line " + lineNo + ": " + line);
+      }
+      String region = interned.computeIfAbsent(parts[2].trim(), r -> r);
+      if (start.length == 4) {
+        v4.add(new long[] {toInt(start), toInt(end), v4.size()});
+        v4Regions.add(region);
+      } else {
+        v6.add(
+            new long[] {
+              toLong(start, 0), toLong(start, 8), toLong(end, 0), toLong(end, 8), v6.size()
+            });
+        v6Regions.add(region);
+      }
+    }
+
+    v4.sort(Comparator.comparingLong(r -> r[0] & 0xFFFFFFFFL));
+    int[] v4Start = new int[v4.size()];
+    int[] v4End = new int[v4.size()];
+    String[] v4Region = new String[v4.size()];
+    for (int i = 0; i < v4.size(); i++) {
+      long[] r = v4.get(i);
+      v4Start[i] = (int) r[0];
+      v4End[i] = (int) r[1];
+      v4Region[i] = v4Regions.get((int) r[2]);
+    }
+
+    v6.sort(
+        (a, b) -> {
+          int c = Long.compareUnsigned(a[0], b[0]);
+          return c != 0 ? c : Long.compareUnsigned(a[1], b[1]);
+        });
+    long[] v6StartHi = new long[v6.size()];
+    long[] v6StartLo = new long[v6.size()];
+    long[] v6EndHi = new long[v6.size()];
+    long[] v6EndLo = new long[v6.size()];
+    String[] v6Region = new String[v6.size()];
+    for (int i = 0; i < v6.size(); i++) {
+      long[] r = v6.get(i);
+      v6StartHi[i] = r[0];
+      v6StartLo[i] = r[1];
+      v6EndHi[i] = r[2];
+      v6EndLo[i] = r[3];
+      v6Region[i] = v6Regions.get((int) r[4]);
+    }
+    return new IpRegionTable(
+        v4Start, v4End, v4Region, v6StartHi, v6StartLo, v6EndHi, v6EndLo, v6Region);
+  }
+
+  /**
+   * Find the region of an IP address.
+   *
+   * @param ip IPv4 or IPv6 literal
+   * @return region, or null if the address is invalid or not covered by any range
+   */
+  public String lookup(String ip) {
+    byte[] addr = toBytes(ip);
+    if (addr == null) {
+      return null;
+    }
+    return addr.length == 4 ? lookupV4(toInt(addr)) : lookupV6(toLong(addr, 0), toLong(addr, 8));
+  }
+
+  /** Number of IPv4 ranges. */
+  public int v4Size() {
+    return v4Start.length;
+  }
+
+  /** Number of IPv6 ranges. */
+  public int v6Size() {
+    return v6StartHi.length;
+  }
+
+  private String lookupV4(int ip) {
+    int lo = 0;
+    int hi = v4Start.length - 1;
+    int found = -1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (Integer.compareUnsigned(v4Start[mid], ip) <= 0) {
+        found = mid;
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return found >= 0 && Integer.compareUnsigned(ip, v4End[found]) <= 0 ? v4Region[found] : null;
+  }
+
+  private String lookupV6(long ipHi, long ipLo) {
+    int lo = 0;
+    int hi = v6StartHi.length - 1;
+    int found = -1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (compare(v6StartHi[mid], v6StartLo[mid], ipHi, ipLo) <= 0) {
+        found = mid;
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return found >= 0 && compare(ipHi, ipLo, v6EndHi[found], v6EndLo[found]) <= 0
+        ? v6Region[found]
+        : null;
+  }
+
+  private static int compare(long aHi, long aLo, long bHi, long bLo) {
+    int c = Long.compareUnsigned(aHi, bHi);
+    return c != 0 ? c : Long.compareUnsigned(aLo, bLo);
+  }
+
+  /**
+   * Parse an IP literal without any DNS lookup. IPv4-mapped IPv6 addresses are returned as IPv4.
+   *
+   * @return 4 or 16 bytes, or null if the text is not an IP literal
+   */
+  static byte[] toBytes(String ip) {
+    if (ip == null || ip.isEmpty()) {
+      return null;
+    }
+    if (ip.indexOf(':') < 0) {
+      return IpUtils.isIp(ip) ? IpUtils.textToNumericFormatV4(ip) : null;
+    }
+    byte[] v6 = parseIpv6(ip);
+    if (v6 == null) {
+      return null;
+    }
+    for (int i = 0; i < 10; i++) {
+      if (v6[i] != 0) {
+        return v6;
+      }
+    }
+    return v6[10] == (byte) 0xFF && v6[11] == (byte) 0xFF ? Arrays.copyOfRange(v6, 12, 16) : v6;
+  }
+
+  /**
+   * Parse an IPv6 literal (RFC 4291 text forms, optional zone id) by hand. The text comes from
+   * client headers, so it must never reach {@link java.net.InetAddress#getByName}, which resolves
+   * anything that is not a literal.
+   */
+  private static byte[] parseIpv6(String ip) {
+    int zone = ip.indexOf('%');
+    String text = zone >= 0 ? ip.substring(0, zone) : ip;
+    if (text.length() < 2 || text.length() > 45) {
+      return null;
+    }
+    byte[] addr = new byte[16];
+    int limit = 16;
+    int lastColon = text.lastIndexOf(':');
+    if (text.indexOf('.', lastColon) > 0) {
+      // Dotted IPv4 in the last 32 bits, e.g. ::ffff:10.0.0.1
+      String tail = text.substring(lastColon + 1);
+      byte[] v4 = IpUtils.isIp(tail) ? IpUtils.textToNumericFormatV4(tail) : null;
+      if (v4 == null) {
+        return null;
+      }
+      System.arraycopy(v4, 0, addr, 12, 4);
+      limit = 12;
+      boolean gapBefore = lastColon > 0 && text.charAt(lastColon - 1) == ':';
+      text = text.substring(0, gapBefore ? lastColon + 1 : lastColon);
+    }
+    int gap = text.indexOf("::");
+    if (gap != text.lastIndexOf("::")) {
+      return null;
+    }
+    int[] head = groups(gap >= 0 ? text.substring(0, gap) : text);
+    int[] tail = gap >= 0 ? groups(text.substring(gap + 2)) : new int[0];
+    if (head == null || tail == null) {
+      return null;
+    }
+    int used = (head.length + tail.length) * 2;
+    if (gap >= 0 ? used > limit - 2 : used != limit) {
+      return null;
+    }
+    for (int i = 0; i < head.length; i++) {
+      addr[i * 2] = (byte) (head[i] >> 8);
+      addr[i * 2 + 1] = (byte) head[i];
+    }
+    int offset = limit - tail.length * 2;
+    for (int i = 0; i < tail.length; i++) {
+      addr[offset + i * 2] = (byte) (tail[i] >> 8);
+      addr[offset + i * 2 + 1] = (byte) tail[i];
+    }
+    return addr;
+  }
+
+  /** Colon-separated groups of 1 to 4 hex digits; null if malformed. */
+  private static int[] groups(String text) {
+    if (text.isEmpty()) {
+      return new int[0];
+    }
+    String[] parts = text.split(":", -1);
+    if (parts.length > 8) {
+      return null;
+    }
+    int[] groups = new int[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      String part = parts[i];
+      if (part.isEmpty() || part.length() > 4) {
+        return null;
+      }
+      int value = 0;
+      for (int j = 0; j < part.length(); j++) {
+        int digit = Character.digit(part.charAt(j), 16);
+        if (digit < 0) {
+          return null;
+        }
+        value = value << 4 | digit;
+      }
+      groups[i] = value;
+    }
+    return groups;
+  }
+
+  private static int toInt(byte[] b) {
+    return (b[0] & 0xFF) << 24 | (b[1] & 0xFF) << 16 | (b[2] & 0xFF) << 8 | (b[3] & 0xFF);
+  }
+
+  private static long toLong(byte[] b, int offset) {
+    long value = 0;
+    for (int i = offset; i < offset + 8; i++) {
+      value = value << 8 | (b[i] & 0xFF);
+    }
+    return value;
+  }
+}
@@ -88,6 +88,25 @@ public class IpUtils {
     return b0 == (byte) 0xC0 && b1 == (byte) 0xA8;
   }
 
+  /** Check if an IPv6 literal is loopback, link-local, site-local or unique-local (fc00::/7). */
+  public static boolean isInternalIpv6(String ip) {
+    byte[] addr = IpRegionTable.toBytes(ip);
+    if (addr == null) return true;
+    if (addr.length == 4) return isInternalIp(addr) || addr[0] == 0x7F;
+    try {
+      InetAddress address = InetAddress.getByAddress(addr);
+      if (address.isLoopbackAddress()
+          || address.isLinkLocalAddress()
+          || address.isSiteLocalAddress()
+          || address.isAnyLocalAddress()) {
+        return true;
+      }
+    } catch (UnknownHostException e) {
+      return true;
+    }
+    return (addr[0] & 0xFE) == 0xFC;
+  }
+
   // ======================== IPv4 Utils ======================== //
 
   /** Convert IPv4 address string to byte array. */
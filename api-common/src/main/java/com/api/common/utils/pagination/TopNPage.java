@@ -0,0 +1,69 @@
+package com.api.common.utils.pagination;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Collects one sorted page out of a stream of rows without holding the whole stream.
+ *
+ * <p>Only the first {@code offset + limit} rows in sort order are kept (a bounded heap), so memory
+ * stays proportional to the requested page however many rows are offered.
+ *
+ * @param <T> row type
+ */
+public class TopNPage<T> {
+
+  private final Comparator<T> comparator;
+  private final int offset;
+  private final int capacity;
+  private final PriorityQueue<T> heap;
+  private long total;
+
+  /**
+   * @param comparator sort order of the page
+   * @param offset number of leading rows to skip
+   * @param limit page size
+   */
+  public TopNPage(Comparator<T> comparator, int offset, int limit) {
+    this.comparator = comparator;
+    this.offset = Math.max(offset, 0);
+    this.capacity = Math.max(this.offset + Math.max(limit, 0), 0);
+    // Head is the row that sorts last, i.e. the first to drop
+    this.heap = new PriorityQueue<>(Math.min(capacity, 1024) + 1, comparator.reversed());
+  }
+
+  /** Offer a row; rows that cannot reach the page are dropped right away. */
+  public void offer(T row) {
+    if (row == null) {
+      return;
+    }
+    total++;
+    if (capacity == 0) {
+      return;
+    }
+    if (heap.size() < capacity) {
+      heap.add(row);
+    } else if (comparator.compare(row, heap.peek()) < 0) {
+      heap.poll();
+      heap.add(row);
+    }
+  }
+
+  /** Number of rows offered. */
+  public long getTotal() {
+    return total;
+  }
+
+  /** Rows of the requested page, in sort order. */
+  public List<T> getRows() {
+    if (heap.size() <= offset) {
+      return Collections.emptyList();
+    }
+    List<T> sorted = new ArrayList<>(heap);
+    sorted.sort(comparator);
+    return sorted.subList(offset, sorted.size());
+  }
+}
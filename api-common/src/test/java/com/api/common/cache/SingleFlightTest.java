@@ -0,0 +1,107 @@
+package com.api.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+  private static final int CALLERS = 8;
+
+  private final SingleFlight<String, String> flight = new SingleFlight<>();
+  private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void concurrentCallersShareOneLoad() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+
+    List<Future<String>> results =
+        submitAll(
+            () -> {
+              calls.incrementAndGet();
+              release.await();
+              return "value";
+            });
+    awaitWaiters(CALLERS - 1);
+    release.countDown();
+
+    for (Future<String> result : results) {
+      assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+    }
+    assertThat(calls).hasValue(1);
+    assertThat(flight.loadCount()).isEqualTo(1);
+    assertThat(flight.coalescedCount()).isEqualTo(CALLERS - 1);
+    assertThat(flight.isLoading("key")).isFalse();
+  }
+
+  @Test
+  void waitersGetTheLoaderException() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+
+    List<Future<String>> results =
+        submitAll(
+            () -> {
+              release.await();
+              throw new IllegalStateException("database down");
+            });
+    awaitWaiters(CALLERS - 1);
+    release.countDown();
+
+    for (Future<String> result : results) {
+      assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+          .hasCauseInstanceOf(IllegalStateException.class)
+          .hasRootCauseMessage("database down");
+    }
+    assertThat(flight.loadCount()).isEqualTo(1);
+  }
+
+  @Test
+  void finishedLoadsAreNotCached() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+
+    flight.load("key", () -> "v" + calls.incrementAndGet());
+    String second = flight.load("key", () -> "v" + calls.incrementAndGet());
+
+    assertThat(second).isEqualTo("v2");
+    assertThat(flight.coalescedCount()).isZero();
+  }
+
+  @Test
+  void differentKeysLoadIndependently() throws Exception {
+    assertThat(flight.load("a", () -> flight.load("b", () -> "nested"))).isEqualTo("nested");
+    assertThat(flight.loadCount()).isEqualTo(2);
+  }
+
+  private List<Future<String>> submitAll(Callable<String> loader) {
+    List<Future<String>> results = new ArrayList<>();
+    for (int i = 0; i < CALLERS; i++) {
+      results.add(executor.submit(() -> flight.load("key", loader)));
+    }
+    return results;
+  }
+
+  /** Wait until the other callers have joined the running load. */
+  private void awaitWaiters(int waiters) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (flight.coalescedCount() < waiters && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package com.api.common.redis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.api.common.redis.codec.RedisValueCodecs;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/** Multi-key {@link RedisCache} operations and their per-key {@link BatchResult}. */
+class BatchOperationsTest {
+
+  private static final int PIPELINE_CHUNK = 500;
+
+  private InMemoryRedisCache redisCache;
+
+  @BeforeEach
+  void setUp() {
+    RedisValueCodecs codecs = new RedisValueCodecs(new ObjectMapper());
+    ReflectionTestUtils.setField(codecs, "defaultCodecName", "json");
+    ReflectionTestUtils.setField(codecs, "prefixMapping", "");
+    ReflectionTestUtils.setField(codecs, "defaultCompression", "none");
+    ReflectionTestUtils.setField(codecs, "compressionMapping", "");
+    codecs.init();
+    redisCache = new InMemoryRedisCache(new ObjectMapper(), codecs);
+    ReflectionTestUtils.setField(redisCache, "scanCount", 100);
+    ReflectionTestUtils.setField(redisCache, "sweepMillis", 60_000L);
+    redisCache.init();
+  }
+
+  @AfterEach
+  void tearDown() {
+    redisCache.shutdown();
+  }
+
+  @Test
+  void multiSetThenMultiGetKeepsRequestOrderAndSkipsMisses() {
+    Map<String, String> values = new LinkedHashMap<>();
+    values.put("config:b", "2");
+    values.put("config:a", "1");
+    values.put("config:null", null);
+
+    BatchResult<Boolean> written = redisCache.setCacheObjects(values, 1, TimeUnit.MINUTES);
+    BatchResult<String> read =
+        redisCache.getCacheObjects(List.of("config:a", "config:missing", "config:b"), String.class);
+
+    assertThat(written.values()).containsOnlyKeys("config:b", "config:a");
+    assertThat(written.countTrue()).isEqualTo(2);
+    assertThat(read.values())
+        .containsExactly(Map.entry("config:a", "1"), Map.entry("config:b", "2"));
+    assertThat(read.hasFailures()).isFalse();
+    assertThat(redisCache.getExpire("config:a")).isPositive();
+  }
+
+  @Test
+  void unconvertibleValuesAreReportedPerKey() {
+    redisCache.setCacheObject("count:ok", 7);
+    redisCache.setCacheObject("count:text", "seven");
+
+    BatchResult<Integer> read =
+        redisCache.getCacheObjects(List.of("count:ok", "count:text"), Integer.class);
+
+    assertThat(read.get("count:ok")).isEqualTo(7);
+    assertThat(read.failures()).containsOnlyKeys("count:text");
+    assertThat(read.get("count:text")).isNull();
+  }
+
+  @Test
+  void deleteAndExpireReportWhichKeysExisted() {
+    redisCache.setCacheObject("session:1", "a");
+    redisCache.setCacheObject("session:2", "b");
+
+    BatchResult<Boolean> expired =
+        redisCache.expireAll(List.of("session:1", "session:gone"), 5, TimeUnit.MINUTES);
+    BatchResult<Boolean> deleted = redisCache.deleteObjects(List.of("session:2", "session:gone"));
+
+    assertThat(expired.values())
+        .containsExactly(Map.entry("session:1", true), Map.entry("session:gone", false));
+    assertThat(deleted.values())
+        .containsExactly(Map.entry("session:2", true), Map.entry("session:gone", false));
+    assertThat(deleted.countTrue()).isEqualTo(1);
+    assertThat(redisCache.hasKey("session:2")).isFalse();
+  }
+
+  @Test
+  void countersMergeAcrossBatches() {
+    Map<String, CounterDelta> first = new LinkedHashMap<>();
+    first.put("metrics:a", new CounterDelta().add("Count", 2).max("Max", 10).min("Min", 4));
+    Map<String, CounterDelta> second = new LinkedHashMap<>();
+    second.put("metrics:a", new CounterDelta().add("Count", 3).max("Max", 7).min("Min", 1));
+    second.put("metrics:b", new CounterDelta().add("Count", 1));
+
+    redisCache.mergeCounters(first, 1, TimeUnit.MINUTES);
+    BatchResult<Boolean> merged = redisCache.mergeCounters(second, 1, TimeUnit.MINUTES);
+    BatchResult<Map<String, Object>> maps =
+        redisCache.getCacheMaps(List.of("metrics:a", "metrics:b", "metrics:none"));
+
+    assertThat(merged.countTrue()).isEqualTo(2);
+    assertThat(maps.values()).containsOnlyKeys("metrics:a", "metrics:b");
+    Map<String, Object> a = maps.get("metrics:a");
+    assertThat(a).containsEntry("Count", 5).containsEntry("Max", 10).containsEntry("Min", 1);
+  }
+
+  /**
+   * Batched vs per-key writes, reads and deletes. Every call to the store is charged a simulated
+   * round trip ({@code -Dbenchmark.rttMicros}, default 100), batched calls once per pipeline
+   * chunk of {@value #PIPELINE_CHUNK} keys as {@link RedisTemplateCache} sends them. Run with
+   * {@code -Dbenchmark=true}.
+   */
+  @ParameterizedTest
+  @ValueSource(ints = {1_000, 10_000})
+  @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+  void batchedComparedToPerKey(int size) {
+    long rttNanos = TimeUnit.MICROSECONDS.toNanos(Long.getLong("benchmark.rttMicros", 100));
+    Map<String, String> values = new LinkedHashMap<>();
+    for (int i = 0; i < size; i++) {
+      values.put("bench:" + i, "value-" + i);
+    }
+    List<String> keys = List.copyOf(values.keySet());
+    batched(redisCache, values, keys); // warm up
+    perKey(redisCache, values, keys);
+
+    AtomicLong roundTrips = new AtomicLong();
+    RedisCache remote = withRoundTrips(redisCache, rttNanos, roundTrips);
+    long start = System.nanoTime();
+    batched(remote, values, keys);
+    long batchedNanos = System.nanoTime() - start;
+    long batchedTrips = roundTrips.getAndSet(0);
+    start = System.nanoTime();
+    perKey(remote, values, keys);
+    long perKeyNanos = System.nanoTime() - start;
+    long perKeyTrips = roundTrips.get();
+
+    System.out.printf(
+        "%d keys: batched %.1f ms in %d round trips, per-key %.1f ms in %d (%.0fx)%n",
+        size,
+        batchedNanos / 1e6,
+        batchedTrips,
+        perKeyNanos / 1e6,
+        perKeyTrips,
+        perKeyNanos / (double) batchedNanos);
+  }
+
+  private static void batched(RedisCache cache, Map<String, String> values, List<String> keys) {
+    cache.setCacheObjects(values, 1, TimeUnit.MINUTES);
+    assertThat(cache.getCacheObjects(keys, String.class).values()).hasSize(keys.size());
+    cache.deleteObjects(keys);
+  }
+
+  private static void perKey(RedisCache cache, Map<String, String> values, List<String> keys) {
+    values.forEach((key, value) -> cache.setCacheObject(key, value, 1, TimeUnit.MINUTES));
+    int found = 0;
+    for (String key : keys) {
+      if (cache.getCacheObject(key, String.class) != null) {
+        found++;
+      }
+    }
+    assertThat(found).isEqualTo(keys.size());
+    keys.forEach(cache::deleteObject);
+  }
+
+  /** Wrap a cache so every call first waits out a round trip per pipeline chunk. */
+  private static RedisCache withRoundTrips(RedisCache target, long rttNanos, AtomicLong trips) {
+    return (RedisCache)
+        Proxy.newProxyInstance(
+            RedisCache.class.getClassLoader(),
+            new Class<?>[] {RedisCache.class},
+            (proxy, method, args) -> {
+              Object first = args == null || args.length == 0 ? null : args[0];
+              int keys =
+                  first instanceof Collection<?> c
+                      ? c.size()
+                      : first instanceof Map<?, ?> m ? m.size() : 1;
+              int chunks = Math.max(1, (keys + PIPELINE_CHUNK - 1) / PIPELINE_CHUNK);
+              trips.addAndGet(chunks);
+              long until = System.nanoTime() + chunks * rttNanos;
+              while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+              }
+              try {
+                return method.invoke(target, args);
+              } catch (InvocationTargetException e) {
+                throw e.getCause();
+              }
+            });
+  }
+}
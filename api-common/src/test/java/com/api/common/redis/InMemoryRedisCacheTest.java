@@ -0,0 +1,148 @@
+package com.api.common.redis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.api.common.redis.codec.RedisValueCodecs;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class InMemoryRedisCacheTest {
+
+  private InMemoryRedisCache redisCache;
+
+  @BeforeEach
+  void setUp() {
+    RedisValueCodecs codecs = new RedisValueCodecs(new ObjectMapper());
+    ReflectionTestUtils.setField(codecs, "defaultCodecName", "json");
+    ReflectionTestUtils.setField(codecs, "prefixMapping", "");
+    ReflectionTestUtils.setField(codecs, "defaultCompression", "none");
+    ReflectionTestUtils.setField(codecs, "compressionMapping", "");
+    codecs.init();
+    redisCache = new InMemoryRedisCache(new ObjectMapper(), codecs);
+    ReflectionTestUtils.setField(redisCache, "scanCount", 2);
+    ReflectionTestUtils.setField(redisCache, "sweepMillis", 60_000L);
+    redisCache.init();
+  }
+
+  @AfterEach
+  void tearDown() {
+    redisCache.shutdown();
+  }
+
+  @Test
+  void keysExpireLikeRedis() throws InterruptedException {
+    redisCache.setCacheObject("short", "a", 20, TimeUnit.MILLISECONDS);
+    redisCache.setCacheObject("persistent", "b");
+
+    assertThat(redisCache.getExpire("persistent")).isEqualTo(-1L);
+    assertThat(redisCache.getExpire("missing")).isEqualTo(-2L);
+    Thread.sleep(40);
+
+    assertThat(redisCache.<String>getCacheObject("short")).isNull();
+    assertThat(redisCache.hasKey("short")).isFalse();
+    assertThat(redisCache.expire("short", 1, TimeUnit.MINUTES)).isFalse();
+    assertThat(redisCache.expire("persistent", 0, TimeUnit.SECONDS)).isTrue();
+    assertThat(redisCache.hasKey("persistent")).isFalse();
+  }
+
+  @Test
+  void countersAreDecimalTextAndKeepTheirTtl() {
+    redisCache.setCacheObject("text", "not a number");
+
+    assertThat(redisCache.increment("hits", 2)).isEqualTo(2);
+    assertThat(redisCache.increment("hits", 3)).isEqualTo(5);
+    assertThat(redisCache.getExpire("hits")).isEqualTo(-1L);
+    redisCache.expire("hits", 1, TimeUnit.MINUTES);
+    redisCache.increment("hits", 1);
+    assertThat(redisCache.getExpire("hits")).isPositive();
+    assertThat(redisCache.<Integer>getCacheObject("hits")).isEqualTo(6);
+    assertThatThrownBy(() -> redisCache.increment("text", 1))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void locksOnlyReleaseWithTheirToken() {
+    assertThat(redisCache.tryLock("lock", "owner", 1, TimeUnit.MINUTES)).isTrue();
+    assertThat(redisCache.tryLock("lock", "other", 1, TimeUnit.MINUTES)).isFalse();
+
+    assertThat(redisCache.unlock("lock", "other")).isFalse();
+    assertThat(redisCache.unlock("lock", "owner")).isTrue();
+    assertThat(redisCache.tryLock("lock", "other", 1, TimeUnit.MINUTES)).isTrue();
+  }
+
+  @Test
+  void hashesAndWrongTypes() {
+    redisCache.setCacheMap("user:1", Map.of("name", "admin"));
+    redisCache.setCacheMapValue("user:1", "age", 30);
+    redisCache.hIncrement("user:1", "logins", 2);
+    redisCache.setCacheObject("plain", "value");
+
+    assertThat(redisCache.<Object>getCacheMap("user:1"))
+        .containsEntry("name", "admin")
+        .containsEntry("age", 30)
+        .containsEntry("logins", 2);
+    assertThat(redisCache.deleteCacheMapValue("user:1", "age")).isTrue();
+    assertThat(redisCache.<Object>getCacheMapValue("user:1", "age")).isNull();
+    assertThatThrownBy(() -> redisCache.setCacheMapValue("plain", "field", 1))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageStartingWith("WRONGTYPE");
+  }
+
+  @Test
+  void sortedSetsAndSets() {
+    redisCache.zAdd("index", "a", 1);
+    redisCache.zAdd("index", "b", 3);
+    redisCache.zAdd("index", "c", 2);
+    redisCache.sAdd("members", "x", "y", "x");
+
+    assertThat(redisCache.zRevRange("index", 0, -1)).containsExactly("b", "c", "a");
+    assertThat(redisCache.zRevRange("index", 1, 1)).containsExactly("c");
+    assertThat(redisCache.zRemoveRangeByScore("index", 0, 1.5)).isEqualTo(1);
+    assertThat(redisCache.zCard("index")).isEqualTo(2);
+    assertThat(redisCache.sMembers("members")).containsExactlyInAnyOrder("x", "y");
+    assertThat(redisCache.sRemove("members", "x", "z")).isEqualTo(1);
+  }
+
+  @Test
+  void scanMatchesGlobsInChunks() {
+    redisCache.setCacheObject("sys_config:a", 1);
+    redisCache.setCacheObject("sys_config:b", 2);
+    redisCache.setCacheObject("sys_config:c", 3);
+    redisCache.setCacheObject("sys_dict:a", 4);
+    List<List<String>> chunks = new ArrayList<>();
+
+    long visited = redisCache.scan("sys_config:*", chunks::add);
+
+    assertThat(visited).isEqualTo(3);
+    assertThat(chunks).hasSize(2);
+    assertThat(chunks.stream().flatMap(List::stream))
+        .containsExactlyInAnyOrder("sys_config:a", "sys_config:b", "sys_config:c");
+    assertThat(redisCache.keys("sys_[cd]*:a"))
+        .containsExactlyInAnyOrder("sys_config:a", "sys_dict:a");
+    assertThat(redisCache.keys("sys_config:?")).hasSize(3);
+  }
+
+  @Test
+  void publishDeliversToSubscribersOfTheChannel() {
+    List<String> received = new ArrayList<>();
+    redisCache.subscribe("channel:a", received::add);
+    redisCache.subscribe(
+        "channel:a",
+        message -> {
+          throw new IllegalStateException("listener failure");
+        });
+
+    redisCache.publish("channel:a", "hello");
+    redisCache.publish("channel:b", "ignored");
+
+    assertThat(received).containsExactly("hello");
+  }
+}
@@ -0,0 +1,147 @@
+package com.api.common.redis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/** Drives the breaker through {@link RedisFaultInjector}, as a slow or failing Redis would. */
+class RedisCircuitBreakerTest {
+
+  private static final long OPEN_MILLIS = 100;
+
+  private RedisFaultInjector faults;
+  private RedisCircuitBreaker breaker;
+  private RedisTemplateCache redis;
+  private RedisCache redisCache;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    faults = new RedisFaultInjector();
+    ReflectionTestUtils.setField(faults, "enabled", true);
+    breaker = new RedisCircuitBreaker(faults);
+    ReflectionTestUtils.setField(breaker, "enabled", true);
+    ReflectionTestUtils.setField(breaker, "windowSize", 10);
+    ReflectionTestUtils.setField(breaker, "minimumCalls", 5);
+    ReflectionTestUtils.setField(breaker, "failureRateThreshold", 50);
+    ReflectionTestUtils.setField(breaker, "slowCallMillis", 20L);
+    ReflectionTestUtils.setField(breaker, "slowCallRateThreshold", 80);
+    ReflectionTestUtils.setField(breaker, "openMillis", OPEN_MILLIS);
+    ReflectionTestUtils.setField(breaker, "halfOpenProbes", 2);
+    redis = mock(RedisTemplateCache.class);
+    when(redis.hasKey(anyString())).thenReturn(true);
+    ObjectProvider<ShardedRedisCache> noShards = mock(ObjectProvider.class);
+    redisCache = new CircuitBreakingRedisCache(redis, noShards, breaker);
+  }
+
+  @Test
+  void staysClosedWhileRedisResponds() {
+    for (int i = 0; i < 20; i++) {
+      assertThat(redisCache.hasKey("k")).isTrue();
+    }
+    assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void opensOnFailuresAndRejectsWithoutCallingRedis() {
+    faults.configure(0, 1);
+    failCalls(5);
+    assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+
+    faults.configure(0, 0);
+    assertThatThrownBy(() -> redisCache.hasKey("k"))
+        .isInstanceOf(RedisUnavailableException.class)
+        .hasMessageContaining("OPEN");
+    verify(redis, never()).hasKey(anyString());
+    assertThat(breaker.isAvailable()).isFalse();
+    assertThat(breaker.snapshot()).containsEntry("trips", 1L).containsEntry("rejectedCalls", 1L);
+  }
+
+  @Test
+  void opensOnSlowCalls() {
+    faults.configure(30, 0);
+    for (int i = 0; i < 5; i++) {
+      redisCache.hasKey("k");
+    }
+
+    assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+  }
+
+  @Test
+  void closesAfterSuccessfulProbes() throws InterruptedException {
+    faults.configure(0, 1);
+    failCalls(5);
+    faults.configure(0, 0);
+    Thread.sleep(OPEN_MILLIS + 20);
+
+    assertThat(breaker.isAvailable()).isTrue();
+    redisCache.hasKey("k");
+    assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.HALF_OPEN);
+    redisCache.hasKey("k");
+    assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void failedProbeOpensAgain() throws InterruptedException {
+    faults.configure(0, 1);
+    failCalls(5);
+    Thread.sleep(OPEN_MILLIS + 20);
+
+    failCalls(1);
+
+    assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+    assertThat(breaker.snapshot()).containsEntry("trips", 2L);
+  }
+
+  @Test
+  void bestEffortCallsDegradeWhileOpen() {
+    faults.configure(0, 1);
+    failCalls(5);
+
+    redisCache.setCacheObject("k", "v");
+    redisCache.publish("channel", "message");
+
+    assertThat(redisCache.<String>getCacheObject("k")).isNull();
+    BatchResult<Boolean> deleted = redisCache.deleteObjects(List.of("a", "b"));
+    assertThat(deleted.failures()).containsOnlyKeys("a", "b");
+    assertThatThrownBy(() -> redisCache.expire("k", 1, TimeUnit.MINUTES))
+        .isInstanceOf(RedisUnavailableException.class);
+  }
+
+  @Test
+  void callerErrorsDoNotCountAsFailures() {
+    when(redis.hasKey("bad")).thenThrow(new IllegalArgumentException("bad key"));
+
+    for (int i = 0; i < 10; i++) {
+      assertThatThrownBy(() -> redisCache.hasKey("bad"))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void configureIsRejectedUnlessEnabled() {
+    ReflectionTestUtils.setField(faults, "enabled", false);
+
+    assertThatThrownBy(() -> faults.configure(0, 1)).isInstanceOf(IllegalStateException.class);
+  }
+
+  private void failCalls(int calls) {
+    for (int i = 0; i < calls; i++) {
+      assertThatThrownBy(() -> redisCache.hasKey("k"))
+          .isInstanceOf(RedisUnavailableException.class);
+    }
+  }
+}
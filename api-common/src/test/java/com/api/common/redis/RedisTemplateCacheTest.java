@@ -0,0 +1,120 @@
+package com.api.common.redis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.api.common.redis.codec.RedisValueCodecs;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/** Counter merges against a mocked template, pipelines replayed on a mocked connection. */
+class RedisTemplateCacheTest {
+
+  /** Replies of the next pipelines; a reply may throw like a pipeline with failed commands. */
+  private final List<PipelineReply> pipelineReplies = new ArrayList<>();
+
+  private RedisTemplate<Object, Object> redisTemplate;
+  private RedisScriptingCommands scripting;
+  private RedisTemplateCache redisCache;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    redisTemplate = mock(RedisTemplate.class);
+    scripting = mock(RedisScriptingCommands.class);
+    RedisConnection connection = mock(RedisConnection.class);
+    when(connection.scriptingCommands()).thenReturn(scripting);
+    Answer<Object> onConnection =
+        invocation -> invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+    when(redisTemplate.execute(any(RedisCallback.class))).thenAnswer(onConnection);
+    RedisOperations<Object, Object> ops = mock(RedisOperations.class);
+    when(ops.execute(any(RedisCallback.class))).thenAnswer(onConnection);
+    when(redisTemplate.executePipelined(any(SessionCallback.class)))
+        .thenAnswer(
+            invocation -> {
+              invocation.<SessionCallback<?>>getArgument(0).execute(ops);
+              return pipelineReplies.remove(0).get();
+            });
+    redisCache =
+        new RedisTemplateCache(
+            redisTemplate,
+            new ObjectMapper(),
+            mock(RedisMessageListenerContainer.class),
+            mock(RedisValueCodecs.class));
+  }
+
+  @Test
+  void mergesCountersBySha() {
+    pipelineReplies.add(() -> List.of(1L, 1L));
+
+    BatchResult<Boolean> merged = redisCache.mergeCounters(deltas("a", "b"), 1, TimeUnit.MINUTES);
+
+    assertThat(merged.countTrue()).isEqualTo(2);
+    verify(scripting, times(2))
+        .evalSha(anyString(), eq(ReturnType.INTEGER), eq(1), any(byte[][].class));
+    verify(scripting, never()).eval(any(byte[].class), any(), anyInt(), any(byte[][].class));
+    verify(scripting, never()).scriptLoad(any());
+  }
+
+  @Test
+  void loadsTheScriptOnceAndRetriesOnlyTheKeysRejectedWithNoScript() {
+    RedisSystemException noScript =
+        new RedisSystemException("NOSCRIPT No matching script", new IllegalStateException());
+    List<Object> partial = new ArrayList<>();
+    partial.add(noScript);
+    partial.add(1L);
+    partial.add(noScript);
+    pipelineReplies.add(
+        () -> {
+          throw new RedisPipelineException(noScript, partial);
+        });
+    pipelineReplies.add(() -> List.of(1L, 1L));
+
+    BatchResult<Boolean> merged =
+        redisCache.mergeCounters(deltas("a", "b", "c"), 1, TimeUnit.MINUTES);
+
+    assertThat(merged.hasFailures()).isFalse();
+    assertThat(merged.values().keySet()).containsExactly("a", "b", "c");
+    verify(scripting).scriptLoad(any());
+    // Three in the first pipeline, then "a" and "c" again; "b" is not merged twice
+    verify(scripting, times(5))
+        .evalSha(anyString(), eq(ReturnType.INTEGER), eq(1), any(byte[][].class));
+  }
+
+  private interface PipelineReply {
+    List<Object> get();
+  }
+
+  private static Map<String, CounterDelta> deltas(String... keys) {
+    Map<String, CounterDelta> deltas = new LinkedHashMap<>();
+    for (String key : keys) {
+      deltas.put(key, new CounterDelta().add("Count", 1));
+    }
+    return deltas;
+  }
+}
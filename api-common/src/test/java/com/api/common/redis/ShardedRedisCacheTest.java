@@ -0,0 +1,173 @@
+package com.api.common.redis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.api.common.redis.ShardedRedisCache.Shard;
+import com.api.common.redis.codec.RedisValueCodecs;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ShardedRedisCacheTest {
+
+  private final List<InMemoryRedisCache> stores = new ArrayList<>();
+  private RedisValueCodecs codecs;
+  private InMemoryRedisCache sessions;
+  private InMemoryRedisCache first;
+  private InMemoryRedisCache second;
+  private ShardedRedisCache sharded;
+
+  @BeforeEach
+  void setUp() {
+    codecs = new RedisValueCodecs(new ObjectMapper());
+    ReflectionTestUtils.setField(codecs, "defaultCodecName", "json");
+    ReflectionTestUtils.setField(codecs, "prefixMapping", "");
+    ReflectionTestUtils.setField(codecs, "defaultCompression", "none");
+    ReflectionTestUtils.setField(codecs, "compressionMapping", "");
+    codecs.init();
+    sessions = store();
+    first = store();
+    second = store();
+    sharded =
+        new ShardedRedisCache(
+            List.of(
+                new Shard("sessions", sessions, false),
+                new Shard("first", first, true),
+                new Shard("second", second, true)),
+            Map.of("login_tokens:", "sessions", "login_tokens:hot:", "first"),
+            List.of("group:"),
+            64,
+            List.of());
+  }
+
+  @AfterEach
+  void tearDown() {
+    stores.forEach(InMemoryRedisCache::shutdown);
+  }
+
+  @Test
+  void longestPrefixRuleWins() {
+    assertThat(sharded.shardFor("login_tokens:abc").name()).isEqualTo("sessions");
+    assertThat(sharded.shardFor("login_tokens:hot:abc").name()).isEqualTo("first");
+    assertThat(sharded.shardFor("anything").name()).isIn("first", "second");
+  }
+
+  @Test
+  void batchCommandsRunOnTheShardOfTheirKey() {
+    sharded.executeBatch(
+        new RedisBatch()
+            .putAll("login_tokens:a", Map.of("user", "admin"))
+            .expire("login_tokens:a", 10, TimeUnit.MINUTES)
+            .zAdd("login_tokens:hot:index", "a", 1)
+            .sAdd("plain", "a"));
+
+    assertThat(sessions.<String>getCacheMap("login_tokens:a")).containsEntry("user", "admin");
+    assertThat(sessions.getExpire("login_tokens:a")).isPositive();
+    assertThat(first.zRevRange("login_tokens:hot:index", 0, -1)).containsExactly("a");
+    assertThat(((InMemoryRedisCache) sharded.shardFor("plain").cache()).sMembers("plain"))
+        .containsExactly("a");
+  }
+
+  @Test
+  void onlyHashTaggedFamiliesAreRoutedByTheirTag() {
+    Set<String> grouped = new HashSet<>();
+    Set<String> metrics = new HashSet<>();
+    for (int i = 0; i < 50; i++) {
+      grouped.add(sharded.shardFor("group:{42}:" + i).name());
+      metrics.add(sharded.shardFor("metrics:endpoint:GET /system/user/{userId}/" + i).name());
+    }
+
+    assertThat(grouped).hasSize(1);
+    assertThat(metrics).containsExactlyInAnyOrder("first", "second");
+  }
+
+  @Test
+  void batchesAreSplitPerShardAndMergedInRequestOrder() {
+    Map<String, String> values = new LinkedHashMap<>();
+    for (int i = 0; i < 20; i++) {
+      values.put("key:" + i, "value" + i);
+    }
+    values.put("login_tokens:t", "session");
+
+    BatchResult<Boolean> written = sharded.setCacheObjects(values, 1, TimeUnit.MINUTES);
+    BatchResult<String> read = sharded.getCacheObjects(values.keySet(), String.class);
+    List<byte[]> bytes = sharded.getCacheBytes(List.of("key:3", "missing", "login_tokens:t"));
+
+    assertThat(written.countTrue()).isEqualTo(values.size());
+    assertThat(read.values()).containsExactlyEntriesOf(values);
+    assertThat(bytes).hasSize(3);
+    assertThat(bytes.get(1)).isNull();
+    assertThat(sessions.hasKey("login_tokens:t")).isTrue();
+    assertThat(first.keys("key:*")).isNotEmpty();
+    assertThat(second.keys("key:*")).isNotEmpty();
+    assertThat(sharded.keys("key:*")).hasSize(20);
+    assertThat(sharded.deleteObjects(values.keySet()).countTrue()).isEqualTo(values.size());
+  }
+
+  @Test
+  void anUnreachableShardOnlyFailsItsOwnKeys() {
+    RedisCache down = mock(RedisCache.class);
+    RedisConnectionFailureException refused = new RedisConnectionFailureException("refused");
+    when(down.getCacheObjects(anyCollection(), any())).thenThrow(refused);
+    RedisFaultInjector faults = new RedisFaultInjector();
+    RedisCircuitBreaker upBreaker = breaker(faults);
+    RedisCircuitBreaker downBreaker = upBreaker.forShard("down");
+    ShardedRedisCache partial =
+        new ShardedRedisCache(
+            List.of(
+                new Shard("up", new CircuitBreakingRedisCache(sessions, upBreaker), false),
+                new Shard("down", new CircuitBreakingRedisCache(down, downBreaker), true)),
+            Map.of("up:", "up"),
+            List.of(),
+            16,
+            List.of());
+    sessions.setCacheObject("up:1", "value");
+
+    BatchResult<String> read = null;
+    for (int i = 0; i < 5; i++) {
+      read = partial.getCacheObjects(List.of("up:1", "other:1"), String.class);
+    }
+
+    assertThat(read.values()).containsExactly(Map.entry("up:1", "value"));
+    assertThat(read.failures()).containsOnlyKeys("other:1");
+    assertThat(downBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+    assertThat(upBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    assertThat(partial.<String>getCacheObject("up:1")).isEqualTo("value");
+  }
+
+  private static RedisCircuitBreaker breaker(RedisFaultInjector faults) {
+    RedisCircuitBreaker breaker = new RedisCircuitBreaker(faults);
+    ReflectionTestUtils.setField(breaker, "enabled", true);
+    ReflectionTestUtils.setField(breaker, "windowSize", 10);
+    ReflectionTestUtils.setField(breaker, "minimumCalls", 5);
+    ReflectionTestUtils.setField(breaker, "failureRateThreshold", 50);
+    ReflectionTestUtils.setField(breaker, "slowCallMillis", 1000L);
+    ReflectionTestUtils.setField(breaker, "slowCallRateThreshold", 80);
+    ReflectionTestUtils.setField(breaker, "openMillis", 60_000L);
+    ReflectionTestUtils.setField(breaker, "halfOpenProbes", 2);
+    return breaker;
+  }
+
+  private InMemoryRedisCache store() {
+    InMemoryRedisCache store = new InMemoryRedisCache(new ObjectMapper(), codecs);
+    ReflectionTestUtils.setField(store, "scanCount", 100);
+    ReflectionTestUtils.setField(store, "sweepMillis", 60_000L);
+    store.init();
+    stores.add(store);
+    return store;
+  }
+}
@@ -0,0 +1,167 @@
+package com.api.common.redis.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.api.common.redis.InMemoryRedisCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class RedisValueCodecsTest {
+
+  private RedisValueCodecs codecs;
+
+  @BeforeEach
+  void setUp() {
+    codecs = codecs("smile_key:=smile,raw_key:=raw,raw_key:json:=json");
+  }
+
+  @Test
+  void prefixRulesPickTheCodecLongestPrefixFirst() {
+    assertThat(codecs.codecFor("other:1").name()).isEqualTo("json");
+    assertThat(codecs.codecFor("smile_key:1").name()).isEqualTo("smile");
+    assertThat(codecs.codecFor("raw_key:1").name()).isEqualTo("raw");
+    assertThat(codecs.codecFor("raw_key:json:1").name()).isEqualTo("json");
+  }
+
+  @Test
+  void everyCodecRoundTrips() throws Exception {
+    Map<String, Object> value = Map.of("name", "admin", "roles", List.of("admin"));
+
+    for (String key : new String[] {"other:1", "smile_key:1"}) {
+      byte[] framed = codecs.encode(key, value);
+      assertThat(codecs.isFramed(framed)).isTrue();
+      assertThat(framed[2]).isEqualTo(codecs.codecFor(key).id());
+      assertThat(codecs.decode(framed, Map.class)).isEqualTo(value);
+    }
+    byte[] raw = codecs.encode("raw_key:1", "plain text");
+    assertThat(codecs.decode(raw, String.class)).isEqualTo("plain text");
+  }
+
+  @Test
+  void framesRecordTheirCodecSoConfigurationChangesKeepThemReadable() throws Exception {
+    byte[] framed = codecs.encode("smile_key:1", Map.of("a", 1));
+
+    RedisValueCodecs reconfigured = codecs("");
+
+    assertThat(reconfigured.codecFor("smile_key:1").name()).isEqualTo("json");
+    assertThat(reconfigured.decode(framed, Map.class)).isEqualTo(Map.of("a", 1));
+  }
+
+  @Test
+  void decodesVersionOneFrames() throws Exception {
+    byte[] payload = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+    byte[] v1 = new byte[3 + payload.length];
+    v1[0] = RedisValueCodecs.MAGIC;
+    v1[1] = RedisValueCodecs.VERSION_1;
+    v1[2] = 1;
+    System.arraycopy(payload, 0, v1, 3, payload.length);
+
+    assertThat(codecs.isFramed(v1)).isTrue();
+    assertThat(codecs.decode(v1, Map.class)).isEqualTo(Map.of("a", 1));
+  }
+
+  @Test
+  void writesVersionOneFramesUntilVersionTwoIsEnabled() throws Exception {
+    RedisValueCodecs compressing = codecs("");
+    ReflectionTestUtils.setField(compressing, "defaultCompression", "deflate");
+    ReflectionTestUtils.setField(compressing, "compressionThreshold", 16);
+    compressing.init();
+    String value = "a".repeat(4096);
+
+    byte[] framed = compressing.encode("other:1", value);
+
+    assertThat(framed[1]).isEqualTo(RedisValueCodecs.VERSION_1);
+    assertThat(framed.length).isGreaterThan(value.length());
+    assertThat(codecs.decode(framed, String.class)).isEqualTo(value);
+  }
+
+  @Test
+  void versionTwoFramesDeflateLargeValues() throws Exception {
+    RedisValueCodecs compressing = codecs("");
+    ReflectionTestUtils.setField(compressing, "frameVersion", 2);
+    ReflectionTestUtils.setField(compressing, "defaultCompression", "deflate");
+    ReflectionTestUtils.setField(compressing, "compressionMapping", "small:=none");
+    ReflectionTestUtils.setField(compressing, "compressionThreshold", 16);
+    ReflectionTestUtils.setField(compressing, "compressionLevel", 1);
+    compressing.init();
+    String value = "a".repeat(4096);
+
+    byte[] deflated = compressing.encode("other:1", value);
+    byte[] excluded = compressing.encode("small:1", value);
+    byte[] tiny = compressing.encode("other:2", "tiny");
+
+    assertThat(deflated[1]).isEqualTo(RedisValueCodecs.VERSION_2);
+    assertThat(deflated[3] & RedisValueCodecs.FLAG_DEFLATE).isNotZero();
+    assertThat(deflated.length).isLessThan(value.length() / 10);
+    assertThat(excluded[3]).isZero();
+    assertThat(tiny[3]).isZero();
+    // Any node decodes version 2 frames, whatever its own configuration
+    assertThat(codecs.decode(deflated, String.class)).isEqualTo(value);
+    assertThat(codecs.decode(excluded, String.class)).isEqualTo(value);
+  }
+
+  @Test
+  void rejectsTruncatedDeflatedFrames() throws Exception {
+    RedisValueCodecs compressing = codecs("");
+    ReflectionTestUtils.setField(compressing, "frameVersion", 2);
+    ReflectionTestUtils.setField(compressing, "defaultCompression", "deflate");
+    ReflectionTestUtils.setField(compressing, "compressionThreshold", 16);
+    ReflectionTestUtils.setField(compressing, "compressionLevel", 1);
+    compressing.init();
+    byte[] deflated = compressing.encode("other:1", "a".repeat(4096));
+
+    byte[] truncated = Arrays.copyOf(deflated, deflated.length - 2);
+
+    assertThatThrownBy(() -> codecs.decode(truncated, String.class))
+        .isInstanceOf(DataFormatException.class);
+  }
+
+  @Test
+  void rejectsUnknownCodecsAndVersions() {
+    byte[] unknownCodec = {RedisValueCodecs.MAGIC, RedisValueCodecs.VERSION_1, 42, '1'};
+    byte[] unknownVersion = {RedisValueCodecs.MAGIC, 9, 1, 0, '1'};
+
+    assertThatThrownBy(() -> codecs.decode(unknownCodec, Object.class))
+        .isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> codecs.decode(unknownVersion, Object.class))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void legacyTemplateValuesFallBackToJson() {
+    byte[] legacy = RedisSerializer.json().serialize("cached before codecs");
+    assertThat(codecs.isFramed(legacy)).isFalse();
+
+    InMemoryRedisCache redisCache = new InMemoryRedisCache(new ObjectMapper(), codecs);
+    ReflectionTestUtils.setField(redisCache, "scanCount", 100);
+    ReflectionTestUtils.setField(redisCache, "sweepMillis", 60_000L);
+    redisCache.init();
+    try {
+      redisCache.setCacheBytes("legacy:1", legacy, 1, TimeUnit.MINUTES);
+
+      assertThat(redisCache.<String>getCacheObject("legacy:1")).isEqualTo("cached before codecs");
+    } finally {
+      redisCache.shutdown();
+    }
+  }
+
+  private static RedisValueCodecs codecs(String prefixMapping) {
+    RedisValueCodecs codecs = new RedisValueCodecs(new ObjectMapper());
+    ReflectionTestUtils.setField(codecs, "defaultCodecName", "json");
+    ReflectionTestUtils.setField(codecs, "prefixMapping", prefixMapping);
+    ReflectionTestUtils.setField(codecs, "defaultCompression", "none");
+    ReflectionTestUtils.setField(codecs, "compressionMapping", "");
+    codecs.init();
+    return codecs;
+  }
+}
@@ -0,0 +1,64 @@
+package com.api.common.utils.ip;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetAddress;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class IpRegionTableTest {
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "::",
+        "::1",
+        "2001:db8::1",
+        "2001:DB8:0:0:8:800:200C:417A",
+        "fe80::1%eth0",
+        "1:2:3:4:5:6:7::",
+        "::2:3:4:5:6:7:8",
+        "1:2:3:4:5:6:10.0.0.1",
+        "::10.0.0.1",
+        "::ffff:10.0.0.1",
+        "::ffff:a00:1",
+        "64:ff9b::192.0.2.33"
+      })
+  void parsesLiteralsLikeTheJdk(String literal) throws Exception {
+    assertThat(IpRegionTable.toBytes(literal))
+        .isEqualTo(InetAddress.getByName(literal).getAddress());
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "evil.example:80",
+        "localhost:8080",
+        ":",
+        ":::",
+        "1::2::3",
+        "1:2:3:4:5:6:7:8:9",
+        "1:2:3:4:5:6:7",
+        "12345::1",
+        "::g",
+        "::1.2.3",
+        "::256.0.0.1",
+        ":1.2.3.4",
+        "[::1]"
+      })
+  void rejectsAnythingElseWithoutResolving(String text) {
+    assertThat(IpRegionTable.toBytes(text)).isNull();
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"::1", "fe80::1", "fd00::1", "::ffff:192.168.1.1", "evil.example:80"})
+  void treatsLocalAndUnparsableIpv6AsInternal(String ip) {
+    assertThat(IpUtils.isInternalIpv6(ip)).isTrue();
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"2001:db8::1", "::ffff:8.8.8.8"})
+  void treatsPublicIpv6AsExternal(String ip) {
+    assertThat(IpUtils.isInternalIpv6(ip)).isFalse();
+  }
+}
@@ -0,0 +1,26 @@
+package com.api.framework.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Maximum number of SQL statements one request to the annotated endpoint may run, overriding
+ * {@code sqlStats.queryBudget.default}.
+ *
+ * <p>Requests over budget are logged; with {@code sqlStats.queryBudget.enforce=true} (meant for
+ * integration tests) the statement that goes over is rejected with a {@link
+ * com.api.framework.exception.QueryBudgetExceededException} instead.
+ *
+ * <pre>
+ *     @GetMapping("/list")
+ *     @QueryBudget(5)
+ *     public TableDataInfo list(SysUser user) { ... }
+ * </pre>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface QueryBudget {
+
+  /** Statements allowed per request; 0 or less means unlimited. */
+  int value();
+}
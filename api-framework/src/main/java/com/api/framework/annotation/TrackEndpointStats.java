@@ -13,6 +13,6 @@ import java.lang.annotation.*;
 @Documented
 public @interface TrackEndpointStats {
 
-  /** Optional custom key for Redis storage. Defaults to request URI. */
+  /** Optional custom key for Redis storage. Defaults to the HTTP method and URI template. */
   String value() default "";
 }
@@ -3,7 +3,8 @@ package com.api.framework.annotation;
 import java.lang.annotation.*;
 
 /**
- * Annotation to automatically track SQL execution performance.
+ * Annotation to label the SQL statements a method runs in the SQL monitor. Every statement is
+ * measured whether or not it is annotated; the label tells which method a statement comes from.
  *
  * <p>If {@code value()} is not provided, the method name will be used as identifier.
  */
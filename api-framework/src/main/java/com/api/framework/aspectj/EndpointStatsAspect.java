@@ -1,34 +1,59 @@
 package com.api.framework.aspectj;
 
+import com.api.common.redis.BatchResult;
+import com.api.common.redis.CounterDelta;
 import com.api.common.redis.RedisCache;
+import com.api.common.redis.RedisCircuitBreaker;
 import com.api.framework.annotation.TrackEndpointStats;
+import com.api.framework.metrics.LatencyHistogram;
+import com.api.framework.metrics.WindowedMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.*;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.api.common.constant.CacheConstants.MONITOR_URI_KEY;
 
 /**
  * Aspect for measuring API endpoint metrics such as execution time, success/failure rate, and
- * concurrency. Results are aggregated in Redis.
+ * concurrency.
+ *
+ * <p>Requests only update in-process counters ({@link LongAdder}s and max/min accumulators) per
+ * endpoint, keyed by HTTP method and URI template unless the annotation names a key. Every {@code
+ * endpointStats.flushMillis} the deltas are merged into Redis with one pipelined batch per node
+ * ({@link RedisCache#mergeCounters}), so concurrent nodes and requests add up exactly. Deltas that
+ * could not be written, e.g. while Redis is unavailable, are kept for the next flush. Per-minute
+ * counts for rolling windows go to {@link WindowedMetrics}.
  *
  * <p>Metrics stored per endpoint:
  *
  * <ul>
  *   <li>RequestCount
- *   <li>RequestTimeAverage
- *   <li>RequestTimeMillisMax
+ *   <li>RequestTimeTotal (the average is RequestTimeTotal / RequestCount)
+ *   <li>RequestTimeMillisMax / RequestTimeMillisMin
  *   <li>ConcurrentMax
  *   <li>SuccessCount
  *   <li>FailCount
+ *   <li>Latency histogram ({@link LatencyHistogram} bucket fields), for percentiles
  * </ul>
  */
 @Slf4j
@@ -37,116 +62,153 @@ import static com.api.common.constant.CacheConstants.MONITOR_URI_KEY;
 @RequiredArgsConstructor
 public class EndpointStatsAspect {
 
+  private static final long TTL_SECONDS = Duration.ofHours(24).toSeconds();
+
   private final RedisCache redisCache;
+  private final RedisCircuitBreaker redisCircuitBreaker;
+  private final ScheduledExecutorService scheduledExecutorService;
+  private final WindowedMetrics windowedMetrics;
 
-  /** Tracks live concurrent requests per endpoint (in-memory) */
-  private final ConcurrentHashMap<String, AtomicInteger> concurrentMap = new ConcurrentHashMap<>();
+  @Value("${endpointStats.flushMillis:5000}")
+  private long flushMillis;
+
+  /** Counters since the last flush, per endpoint key. */
+  private final ConcurrentHashMap<String, Stats> statsMap = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void init() {
+    scheduledExecutorService.scheduleWithFixedDelay(
+        this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+  }
 
   @Around("@annotation(com.api.framework.annotation.TrackEndpointStats)")
   public Object measureExecution(ProceedingJoinPoint joinPoint) throws Throwable {
-    long startTime = System.currentTimeMillis();
+    long startTime = System.nanoTime();
 
     MethodSignature signature = (MethodSignature) joinPoint.getSignature();
     TrackEndpointStats annotation = signature.getMethod().getAnnotation(TrackEndpointStats.class);
-    String uri =
-        annotation.value().isEmpty() ? signature.getMethod().getName() : annotation.value();
+    String uri = annotation.value().isEmpty() ? endpointOf(signature) : annotation.value();
 
-    // Track concurrent requests safely
-    AtomicInteger current = concurrentMap.computeIfAbsent(uri, k -> new AtomicInteger(0));
-    int concurrentNow = current.incrementAndGet();
+    Stats stats = statsMap.computeIfAbsent(uri, k -> new Stats());
+    stats.concurrentMax.accumulate(stats.concurrent.incrementAndGet());
 
-    Object result;
     boolean success = true;
-
     try {
-      result = joinPoint.proceed();
+      return joinPoint.proceed();
     } catch (Throwable ex) {
       success = false;
       throw ex;
     } finally {
-      long duration = System.currentTimeMillis() - startTime;
-      current.decrementAndGet();
-      updateStats(uri, duration, concurrentNow, success);
+      stats.concurrent.decrementAndGet();
+      long nanos = System.nanoTime() - startTime;
+      stats.record(nanos, success);
+      windowedMetrics.record(WindowedMetrics.ENDPOINT + uri, nanos, !success);
     }
-
-    return result;
   }
 
-  /**
-   * Updates Redis metrics for a given endpoint.
-   *
-   * @param uri endpoint key
-   * @param duration execution time in ms
-   * @param concurrentNow current concurrent count
-   * @param success whether the request succeeded
-   */
-  private void updateStats(String uri, long duration, int concurrentNow, boolean success) {
-    String redisKey = MONITOR_URI_KEY + uri;
-
-    try {
-      // ✅ Increment counters
-      increment(redisKey, "RequestCount", 1);
-      increment(redisKey, success ? "SuccessCount" : "FailCount", 1);
-      increment(redisKey, "RequestTimeTotal", duration);
-
-      // ✅ Compute and store average
-      Map<String, Object> stats = redisCache.getCacheMap(redisKey);
-      long count = parseLong(stats.get("RequestCount"));
-      long total = parseLong(stats.get("RequestTimeTotal"));
-      if (count > 0) {
-        double avg = (double) total / count;
-        redisCache.setCacheMapValue(redisKey, "RequestTimeAverage", String.format("%.2f", avg));
-      }
-
-      // ✅ Update max duration
-      long currentMax = parseLong(stats.get("RequestTimeMillisMax"));
-      if (duration > currentMax) {
-        redisCache.setCacheMapValue(redisKey, "RequestTimeMillisMax", duration);
+  /** "GET /system/dept/list" for the current request, or the method name outside of one. */
+  private String endpointOf(MethodSignature signature) {
+    if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attrs) {
+      HttpServletRequest request = attrs.getRequest();
+      Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+      if (pattern != null) {
+        return request.getMethod() + " " + pattern;
       }
+    }
+    return signature.getMethod().getName();
+  }
 
-      // ✅ Update max concurrency
-      int concurrentMax = parseInt(stats.get("ConcurrentMax"));
-      if (concurrentNow > concurrentMax) {
-        redisCache.setCacheMapValue(redisKey, "ConcurrentMax", concurrentNow);
-      }
-
-      // ✅ Set TTL (e.g., 24h)
-      redisCache.expire(redisKey, Duration.ofHours(24).toSeconds());
-
-      // ✅ Log metrics
+  /** Merge the counters gathered since the last flush into Redis. */
+  @PreDestroy
+  public synchronized void flush() {
+    if (statsMap.isEmpty() || !redisCircuitBreaker.isAvailable()) {
+      return;
+    }
+    Map<String, CounterDelta> deltas = new LinkedHashMap<>();
+    statsMap.forEach(
+        (uri, stats) -> {
+          CounterDelta delta = stats.drain();
+          if (delta != null) {
+            deltas.put(MONITOR_URI_KEY + uri, delta);
+          }
+        });
+    if (deltas.isEmpty()) {
+      return;
+    }
+    try {
+      BatchResult<Boolean> result = redisCache.mergeCounters(deltas, TTL_SECONDS, TimeUnit.SECONDS);
+      result.failures().keySet().forEach(key -> restore(key, deltas.get(key)));
       log.debug(
-          "[Metrics] URI={} | Time={}ms | Success={} | ConcurrentNow={}",
-          uri,
-          duration,
-          success,
-          concurrentNow);
-
+          "[Metrics] Flushed {} endpoints, {} failed", deltas.size(), result.failures().size());
     } catch (Exception e) {
-      log.error("❌ Failed to update metrics for URI: {}", uri, e);
+      log.error("❌ Failed to flush endpoint metrics", e);
+      deltas.forEach(this::restore);
     }
   }
 
-  private void increment(String key, String field, long value) {
-    Map<String, Object> map = redisCache.getCacheMap(key);
-    long current = parseLong(map.get(field));
-    redisCache.setCacheMapValue(key, field, current + value);
+  private void restore(String redisKey, CounterDelta delta) {
+    statsMap
+        .computeIfAbsent(redisKey.substring(MONITOR_URI_KEY.length()), k -> new Stats())
+        .restore(delta);
   }
 
-  private long parseLong(Object value) {
-    if (value == null) return 0L;
-    try {
-      return Long.parseLong(value.toString());
-    } catch (NumberFormatException e) {
-      return 0L;
+  /** Lock-free counters of one endpoint. */
+  private static final class Stats {
+
+    final AtomicInteger concurrent = new AtomicInteger();
+    final LongAdder requestCount = new LongAdder();
+    final LongAdder successCount = new LongAdder();
+    final LongAdder failCount = new LongAdder();
+    final LongAdder timeTotal = new LongAdder();
+    final LongAccumulator timeMax = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    final LongAccumulator timeMin = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    final LongAccumulator concurrentMax = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    final LatencyHistogram latency = new LatencyHistogram();
+
+    void record(long nanos, boolean success) {
+      long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+      latency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+      requestCount.increment();
+      (success ? successCount : failCount).increment();
+      timeTotal.add(millis);
+      timeMax.accumulate(millis);
+      timeMin.accumulate(millis);
     }
-  }
 
-  private int parseInt(Object value) {
-    if (value == null) return 0;
-    try {
-      return Integer.parseInt(value.toString());
-    } catch (NumberFormatException e) {
-      return 0;
+    /** Take and reset everything recorded so far; null if nothing was. */
+    CounterDelta drain() {
+      long count = requestCount.sumThenReset();
+      long concurrentPeak = concurrentMax.getThenReset();
+      if (count == 0 && concurrentPeak == Long.MIN_VALUE) {
+        return null;
+      }
+      CounterDelta delta =
+          new CounterDelta()
+              .add("RequestCount", count)
+              .add("SuccessCount", successCount.sumThenReset())
+              .add("FailCount", failCount.sumThenReset())
+              .add("RequestTimeTotal", timeTotal.sumThenReset());
+      latency.drain().forEach(delta::add);
+      long max = timeMax.getThenReset();
+      long min = timeMin.getThenReset();
+      if (max != Long.MIN_VALUE) {
+        delta.max("RequestTimeMillisMax", max).min("RequestTimeMillisMin", min);
+      }
+      if (concurrentPeak != Long.MIN_VALUE) {
+        delta.max("ConcurrentMax", concurrentPeak);
+      }
+      return delta;
+    }
+
+    void restore(CounterDelta delta) {
+      requestCount.add(delta.increments().getOrDefault("RequestCount", 0L));
+      successCount.add(delta.increments().getOrDefault("SuccessCount", 0L));
+      failCount.add(delta.increments().getOrDefault("FailCount", 0L));
+      timeTotal.add(delta.increments().getOrDefault("RequestTimeTotal", 0L));
+      timeMax.accumulate(delta.maxima().getOrDefault("RequestTimeMillisMax", Long.MIN_VALUE));
+      timeMin.accumulate(delta.minima().getOrDefault("RequestTimeMillisMin", Long.MAX_VALUE));
+      concurrentMax.accumulate(delta.maxima().getOrDefault("ConcurrentMax", Long.MIN_VALUE));
+      latency.addFields(delta.increments());
     }
   }
 }
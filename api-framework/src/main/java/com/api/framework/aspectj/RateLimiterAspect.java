@@ -1,6 +1,8 @@
 package com.api.framework.aspectj;
 
 import com.api.common.constant.CacheConstants;
+import com.api.common.redis.RedisCache;
+import com.api.common.redis.RedisUnavailableException;
 import com.api.common.utils.StringUtils;
 import com.api.common.utils.ip.IpUtils;
 import com.api.framework.annotation.RateLimiter;
@@ -13,21 +15,17 @@ import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
-import java.time.Duration;
-import java.util.Collections;
-import java.util.List;
 
 /**
  * Aspect for enforcing rate limits using Redis counters.
  *
- * <p>This aspect uses a Lua script (loaded as {@link RedisScript}) to ensure atomic increments and
- * time-based resets in Redis.
+ * <p>Each window is one atomic counter ({@link RedisCache#increment}) that expires with the window.
+ * While Redis is unavailable requests are let through ({@code rateLimiter.failOpen=true}, the
+ * default) or rejected with the limiter's message.
  */
 @RequiredArgsConstructor
 @Slf4j
@@ -35,9 +33,13 @@ import java.util.List;
 @Component
 public class RateLimiterAspect {
 
-  private final RedisTemplate<Object, Object> redisTemplate;
+  private final RedisCache redisCache;
   private final TokenService tokenService;
 
+  /** Let requests through when the counter cannot be reached, rather than rejecting them. */
+  @Value("${rateLimiter.failOpen:true}")
+  private boolean failOpen;
+
   /** Intercepts methods annotated with {@link RateLimiter} and applies rate limiting. */
   @Before("@annotation(rateLimiter)")
   public void enforceRateLimit(JoinPoint point, RateLimiter rateLimiter) {
@@ -47,14 +49,14 @@ public class RateLimiterAspect {
 
     try {
       // ✅ Increment Redis counter atomically
-      Long currentCount = redisTemplate.opsForValue().increment(key);
+      long currentCount = redisCache.increment(key, 1);
 
       // ✅ If this is the first access, set expiration
-      if (currentCount != null && currentCount == 1L) {
-        redisTemplate.expire(key, Duration.ofSeconds(windowSeconds));
+      if (currentCount == 1L) {
+        redisCache.expire(key, windowSeconds);
       }
 
-      if (currentCount != null && currentCount > limit) {
+      if (currentCount > limit) {
         log.warn("🚫 Rate limit exceeded: key={} count={} limit={}", key, currentCount, limit);
         throw new ServiceException(rateLimiter.message());
       }
@@ -68,6 +70,13 @@ public class RateLimiterAspect {
 
     } catch (ServiceException e) {
       throw e;
+    } catch (RedisUnavailableException e) {
+      if (failOpen) {
+        log.debug("Redis unavailable, rate limit not applied: key={}", key);
+        return;
+      }
+      log.warn("🚫 Redis unavailable, rejecting rate-limited request: key={}", key);
+      throw new ServiceException(rateLimiter.message());
     } catch (Exception e) {
       log.error("❌ Failed to apply rate limiting for key={}", key, e);
       throw new RuntimeException("Rate limiting system error, please try again later.");
@@ -0,0 +1,350 @@
+package com.api.framework.cache;
+
+import com.api.common.cache.LocalCache;
+import com.api.common.cache.SingleFlight;
+import com.api.common.constant.CacheConstants;
+import com.api.common.redis.RedisCache;
+import com.api.common.utils.uuid.IdUtils;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Spring {@link org.springframework.cache.Cache} with a bounded in-process level in front of Redis.
+ *
+ * <p>Reads try the local level, then Redis (filling the local level). Writes and evictions go to
+ * Redis first, then the local level, and are announced to the other nodes through {@link
+ * TwoLevelCacheManager} so they drop their local copy. Nulls are cached as a sentinel with their
+ * own short TTL, so lookups of missing rows do not all fall through to the database.
+ *
+ * <p>The local level keeps the serialized bytes, not the object: every read deserializes its own
+ * copy, so a caller that modifies what it got (e.g. sorts a menu tree) cannot change what other
+ * callers and later reads see.
+ *
+ * <p>Loads through {@link #get(Object, Callable)} ({@code @Cacheable(sync = true)}) are protected
+ * against stampedes: only one thread per key and node runs the loader while the others wait for
+ * its result; optionally a Redis lease extends this across nodes; and a value may be recomputed
+ * shortly before it expires (probabilistic early refresh weighted by its compute time), so a hot
+ * key rarely expires under load at all.
+ *
+ * <p>Redis errors are treated as misses (reads) or logged (writes): the cache never fails a
+ * request that the loader could serve.
+ */
+@Slf4j
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+  /** First byte of a Redis value written with expiry and compute-time metadata. */
+  private static final byte ENVELOPE = (byte) 0xE1;
+
+  private static final byte FLAG_NULL = 1;
+
+  /** Marker, flags, expireAt (8), compute millis (4). */
+  private static final int ENVELOPE_HEADER = 14;
+
+  /** Redis value of a cached null before the envelope existed. */
+  private static final byte[] LEGACY_NULL_BYTES = {0};
+
+  private static final long LEASE_POLL_MILLIS = 50;
+
+  private final String name;
+  private final TwoLevelCacheProperties.Spec spec;
+  private final RedisCache redisCache;
+  private final RedisSerializer<Object> serializer;
+  private final TwoLevelCacheManager manager;
+  private final LocalCache<String, Stored> local;
+  private final SingleFlight<String, Stored> loads = new SingleFlight<>();
+
+  private final LongAdder redisHits = new LongAdder();
+  private final LongAdder redisMisses = new LongAdder();
+  private final LongAdder redisErrors = new LongAdder();
+  private final LongAdder puts = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder earlyRefreshes = new LongAdder();
+  private final LongAdder leaseWaits = new LongAdder();
+
+  TwoLevelCache(
+      String name,
+      TwoLevelCacheProperties.Spec spec,
+      RedisCache redisCache,
+      RedisSerializer<Object> serializer,
+      TwoLevelCacheManager manager) {
+    super(true);
+    this.name = name;
+    this.spec = spec;
+    this.redisCache = redisCache;
+    this.serializer = serializer;
+    this.manager = manager;
+    this.local =
+        new LocalCache<>(name, spec.getMaxSize(), Duration.ofSeconds(spec.getLocalTtlSeconds()));
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public Object getNativeCache() {
+    return this;
+  }
+
+  @Override
+  protected Object lookup(Object key) {
+    Stored stored = lookupEntry(String.valueOf(key));
+    return stored != null ? valueOf(stored) : null;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(Object key, Callable<T> valueLoader) {
+    String localKey = String.valueOf(key);
+    Stored cached = lookupEntry(localKey);
+    if (cached != null) {
+      if (shouldRefreshEarly(cached)) {
+        try {
+          earlyRefreshes.increment();
+          Stored refreshed = loads.load(localKey, () -> loadAndPut(localKey, valueLoader));
+          return (T) fromStoreValue(valueOf(refreshed));
+        } catch (Exception e) {
+          log.warn(
+              "Cache [{}] early refresh failed for key={}: {}", name, localKey, e.getMessage());
+        }
+      }
+      return (T) fromStoreValue(valueOf(cached));
+    }
+
+    try {
+      Stored loaded = loads.load(localKey, () -> loadOnMiss(localKey, valueLoader));
+      return (T) fromStoreValue(valueOf(loaded));
+    } catch (Exception e) {
+      throw new ValueRetrievalException(key, valueLoader, e);
+    }
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    store(String.valueOf(key), toStoreValue(value), 0);
+  }
+
+  @Override
+  public void evict(Object key) {
+    String localKey = String.valueOf(key);
+    try {
+      redisCache.deleteObject(redisKey(localKey));
+    } catch (Exception e) {
+      redisErrors.increment();
+      log.warn("Cache [{}] Redis evict failed for key={}: {}", name, localKey, e.getMessage());
+    }
+    local.invalidate(localKey);
+    evictions.increment();
+    manager.publishEvict(name, localKey);
+  }
+
+  @Override
+  public void clear() {
+    try {
+      redisCache.scan(redisKey("*"), redisCache::deleteObject);
+    } catch (Exception e) {
+      redisErrors.increment();
+      log.warn("Cache [{}] Redis clear failed: {}", name, e.getMessage());
+    }
+    local.clear();
+    evictions.increment();
+    manager.publishClear(name);
+  }
+
+  /** A peer changed or removed the key: drop the local copy only. */
+  void evictLocal(String key) {
+    local.invalidate(key);
+  }
+
+  /** A peer cleared the cache: drop the local level only. */
+  void clearLocal() {
+    local.clear();
+  }
+
+  /** Hit/miss counters of both levels. */
+  public Map<String, Object> stats() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("localSize", local.size());
+    stats.put("localHits", local.hitCount());
+    stats.put("localMisses", local.missCount());
+    stats.put("localEvictions", local.evictionCount());
+    stats.put("redisHits", redisHits.sum());
+    stats.put("redisMisses", redisMisses.sum());
+    stats.put("redisErrors", redisErrors.sum());
+    stats.put("puts", puts.sum());
+    stats.put("evictions", evictions.sum());
+    stats.put("loads", loads.loadCount());
+    stats.put("coalescedLoads", loads.coalescedCount());
+    stats.put("earlyRefreshes", earlyRefreshes.sum());
+    stats.put("leaseWaits", leaseWaits.sum());
+    return stats;
+  }
+
+  private Stored lookupEntry(String key) {
+    Stored stored = local.get(key);
+    if (stored != null) {
+      return stored;
+    }
+    stored = readRedis(key);
+    if (stored != null) {
+      local.put(key, stored, stored.expireAt());
+    }
+    return stored;
+  }
+
+  private Stored readRedis(String key) {
+    byte[] bytes;
+    try {
+      bytes = redisCache.getCacheBytes(redisKey(key));
+    } catch (Exception e) {
+      redisErrors.increment();
+      log.warn("Cache [{}] Redis read failed for key={}: {}", name, key, e.getMessage());
+      return null;
+    }
+    if (bytes == null) {
+      redisMisses.increment();
+      return null;
+    }
+    redisHits.increment();
+    return decode(bytes);
+  }
+
+  /** Runs once per key and node at a time (see {@link #loads}). */
+  private Stored loadOnMiss(String key, Callable<?> loader) throws Exception {
+    // A load that finished while we queued, or another node, may have filled it already
+    Stored stored = lookupEntry(key);
+    if (stored != null) {
+      return stored;
+    }
+    if (!spec.isDistributedLease()) {
+      return loadAndPut(key, loader);
+    }
+
+    String leaseKey = redisKey(key) + ":lease";
+    String token = IdUtils.fastSimpleUUID();
+    boolean leased;
+    try {
+      leased = redisCache.tryLock(leaseKey, token, spec.getLeaseMillis(), TimeUnit.MILLISECONDS);
+    } catch (Exception e) {
+      redisErrors.increment();
+      return loadAndPut(key, loader);
+    }
+    if (leased) {
+      try {
+        return loadAndPut(key, loader);
+      } finally {
+        redisCache.unlock(leaseKey, token);
+      }
+    }
+
+    // Another node is computing it: wait for its value, then give up and load ourselves
+    leaseWaits.increment();
+    long deadline = System.currentTimeMillis() + spec.getLeaseMillis();
+    while (System.currentTimeMillis() < deadline) {
+      Thread.sleep(LEASE_POLL_MILLIS);
+      stored = readRedis(key);
+      if (stored != null) {
+        local.put(key, stored, stored.expireAt());
+        return stored;
+      }
+    }
+    return loadAndPut(key, loader);
+  }
+
+  private Stored loadAndPut(String key, Callable<?> loader) throws Exception {
+    long start = System.nanoTime();
+    Object value = loader.call();
+    int computeMillis = (int) Math.min(Integer.MAX_VALUE, (System.nanoTime() - start) / 1_000_000);
+    return store(key, toStoreValue(value), computeMillis);
+  }
+
+  private Stored store(String key, Object value, int computeMillis) {
+    boolean isNull = value == NullValue.INSTANCE;
+    long ttlSeconds = isNull ? spec.getNullTtlSeconds() : spec.getRedisTtlSeconds();
+    Stored stored =
+        new Stored(
+            isNull ? null : serializer.serialize(value),
+            System.currentTimeMillis() + ttlSeconds * 1000,
+            computeMillis);
+    try {
+      redisCache.setCacheBytes(redisKey(key), encode(stored), ttlSeconds, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      redisErrors.increment();
+      log.warn("Cache [{}] Redis write failed for key={}: {}", name, key, e.getMessage());
+    }
+    local.put(key, stored, stored.expireAt());
+    puts.increment();
+    manager.publishEvict(name, key);
+    return stored;
+  }
+
+  /**
+   * Probabilistic early expiration: refresh when {@code now - computeMillis * beta * ln(rand)}
+   * reaches the expiry. Expensive values and values close to expiry are refreshed sooner.
+   */
+  private boolean shouldRefreshEarly(Stored stored) {
+    double beta = spec.getEarlyRefreshBeta();
+    if (beta <= 0 || stored.computeMillis() <= 0 || stored.expireAt() == Long.MAX_VALUE) {
+      return false;
+    }
+    double rand = 1.0 - ThreadLocalRandom.current().nextDouble(); // (0, 1]
+    double gap = -stored.computeMillis() * beta * Math.log(rand);
+    return System.currentTimeMillis() + gap >= stored.expireAt();
+  }
+
+  /** A fresh copy of the cached value, or {@link NullValue#INSTANCE}. */
+  private Object valueOf(Stored stored) {
+    return stored.isNull() ? NullValue.INSTANCE : serializer.deserialize(stored.payload());
+  }
+
+  private static byte[] encode(Stored stored) {
+    boolean isNull = stored.isNull();
+    byte[] payload = isNull ? new byte[0] : stored.payload();
+    ByteBuffer buffer = ByteBuffer.allocate(ENVELOPE_HEADER + payload.length);
+    buffer.put(ENVELOPE).put(isNull ? FLAG_NULL : 0);
+    buffer.putLong(stored.expireAt()).putInt(stored.computeMillis()).put(payload);
+    return buffer.array();
+  }
+
+  private static Stored decode(byte[] bytes) {
+    if (bytes.length < ENVELOPE_HEADER || bytes[0] != ENVELOPE) {
+      // Written before the envelope: no metadata, never refreshed early
+      boolean isNull = Arrays.equals(bytes, LEGACY_NULL_BYTES);
+      return new Stored(isNull ? null : bytes, Long.MAX_VALUE, 0);
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    buffer.get(); // marker
+    boolean isNull = (buffer.get() & FLAG_NULL) != 0;
+    long expireAt = buffer.getLong();
+    int computeMillis = buffer.getInt();
+    byte[] payload = isNull ? null : Arrays.copyOfRange(bytes, ENVELOPE_HEADER, bytes.length);
+    return new Stored(payload, expireAt, computeMillis);
+  }
+
+  private String redisKey(String key) {
+    return CacheConstants.CACHE_KEY_PREFIX + name + ":" + key;
+  }
+
+  /**
+   * A cached store value, serialized (null payload for a cached null), with the metadata needed for
+   * early refresh.
+   */
+  private record Stored(byte[] payload, long expireAt, int computeMillis) {
+
+    boolean isNull() {
+      return payload == null;
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.api.framework.cache;
+
+import com.api.common.constant.CacheConstants;
+import com.api.common.redis.RedisCache;
+import com.api.common.utils.StringUtils;
+import com.api.common.utils.uuid.IdUtils;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * {@link CacheManager} creating {@link TwoLevelCache}s on demand, sized by {@link
+ * TwoLevelCacheProperties}. Caches are handed out wrapped in a {@link
+ * TransactionAwareCacheDecorator}, so a {@code @CacheEvict} on a transactional method cannot be
+ * undone by a reader re-caching the old rows before the commit.
+ *
+ * <p>Every write or eviction is published on {@link CacheConstants#CACHE_INVALIDATE_CHANNEL} as
+ * {@code nodeId|E|cache|key} (or {@code nodeId|C|cache} for a clear); the other nodes drop the
+ * matching local entries.
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, InitializingBean {
+
+  private static final String SEPARATOR = "|";
+  private static final String OP_EVICT = "E";
+  private static final String OP_CLEAR = "C";
+
+  private final TwoLevelCacheProperties properties;
+  private final RedisCache redisCache;
+  private final RedisSerializer<Object> serializer;
+
+  /** Identifies this node so it can ignore its own invalidation messages. */
+  private final String nodeId = IdUtils.fastSimpleUUID();
+
+  private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+  /** What callers get: writes and evictions inside a transaction are applied after commit. */
+  private final Map<String, Cache> decorated = new ConcurrentHashMap<>();
+
+  public TwoLevelCacheManager(
+      TwoLevelCacheProperties properties,
+      RedisCache redisCache,
+      RedisSerializer<Object> serializer) {
+    this.properties = properties;
+    this.redisCache = redisCache;
+    this.serializer = serializer;
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    redisCache.subscribe(CacheConstants.CACHE_INVALIDATE_CHANNEL, this::onInvalidate);
+  }
+
+  @Override
+  public Cache getCache(String name) {
+    return decorated.computeIfAbsent(
+        name, n -> new TransactionAwareCacheDecorator(caches.computeIfAbsent(n, this::create)));
+  }
+
+  @Override
+  public Collection<String> getCacheNames() {
+    return Collections.unmodifiableSet(caches.keySet());
+  }
+
+  /** Statistics of every cache created so far, keyed by cache name. */
+  public Map<String, Map<String, Object>> stats() {
+    Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+    caches.forEach((name, cache) -> stats.put(name, cache.stats()));
+    return stats;
+  }
+
+  private TwoLevelCache create(String name) {
+    return new TwoLevelCache(name, properties.specFor(name), redisCache, serializer, this);
+  }
+
+  void publishEvict(String cacheName, String key) {
+    redisCache.publish(
+        CacheConstants.CACHE_INVALIDATE_CHANNEL,
+        String.join(SEPARATOR, nodeId, OP_EVICT, cacheName, key));
+  }
+
+  void publishClear(String cacheName) {
+    redisCache.publish(
+        CacheConstants.CACHE_INVALIDATE_CHANNEL,
+        String.join(SEPARATOR, nodeId, OP_CLEAR, cacheName));
+  }
+
+  private void onInvalidate(String message) {
+    if (StringUtils.isEmpty(message)) {
+      return;
+    }
+    String[] parts = message.split("\\|", 4);
+    if (parts.length < 3 || nodeId.equals(parts[0])) {
+      return;
+    }
+    TwoLevelCache cache = caches.get(parts[2]);
+    if (cache == null) {
+      return; // never used on this node, nothing cached locally
+    }
+    if (OP_CLEAR.equals(parts[1])) {
+      cache.clearLocal();
+    } else if (parts.length == 4) {
+      cache.evictLocal(parts[3]);
+    }
+    log.debug("Cache [{}] invalidated by peer: op={}", parts[2], parts[1]);
+  }
+}
@@ -0,0 +1,63 @@
+package com.api.framework.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Sizes and TTLs of the two-level Spring caches.
+ *
+ * <pre>
+ * cache:
+ *   defaults:
+ *     maxSize: 1000
+ *   specs:
+ *     menuTree:
+ *       localTtlSeconds: 300
+ *       redisTtlSeconds: 3600
+ * </pre>
+ */
+@Data
+@ConfigurationProperties(prefix = "cache")
+public class TwoLevelCacheProperties {
+
+  /** Used by caches without an entry in {@link #specs}. */
+  private Spec defaults = new Spec();
+
+  /** Per-cache settings, keyed by cache name. */
+  private Map<String, Spec> specs = new HashMap<>();
+
+  public Spec specFor(String cacheName) {
+    return specs.getOrDefault(cacheName, defaults);
+  }
+
+  @Data
+  public static class Spec {
+
+    /** Maximum entries kept in the in-process level. */
+    private int maxSize = 1000;
+
+    /** TTL of the in-process level; keep it short, peers are only told about explicit writes. */
+    private long localTtlSeconds = 60;
+
+    /** TTL of the Redis level. */
+    private long redisTtlSeconds = 1800;
+
+    /** TTL of cached nulls (both levels), so a missing row cannot be hammered. */
+    private long nullTtlSeconds = 60;
+
+    /**
+     * Early refresh aggressiveness for {@code sync = true} lookups: a caller recomputes a value
+     * before it expires with a probability that grows as expiry nears and with how long the value
+     * took to compute. 0 disables early refresh.
+     */
+    private double earlyRefreshBeta = 1.0;
+
+    /** Coalesce misses across nodes too: one node computes under a Redis lease, others wait. */
+    private boolean distributedLease = false;
+
+    /** Lease TTL, and how long other nodes wait for the lease holder before loading themselves. */
+    private long leaseMillis = 3000;
+  }
+}
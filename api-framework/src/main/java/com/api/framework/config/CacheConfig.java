@@ -0,0 +1,30 @@
+package com.api.framework.config;
+
+import com.api.common.redis.RedisCache;
+import com.api.framework.cache.TwoLevelCacheManager;
+import com.api.framework.cache.TwoLevelCacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Cache manager behind {@code @Cacheable}: an in-process level per node plus Redis, kept
+ * consistent across nodes through pub/sub (see {@link TwoLevelCacheManager}).
+ */
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(TwoLevelCacheProperties.class)
+public class CacheConfig {
+
+  /**
+   * Values are stored in Redis with the same polymorphic JSON serializer as the template's values,
+   * so cached return types survive the round trip.
+   */
+  @Bean
+  public TwoLevelCacheManager cacheManager(
+      TwoLevelCacheProperties properties, RedisCache redisCache) {
+    return new TwoLevelCacheManager(properties, redisCache, RedisSerializer.json());
+  }
+}
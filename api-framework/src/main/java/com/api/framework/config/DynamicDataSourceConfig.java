@@ -1,6 +1,7 @@
 package com.api.framework.config;
 
 import com.api.framework.datasource.DynamicDataSource;
+import com.api.framework.metrics.SqlStatsCollector;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
@@ -48,12 +49,13 @@ public class DynamicDataSourceConfig {
   @Bean("dynamicDataSource")
   public DynamicDataSource dynamicDataSource(
       @Qualifier("masterDataSource") DataSource master,
-      @Qualifier("slaveDataSource") DataSource slave) {
+      @Qualifier("slaveDataSource") DataSource slave,
+      SqlStatsCollector sqlStatsCollector) {
     Map<Object, Object> targets = new HashMap<>();
     targets.put("MASTER", master);
     targets.put("SLAVE", slave);
 
     log.info("🔧 Dynamic data source configured successfully.");
-    return new DynamicDataSource(master, targets);
+    return new DynamicDataSource(master, targets, sqlStatsCollector);
   }
 }
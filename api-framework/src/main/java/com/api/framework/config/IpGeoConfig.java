@@ -0,0 +1,60 @@
+package com.api.framework.config;
+
+import com.api.common.utils.StringUtils;
+import com.api.common.utils.ip.AddressUtils;
+import com.api.common.utils.ip.IpGeoLocator;
+import java.nio.file.Path;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Offline IP geolocation configuration.
+ *
+ * <p>Loads the IP range file from {@code app.ipGeo.file} at startup, registers the locator with
+ * {@link AddressUtils} and re-checks the file every {@code app.ipGeo.reloadSeconds} for hot reload.
+ * Without a file, locations resolve to "XX XX".
+ *
+ * @author
+ */
+@Slf4j
+@Configuration
+public class IpGeoConfig {
+
+  /** IP range file ({@code startIp,endIp,region} per line) */
+  @Value("${app.ipGeo.file:}")
+  private String file;
+
+  /** Interval between modification checks of the file (0 disables hot reload) */
+  @Value("${app.ipGeo.reloadSeconds:60}")
+  private long reloadSeconds;
+
+  /** Number of recent lookups kept in memory */
+  @Value("${app.ipGeo.cacheSize:10000}")
+  private int cacheSize;
+
+  @Bean
+  public IpGeoLocator ipGeoLocator(
+      @Qualifier("scheduledExecutorService") ScheduledExecutorService scheduledExecutorService) {
+    if (StringUtils.isBlank(file)) {
+      log.info("IP geolocation disabled: app.ipGeo.file is not set");
+      IpGeoLocator locator = new IpGeoLocator(null, cacheSize);
+      AddressUtils.setLocator(locator);
+      return locator;
+    }
+
+    IpGeoLocator locator = new IpGeoLocator(Path.of(file), cacheSize);
+    locator.reloadIfChanged();
+    AddressUtils.setLocator(locator);
+
+    if (reloadSeconds > 0) {
+      scheduledExecutorService.scheduleWithFixedDelay(
+          locator::reloadIfChanged, reloadSeconds, reloadSeconds, TimeUnit.SECONDS);
+    }
+    return locator;
+  }
+}
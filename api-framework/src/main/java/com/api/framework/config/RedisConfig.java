@@ -1,13 +1,13 @@
 package com.api.framework.config;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CachingConfigurerSupport;
-import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -18,12 +18,17 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
  *
  * <p>- Provides a Lua script bean for request rate limiting.
  *
+ * <p>- Provides a pub/sub listener container used for cross-node cache invalidation.
+ *
+ * <p>Not loaded with the {@code standalone} profile, which runs without a Redis server (see {@link
+ * com.api.common.redis.InMemoryRedisCache}).
+ *
  * @author
  */
 @Slf4j
 @Configuration
-@EnableCaching
-public class RedisConfig extends CachingConfigurerSupport {
+@Profile("!standalone")
+public class RedisConfig {
 
   /**
    * Configure RedisTemplate with String keys and JSON-serialized values using
@@ -34,6 +39,13 @@ public class RedisConfig extends CachingConfigurerSupport {
    */
   @Bean
   public RedisTemplate<Object, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    RedisTemplate<Object, Object> template = createTemplate(connectionFactory);
+    log.info("RedisTemplate configured successfully with GenericJackson2JsonRedisSerializer.");
+    return template;
+  }
+
+  /** Template with String keys and JSON values, also used for the extra shards. */
+  static RedisTemplate<Object, Object> createTemplate(RedisConnectionFactory connectionFactory) {
     RedisTemplate<Object, Object> template = new RedisTemplate<>();
     template.setConnectionFactory(connectionFactory);
 
@@ -47,10 +59,23 @@ public class RedisConfig extends CachingConfigurerSupport {
     template.setHashValueSerializer(jacksonSerializer);
 
     template.afterPropertiesSet();
-    log.info("RedisTemplate configured successfully with GenericJackson2JsonRedisSerializer.");
     return template;
   }
 
+  /**
+   * Listener container shared by all pub/sub subscribers (e.g. session near-cache invalidation).
+   *
+   * @param connectionFactory Redis connection factory
+   * @return listener container
+   */
+  @Bean
+  public RedisMessageListenerContainer redisMessageListenerContainer(
+      RedisConnectionFactory connectionFactory) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    return container;
+  }
+
   /**
    * Lua script for rate-limiting (simple counter-based approach).
    *
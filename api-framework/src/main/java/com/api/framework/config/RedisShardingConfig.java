@@ -0,0 +1,122 @@
+package com.api.framework.config;
+
+import com.api.common.redis.CircuitBreakingRedisCache;
+import com.api.common.redis.InMemoryRedisCache;
+import com.api.common.redis.RedisCache;
+import com.api.common.redis.RedisCircuitBreaker;
+import com.api.common.redis.RedisTemplateCache;
+import com.api.common.redis.ShardedRedisCache;
+import com.api.common.redis.ShardedRedisCache.Shard;
+import com.api.common.redis.codec.RedisValueCodecs;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Client-side sharding of {@link RedisCache} across the stores in {@link
+ * RedisShardingProperties}, enabled with {@code redis.sharding.enabled=true}. The resulting {@link
+ * ShardedRedisCache} is picked up by {@link CircuitBreakingRedisCache}, so callers keep injecting
+ * {@code RedisCache}.
+ *
+ * <p>Each shard is wrapped in its own {@link CircuitBreakingRedisCache}: the primary connection
+ * with the {@link RedisCircuitBreaker} bean, every other shard with a copy of it.
+ */
+@Slf4j
+@Configuration
+@Profile("!standalone")
+@ConditionalOnProperty(prefix = "redis.sharding", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(RedisShardingProperties.class)
+public class RedisShardingConfig {
+
+  @Bean(destroyMethod = "shutdown")
+  public ShardedRedisCache shardedRedisCache(
+      RedisShardingProperties properties,
+      RedisTemplateCache primary,
+      ObjectMapper objectMapper,
+      RedisValueCodecs codecs,
+      RedisCircuitBreaker redisCircuitBreaker,
+      AutowireCapableBeanFactory beanFactory) {
+    List<Shard> shards = new ArrayList<>();
+    Map<String, String> routes = new LinkedHashMap<>();
+    List<Runnable> closers = new ArrayList<>();
+
+    shards.add(
+        new Shard(
+            RedisShardingProperties.PRIMARY,
+            new CircuitBreakingRedisCache(primary, redisCircuitBreaker),
+            properties.isPrimaryHashed()));
+    properties.getPrimaryPrefixes().forEach(p -> routes.put(p, RedisShardingProperties.PRIMARY));
+
+    properties
+        .getNodes()
+        .forEach(
+            (name, node) -> {
+              Object cache =
+                  "memory".equalsIgnoreCase(node.getType())
+                      ? memoryShard(name, objectMapper, codecs, closers)
+                      : redisShard(name, node, objectMapper, codecs, closers);
+              // Runs the shard's @Value injection and @PostConstruct like a bean's
+              beanFactory.autowireBean(cache);
+              cache = beanFactory.initializeBean(cache, "redisShard." + name);
+              RedisCache guarded =
+                  new CircuitBreakingRedisCache(
+                      (RedisCache) cache, redisCircuitBreaker.forShard(name));
+              shards.add(new Shard(name, guarded, node.isHashed()));
+              node.getPrefixes().forEach(p -> routes.put(p, name));
+            });
+
+    return new ShardedRedisCache(
+        shards, routes, properties.getHashTagPrefixes(), properties.getVirtualNodes(), closers);
+  }
+
+  private static InMemoryRedisCache memoryShard(
+      String name, ObjectMapper objectMapper, RedisValueCodecs codecs, List<Runnable> closers) {
+    log.warn("Redis shard '{}' is an in-memory stand-in", name);
+    InMemoryRedisCache cache = new InMemoryRedisCache(objectMapper, codecs);
+    closers.add(cache::shutdown);
+    return cache;
+  }
+
+  private static RedisTemplateCache redisShard(
+      String name,
+      RedisShardingProperties.Node node,
+      ObjectMapper objectMapper,
+      RedisValueCodecs codecs,
+      List<Runnable> closers) {
+    RedisStandaloneConfiguration standalone =
+        new RedisStandaloneConfiguration(node.getHost(), node.getPort());
+    standalone.setDatabase(node.getDatabase());
+    if (node.getPassword() != null && !node.getPassword().isEmpty()) {
+      standalone.setPassword(RedisPassword.of(node.getPassword()));
+    }
+    LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(standalone);
+    connectionFactory.afterPropertiesSet();
+    connectionFactory.start();
+
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.afterPropertiesSet();
+    container.start();
+
+    // Container first: it holds connections of the factory
+    closers.add(container::stop);
+    closers.add(connectionFactory::destroy);
+    log.info(
+        "Redis shard '{}' at {}:{}/{}", name, node.getHost(), node.getPort(), node.getDatabase());
+    return new RedisTemplateCache(
+        RedisConfig.createTemplate(connectionFactory), objectMapper, container, codecs);
+  }
+}
@@ -0,0 +1,74 @@
+package com.api.framework.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Extra Redis stores the keyspace is partitioned across, on top of the primary connection ({@code
+ * spring.data.redis}), which is always the shard named {@code primary}.
+ *
+ * <pre>
+ * redis:
+ *   sharding:
+ *     enabled: true
+ *     nodes:
+ *       sessions:
+ *         host: 10.0.0.2
+ *         prefixes: [login_user_tokens:, login_perms:, login_session_index, login_user_sessions:]
+ *         hashed: false
+ *       metrics:
+ *         type: memory            # in-process stand-in, e.g. to try a layout locally
+ *         prefixes: ["metrics:"]
+ * </pre>
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.sharding")
+public class RedisShardingProperties {
+
+  public static final String PRIMARY = "primary";
+
+  private boolean enabled = false;
+
+  /** Ring positions per hashed shard; more spreads keys more evenly. */
+  private int virtualNodes = 160;
+
+  /** Whether the primary connection takes keys that match no prefix. */
+  private boolean primaryHashed = true;
+
+  /** Key prefixes pinned to the primary connection. */
+  private List<String> primaryPrefixes = new ArrayList<>();
+
+  /**
+   * Key families whose {@code {tag}} alone decides the shard, to keep related keys together. Braces
+   * in any other key are hashed as part of it.
+   */
+  private List<String> hashTagPrefixes = new ArrayList<>();
+
+  /** Extra shards, keyed by name. */
+  private Map<String, Node> nodes = new LinkedHashMap<>();
+
+  @Data
+  public static class Node {
+
+    /** {@code redis} for a server, {@code memory} for an in-process stand-in. */
+    private String type = "redis";
+
+    private String host = "localhost";
+
+    private int port = 6379;
+
+    private int database = 0;
+
+    private String password;
+
+    /** Keys (and pub/sub channels) starting with one of these always go to this shard. */
+    private List<String> prefixes = new ArrayList<>();
+
+    /** Whether this shard also takes a share of the keys that match no prefix. */
+    private boolean hashed = true;
+  }
+}
@@ -1,5 +1,6 @@
 package com.api.framework.config;
 
+import com.api.framework.interceptor.QueryAccountingInterceptor;
 import com.api.framework.interceptor.RepeatSubmitInterceptor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +27,9 @@ public class ResourcesConfig implements WebMvcConfigurer {
   /** Interceptor for duplicate submission prevention. */
   private final RepeatSubmitInterceptor repeatSubmitInterceptor;
 
+  /** Interceptor counting the SQL statements of each request. */
+  private final QueryAccountingInterceptor queryAccountingInterceptor;
+
   @Override
   public void addResourceHandlers(ResourceHandlerRegistry registry) {
     // Example: static upload files or swagger
@@ -41,6 +45,8 @@ public class ResourcesConfig implements WebMvcConfigurer {
   public void addInterceptors(InterceptorRegistry registry) {
     registry.addInterceptor(repeatSubmitInterceptor).addPathPatterns("/**");
     log.info("✅ RepeatSubmitInterceptor registered globally.");
+    registry.addInterceptor(queryAccountingInterceptor).addPathPatterns("/**");
+    log.info("✅ QueryAccountingInterceptor registered globally.");
   }
 
   /** Allow CORS for all origins and methods (customize for production). */
@@ -1,21 +1,32 @@
 package com.api.framework.datasource;
 
+import com.api.framework.metrics.SqlStatsCollector;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
 
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.Map;
 
 /**
  * A dynamic routing DataSource that determines which DataSource to use (MASTER or SLAVE) at runtime
  * using ThreadLocal context.
+ *
+ * <p>Connections are wrapped so every statement execution is reported to {@link
+ * SqlStatsCollector}.
  */
 @Slf4j
 public class DynamicDataSource extends AbstractRoutingDataSource {
 
+  private final SqlStatsCollector sqlStatsCollector;
+
   public DynamicDataSource(
-      @NonNull DataSource defaultDataSource, @NonNull Map<Object, Object> targetDataSources) {
+      @NonNull DataSource defaultDataSource,
+      @NonNull Map<Object, Object> targetDataSources,
+      @NonNull SqlStatsCollector sqlStatsCollector) {
+    this.sqlStatsCollector = sqlStatsCollector;
 
     super.setDefaultTargetDataSource(defaultDataSource);
     super.setTargetDataSources(targetDataSources);
@@ -24,6 +35,16 @@ public class DynamicDataSource extends AbstractRoutingDataSource {
     log.info("✅ DynamicDataSource initialized. Available targets: {}", targetDataSources.keySet());
   }
 
+  @Override
+  public Connection getConnection() throws SQLException {
+    return SqlTrackingProxy.wrap(super.getConnection(), sqlStatsCollector);
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return SqlTrackingProxy.wrap(super.getConnection(username, password), sqlStatsCollector);
+  }
+
   @Override
   protected Object determineCurrentLookupKey() {
     String lookupKey = DynamicDataSourceContextHolder.get();
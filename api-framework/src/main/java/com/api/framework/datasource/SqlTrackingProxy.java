@@ -0,0 +1,186 @@
+package com.api.framework.datasource;
+
+import com.api.framework.metrics.SqlStatsCollector;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * JDBC proxies that time every statement execution and count its rows for {@link
+ * SqlStatsCollector}: affected rows for updates, rows read through the {@link ResultSet} for
+ * queries (reported when the result set or its statement is closed).
+ */
+final class SqlTrackingProxy {
+
+  private static final Set<String> EXECUTE_METHODS =
+      Set.of(
+          "execute",
+          "executeQuery",
+          "executeUpdate",
+          "executeLargeUpdate",
+          "executeBatch",
+          "executeLargeBatch");
+
+  private SqlTrackingProxy() {}
+
+  static Connection wrap(Connection connection, SqlStatsCollector collector) {
+    return proxy(
+        Connection.class,
+        (proxy, method, args) -> {
+          Object result = invoke(connection, method, args);
+          String name = method.getName();
+          if (result instanceof Statement statement
+              && (name.startsWith("prepare") || name.equals("createStatement"))) {
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+            return wrapStatement(statement, sql, collector);
+          }
+          return result;
+        });
+  }
+
+  private static Statement wrapStatement(
+      Statement statement, String preparedSql, SqlStatsCollector collector) {
+    Class<? extends Statement> type =
+        statement instanceof CallableStatement
+            ? CallableStatement.class
+            : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+    StatementHandler handler = new StatementHandler(statement, preparedSql, collector);
+    return proxy(type, handler);
+  }
+
+  /** Times executions; a query's row count is reported once its rows have been read. */
+  private static final class StatementHandler implements InvocationHandler {
+
+    private final Statement statement;
+    private final String preparedSql;
+    private final SqlStatsCollector collector;
+
+    /** Query whose result set is still open. */
+    private PendingQuery pending;
+
+    StatementHandler(Statement statement, String preparedSql, SqlStatsCollector collector) {
+      this.statement = statement;
+      this.preparedSql = preparedSql;
+      this.collector = collector;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      if (name.equals("close")) {
+        report();
+        return invoke(statement, method, args);
+      }
+      if (!EXECUTE_METHODS.contains(name)) {
+        Object result = invoke(statement, method, args);
+        if (name.equals("getResultSet") && result instanceof ResultSet rs && pending != null) {
+          return pending.wrap(rs);
+        }
+        return result;
+      }
+      String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+      report();
+      collector.beforeExecute(sql);
+      long start = System.nanoTime();
+      Object result;
+      try {
+        result = invoke(statement, method, args);
+      } catch (Throwable e) {
+        collector.record(sql, System.nanoTime() - start, 0, true);
+        throw e;
+      }
+      long nanos = System.nanoTime() - start;
+      if (result instanceof ResultSet rs) {
+        pending = new PendingQuery(sql, nanos);
+        return pending.wrap(rs);
+      }
+      if (Boolean.TRUE.equals(result)) {
+        // execute() produced a result set: count it if the caller fetches it
+        pending = new PendingQuery(sql, nanos);
+        return result;
+      }
+      collector.record(sql, nanos, rowsOf(result), false);
+      return result;
+    }
+
+    private void report() {
+      if (pending != null) {
+        pending.report();
+        pending = null;
+      }
+    }
+
+    private final class PendingQuery {
+
+      final String sql;
+      final long nanos;
+      long rows;
+      boolean reported;
+
+      PendingQuery(String sql, long nanos) {
+        this.sql = sql;
+        this.nanos = nanos;
+      }
+
+      ResultSet wrap(ResultSet resultSet) {
+        return proxy(
+            ResultSet.class,
+            (proxy, method, args) -> {
+              Object result = invoke(resultSet, method, args);
+              if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                rows++;
+              } else if (method.getName().equals("close")) {
+                report();
+              }
+              return result;
+            });
+      }
+
+      void report() {
+        if (!reported) {
+          reported = true;
+          collector.record(sql, nanos, rows, false);
+        }
+      }
+    }
+  }
+
+  private static long rowsOf(Object result) {
+    if (result instanceof Number n) {
+      return Math.max(n.longValue(), 0);
+    }
+    long rows = 0;
+    if (result instanceof int[] counts) {
+      for (int count : counts) {
+        rows += Math.max(count, 0);
+      }
+    } else if (result instanceof long[] counts) {
+      for (long count : counts) {
+        rows += Math.max(count, 0);
+      }
+    }
+    return rows;
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return (T)
+        Proxy.newProxyInstance(
+            SqlTrackingProxy.class.getClassLoader(), new Class<?>[] {type}, handler);
+  }
+}
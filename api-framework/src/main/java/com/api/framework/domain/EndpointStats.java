@@ -14,6 +14,13 @@ public class EndpointStats implements Serializable {
   private long requestCount;
   private double requestTimeAverage;
   private long requestTimeMillisMax;
+  private long requestTimeMillisMin;
+
+  /** Latency percentiles in milliseconds, from the merged histogram of all nodes. */
+  private double requestTimeP50;
+  private double requestTimeP95;
+  private double requestTimeP99;
+  private double requestTimeP999;
   private int concurrentMax;
 
   private long successCount;
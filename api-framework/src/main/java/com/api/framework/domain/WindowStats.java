@@ -0,0 +1,27 @@
+package com.api.framework.domain;
+
+import lombok.*;
+import java.io.Serializable;
+
+/** Calls, errors and latency of one series over the last few minutes, merged across nodes. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WindowStats implements Serializable {
+
+  private String series;
+  private int windowMinutes;
+
+  private long calls;
+  private long errors;
+  private double ratePerSecond;
+  private double errorRate;
+
+  /** Latencies in milliseconds. */
+  private double timeAverage;
+  private double p50;
+  private double p95;
+  private double p99;
+  private double p999;
+}
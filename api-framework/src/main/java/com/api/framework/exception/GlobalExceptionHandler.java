@@ -88,6 +88,21 @@ public class GlobalExceptionHandler {
         : AjaxResult.error(e.getMessage());
   }
 
+  /**
+   * Handles requests rejected for running more SQL statements than their query budget (only while
+   * {@code sqlStats.queryBudget.enforce} is on, e.g. in integration tests).
+   *
+   * @param e the exception instance
+   * @param request the HTTP request
+   * @return a 500 error response naming the endpoint and budget
+   */
+  @ExceptionHandler(QueryBudgetExceededException.class)
+  public AjaxResult handleQueryBudgetExceededException(
+      QueryBudgetExceededException e, HttpServletRequest request) {
+    log.error("Query budget exceeded at '{}': {}", request.getRequestURI(), e.getMessage());
+    return AjaxResult.error(HttpStatus.ERROR, e.getMessage());
+  }
+
   /**
    * Handles cases where a required path variable is missing in the request.
    *
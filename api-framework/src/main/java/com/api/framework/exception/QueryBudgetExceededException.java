@@ -0,0 +1,13 @@
+package com.api.framework.exception;
+
+/**
+ * Thrown when a request runs more SQL statements than its {@link
+ * com.api.framework.annotation.QueryBudget}, while {@code sqlStats.queryBudget.enforce} is on.
+ */
+public class QueryBudgetExceededException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  public QueryBudgetExceededException(String message) {
+    super(message);
+  }
+}
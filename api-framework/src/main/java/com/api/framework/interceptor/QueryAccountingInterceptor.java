@@ -0,0 +1,49 @@
+package com.api.framework.interceptor;
+
+import com.api.framework.annotation.QueryBudget;
+import com.api.framework.metrics.RequestQueryAccounting;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Opens a {@link RequestQueryAccounting} scope around every controller call, named after the HTTP
+ * method and URI template (e.g. "GET /system/user/list"), with the budget of its {@link
+ * QueryBudget} if any.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryAccountingInterceptor implements AsyncHandlerInterceptor {
+
+  private final RequestQueryAccounting requestQueryAccounting;
+
+  @Override
+  public boolean preHandle(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    if (handler instanceof HandlerMethod handlerMethod) {
+      Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+      String endpoint =
+          request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+      QueryBudget budget = handlerMethod.getMethodAnnotation(QueryBudget.class);
+      requestQueryAccounting.begin(endpoint, budget != null ? budget.value() : 0);
+    }
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(
+      HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+    requestQueryAccounting.end();
+  }
+
+  /** The rest of an async request runs on another thread: stop counting on this one. */
+  @Override
+  public void afterConcurrentHandlingStarted(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    requestQueryAccounting.end();
+  }
+}
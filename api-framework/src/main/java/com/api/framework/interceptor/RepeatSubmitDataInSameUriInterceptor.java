@@ -2,6 +2,7 @@ package com.api.framework.interceptor;
 
 import com.api.common.constant.CacheConstants;
 import com.api.common.redis.RedisCache;
+import com.api.common.redis.RedisCircuitBreaker;
 import com.api.common.utils.StringUtils;
 import com.api.framework.annotation.RepeatSubmit;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -33,10 +34,15 @@ public class RepeatSubmitDataInSameUriInterceptor extends RepeatSubmitIntercepto
 
   @Autowired private RedisCache redisCache;
 
+  @Autowired private RedisCircuitBreaker redisCircuitBreaker;
+
   private final ObjectMapper objectMapper = new ObjectMapper();
 
   @SuppressWarnings("unchecked")
   protected boolean isRepeatSubmit(HttpServletRequest request, RepeatSubmit annotation) {
+    if (!redisCircuitBreaker.isAvailable()) {
+      return false; // Redis is down: allow repeat submissions rather than waiting on it
+    }
     try {
       String requestUri = request.getRequestURI();
       String submitKey = StringUtils.trimToEmpty(request.getHeader(header));
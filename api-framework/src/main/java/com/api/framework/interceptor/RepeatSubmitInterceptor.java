@@ -3,6 +3,7 @@ package com.api.framework.interceptor;
 import com.api.common.constant.CacheConstants;
 import com.api.common.domain.AjaxResult;
 import com.api.common.redis.RedisCache;
+import com.api.common.redis.RedisCircuitBreaker;
 import com.api.common.utils.ServletUtils;
 import com.api.common.utils.StringUtils;
 import com.api.framework.annotation.RepeatSubmit;
@@ -39,6 +40,8 @@ public class RepeatSubmitInterceptor implements HandlerInterceptor {
 
   @Autowired private RedisCache redisCache;
 
+  @Autowired private RedisCircuitBreaker redisCircuitBreaker;
+
   @Autowired private TokenService tokenService;
 
   private final ObjectMapper objectMapper = new ObjectMapper();
@@ -58,6 +61,10 @@ public class RepeatSubmitInterceptor implements HandlerInterceptor {
       return true;
     }
 
+    if (!redisCircuitBreaker.isAvailable()) {
+      return true; // Redis is down: allow repeat submissions rather than waiting on it
+    }
+
     try {
       String uri = request.getRequestURI();
       String username = tokenService.extractUsername(request);
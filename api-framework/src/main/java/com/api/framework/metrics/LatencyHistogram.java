@@ -0,0 +1,129 @@
+package com.api.framework.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear latency histogram in the style of HdrHistogram: values below 16 get a bucket each,
+ * and every power of two above is split into 16 equal buckets, so any value is known to within
+ * 1/16 (6.25%) whatever its magnitude. Values are microseconds; anything above ~12.7 days lands in
+ * the last bucket.
+ *
+ * <p>Recording is a single atomic add. Histograms merge by adding counts bucket by bucket, which
+ * is also how they are kept in Redis: one hash field per non-empty bucket ({@link #FIELD_PREFIX}
+ * plus the bucket index) incremented by every node, so the stored histogram is always the merge
+ * of all nodes.
+ */
+public final class LatencyHistogram {
+
+  /** Prefix of the hash fields holding bucket counts. */
+  public static final String FIELD_PREFIX = "Hist:";
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /** Covers values up to 2^40 microseconds. */
+  private static final int MAX_BITS = 40;
+
+  static final int BUCKETS = (MAX_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  public void record(long micros) {
+    counts.incrementAndGet(indexOf(micros));
+  }
+
+  /** Add another histogram's counts to this one. */
+  public void merge(LatencyHistogram other) {
+    for (int i = 0; i < BUCKETS; i++) {
+      long count = other.counts.get(i);
+      if (count != 0) {
+        counts.addAndGet(i, count);
+      }
+    }
+  }
+
+  /** Take and reset the non-empty buckets, as Redis hash fields and counts. */
+  public Map<String, Long> drain() {
+    Map<String, Long> fields = new LinkedHashMap<>();
+    for (int i = 0; i < BUCKETS; i++) {
+      if (counts.get(i) != 0) {
+        long count = counts.getAndSet(i, 0);
+        if (count != 0) {
+          fields.put(FIELD_PREFIX + i, count);
+        }
+      }
+    }
+    return fields;
+  }
+
+  /**
+   * Add bucket counts read back from Redis (or returned by {@link #drain()}); other fields are
+   * ignored.
+   */
+  public LatencyHistogram addFields(Map<String, ?> fields) {
+    fields.forEach(
+        (field, value) -> {
+          if (!field.startsWith(FIELD_PREFIX) || value == null) {
+            return;
+          }
+          try {
+            int index = Integer.parseInt(field.substring(FIELD_PREFIX.length()));
+            long count = Long.parseLong(value.toString());
+            if (index >= 0 && index < BUCKETS && count > 0) {
+              counts.addAndGet(index, count);
+            }
+          } catch (NumberFormatException e) {
+            // Not a bucket field
+          }
+        });
+    return this;
+  }
+
+  public long count() {
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      total += counts.get(i);
+    }
+    return total;
+  }
+
+  /**
+   * Value at a percentile (0-100), reported as the highest value of its bucket so the tail is
+   * never understated. 0 when the histogram is empty.
+   */
+  public long percentile(double percentile) {
+    long total = count();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return highestValueOf(i);
+      }
+    }
+    return highestValueOf(BUCKETS - 1);
+  }
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) Math.max(value, 0);
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    int index = (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    return Math.min(index, BUCKETS - 1);
+  }
+
+  static long highestValueOf(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+}
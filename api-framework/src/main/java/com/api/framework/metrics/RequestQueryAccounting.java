@@ -0,0 +1,303 @@
+package com.api.framework.metrics;
+
+import static com.api.common.constant.CacheConstants.MONITOR_N_PLUS_ONE_PREFIX;
+
+import com.api.common.redis.BatchResult;
+import com.api.common.redis.CounterDelta;
+import com.api.common.redis.RedisCache;
+import com.api.common.redis.RedisCircuitBreaker;
+import com.api.framework.exception.QueryBudgetExceededException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements of each HTTP request by {@link SqlFingerprint} to catch N+1 query
+ * patterns, e.g. an EAGER association loaded once per row of a list.
+ *
+ * <p>A request is opened by {@link com.api.framework.interceptor.QueryAccountingInterceptor} and
+ * every statement it runs is reported through {@link SqlStatsCollector#beforeExecute}. When one
+ * fingerprint runs more than {@code sqlStats.nPlusOne.threshold} times, the endpoint, statement
+ * and the stack of its first repeated execution are logged and kept in a Redis hash per endpoint
+ * and fingerprint ({@code metrics:nPlusOne:<fingerprint>:<endpoint>}), flushed every {@code
+ * sqlStats.flushMillis}.
+ *
+ * <p>Requests running more statements than their budget ({@link
+ * com.api.framework.annotation.QueryBudget} or {@code sqlStats.queryBudget.default}) are logged
+ * too; with {@code sqlStats.queryBudget.enforce=true} the statement over budget throws {@link
+ * QueryBudgetExceededException} so that integration tests fail.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestQueryAccounting {
+
+  private static final long TTL_SECONDS = Duration.ofHours(24).toSeconds();
+
+  /** Findings tracked per node; further ones are only logged. */
+  private static final int MAX_FINDINGS = 500;
+
+  private static final int MAX_STACK_FRAMES = 20;
+
+  private static final ThreadLocal<RequestQueries> currentRequest = new ThreadLocal<>();
+
+  private final RedisCache redisCache;
+  private final RedisCircuitBreaker redisCircuitBreaker;
+  private final ScheduledExecutorService scheduledExecutorService;
+
+  @Value("${sqlStats.nPlusOne.enabled:true}")
+  private boolean enabled;
+
+  @Value("${sqlStats.nPlusOne.threshold:10}")
+  private int threshold;
+
+  @Value("${sqlStats.queryBudget.default:0}")
+  private int defaultBudget;
+
+  @Value("${sqlStats.queryBudget.enforce:false}")
+  private boolean enforceBudget;
+
+  @Value("${sqlStats.flushMillis:5000}")
+  private long flushMillis;
+
+  /** Findings since the last flush, per Redis key. */
+  private final ConcurrentHashMap<String, Finding> findings = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void init() {
+    scheduledExecutorService.scheduleWithFixedDelay(
+        this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Start counting the statements of the current thread's request.
+   *
+   * @param endpoint e.g. "GET /system/user/list"
+   * @param budget statements allowed, 0 for {@code sqlStats.queryBudget.default}
+   */
+  public void begin(String endpoint, int budget) {
+    if (enabled) {
+      currentRequest.set(new RequestQueries(endpoint, budget > 0 ? budget : defaultBudget));
+    }
+  }
+
+  public boolean isActive() {
+    return currentRequest.get() != null;
+  }
+
+  /**
+   * Count one statement of the current request.
+   *
+   * @throws QueryBudgetExceededException if it goes over budget while enforcing budgets
+   */
+  public void onStatement(SqlFingerprint fingerprint) {
+    RequestQueries request = currentRequest.get();
+    if (request == null) {
+      return;
+    }
+    request.total++;
+    Repeats repeats = request.counts.computeIfAbsent(fingerprint.id(), k -> new Repeats());
+    repeats.fingerprint = fingerprint;
+    if (++repeats.count == threshold + 1) {
+      repeats.stack = currentStack();
+    }
+    if (enforceBudget && request.budget > 0 && request.total > request.budget) {
+      throw new QueryBudgetExceededException(
+          String.format(
+              "%s ran more than its budget of %d SQL statements, last: %s",
+              request.endpoint, request.budget, fingerprint.normalized()));
+    }
+  }
+
+  /** Stop counting and report the current request. */
+  public void end() {
+    RequestQueries request = currentRequest.get();
+    if (request == null) {
+      return;
+    }
+    currentRequest.remove();
+    if (request.budget > 0 && request.total > request.budget) {
+      log.warn(
+          "⚠️ {} ran {} SQL statements, budget is {}",
+          request.endpoint,
+          request.total,
+          request.budget);
+    }
+    request.counts.forEach(
+        (id, repeats) -> {
+          if (repeats.count > threshold) {
+            report(request.endpoint, repeats);
+          }
+        });
+  }
+
+  private void report(String endpoint, Repeats repeats) {
+    log.warn(
+        "⚠️ Possible N+1 query: {} ran [{}] {} times in one request, first repeated at\n{}",
+        endpoint,
+        repeats.fingerprint.normalized(),
+        repeats.count,
+        repeats.stack);
+    String key = MONITOR_N_PLUS_ONE_PREFIX + repeats.fingerprint.id() + ":" + endpoint;
+    Finding finding = findings.get(key);
+    if (finding == null) {
+      if (findings.size() >= MAX_FINDINGS) {
+        return;
+      }
+      finding = findings.computeIfAbsent(key, k -> new Finding(endpoint, repeats));
+    }
+    finding.record(repeats.count);
+  }
+
+  /** Application frames of the current stack, without the JDBC proxies and this class. */
+  private static String currentStack() {
+    StackTraceElement[] stack = new Throwable().getStackTrace();
+    String frames =
+        Arrays.stream(stack)
+            .filter(
+                frame ->
+                    frame.getClassName().startsWith("com.api.")
+                        && !frame.getClassName().startsWith("com.api.framework.metrics.")
+                        && !frame.getClassName().startsWith("com.api.framework.datasource.")
+                        && !frame.getClassName().contains("$$"))
+            .limit(MAX_STACK_FRAMES)
+            .map(frame -> "\tat " + frame)
+            .collect(Collectors.joining("\n"));
+    return frames.isEmpty()
+        ? Arrays.stream(stack)
+            .limit(MAX_STACK_FRAMES)
+            .map(frame -> "\tat " + frame)
+            .collect(Collectors.joining("\n"))
+        : frames;
+  }
+
+  /** Merge the findings gathered since the last flush into Redis. */
+  @PreDestroy
+  public synchronized void flush() {
+    if (findings.isEmpty() || !redisCircuitBreaker.isAvailable()) {
+      return;
+    }
+    Map<String, CounterDelta> deltas = new LinkedHashMap<>();
+    findings.forEach(
+        (key, finding) -> {
+          CounterDelta delta = finding.drain();
+          if (delta != null) {
+            deltas.put(key, delta);
+          }
+        });
+    if (deltas.isEmpty()) {
+      return;
+    }
+    try {
+      BatchResult<Boolean> result = redisCache.mergeCounters(deltas, TTL_SECONDS, TimeUnit.SECONDS);
+      deltas.forEach(
+          (key, delta) -> {
+            Finding finding = findings.get(key);
+            if (result.failures().containsKey(key)) {
+              finding.restore(delta);
+            } else {
+              describe(key, finding);
+            }
+          });
+    } catch (Exception e) {
+      log.error("❌ Failed to flush N+1 query findings", e);
+      deltas.forEach((key, delta) -> findings.get(key).restore(delta));
+    }
+  }
+
+  /** Store a finding's endpoint, statement and stack next to its counters once. */
+  private void describe(String key, Finding finding) {
+    if (finding.described) {
+      return;
+    }
+    Map<String, Object> texts = new LinkedHashMap<>();
+    texts.put("Endpoint", finding.endpoint);
+    texts.put("Fingerprint", finding.fingerprint.id());
+    texts.put("SQLNormalized", finding.fingerprint.normalized());
+    texts.put("Stack", finding.stack);
+    try {
+      redisCache.setCacheMap(key, texts);
+      finding.described = true;
+    } catch (Exception e) {
+      log.warn("Failed to store N+1 query finding {}: {}", key, e.getMessage());
+    }
+  }
+
+  /** Statements of one request; only touched by the request's thread. */
+  private static final class RequestQueries {
+
+    final String endpoint;
+    final int budget;
+    final Map<String, Repeats> counts = new HashMap<>();
+    int total;
+
+    RequestQueries(String endpoint, int budget) {
+      this.endpoint = endpoint;
+      this.budget = budget;
+    }
+  }
+
+  /** Executions of one fingerprint within a request. */
+  private static final class Repeats {
+
+    SqlFingerprint fingerprint;
+    int count;
+    String stack;
+  }
+
+  /** Requests of one endpoint that repeated one statement. */
+  private static final class Finding {
+
+    final String endpoint;
+    final SqlFingerprint fingerprint;
+    final String stack;
+    boolean described;
+
+    final LongAdder occurrences = new LongAdder();
+    final LongAccumulator repeatsMax = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    final LongAccumulator lastSeen = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    Finding(String endpoint, Repeats repeats) {
+      this.endpoint = endpoint;
+      this.fingerprint = repeats.fingerprint;
+      this.stack = repeats.stack;
+    }
+
+    void record(int repeats) {
+      occurrences.increment();
+      repeatsMax.accumulate(repeats);
+      lastSeen.accumulate(System.currentTimeMillis());
+    }
+
+    CounterDelta drain() {
+      long count = occurrences.sumThenReset();
+      if (count == 0) {
+        return null;
+      }
+      return new CounterDelta()
+          .add("Occurrences", count)
+          .max("RepeatsMax", repeatsMax.getThenReset())
+          .max("LastSeen", lastSeen.getThenReset());
+    }
+
+    void restore(CounterDelta delta) {
+      occurrences.add(delta.increments().getOrDefault("Occurrences", 0L));
+      repeatsMax.accumulate(delta.maxima().getOrDefault("RepeatsMax", Long.MIN_VALUE));
+      lastSeen.accumulate(delta.maxima().getOrDefault("LastSeen", Long.MIN_VALUE));
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.api.framework.metrics;
+
+import com.api.common.redis.CounterDelta;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Per-minute counters of one series (an endpoint, a SQL statement...) kept in a small ring until
+ * they are flushed: calls, errors, total latency and a latency histogram per minute.
+ *
+ * <p>The ring only has to hold the minutes not flushed yet, so memory per series is fixed. A slot
+ * is reused two minutes later; whatever it still holds then (flushes failed for that long) is
+ * dropped. Draining, restoring and reusing a slot all hold the slot's lock, so a flush never reads
+ * the counts of one minute under the label of another.
+ */
+public final class RollingWindow {
+
+  private static final int SLOTS = 2;
+
+  private final Slot[] slots = {new Slot(), new Slot()};
+
+  public void record(long minute, long micros, boolean error) {
+    Slot slot = slotFor(minute);
+    slot.calls.increment();
+    if (error) {
+      slot.errors.increment();
+    }
+    slot.timeTotal.add(micros);
+    slot.latency.record(micros);
+  }
+
+  /** Hand the counts recorded so far to the consumer, per minute, and reset them. */
+  public void drain(BiConsumer<Long, CounterDelta> consumer) {
+    for (Slot slot : slots) {
+      long minute;
+      CounterDelta delta;
+      synchronized (slot) {
+        minute = slot.minute;
+        long calls = slot.calls.sumThenReset();
+        if (minute < 0 || calls == 0) {
+          continue;
+        }
+        delta =
+            new CounterDelta()
+                .add("Calls", calls)
+                .add("Errors", slot.errors.sumThenReset())
+                .add("TimeTotalMicros", slot.timeTotal.sumThenReset());
+        slot.latency.drain().forEach(delta::add);
+      }
+      consumer.accept(minute, delta);
+    }
+  }
+
+  /**
+   * Add back counts that {@link #drain} handed out but could not be flushed, unless their slot has
+   * been reused by a later minute meanwhile.
+   *
+   * @return whether the counts were kept
+   */
+  public boolean restore(long minute, CounterDelta delta) {
+    Slot slot = slots[(int) Math.floorMod(minute, SLOTS)];
+    synchronized (slot) {
+      if (slot.minute > minute) {
+        return false;
+      }
+      if (slot.minute != minute) {
+        slot.reset();
+        slot.minute = minute;
+      }
+      Map<String, Long> increments = delta.increments();
+      slot.calls.add(increments.getOrDefault("Calls", 0L));
+      slot.errors.add(increments.getOrDefault("Errors", 0L));
+      slot.timeTotal.add(increments.getOrDefault("TimeTotalMicros", 0L));
+      slot.latency.addFields(increments);
+      return true;
+    }
+  }
+
+  private Slot slotFor(long minute) {
+    Slot slot = slots[(int) Math.floorMod(minute, SLOTS)];
+    if (slot.minute != minute) {
+      synchronized (slot) {
+        if (slot.minute != minute) {
+          slot.reset();
+          slot.minute = minute;
+        }
+      }
+    }
+    return slot;
+  }
+
+  private static final class Slot {
+
+    volatile long minute = -1;
+    final LongAdder calls = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder timeTotal = new LongAdder();
+    final LatencyHistogram latency = new LatencyHistogram();
+
+    void reset() {
+      calls.reset();
+      errors.reset();
+      timeTotal.reset();
+      latency.drain();
+    }
+  }
+}
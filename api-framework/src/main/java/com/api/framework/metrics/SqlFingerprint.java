@@ -0,0 +1,114 @@
+package com.api.framework.metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * Stable identity of a SQL statement regardless of its literals, so equivalent statements are
+ * counted together.
+ *
+ * <p>Normalization drops comments, replaces string and numeric literals with {@code ?}, collapses
+ * whitespace (dropping it next to punctuation), lower-cases everything outside quoted identifiers,
+ * and collapses {@code IN (?, ?, ...)} lists and multi-row {@code VALUES} to a single element. The
+ * id is a 64-bit FNV-1a hash of the normalized text, in hex.
+ *
+ * @param id fingerprint hash, e.g. {@code 9f0c1e2d3a4b5c6d}
+ * @param normalized normalized statement text
+ */
+public record SqlFingerprint(String id, String normalized) {
+
+  private static final Pattern SPACES = Pattern.compile("\\s+");
+
+  /** Spaces next to punctuation do not change a statement. */
+  private static final Pattern PUNCTUATION_SPACES = Pattern.compile(" ?([,(=<>!]) ?| (\\))");
+
+  private static final Pattern IN_LIST = Pattern.compile("\\bin ?\\(\\?(,\\?)+\\)");
+
+  private static final Pattern MULTI_ROW_VALUES =
+      Pattern.compile("\\bvalues ?(\\([^()]*\\))(,\\([^()]*\\))+");
+
+  public static SqlFingerprint of(String sql) {
+    String normalized = normalize(sql);
+    return new SqlFingerprint(hash(normalized), normalized);
+  }
+
+  static String normalize(String sql) {
+    StringBuilder out = new StringBuilder(sql.length());
+    int n = sql.length();
+    int i = 0;
+    while (i < n) {
+      char c = sql.charAt(i);
+      if (c == '\'') {
+        i = skipString(sql, i);
+        out.append('?');
+      } else if (c == '"' || c == '`') {
+        int end = sql.indexOf(c, i + 1);
+        end = end < 0 ? n : end + 1;
+        out.append(sql, i, end);
+        i = end;
+      } else if (c == '-' && i + 1 < n && sql.charAt(i + 1) == '-') {
+        int end = sql.indexOf('\n', i);
+        i = end < 0 ? n : end;
+      } else if (c == '/' && i + 1 < n && sql.charAt(i + 1) == '*') {
+        int end = sql.indexOf("*/", i + 2);
+        i = end < 0 ? n : end + 2;
+      } else if (Character.isWhitespace(c)) {
+        while (i < n && Character.isWhitespace(sql.charAt(i))) {
+          i++;
+        }
+        if (out.length() > 0) {
+          out.append(' ');
+        }
+      } else if (Character.isDigit(c) && !partOfIdentifier(out)) {
+        while (i < n && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+          i++;
+        }
+        out.append('?');
+      } else {
+        out.append(Character.toLowerCase(c));
+        i++;
+      }
+    }
+    String normalized = SPACES.matcher(out.toString().trim()).replaceAll(" ");
+    normalized = PUNCTUATION_SPACES.matcher(normalized).replaceAll("$1$2");
+    normalized = IN_LIST.matcher(normalized).replaceAll("in(?)");
+    return MULTI_ROW_VALUES.matcher(normalized).replaceAll("values$1");
+  }
+
+  /** Index just past a single-quoted literal, honoring {@code ''} and backslash escapes. */
+  private static int skipString(String sql, int start) {
+    int i = start + 1;
+    while (i < sql.length()) {
+      char c = sql.charAt(i);
+      if (c == '\\') {
+        i += 2;
+      } else if (c == '\'') {
+        if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+          i += 2;
+        } else {
+          return i + 1;
+        }
+      } else {
+        i++;
+      }
+    }
+    return sql.length();
+  }
+
+  private static boolean partOfIdentifier(StringBuilder out) {
+    if (out.length() == 0) {
+      return false;
+    }
+    char last = out.charAt(out.length() - 1);
+    return Character.isLetterOrDigit(last) || last == '_' || last == '$';
+  }
+
+  private static String hash(String value) {
+    long h = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      h ^= b & 0xff;
+      h *= 0x100000001b3L;
+    }
+    return String.format("%016x", h);
+  }
+}
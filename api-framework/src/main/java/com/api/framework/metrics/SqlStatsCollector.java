@@ -0,0 +1,270 @@
+package com.api.framework.metrics;
+
+import static com.api.common.constant.CacheConstants.MONITOR_SQL_PREFIX;
+
+import com.api.common.redis.BatchResult;
+import com.api.common.redis.CounterDelta;
+import com.api.common.redis.RedisCache;
+import com.api.common.redis.RedisCircuitBreaker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-statement SQL statistics, keyed by {@link SqlFingerprint}.
+ *
+ * <p>Every JDBC execution is reported here (see {@link
+ * com.api.framework.datasource.DynamicDataSource}) and only updates in-process counters: calls,
+ * failures, rows, total and max time and a latency histogram. Every {@code sqlStats.flushMillis}
+ * they are merged into one Redis hash per fingerprint ({@code metrics:sqlDetail:<fingerprint>})
+ * with one pipelined batch, next to the normalized text, one example statement and the repository
+ * method it last ran in (see {@link com.api.framework.annotation.TrackSQLDetail}).
+ *
+ * <p>At most {@code sqlStats.maxFingerprints} statements are tracked per node; further ones are
+ * counted under {@link #OTHER}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SqlStatsCollector {
+
+  /** Fingerprint of the statements beyond {@code sqlStats.maxFingerprints}. */
+  public static final String OTHER = "other";
+
+  private static final long TTL_SECONDS = Duration.ofHours(24).toSeconds();
+
+  private static final int MAX_EXAMPLE_LENGTH = 2000;
+
+  /** Normalizing is cheap but not free: remember the fingerprint of recently seen SQL strings. */
+  private static final int FINGERPRINT_CACHE_SIZE = 10_000;
+
+  private static final ThreadLocal<String> currentMethod = new ThreadLocal<>();
+
+  private final RedisCache redisCache;
+  private final RedisCircuitBreaker redisCircuitBreaker;
+  private final ScheduledExecutorService scheduledExecutorService;
+  private final WindowedMetrics windowedMetrics;
+  private final RequestQueryAccounting requestQueryAccounting;
+
+  @Value("${sqlStats.enabled:true}")
+  private boolean enabled;
+
+  @Value("${sqlStats.flushMillis:5000}")
+  private long flushMillis;
+
+  @Value("${sqlStats.maxFingerprints:2000}")
+  private int maxFingerprints;
+
+  private final ConcurrentHashMap<String, SqlFingerprint> fingerprints = new ConcurrentHashMap<>();
+
+  private final ConcurrentHashMap<String, Stats> statsMap = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void init() {
+    scheduledExecutorService.scheduleWithFixedDelay(
+        this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Label the statements run by the current thread with a repository method until {@link
+   * #setCurrentMethod} is called again.
+   *
+   * @return the previous label, to restore afterwards (calls may nest)
+   */
+  public static String setCurrentMethod(String method) {
+    String previous = currentMethod.get();
+    if (method == null) {
+      currentMethod.remove();
+    } else {
+      currentMethod.set(method);
+    }
+    return previous;
+  }
+
+  public SqlFingerprint fingerprint(String sql) {
+    SqlFingerprint fingerprint = fingerprints.get(sql);
+    if (fingerprint == null) {
+      if (fingerprints.size() >= FINGERPRINT_CACHE_SIZE) {
+        fingerprints.clear();
+      }
+      fingerprint = fingerprints.computeIfAbsent(sql, SqlFingerprint::of);
+    }
+    return fingerprint;
+  }
+
+  /**
+   * Called right before a statement runs, to count it against the current request (see {@link
+   * RequestQueryAccounting}).
+   *
+   * @throws com.api.framework.exception.QueryBudgetExceededException if the request is over its
+   *     query budget while budgets are enforced
+   */
+  public void beforeExecute(String sql) {
+    if (sql != null && requestQueryAccounting.isActive()) {
+      requestQueryAccounting.onStatement(fingerprint(sql));
+    }
+  }
+
+  /**
+   * Count one statement execution.
+   *
+   * @param sql statement text as sent to the driver
+   * @param nanos execution time
+   * @param rows rows returned or affected
+   * @param error whether the driver threw
+   */
+  public void record(String sql, long nanos, long rows, boolean error) {
+    if (!enabled || sql == null) {
+      return;
+    }
+    SqlFingerprint fingerprint = fingerprint(sql);
+    Stats stats = statsMap.get(fingerprint.id());
+    if (stats == null) {
+      stats =
+          statsMap.size() < maxFingerprints
+              ? statsMap.computeIfAbsent(fingerprint.id(), k -> new Stats(fingerprint, sql))
+              : statsMap.computeIfAbsent(
+                  OTHER, k -> new Stats(new SqlFingerprint(OTHER, OTHER), OTHER));
+    }
+    stats.record(nanos, rows, error);
+    windowedMetrics.record(WindowedMetrics.SQL + stats.fingerprint.id(), nanos, error);
+  }
+
+  /** Merge the counters gathered since the last flush into Redis. */
+  @PreDestroy
+  public synchronized void flush() {
+    if (statsMap.isEmpty() || !redisCircuitBreaker.isAvailable()) {
+      return;
+    }
+    Map<String, CounterDelta> deltas = new LinkedHashMap<>();
+    Map<String, Stats> drained = new LinkedHashMap<>();
+    statsMap.forEach(
+        (id, stats) -> {
+          CounterDelta delta = stats.drain();
+          if (delta != null) {
+            deltas.put(MONITOR_SQL_PREFIX + id, delta);
+            drained.put(MONITOR_SQL_PREFIX + id, stats);
+          }
+        });
+    if (deltas.isEmpty()) {
+      return;
+    }
+    try {
+      BatchResult<Boolean> result = redisCache.mergeCounters(deltas, TTL_SECONDS, TimeUnit.SECONDS);
+      drained.forEach(
+          (key, stats) -> {
+            if (result.failures().containsKey(key)) {
+              stats.restore(deltas.get(key));
+            } else {
+              describe(key, stats);
+            }
+          });
+    } catch (Exception e) {
+      log.error("❌ Failed to flush SQL metrics", e);
+      drained.forEach((key, stats) -> stats.restore(deltas.get(key)));
+    }
+  }
+
+  /** Store the statement's texts next to its counters when they are new or changed. */
+  private void describe(String key, Stats stats) {
+    String method = stats.method;
+    if (stats.described && Objects.equals(method, stats.describedMethod)) {
+      return;
+    }
+    Map<String, Object> texts = new LinkedHashMap<>();
+    texts.put("Fingerprint", stats.fingerprint.id());
+    texts.put("SQLNormalized", stats.fingerprint.normalized());
+    texts.put("SQLExample", stats.example);
+    if (method != null) {
+      texts.put("SQLMethod", method);
+    }
+    try {
+      redisCache.setCacheMap(key, texts);
+      stats.described = true;
+      stats.describedMethod = method;
+    } catch (Exception e) {
+      log.warn("Failed to store SQL text for {}: {}", key, e.getMessage());
+    }
+  }
+
+  /** Lock-free counters of one statement. */
+  private static final class Stats {
+
+    final SqlFingerprint fingerprint;
+    final String example;
+    volatile String method;
+    boolean described;
+    String describedMethod;
+
+    final LongAdder executeCount = new LongAdder();
+    final LongAdder failCount = new LongAdder();
+    final LongAdder rows = new LongAdder();
+    final LongAdder timeTotalMicros = new LongAdder();
+    final LongAccumulator timeMax = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    final LatencyHistogram latency = new LatencyHistogram();
+
+    Stats(SqlFingerprint fingerprint, String example) {
+      this.fingerprint = fingerprint;
+      this.example =
+          example.length() > MAX_EXAMPLE_LENGTH
+              ? example.substring(0, MAX_EXAMPLE_LENGTH)
+              : example;
+    }
+
+    void record(long nanos, long rowCount, boolean error) {
+      long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+      executeCount.increment();
+      if (error) {
+        failCount.increment();
+      }
+      rows.add(rowCount);
+      timeTotalMicros.add(micros);
+      timeMax.accumulate(TimeUnit.NANOSECONDS.toMillis(nanos));
+      latency.record(micros);
+      String tag = currentMethod.get();
+      if (tag != null) {
+        method = tag;
+      }
+    }
+
+    CounterDelta drain() {
+      long count = executeCount.sumThenReset();
+      if (count == 0) {
+        return null;
+      }
+      long failed = failCount.sumThenReset();
+      CounterDelta delta =
+          new CounterDelta()
+              .add("ExecuteCount", count)
+              .add("SuccessCount", count - failed)
+              .add("FailCount", failed)
+              .add("Rows", rows.sumThenReset())
+              .add("TotalTimeMicros", timeTotalMicros.sumThenReset())
+              .max("TimeMillisMax", timeMax.getThenReset());
+      latency.drain().forEach(delta::add);
+      return delta;
+    }
+
+    void restore(CounterDelta delta) {
+      Map<String, Long> increments = delta.increments();
+      executeCount.add(increments.getOrDefault("ExecuteCount", 0L));
+      failCount.add(increments.getOrDefault("FailCount", 0L));
+      rows.add(increments.getOrDefault("Rows", 0L));
+      timeTotalMicros.add(increments.getOrDefault("TotalTimeMicros", 0L));
+      timeMax.accumulate(delta.maxima().getOrDefault("TimeMillisMax", Long.MIN_VALUE));
+      latency.addFields(increments);
+    }
+  }
+}
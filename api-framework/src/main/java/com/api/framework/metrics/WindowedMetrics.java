@@ -0,0 +1,201 @@
+package com.api.framework.metrics;
+
+import static com.api.common.constant.CacheConstants.MONITOR_WINDOW_PREFIX;
+
+import com.api.common.redis.BatchResult;
+import com.api.common.redis.CounterDelta;
+import com.api.common.redis.RedisCache;
+import com.api.common.redis.RedisCircuitBreaker;
+import com.api.framework.domain.WindowStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rolling-window metrics (last minute, last five minutes, last hour...) for endpoints and SQL
+ * statements, next to their lifetime totals.
+ *
+ * <p>Each series counts calls, errors and a latency histogram per minute in a {@link
+ * RollingWindow}. Every {@code metrics.window.flushMillis} the minutes are merged into one Redis
+ * hash per series and minute ({@code metrics:window:<series>:<epoch minute>}), which expires
+ * {@code metrics.window.retentionMinutes} after its minute, so old windows need no cleanup.
+ * Queries read the minute buckets of a window in one pipeline and merge them; every node adds to
+ * the same buckets, so results cover the whole cluster.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WindowedMetrics {
+
+  /** Series name prefixes. */
+  public static final String ENDPOINT = "endpoint:";
+
+  public static final String SQL = "sql:";
+
+  private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private final RedisCache redisCache;
+  private final RedisCircuitBreaker redisCircuitBreaker;
+  private final ScheduledExecutorService scheduledExecutorService;
+
+  @Value("${metrics.window.retentionMinutes:60}")
+  private int retentionMinutes;
+
+  @Value("${metrics.window.flushMillis:5000}")
+  private long flushMillis;
+
+  private final ConcurrentHashMap<String, RollingWindow> windows = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void init() {
+    scheduledExecutorService.scheduleWithFixedDelay(
+        this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Count one call of a series.
+   *
+   * @param series e.g. {@code endpoint:GET /system/user/list}
+   * @param nanos call duration
+   * @param error whether the call failed
+   */
+  public void record(String series, long nanos, boolean error) {
+    windows
+        .computeIfAbsent(series, k -> new RollingWindow())
+        .record(
+            System.currentTimeMillis() / MINUTE_MILLIS,
+            TimeUnit.NANOSECONDS.toMicros(nanos),
+            error);
+  }
+
+  /** Merge the minutes counted since the last flush into Redis. */
+  @PreDestroy
+  public synchronized void flush() {
+    if (windows.isEmpty() || !redisCircuitBreaker.isAvailable()) {
+      return;
+    }
+    Map<String, CounterDelta> deltas = new LinkedHashMap<>();
+    Map<String, Runnable> restores = new HashMap<>();
+    windows.forEach(
+        (series, window) ->
+            window.drain(
+                (minute, delta) -> {
+                  String key = keyOf(series, minute);
+                  deltas.put(key, delta);
+                  restores.put(key, () -> restore(series, window, minute, delta));
+                }));
+    if (deltas.isEmpty()) {
+      return;
+    }
+    try {
+      long ttl = TimeUnit.MINUTES.toSeconds(retentionMinutes + 1L);
+      BatchResult<Boolean> result = redisCache.mergeCounters(deltas, ttl, TimeUnit.SECONDS);
+      result.failures().keySet().forEach(key -> restores.get(key).run());
+      log.debug(
+          "[Metrics] Flushed {} windowed buckets, {} failed",
+          deltas.size(),
+          result.failures().size());
+    } catch (Exception e) {
+      log.error("❌ Failed to flush windowed metrics", e);
+      restores.values().forEach(Runnable::run);
+    }
+  }
+
+  /** Put the counts of a failed flush back into the window, so the next flush retries them. */
+  private void restore(String series, RollingWindow window, long minute, CounterDelta delta) {
+    if (!window.restore(minute, delta)) {
+      log.warn("[Metrics] Dropped windowed bucket {} of {}", minute, series);
+    }
+  }
+
+  public int getRetentionMinutes() {
+    return retentionMinutes;
+  }
+
+  public WindowStats query(String series, int minutes) {
+    return query(List.of(series), minutes).get(series);
+  }
+
+  /**
+   * Calls, errors, rates and latency percentiles of several series over the last {@code minutes}
+   * minutes (capped at the retention), including the current minute so far.
+   */
+  public Map<String, WindowStats> query(Collection<String> series, int minutes) {
+    int window = Math.max(1, Math.min(minutes, retentionMinutes));
+    long now = System.currentTimeMillis();
+    long currentMinute = now / MINUTE_MILLIS;
+
+    List<String> keys = new ArrayList<>(series.size() * window);
+    for (String name : series) {
+      for (long minute = currentMinute - window + 1; minute <= currentMinute; minute++) {
+        keys.add(keyOf(name, minute));
+      }
+    }
+    BatchResult<Map<String, Object>> buckets = redisCache.getCacheMaps(keys);
+
+    double seconds = ((window - 1) * MINUTE_MILLIS + now % MINUTE_MILLIS) / 1000.0;
+    Map<String, WindowStats> stats = new LinkedHashMap<>();
+    int next = 0;
+    for (String name : series) {
+      long calls = 0;
+      long errors = 0;
+      long timeTotal = 0;
+      LatencyHistogram latency = new LatencyHistogram();
+      for (int i = 0; i < window; i++) {
+        Map<String, Object> bucket = buckets.get(keys.get(next++));
+        if (bucket == null) {
+          continue;
+        }
+        calls += parseLong(bucket.get("Calls"));
+        errors += parseLong(bucket.get("Errors"));
+        timeTotal += parseLong(bucket.get("TimeTotalMicros"));
+        latency.addFields(bucket);
+      }
+      stats.put(
+          name,
+          WindowStats.builder()
+              .series(name)
+              .windowMinutes(window)
+              .calls(calls)
+              .errors(errors)
+              .ratePerSecond(round(calls / Math.max(seconds, 1.0)))
+              .errorRate(calls == 0 ? 0 : round(errors * 100.0 / calls))
+              .timeAverage(calls == 0 ? 0 : round(timeTotal / 1000.0 / calls))
+              .p50(latency.percentile(50) / 1000.0)
+              .p95(latency.percentile(95) / 1000.0)
+              .p99(latency.percentile(99) / 1000.0)
+              .p999(latency.percentile(99.9) / 1000.0)
+              .build());
+    }
+    return stats;
+  }
+
+  private static String keyOf(String series, long minute) {
+    return MONITOR_WINDOW_PREFIX + series + ":" + minute;
+  }
+
+  private static double round(double value) {
+    return Math.round(value * 100.0) / 100.0;
+  }
+
+  private static long parseLong(Object value) {
+    if (value == null) return 0L;
+    try {
+      return Long.parseLong(value.toString());
+    } catch (NumberFormatException e) {
+      return 0L;
+    }
+  }
+}
@@ -3,6 +3,7 @@ package com.api.framework.security.handle;
 import com.api.common.constant.Constants;
 import com.api.common.domain.AjaxResult;
 import com.api.common.domain.LoginUser;
+import com.api.common.redis.RedisUnavailableException;
 import com.api.common.utils.MessageUtils;
 import com.api.common.utils.ServletUtils;
 import com.api.common.utils.StringUtils;
@@ -23,7 +24,8 @@ import java.io.IOException;
  * Custom logout success handler.
  *
  * <p>- Removes user session token from Redis - Records logout logs asynchronously - Returns JSON
- * response on successful logout
+ * response on successful logout, or an error if Redis could not delete the session (it then only
+ * stops working on this node, so the client should retry)
  */
 @Slf4j
 @Component
@@ -51,7 +53,16 @@ public class LogoutSuccessHandlerImpl implements LogoutSuccessHandler {
       String userName = loginUser.getUsername();
 
       // Remove user cache record
-      tokenService.delLoginUser(loginUser.getToken());
+      try {
+        tokenService.delLoginUser(loginUser.getToken());
+      } catch (RedisUnavailableException e) {
+        log.warn("User [{}] logout failed: {}", userName, e.getMessage());
+        ServletUtils.renderString(
+            response,
+            objectMapper.writeValueAsString(
+                AjaxResult.error(MessageUtils.message("user.logout.failed"))));
+        return;
+      }
 
       // Record logout log asynchronously
       //      AsyncManager.me()
@@ -0,0 +1,118 @@
+package com.api.framework.service;
+
+import com.api.common.constant.Constants;
+import com.api.common.utils.StringUtils;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Interns permission strings into dense integer ids so permission sets can be held as bitsets.
+ *
+ * <p>The registry is append-only: an id, once assigned, never changes or gets reused, so bitsets
+ * built earlier stay valid. Menu permissions are registered at startup and whenever menus change;
+ * any other string (e.g. a permission referenced only in a {@code @PreAuthorize} expression) is
+ * interned on first use.
+ */
+@Slf4j
+@Component
+public class PermissionRegistry {
+
+  private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+  /** Parsed {@code hasAnyPermi} argument lists, keyed by the raw SpEL argument. */
+  private final ConcurrentHashMap<String, int[]> parsedArguments = new ConcurrentHashMap<>();
+
+  /** Id of {@link Constants#ALL_PERMISSION}. */
+  private final int allPermissionId = intern(Constants.ALL_PERMISSION);
+
+  /** Get (or assign) the id of a permission. */
+  public int intern(String permission) {
+    Integer id = ids.get(permission);
+    if (id != null) {
+      return id;
+    }
+    synchronized (ids) {
+      return ids.computeIfAbsent(permission, p -> ids.size());
+    }
+  }
+
+  /** Register every permission of a collection (blank entries are skipped). */
+  public void registerAll(Collection<String> permissions) {
+    if (permissions == null) {
+      return;
+    }
+    int before = ids.size();
+    for (String permission : permissions) {
+      if (StringUtils.isNotBlank(permission)) {
+        intern(permission.trim());
+      }
+    }
+    if (ids.size() > before) {
+      log.info("Permission registry: {} new, {} total", ids.size() - before, ids.size());
+    }
+  }
+
+  /** Bitset of a permission set. */
+  public BitSet toBits(Collection<String> permissions) {
+    BitSet bits = new BitSet(ids.size());
+    if (permissions != null) {
+      for (String permission : permissions) {
+        if (StringUtils.isNotBlank(permission)) {
+          bits.set(intern(permission.trim()));
+        }
+      }
+    }
+    return bits;
+  }
+
+  /**
+   * Ids of a delimited permission list, parsed once per distinct argument string.
+   *
+   * <p>SpEL arguments are literals, so the number of distinct strings is bounded by the number of
+   * annotated call sites.
+   */
+  public int[] parse(String permissions) {
+    int[] parsed = parsedArguments.get(permissions);
+    if (parsed != null) {
+      return parsed;
+    }
+    List<Integer> list = new ArrayList<>();
+    for (String item : permissions.split(Constants.PERMISSION_DELIMITER)) {
+      String permission = StringUtils.trim(item);
+      if (StringUtils.isNotEmpty(permission)) {
+        list.add(intern(permission));
+      }
+    }
+    parsed = list.stream().mapToInt(Integer::intValue).toArray();
+    parsedArguments.putIfAbsent(permissions, parsed);
+    return parsed;
+  }
+
+  /** Whether a bitset grants one id ({@link Constants#ALL_PERMISSION} grants all). */
+  public boolean has(BitSet bits, int permissionId) {
+    return bits.get(allPermissionId) || bits.get(permissionId);
+  }
+
+  /** Whether a bitset grants any of the given ids ({@link Constants#ALL_PERMISSION} grants all). */
+  public boolean hasAny(BitSet bits, int[] permissionIds) {
+    if (bits.get(allPermissionId)) {
+      return true;
+    }
+    for (int id : permissionIds) {
+      if (bits.get(id)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Number of interned permissions. */
+  public int size() {
+    return ids.size();
+  }
+}
@@ -6,7 +6,8 @@ import com.api.common.domain.SysRole;
 import com.api.common.utils.SecurityUtils;
 import com.api.common.utils.StringUtils;
 import com.api.framework.security.context.PermissionContextHolder;
-import java.util.Set;
+import java.util.BitSet;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
@@ -16,8 +17,11 @@ import org.springframework.util.CollectionUtils;
  * <p>This bean is usually referenced in SpEL like: {@code @ss.hasPermi('system:user:list')}.
  */
 @Service("ss")
+@RequiredArgsConstructor
 public class PermissionService {
 
+  private final PermissionRegistry permissionRegistry;
+
   /**
    * Check whether the current user has a specific permission.
    *
@@ -35,7 +39,8 @@ public class PermissionService {
     }
 
     PermissionContextHolder.setContext(permission);
-    return hasPermission(loginUser.getPermissions(), permission);
+    return permissionRegistry.has(
+        permissionBits(loginUser), permissionRegistry.intern(StringUtils.trim(permission)));
   }
 
   /**
@@ -52,6 +57,8 @@ public class PermissionService {
    * Check whether the current user has ANY permission in the provided list.
    *
    * <p>The input supports multiple permissions separated by {@link Constants#PERMISSION_DELIMITER}.
+   * The list is parsed once per distinct argument and checked as bit tests against the user's
+   * permission bitset.
    *
    * @param permissions permission list string (e.g. "a:b:c,a:b:d")
    * @return true if the user has any of them, otherwise false
@@ -67,24 +74,8 @@ public class PermissionService {
     }
 
     PermissionContextHolder.setContext(permissions);
-
-    Set<String> userPermissions = loginUser.getPermissions();
-    String[] items = permissions.split(Constants.PERMISSION_DELIMITER);
-
-    for (String item : items) {
-      if (item == null) {
-        continue;
-      }
-      String perm = StringUtils.trim(item);
-      if (StringUtils.isEmpty(perm)) {
-        continue;
-      }
-      if (hasPermission(userPermissions, perm)) {
-        return true;
-      }
-    }
-
-    return false;
+    return permissionRegistry.hasAny(
+        permissionBits(loginUser), permissionRegistry.parse(permissions));
   }
 
   /**
@@ -173,21 +164,13 @@ public class PermissionService {
     return false;
   }
 
-  /**
-   * Low-level permission match.
-   *
-   * <p>Rules:
-   *
-   * <ul>
-   *   <li>If the user has {@link Constants#ALL_PERMISSION}, then allow.
-   *   <li>Otherwise, match the trimmed permission string.
-   * </ul>
-   */
-  private boolean hasPermission(Set<String> permissions, String permission) {
-    if (CollectionUtils.isEmpty(permissions) || StringUtils.isEmpty(permission)) {
-      return false;
+  /** The user's permission bitset, built on first use and kept on the session object. */
+  private BitSet permissionBits(LoginUser loginUser) {
+    BitSet bits = loginUser.getPermissionBits();
+    if (bits == null) {
+      bits = permissionRegistry.toBits(loginUser.getPermissions());
+      loginUser.setPermissionBits(bits);
     }
-    return permissions.contains(Constants.ALL_PERMISSION)
-        || permissions.contains(StringUtils.trim(permission));
+    return bits;
   }
 }
@@ -1,39 +1,53 @@
 package com.api.framework.service;
 
-import com.api.common.constant.CacheConstants;
+import com.api.common.cache.LocalCache;
 import com.api.common.constant.Constants;
 import com.api.common.domain.LoginUser;
-import com.api.common.redis.RedisCache;
+import com.api.common.redis.RedisUnavailableException;
 import com.api.common.utils.ServletUtils;
 import com.api.common.utils.StringUtils;
-import com.api.common.utils.ip.AddressUtils;
 import com.api.common.utils.ip.IpUtils;
 import com.api.common.utils.uuid.IdUtils;
-import eu.bitwalker.useragentutils.UserAgent;
+import com.api.framework.session.LoginEvent;
+import com.api.framework.session.SessionIndex;
+import com.api.framework.session.SessionNearCache;
+import com.api.framework.session.SessionStore;
+import com.api.framework.session.SessionSummary;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.io.Decoders;
 import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 /**
  * Token handling service.
  *
  * <p>Responsibilities: - Create and parse JWT tokens - Store login users in Redis with expiration -
- * Refresh token expiration automatically - Track user agent, IP address, and location
+ * Refresh token expiration automatically - Track user agent, IP address, and location - Serve hot
+ * sessions from the in-process {@link SessionNearCache}
  *
  * @author
  */
@@ -42,7 +56,10 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class TokenService {
 
-  private final RedisCache redisCache;
+  private final SessionNearCache sessionNearCache;
+  private final SessionStore sessionStore;
+  private final SessionIndex sessionIndex;
+  private final ApplicationEventPublisher eventPublisher;
 
   /** Token header key */
   @Value("${token.header}")
@@ -59,6 +76,47 @@ public class TokenService {
   private static final long MILLIS_SECOND = 1000;
   private static final long MILLIS_MINUTE = 60 * MILLIS_SECOND;
   private static final long REFRESH_THRESHOLD = 20 * 60 * 1000L; // 20 min
+  private static final String REFRESH_MODE_REWRITE = "rewrite";
+
+  /**
+   * How sessions are refreshed by {@link #verifyToken}: "expire" (default) only extends the Redis
+   * TTL, "rewrite" re-serializes and stores the whole LoginUser.
+   */
+  @Value("${token.refreshMode:expire}")
+  private String refreshMode;
+
+  /** Tokens currently being extended on this node, used to coalesce concurrent refreshes */
+  private final Set<String> refreshingTokens = ConcurrentHashMap.newKeySet();
+
+  /** Max number of verified tokens remembered */
+  @Value("${token.verifiedCache.maxSize:10000}")
+  private int verifiedCacheMaxSize;
+
+  /** How long a verified token's claims are reused without re-checking the signature */
+  @Value("${token.verifiedCache.ttlSeconds:30}")
+  private long verifiedCacheTtlSeconds;
+
+  /** Signing key decoded once from the Base64 secret */
+  private SecretKey signingKey;
+
+  /** Thread-safe parser reused for every verification */
+  private JwtParser jwtParser;
+
+  /**
+   * SHA-256 of the token -> verified claims, so repeated requests skip Base64 decoding and HMAC.
+   * Keyed by hash so live credentials are not kept in memory.
+   */
+  private LocalCache<String, Claims> verifiedTokens;
+
+  @PostConstruct
+  public void init() {
+    signingKey =
+        new SecretKeySpec(Decoders.BASE64.decode(secret), SignatureAlgorithm.HS512.getJcaName());
+    jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    verifiedTokens =
+        new LocalCache<>(
+            "verifiedToken", verifiedCacheMaxSize, Duration.ofSeconds(verifiedCacheTtlSeconds));
+  }
 
   public LoginUser getLoginUser() {
     ServletRequestAttributes attrs =
@@ -74,8 +132,7 @@ public class TokenService {
       try {
         Claims claims = parseToken(token);
         String uuid = claims.get(Constants.LOGIN_USER_KEY, String.class);
-        String userKey = getTokenKey(uuid);
-        return redisCache.getCacheObject(userKey, LoginUser.class);
+        return loadLoginUser(uuid);
       } catch (Exception e) {
         log.error("Failed to retrieve login user from token: {}", e.getMessage());
       }
@@ -83,6 +140,30 @@ public class TokenService {
     return null;
   }
 
+  /** Load a session by token id (near-cache first, then Redis). */
+  public LoginUser loadLoginUser(String uuid) {
+    if (StringUtils.isEmpty(uuid)) {
+      return null;
+    }
+    LoginUser cached = sessionNearCache.get(uuid);
+    if (cached != null) {
+      return cached;
+    }
+    LoginUser loginUser;
+    try {
+      loginUser = sessionStore.load(uuid);
+    } catch (RedisUnavailableException e) {
+      // Degraded mode: sessions seen recently on this node keep working until Redis is back
+      log.debug("Redis unavailable, serving session {} from memory: {}", uuid, e.getMessage());
+      return sessionNearCache.getStale(uuid);
+    }
+    if (loginUser != null && sessionNearCache.isRevoked(loginUser)) {
+      return null; // logged out here while Redis could not delete it
+    }
+    sessionNearCache.put(loginUser);
+    return loginUser;
+  }
+
   /** Cache user info if token exists. */
   public void setLoginUser(LoginUser loginUser) {
     if (loginUser != null && StringUtils.isNotEmpty(loginUser.getToken())) {
@@ -90,19 +171,66 @@ public class TokenService {
     }
   }
 
-  /** Remove user info from Redis by token. */
-  public void delLoginUser(String token) {
-    if (StringUtils.isNotEmpty(token)) {
-      redisCache.deleteObject(getTokenKey(token));
+  /**
+   * Remove user info from Redis by token and invalidate every node's near-cache copy. The session
+   * stops working on this node first, even if Redis then fails.
+   *
+   * @return true if a session existed in Redis
+   * @throws RedisUnavailableException if the session could not be deleted from Redis, so it is
+   *     still valid on the other nodes
+   */
+  public boolean delLoginUser(String token) {
+    if (StringUtils.isEmpty(token)) {
+      return false;
+    }
+    sessionNearCache.revoke(token);
+    boolean deleted = sessionStore.delete(token);
+    sessionNearCache.invalidate(token);
+    return deleted;
+  }
+
+  /**
+   * Log out every session of a user.
+   *
+   * @return number of sessions removed
+   * @throws RedisUnavailableException if Redis failed; the user's sessions are logged out on this
+   *     node only
+   */
+  public int delLoginUsers(Long userId) {
+    if (userId == null) {
+      return 0;
+    }
+    sessionNearCache.revokeUser(userId);
+    int removed = 0;
+    for (String token : sessionIndex.tokensOf(userId)) {
+      if (delLoginUser(token)) {
+        removed++;
+      }
     }
+    sessionIndex.clearUser(userId);
+    log.info("Logged out {} sessions of user {}", removed, userId);
+    return removed;
   }
 
-  /** Create a new JWT token and cache user in Redis. */
+  /** Page through online sessions, most recently active first, optionally filtered. */
+  public SessionIndex.SessionPage listSessions(
+      int offset, int limit, Predicate<SessionSummary> filter) {
+    return sessionIndex.page(offset, limit, filter);
+  }
+
+  /**
+   * Create a new JWT token and store a minimal session in Redis.
+   *
+   * <p>Browser, OS and location are filled in asynchronously by {@link LoginEvent} listeners via
+   * {@link #enrichSession}, so the login request never waits on User-Agent parsing or geo lookup.
+   */
   public String createToken(LoginUser loginUser) {
     String token = IdUtils.fastUUID();
     loginUser.setToken(token);
-    setUserAgent(loginUser);
+    loginUser.setIpaddr(IpUtils.getIpAddr());
     refreshToken(loginUser);
+    eventPublisher.publishEvent(
+        LoginEvent.success(loginUser, ServletUtils.getRequest().getHeader("User-Agent")));
 
     Map<String, Object> claims = new HashMap<>();
     claims.put(Constants.LOGIN_USER_KEY, token);
@@ -119,16 +247,57 @@ public class TokenService {
    */
   private String createToken(Map<String, Object> claims) {
     String token =
-        Jwts.builder().setClaims(claims).signWith(SignatureAlgorithm.HS512, secret).compact();
+        Jwts.builder().setClaims(claims).signWith(signingKey, SignatureAlgorithm.HS512).compact();
     return token;
   }
 
-  /** Verify token expiration. Refresh if less than 20 minutes left. */
+  /**
+   * Verify token expiration. Refresh if less than 20 minutes left; while Redis is unavailable the
+   * refresh is skipped and retried by a later request.
+   */
   public void verifyToken(LoginUser loginUser) {
     long expireTime = loginUser.getExpireTime();
     long currentTime = System.currentTimeMillis();
     if (expireTime - currentTime <= REFRESH_THRESHOLD) {
-      refreshToken(loginUser);
+      try {
+        if (REFRESH_MODE_REWRITE.equalsIgnoreCase(refreshMode)) {
+          refreshToken(loginUser);
+        } else {
+          extendToken(loginUser);
+        }
+      } catch (RedisUnavailableException e) {
+        log.debug("Redis unavailable, session {} not extended", loginUser.getToken());
+      }
+    }
+  }
+
+  /**
+   * Extend the session TTL with PEXPIRE instead of rewriting the whole LoginUser.
+   *
+   * <p>The stored LoginUser keeps its original expireTime, so the real expiry is derived from the
+   * Redis PTTL: if another node already extended the key, its TTL is adopted without writing.
+   * Concurrent refreshes of the same token on this node are coalesced into one.
+   */
+  public void extendToken(LoginUser loginUser) {
+    String token = loginUser.getToken();
+    if (StringUtils.isEmpty(token) || !refreshingTokens.add(token)) {
+      return; // another request on this node is already extending it
+    }
+    try {
+      long ttlMillis = sessionStore.getExpireMillis(token);
+      if (ttlMillis == -2) {
+        sessionNearCache.invalidate(token); // session is gone
+        return;
+      }
+      if (ttlMillis > REFRESH_THRESHOLD) {
+        loginUser.setExpireTime(System.currentTimeMillis() + ttlMillis);
+      } else {
+        sessionStore.expire(loginUser, expireTime, TimeUnit.MINUTES);
+        loginUser.setExpireTime(System.currentTimeMillis() + expireTime * MILLIS_MINUTE);
+      }
+      sessionNearCache.put(loginUser);
+    } finally {
+      refreshingTokens.remove(token);
     }
   }
 
@@ -136,25 +305,49 @@ public class TokenService {
   public void refreshToken(LoginUser loginUser) {
     loginUser.setLoginTime(System.currentTimeMillis());
     loginUser.setExpireTime(loginUser.getLoginTime() + expireTime * MILLIS_MINUTE);
-    redisCache.setCacheObject(
-        getTokenKey(loginUser.getToken()), loginUser, expireTime, TimeUnit.MINUTES);
+    sessionStore.save(loginUser, expireTime, TimeUnit.MINUTES);
+    sessionNearCache.publishChange(loginUser);
   }
 
-  /** Capture client environment info (browser, OS, IP). */
-  private void setUserAgent(LoginUser loginUser) {
-    HttpServletRequest request = ServletUtils.getRequest();
-    UserAgent userAgent = UserAgent.parseUserAgentString(request.getHeader("User-Agent"));
-    String ip = IpUtils.getIpAddr();
-
-    loginUser.setIpaddr(ip);
-    loginUser.setLoginLocation(AddressUtils.getRealAddressByIP(ip));
-    loginUser.setBrowser(userAgent.getBrowser().getName());
-    loginUser.setOs(userAgent.getOperatingSystem().getName());
+  /**
+   * Patch client details into an existing session, keeping its remaining TTL. The write only
+   * replaces a session that still exists, so a logout racing with it is not undone.
+   *
+   * @return false if the session no longer exists
+   */
+  public boolean enrichSession(String token, String browser, String os, String loginLocation) {
+    LoginUser loginUser = sessionStore.load(token);
+    if (loginUser == null) {
+      return false;
+    }
+    loginUser.setBrowser(browser);
+    loginUser.setOs(os);
+    loginUser.setLoginLocation(loginLocation);
+    sessionStore.replace(loginUser);
+    // Reloaded from Redis on next use: the session may have been deleted meanwhile
+    sessionNearCache.invalidate(token);
+    return true;
   }
 
-  /** Parse token into claims. */
+  /** Parse token into claims, reusing recently verified results. */
   private Claims parseToken(String token) {
-    return Jwts.parserBuilder().setSigningKey(secret).build().parseClaimsJws(token).getBody();
+    String key = tokenHash(token);
+    Claims claims = verifiedTokens.get(key);
+    if (claims == null) {
+      claims = jwtParser.parseClaimsJws(token).getBody();
+      verifiedTokens.put(key, claims);
+    }
+    return claims;
+  }
+
+  private static String tokenHash(String token) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().withoutPadding().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
   }
 
   /** Get username from token. */
@@ -171,11 +364,6 @@ public class TokenService {
     return token;
   }
 
-  /** Build Redis cache key for token. */
-  private String getTokenKey(String uuid) {
-    return CacheConstants.LOGIN_TOKEN_KEY + uuid;
-  }
-
   /**
    * Extracts username from the current HTTP request's JWT token.
    *
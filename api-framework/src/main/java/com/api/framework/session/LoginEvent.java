@@ -0,0 +1,49 @@
+package com.api.framework.session;
+
+import com.api.common.domain.LoginUser;
+
+/**
+ * Published on every login attempt, after the critical path has finished.
+ *
+ * <p>Carries the raw request data (IP, User-Agent header) captured on the request thread so that
+ * listeners can enrich the session and write audit records asynchronously.
+ *
+ * @param token session token id (null for failed attempts)
+ * @param userId user id (null if unknown)
+ * @param userName login name
+ * @param ipaddr client IP
+ * @param userAgent raw User-Agent header
+ * @param success whether the attempt succeeded
+ * @param message result message for the audit record
+ * @param loginTime attempt time (epoch millis)
+ */
+public record LoginEvent(
+    String token,
+    Long userId,
+    String userName,
+    String ipaddr,
+    String userAgent,
+    boolean success,
+    String message,
+    long loginTime) {
+
+  /** Successful login of a freshly stored session. */
+  public static LoginEvent success(LoginUser loginUser, String userAgent) {
+    return new LoginEvent(
+        loginUser.getToken(),
+        loginUser.getUserId(),
+        loginUser.getUsername(),
+        loginUser.getIpaddr(),
+        userAgent,
+        true,
+        "Login successful",
+        loginUser.getLoginTime() != null ? loginUser.getLoginTime() : System.currentTimeMillis());
+  }
+
+  /** Failed login attempt. */
+  public static LoginEvent failure(
+      String userName, String ipaddr, String userAgent, String message) {
+    return new LoginEvent(
+        null, null, userName, ipaddr, userAgent, false, message, System.currentTimeMillis());
+  }
+}
@@ -0,0 +1,220 @@
+package com.api.framework.session;
+
+import com.api.common.domain.LoginUser;
+import com.api.common.domain.SysDept;
+import com.api.common.domain.SysRole;
+import com.api.common.domain.SysUser;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Compact, versioned binary codec for the slim session stored in Redis.
+ *
+ * <p>Only what request handling needs is kept: ids, user/nick/dept names, role keys (with the id,
+ * data scope and status used by data-scope checks), a reference to the shared permission set,
+ * login metadata and token timing, plus the profile fields shown by {@code /auth/getInfo}. Password
+ * hash, remark, update audit fields and the full dept/role entities are dropped.
+ *
+ * <p>Layout: {@code MAGIC, VERSION, fields..., [profile]}. The profile block is optional and comes
+ * last, so readers that predate it simply ignore it and sessions written before it decode without
+ * one ({@link #hasProfile(SysUser)} is false). Values without the magic byte are legacy JSON
+ * sessions and are reported by {@link #isEncoded(byte[])} so callers can fall back.
+ */
+public final class LoginUserCodec {
+
+  /** Marker byte; legacy JSON values start with '"' or '{'. */
+  static final byte MAGIC = (byte) 0xA7;
+
+  static final byte VERSION_1 = 1;
+
+  private LoginUserCodec() {}
+
+  /** Whether the bytes were produced by this codec. */
+  public static boolean isEncoded(byte[] bytes) {
+    return bytes != null && bytes.length > 1 && bytes[0] == MAGIC;
+  }
+
+  /**
+   * Encode the slim view of a session.
+   *
+   * @param loginUser session to encode
+   * @param permissionsRef reference of the shared permission set
+   * @return encoded bytes
+   */
+  public static byte[] encode(LoginUser loginUser, String permissionsRef) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(MAGIC);
+      out.writeByte(VERSION_1);
+
+      writeLong(out, loginUser.getUserId());
+      writeLong(out, loginUser.getDeptId());
+      writeString(out, loginUser.getToken());
+      writeLong(out, loginUser.getLoginTime());
+      writeLong(out, loginUser.getExpireTime());
+      writeString(out, loginUser.getIpaddr());
+      writeString(out, loginUser.getLoginLocation());
+      writeString(out, loginUser.getBrowser());
+      writeString(out, loginUser.getOs());
+      writeString(out, loginUser.getLoginType());
+      writeString(out, loginUser.getOauth2Provider());
+      writeString(out, loginUser.getOauth2UserId());
+      writeString(out, permissionsRef);
+
+      SysUser user = loginUser.getUser();
+      out.writeBoolean(user != null);
+      if (user != null) {
+        writeString(out, user.getUserName());
+        writeString(out, user.getNickName());
+        writeString(out, user.getDept() != null ? user.getDept().getDeptName() : null);
+
+        List<SysRole> roles = user.getRoles() != null ? user.getRoles() : List.of();
+        out.writeShort(roles.size());
+        for (SysRole role : roles) {
+          writeLong(out, role.getRoleId());
+          writeString(out, role.getRoleKey());
+          writeString(out, role.getDataScope());
+          writeString(out, role.getStatus());
+        }
+
+        writeString(out, user.getEmail());
+        writeString(out, user.getPhonenumber());
+        writeString(out, user.getSex());
+        writeString(out, user.getAvatar());
+        writeString(out, user.getStatus());
+        writeString(out, user.getUserType());
+        writeString(out, user.getLoginIp());
+        writeDate(out, user.getLoginDate());
+        writeDate(out, user.getPwdUpdateDate());
+        writeDate(out, user.getCreateTime());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to encode session", e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Decode a session. Permissions are not set; resolve them from {@link Decoded#permissionsRef()}.
+   *
+   * @param bytes encoded bytes (must satisfy {@link #isEncoded(byte[])})
+   * @return decoded session and its permission reference
+   */
+  public static Decoded decode(byte[] bytes) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      in.readByte(); // magic
+      byte version = in.readByte();
+      if (version != VERSION_1) {
+        throw new IllegalStateException("Unsupported session codec version: " + version);
+      }
+
+      LoginUser loginUser = new LoginUser();
+      loginUser.setUserId(readLong(in));
+      loginUser.setDeptId(readLong(in));
+      loginUser.setToken(readString(in));
+      loginUser.setLoginTime(readLong(in));
+      loginUser.setExpireTime(readLong(in));
+      loginUser.setIpaddr(readString(in));
+      loginUser.setLoginLocation(readString(in));
+      loginUser.setBrowser(readString(in));
+      loginUser.setOs(readString(in));
+      loginUser.setLoginType(readString(in));
+      loginUser.setOauth2Provider(readString(in));
+      loginUser.setOauth2UserId(readString(in));
+      String permissionsRef = readString(in);
+
+      if (in.readBoolean()) {
+        SysUser user = new SysUser();
+        user.setUserId(loginUser.getUserId());
+        user.setDeptId(loginUser.getDeptId());
+        user.setUserName(readString(in));
+        user.setNickName(readString(in));
+        String deptName = readString(in);
+        if (deptName != null) {
+          SysDept dept = new SysDept();
+          dept.setDeptId(loginUser.getDeptId());
+          dept.setDeptName(deptName);
+          user.setDept(dept);
+        }
+
+        int roleCount = in.readUnsignedShort();
+        List<SysRole> roles = new ArrayList<>(roleCount);
+        for (int i = 0; i < roleCount; i++) {
+          SysRole role = new SysRole();
+          role.setRoleId(readLong(in));
+          role.setRoleKey(readString(in));
+          role.setDataScope(readString(in));
+          role.setStatus(readString(in));
+          roles.add(role);
+        }
+        user.setRoles(roles);
+
+        if (in.available() > 0) {
+          user.setEmail(readString(in));
+          user.setPhonenumber(readString(in));
+          user.setSex(readString(in));
+          user.setAvatar(readString(in));
+          user.setStatus(readString(in));
+          user.setUserType(readString(in));
+          user.setLoginIp(readString(in));
+          user.setLoginDate(readDate(in));
+          user.setPwdUpdateDate(readDate(in));
+          user.setCreateTime(readDate(in));
+        }
+        loginUser.setUser(user);
+      }
+      return new Decoded(loginUser, permissionsRef);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to decode session", e);
+    }
+  }
+
+  /**
+   * Whether a decoded user carries the profile block. Every stored user has a status, so a missing
+   * one means the session was written before the block existed.
+   */
+  public static boolean hasProfile(SysUser user) {
+    return user != null && user.getStatus() != null;
+  }
+
+  private static void writeDate(DataOutputStream out, Date value) throws IOException {
+    writeLong(out, value != null ? value.getTime() : null);
+  }
+
+  private static Date readDate(DataInputStream in) throws IOException {
+    Long millis = readLong(in);
+    return millis != null ? new Date(millis) : null;
+  }
+
+  private static void writeLong(DataOutputStream out, Long value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeLong(value);
+    }
+  }
+
+  private static Long readLong(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readLong() : null;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  /** Decoded session plus the reference of its permission set. */
+  public record Decoded(LoginUser loginUser, String permissionsRef) {}
+}
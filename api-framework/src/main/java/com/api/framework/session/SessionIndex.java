@@ -0,0 +1,244 @@
+package com.api.framework.session;
+
+import com.api.common.constant.CacheConstants;
+import com.api.common.domain.LoginUser;
+import com.api.common.redis.BatchResult;
+import com.api.common.redis.RedisBatch;
+import com.api.common.redis.RedisCache;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Secondary Redis indexes over login sessions, maintained by {@link SessionStore}.
+ *
+ * <ul>
+ *   <li>{@code login_session_index}: sorted set of tokens scored by expiry time (epoch millis)
+ *   <li>{@code login_user_sessions:<userId>}: set of a user's tokens
+ *   <li>{@code login_session_summary:<token>}: {@link SessionSummary} hash, same TTL as the session
+ * </ul>
+ *
+ * <p>Sessions expire on their own, so the index may briefly reference dead tokens. Entries whose
+ * expiry has passed are swept with {@code ZREMRANGEBYSCORE} every {@code
+ * token.sessionIndex.sweepSeconds} and before each page is counted; readers also treat a missing
+ * summary as expired and prune the stale entry.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionIndex {
+
+  /** Tokens read per round trip when a filter forces a walk over the whole index. */
+  private static final int SCAN_CHUNK = 500;
+
+  private final RedisCache redisCache;
+  private final ScheduledExecutorService scheduledExecutorService;
+
+  @Value("${token.sessionIndex.sweepSeconds:60}")
+  private long sweepSeconds;
+
+  @PostConstruct
+  public void init() {
+    scheduledExecutorService.scheduleWithFixedDelay(
+        this::sweepQuietly, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+  }
+
+  /** Index a new or rewritten session, in one round trip. */
+  public void add(LoginUser loginUser, long timeout, TimeUnit unit) {
+    String token = loginUser.getToken();
+    String summaryKey = summaryKey(token);
+    RedisBatch batch =
+        new RedisBatch()
+            .putAll(summaryKey, SessionSummary.of(loginUser).toMap())
+            .expire(summaryKey, timeout, unit)
+            .zAdd(CacheConstants.LOGIN_SESSION_INDEX_KEY, token, expireAt(timeout, unit));
+    if (loginUser.getUserId() != null) {
+      String userKey = userKey(loginUser.getUserId());
+      batch.sAdd(userKey, token).expire(userKey, timeout, unit);
+    }
+    redisCache.executeBatch(batch);
+  }
+
+  /** Extend the index entries of a session along with the session itself, in one round trip. */
+  public void expire(LoginUser loginUser, long timeout, TimeUnit unit) {
+    RedisBatch batch =
+        new RedisBatch()
+            .expire(summaryKey(loginUser.getToken()), timeout, unit)
+            .zAdd(
+                CacheConstants.LOGIN_SESSION_INDEX_KEY,
+                loginUser.getToken(),
+                expireAt(timeout, unit));
+    if (loginUser.getUserId() != null) {
+      batch.expire(userKey(loginUser.getUserId()), timeout, unit);
+    }
+    redisCache.executeBatch(batch);
+  }
+
+  /** Remove a session from every index. */
+  public void remove(String token) {
+    String summaryKey = summaryKey(token);
+    Object userId = redisCache.getCacheMapValue(summaryKey, "userId");
+    redisCache.deleteObject(summaryKey);
+    redisCache.zRemove(CacheConstants.LOGIN_SESSION_INDEX_KEY, List.of(token));
+    if (userId != null) {
+      redisCache.sRemove(userKey(Long.valueOf(userId.toString())), token);
+    }
+  }
+
+  /** Tokens of every indexed session of a user (may include just-expired ones). */
+  public Set<String> tokensOf(Long userId) {
+    return redisCache.sMembers(userKey(userId));
+  }
+
+  /** Drop the per-user set once all of its sessions are gone. */
+  public void clearUser(Long userId) {
+    redisCache.deleteObject(userKey(userId));
+  }
+
+  /**
+   * Drop index entries whose session has expired.
+   *
+   * @return number of entries removed
+   */
+  public long sweep() {
+    long removed =
+        redisCache.zRemoveRangeByScore(
+            CacheConstants.LOGIN_SESSION_INDEX_KEY,
+            Double.NEGATIVE_INFINITY,
+            System.currentTimeMillis());
+    if (removed > 0) {
+      log.debug("Swept {} expired sessions from the session index", removed);
+    }
+    return removed;
+  }
+
+  private void sweepQuietly() {
+    try {
+      sweep();
+    } catch (Exception e) {
+      log.warn("Session index sweep failed: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Page through active sessions, latest expiry (most recently logged in or extended) first.
+   *
+   * <p>Without a filter only the requested page is read, plus whatever replaces expired rows. With
+   * a filter the index is walked in chunks of summaries (never full sessions) to count matches.
+   * Expired tokens found on the way are pruned once the walk is over, so ranks do not shift under
+   * it.
+   *
+   * @param offset rows to skip
+   * @param limit page size
+   * @param filter optional predicate on summaries (null for all)
+   * @return page rows and total count
+   */
+  public SessionPage page(int offset, int limit, Predicate<SessionSummary> filter) {
+    sweep();
+    List<String> stale = new ArrayList<>();
+    try {
+      return filter == null
+          ? pageAll(offset, limit, stale)
+          : pageFiltered(offset, limit, filter, stale);
+    } finally {
+      prune(stale);
+    }
+  }
+
+  private SessionPage pageAll(int offset, int limit, List<String> stale) {
+    long total = redisCache.zCard(CacheConstants.LOGIN_SESSION_INDEX_KEY);
+    List<SessionSummary> rows = new ArrayList<>(Math.max(limit, 0));
+    long start = offset;
+    while (rows.size() < limit) {
+      int wanted = limit - rows.size();
+      List<String> tokens =
+          redisCache.zRevRange(CacheConstants.LOGIN_SESSION_INDEX_KEY, start, start + wanted - 1);
+      rows.addAll(loadSummaries(tokens, stale));
+      start += tokens.size();
+      if (tokens.size() < wanted) {
+        break;
+      }
+    }
+    return new SessionPage(rows, Math.max(0, total - stale.size()));
+  }
+
+  private SessionPage pageFiltered(
+      int offset, int limit, Predicate<SessionSummary> filter, List<String> stale) {
+    List<SessionSummary> rows = new ArrayList<>(Math.max(limit, 0));
+    long matched = 0;
+    for (long start = 0; ; start += SCAN_CHUNK) {
+      List<String> tokens =
+          redisCache.zRevRange(
+              CacheConstants.LOGIN_SESSION_INDEX_KEY, start, start + SCAN_CHUNK - 1);
+      for (SessionSummary summary : loadSummaries(tokens, stale)) {
+        if (!filter.test(summary)) {
+          continue;
+        }
+        if (matched >= offset && rows.size() < limit) {
+          rows.add(summary);
+        }
+        matched++;
+      }
+      if (tokens.size() < SCAN_CHUNK) {
+        break;
+      }
+    }
+    return new SessionPage(rows, matched);
+  }
+
+  /** Load summaries in index order; tokens whose session has expired are added to {@code stale}. */
+  private List<SessionSummary> loadSummaries(List<String> tokens, List<String> stale) {
+    List<SessionSummary> summaries = new ArrayList<>(tokens.size());
+    BatchResult<Map<String, Object>> maps =
+        redisCache.getCacheMaps(tokens.stream().map(this::summaryKey).toList());
+    for (String token : tokens) {
+      String key = summaryKey(token);
+      if (maps.failures().containsKey(key)) {
+        continue; // unknown, keep it indexed
+      }
+      SessionSummary summary = SessionSummary.fromMap(token, maps.get(key));
+      if (summary == null) {
+        stale.add(token);
+      } else {
+        summaries.add(summary);
+      }
+    }
+    return summaries;
+  }
+
+  private void prune(List<String> stale) {
+    if (stale.isEmpty()) {
+      return;
+    }
+    try {
+      redisCache.zRemove(CacheConstants.LOGIN_SESSION_INDEX_KEY, stale);
+      log.debug("Pruned {} expired sessions from the session index", stale.size());
+    } catch (Exception e) {
+      log.warn("Failed to prune the session index: {}", e.getMessage());
+    }
+  }
+
+  private static long expireAt(long timeout, TimeUnit unit) {
+    return System.currentTimeMillis() + unit.toMillis(timeout);
+  }
+
+  private String summaryKey(String token) {
+    return CacheConstants.LOGIN_SESSION_SUMMARY_KEY + token;
+  }
+
+  private String userKey(Long userId) {
+    return CacheConstants.LOGIN_USER_SESSIONS_KEY + userId;
+  }
+
+  /** One page of session summaries and the total number of matches. */
+  public record SessionPage(List<SessionSummary> rows, long total) {}
+}
@@ -0,0 +1,182 @@
+package com.api.framework.session;
+
+import com.api.common.cache.LocalCache;
+import com.api.common.constant.CacheConstants;
+import com.api.common.domain.LoginUser;
+import com.api.common.redis.RedisCache;
+import com.api.common.utils.StringUtils;
+import com.api.common.utils.uuid.IdUtils;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Collection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process near-cache for login sessions, sitting in front of Redis.
+ *
+ * <p>Entries live at most {@code token.nearCache.ttlSeconds} and never outlive the session's own
+ * expire time. Any node that changes or removes a session publishes the token on {@link
+ * CacheConstants#SESSION_INVALIDATE_CHANNEL}; every other node drops its local copy.
+ *
+ * <p>A second, longer-lived copy ({@code token.nearCache.staleTtlSeconds}, still bounded by the
+ * session's expire time) is only read through {@link #getStale} while Redis is unavailable, so
+ * users who were active shortly before an outage stay logged in.
+ *
+ * <p>Sessions logged out on this node are remembered for a session lifetime ({@link #revoke},
+ * {@link #revokeUser}) and never served from either copy again, even if deleting them from Redis
+ * failed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionNearCache {
+
+  private static final String SEPARATOR = "|";
+  private static final String TOKEN_SEPARATOR = ",";
+
+  private final RedisCache redisCache;
+
+  /** Identifies this node so it can ignore its own invalidation messages. */
+  private final String nodeId = IdUtils.fastSimpleUUID();
+
+  @Value("${token.nearCache.maxSize:10000}")
+  private int maxSize;
+
+  @Value("${token.nearCache.ttlSeconds:60}")
+  private long ttlSeconds;
+
+  /** How long a session stays usable from memory alone while Redis is unavailable. */
+  @Value("${token.nearCache.staleTtlSeconds:1800}")
+  private long staleTtlSeconds;
+
+  private LocalCache<String, LoginUser> cache;
+
+  private LocalCache<String, LoginUser> stale;
+
+  /** Session lifetime, how long logged-out tokens and users are remembered. */
+  @Value("${token.expireTime:30}")
+  private int sessionTtlMinutes;
+
+  /** Tokens logged out on this node. */
+  private LocalCache<String, Boolean> revokedTokens;
+
+  /** User id to the time all of the user's sessions were logged out on this node. */
+  private LocalCache<Long, Long> revokedUsers;
+
+  @PostConstruct
+  public void init() {
+    cache = new LocalCache<>("session", maxSize, Duration.ofSeconds(ttlSeconds));
+    stale = new LocalCache<>("staleSession", maxSize, Duration.ofSeconds(staleTtlSeconds));
+    Duration revokedTtl = Duration.ofSeconds(Math.max(staleTtlSeconds, sessionTtlMinutes * 60L));
+    revokedTokens = new LocalCache<>("revokedSession", maxSize, revokedTtl);
+    revokedUsers = new LocalCache<>("revokedUserSessions", maxSize, revokedTtl);
+    redisCache.subscribe(CacheConstants.SESSION_INVALIDATE_CHANNEL, this::onInvalidate);
+    log.info("Session near-cache enabled: maxSize={}, ttl={}s", maxSize, ttlSeconds);
+  }
+
+  /** Get a cached session by token id, or null. */
+  public LoginUser get(String token) {
+    return unlessRevoked(cache.get(token));
+  }
+
+  /**
+   * Last known copy of a session, possibly older than the near-cache TTL. Only for degraded mode,
+   * when Redis cannot be asked.
+   */
+  public LoginUser getStale(String token) {
+    return unlessRevoked(stale.get(token));
+  }
+
+  /** Whether the session was logged out on this node, by token or with all of its user's. */
+  public boolean isRevoked(LoginUser loginUser) {
+    if (revokedTokens.get(loginUser.getToken()) != null) {
+      return true;
+    }
+    Long revokedAt = loginUser.getUserId() != null ? revokedUsers.get(loginUser.getUserId()) : null;
+    return revokedAt != null
+        && (loginUser.getLoginTime() == null || loginUser.getLoginTime() <= revokedAt);
+  }
+
+  /**
+   * Drop a logged-out session from both local copies and never cache it again on this node. Local
+   * only: call before deleting the session from Redis, which may fail.
+   */
+  public void revoke(String token) {
+    if (StringUtils.isEmpty(token)) {
+      return;
+    }
+    revokedTokens.put(token, Boolean.TRUE);
+    cache.invalidate(token);
+    stale.invalidate(token);
+  }
+
+  /** Treat every session of the user created until now as logged out on this node. */
+  public void revokeUser(Long userId) {
+    if (userId != null) {
+      revokedUsers.put(userId, System.currentTimeMillis());
+    }
+  }
+
+  /** Cache a session locally (bounded by its own expire time). */
+  public void put(LoginUser loginUser) {
+    if (loginUser == null || StringUtils.isEmpty(loginUser.getToken()) || isRevoked(loginUser)) {
+      return;
+    }
+    long expireAt =
+        loginUser.getExpireTime() != null ? loginUser.getExpireTime() : Long.MAX_VALUE;
+    cache.put(loginUser.getToken(), loginUser, expireAt);
+    stale.put(loginUser.getToken(), loginUser, expireAt);
+  }
+
+  /** Drop a session locally and tell the other nodes to drop it too. */
+  public void invalidate(String token) {
+    if (StringUtils.isEmpty(token)) {
+      return;
+    }
+    cache.invalidate(token);
+    stale.invalidate(token);
+    redisCache.publish(CacheConstants.SESSION_INVALIDATE_CHANNEL, nodeId + SEPARATOR + token);
+  }
+
+  /** Drop several sessions locally and tell the other nodes with a single message. */
+  public void invalidateAll(Collection<String> tokens) {
+    if (tokens == null || tokens.isEmpty()) {
+      return;
+    }
+    tokens.forEach(cache::invalidate);
+    tokens.forEach(stale::invalidate);
+    redisCache.publish(
+        CacheConstants.SESSION_INVALIDATE_CHANNEL,
+        nodeId + SEPARATOR + String.join(TOKEN_SEPARATOR, tokens));
+  }
+
+  /** Tell the other nodes their copy is stale, keeping the fresh local one. */
+  public void publishChange(LoginUser loginUser) {
+    put(loginUser);
+    redisCache.publish(
+        CacheConstants.SESSION_INVALIDATE_CHANNEL, nodeId + SEPARATOR + loginUser.getToken());
+  }
+
+  private LoginUser unlessRevoked(LoginUser loginUser) {
+    return loginUser == null || isRevoked(loginUser) ? null : loginUser;
+  }
+
+  private void onInvalidate(String message) {
+    if (StringUtils.isEmpty(message)) {
+      return;
+    }
+    int idx = message.indexOf(SEPARATOR);
+    String sender = idx > 0 ? message.substring(0, idx) : "";
+    String tokens = idx > 0 ? message.substring(idx + 1) : message;
+    if (!nodeId.equals(sender)) {
+      for (String token : tokens.split(TOKEN_SEPARATOR)) {
+        cache.invalidate(token);
+        stale.invalidate(token);
+      }
+      log.debug("Session near-cache invalidated by peer: tokens={}", tokens);
+    }
+  }
+}
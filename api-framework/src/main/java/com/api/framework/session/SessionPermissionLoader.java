@@ -0,0 +1,20 @@
+package com.api.framework.session;
+
+import com.api.common.domain.LoginUser;
+import java.util.Set;
+
+/**
+ * Recomputes the permissions of a logged-in user from the database, for sessions whose shared
+ * permission set is gone from Redis (evicted, or expired before the session). Implemented by the
+ * system module, which owns roles and menus.
+ */
+public interface SessionPermissionLoader {
+
+  /**
+   * Current permissions of a session's user.
+   *
+   * @param loginUser the session, with its user and roles as stored
+   * @return the user's current permissions
+   */
+  Set<String> loadPermissions(LoginUser loginUser);
+}
@@ -0,0 +1,296 @@
+package com.api.framework.session;
+
+import com.api.common.cache.LocalCache;
+import com.api.common.constant.CacheConstants;
+import com.api.common.domain.LoginUser;
+import com.api.common.domain.SysRole;
+import com.api.common.redis.RedisCache;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads and writes login sessions in Redis using {@link LoginUserCodec}.
+ *
+ * <p>Permission sets are stored once per distinct set under {@code login_perms:<hash>} and shared
+ * by every session that has the same permissions. They are immutable, so decoded sets are also
+ * cached locally and shared between sessions in memory. Sessions written as JSON before the codec
+ * was introduced are still readable, and are added to the {@link SessionIndex} the first time this
+ * node reads them. Every write is mirrored into the index.
+ *
+ * <p>A session whose permission set has disappeared from Redis gets it recomputed through the
+ * {@link SessionPermissionLoader}; without one, the session is dropped rather than served with no
+ * permissions.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionStore {
+
+  /** Permission sets outlive sessions so a TTL-extended session never loses its reference. */
+  private static final int PERMISSIONS_TTL_FACTOR = 2;
+
+  /** Sessions read and rewritten per round trip by {@link #patchAll}. */
+  private static final int PATCH_CHUNK = 200;
+
+  private final RedisCache redisCache;
+  private final SessionIndex sessionIndex;
+  /** Lazy: the loader depends on services that depend on this store. */
+  private final ObjectProvider<SessionPermissionLoader> permissionLoader;
+
+  /** Session lifetime, used as the base TTL of permission sets written by {@link #patchAll}. */
+  @Value("${token.expireTime}")
+  private int sessionTtlMinutes;
+
+  private final LocalCache<String, Set<String>> permissionSets =
+      new LocalCache<>("sessionPermissions", 1024, Duration.ofMinutes(30));
+
+  /** Legacy JSON sessions this node has already indexed. */
+  private final LocalCache<String, Boolean> indexedLegacySessions =
+      new LocalCache<>("indexedLegacySessions", 10_000, Duration.ofMinutes(30));
+
+  /** Load a session by token id, or null if it does not exist. */
+  public LoginUser load(String token) {
+    byte[] bytes = redisCache.getCacheBytes(tokenKey(token));
+    LoginUserCodec.Decoded decoded = decode(token, bytes);
+    if (decoded == null) {
+      return null;
+    }
+    if (!LoginUserCodec.isEncoded(bytes)) {
+      indexLegacy(token, decoded.loginUser());
+    }
+    LoginUser loginUser = decoded.loginUser();
+    if (decoded.permissionsRef() != null) {
+      Set<String> permissions = resolvePermissions(decoded.permissionsRef());
+      if (permissions == null) {
+        permissions = rebuildPermissions(token, loginUser, decoded.permissionsRef());
+        if (permissions == null) {
+          return null;
+        }
+      }
+      loginUser.setPermissions(permissions);
+    }
+    return loginUser;
+  }
+
+  /**
+   * Recompute a session's missing permission set from the database, store it and point the session
+   * at it. Returns null, after deleting the session, if they cannot be recomputed.
+   */
+  private Set<String> rebuildPermissions(String token, LoginUser loginUser, String ref) {
+    SessionPermissionLoader loader = permissionLoader.getIfAvailable();
+    Set<String> permissions = null;
+    if (loader != null && loginUser.getUser() != null) {
+      try {
+        permissions = loader.loadPermissions(loginUser);
+      } catch (Exception e) {
+        log.error("Failed to reload the permissions of session {}", token, e);
+      }
+    }
+    if (permissions == null) {
+      log.warn("Permission set {} of session {} is missing, logging the session out", ref, token);
+      delete(token);
+      return null;
+    }
+    permissions = Set.copyOf(permissions);
+    if (loginUser.getToken() == null) {
+      loginUser.setToken(token);
+    }
+    loginUser.setPermissions(permissions);
+    storePermissions(permissions, sessionTtlMinutes, TimeUnit.MINUTES);
+    replace(loginUser);
+    log.warn(
+        "Permission set {} of session {} was missing, reloaded {} permissions",
+        ref,
+        token,
+        permissions.size());
+    return permissions;
+  }
+
+  /** Store a session (and its permission set) with the given TTL. */
+  public void save(LoginUser loginUser, long timeout, TimeUnit unit) {
+    String permissionsRef = storePermissions(loginUser.getPermissions(), timeout, unit);
+    redisCache.setCacheBytes(
+        tokenKey(loginUser.getToken()),
+        LoginUserCodec.encode(loginUser, permissionsRef),
+        timeout,
+        unit);
+    sessionIndex.add(loginUser, timeout, unit);
+  }
+
+  /**
+   * Rewrite an existing session in place with {@code SET XX KEEPTTL}, keeping its TTL and its index
+   * entry. A session deleted meanwhile (e.g. logged out) is not recreated.
+   */
+  public void replace(LoginUser loginUser) {
+    Set<String> permissions = loginUser.getPermissions();
+    String permissionsRef = permissions != null ? permissionsRef(permissions) : null;
+    redisCache.replaceCacheBytes(
+        Map.of(tokenKey(loginUser.getToken()), LoginUserCodec.encode(loginUser, permissionsRef)));
+  }
+
+  /** JSON sessions predate the index and are never rewritten under "expire" refresh: index them. */
+  private void indexLegacy(String token, LoginUser loginUser) {
+    if (indexedLegacySessions.get(token) != null) {
+      return;
+    }
+    long ttlMillis = getExpireMillis(token);
+    if (ttlMillis > 0) {
+      if (loginUser.getToken() == null) {
+        loginUser.setToken(token);
+      }
+      sessionIndex.add(loginUser, ttlMillis, TimeUnit.MILLISECONDS);
+    }
+    indexedLegacySessions.put(token, Boolean.TRUE);
+  }
+
+  /** Remaining session TTL in milliseconds (-2 if missing). */
+  public long getExpireMillis(String token) {
+    return redisCache.getExpire(tokenKey(token), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Replace the permissions (and roles, if given) of many sessions in place, keeping their TTL.
+   *
+   * <p>Sessions are read with one MGET and written back with one pipelined {@code SET XX KEEPTTL}
+   * per chunk, so a session that expires meanwhile is not recreated.
+   *
+   * @param patches new authorization data by token id
+   * @return number of sessions patched
+   */
+  public int patchAll(Map<String, SessionPatch> patches) {
+    int patched = 0;
+    Map<Set<String>, String> storedRefs = new HashMap<>();
+    List<String> tokens = new ArrayList<>(patches.keySet());
+    for (int from = 0; from < tokens.size(); from += PATCH_CHUNK) {
+      List<String> chunk = tokens.subList(from, Math.min(from + PATCH_CHUNK, tokens.size()));
+      List<byte[]> current = redisCache.getCacheBytes(chunk.stream().map(this::tokenKey).toList());
+      Map<String, byte[]> updated = new HashMap<>();
+      for (int i = 0; i < chunk.size(); i++) {
+        String token = chunk.get(i);
+        LoginUserCodec.Decoded decoded = decode(token, current.get(i));
+        if (decoded == null || decoded.loginUser() == null) {
+          continue; // expired meanwhile
+        }
+        LoginUser loginUser = decoded.loginUser();
+        SessionPatch patch = patches.get(token);
+        if (patch.roles() != null && loginUser.getUser() != null) {
+          loginUser.getUser().setRoles(patch.roles());
+        }
+        String permissionsRef =
+            storedRefs.computeIfAbsent(
+                patch.permissions(),
+                p -> storePermissions(p, sessionTtlMinutes, TimeUnit.MINUTES));
+        updated.put(tokenKey(token), LoginUserCodec.encode(loginUser, permissionsRef));
+      }
+      redisCache.replaceCacheBytes(updated);
+      patched += updated.size();
+    }
+    return patched;
+  }
+
+  /** Extend the TTL of a session and of the permission set it references. */
+  public boolean expire(LoginUser loginUser, long timeout, TimeUnit unit) {
+    boolean ok = redisCache.expire(tokenKey(loginUser.getToken()), timeout, unit);
+    if (ok && loginUser.getPermissions() != null) {
+      redisCache.expire(
+          permissionsKey(permissionsRef(loginUser.getPermissions())),
+          timeout * PERMISSIONS_TTL_FACTOR,
+          unit);
+    }
+    if (ok) {
+      sessionIndex.expire(loginUser, timeout, unit);
+    }
+    return ok;
+  }
+
+  /** Delete a session; returns true if it existed. */
+  public boolean delete(String token) {
+    sessionIndex.remove(token);
+    return redisCache.deleteObject(tokenKey(token));
+  }
+
+  /** Redis key of a session. */
+  public String tokenKey(String token) {
+    return CacheConstants.LOGIN_TOKEN_KEY + token;
+  }
+
+  /**
+   * Decode stored session bytes. Legacy JSON sessions are read through the JSON path and returned
+   * with their permissions already set and no reference.
+   */
+  private LoginUserCodec.Decoded decode(String token, byte[] bytes) {
+    if (bytes == null) {
+      return null;
+    }
+    if (!LoginUserCodec.isEncoded(bytes)) {
+      // Legacy JSON session written before the binary codec
+      LoginUser loginUser = redisCache.getCacheObject(tokenKey(token), LoginUser.class);
+      return loginUser != null ? new LoginUserCodec.Decoded(loginUser, null) : null;
+    }
+    return LoginUserCodec.decode(bytes);
+  }
+
+  private String storePermissions(Set<String> permissions, long timeout, TimeUnit unit) {
+    if (permissions == null) {
+      return null;
+    }
+    String ref = permissionsRef(permissions);
+    String[] sorted = new TreeSet<>(permissions).toArray(String[]::new);
+    redisCache.setCacheObject(
+        permissionsKey(ref), sorted, (int) (timeout * PERMISSIONS_TTL_FACTOR), unit);
+    permissionSets.put(ref, Set.copyOf(permissions));
+    return ref;
+  }
+
+  /** The permission set of a reference, or null if it is missing from Redis. */
+  private Set<String> resolvePermissions(String ref) {
+    Set<String> permissions = permissionSets.get(ref);
+    if (permissions != null) {
+      return permissions;
+    }
+    String[] stored = redisCache.getCacheObject(permissionsKey(ref), String[].class);
+    if (stored == null) {
+      return null;
+    }
+    permissions = Set.copyOf(Arrays.asList(stored));
+    permissionSets.put(ref, permissions);
+    return permissions;
+  }
+
+  /** Content hash of a permission set (order-independent). */
+  private String permissionsRef(Set<String> permissions) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (String permission : new TreeSet<>(permissions)) {
+        digest.update(permission.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+      }
+      return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  private String permissionsKey(String ref) {
+    return CacheConstants.LOGIN_PERMS_KEY + ref;
+  }
+
+  /** New authorization data for a session; null roles leave the stored roles untouched. */
+  public record SessionPatch(Set<String> permissions, List<SysRole> roles) {}
+}
@@ -0,0 +1,82 @@
+package com.api.framework.session;
+
+import com.api.common.domain.LoginUser;
+import com.api.common.domain.SysUser;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lightweight view of a login session, stored as a Redis hash next to the session so listings do
+ * not need to load and decode every full session.
+ */
+public record SessionSummary(
+    String token,
+    Long userId,
+    String userName,
+    String deptName,
+    String ipaddr,
+    String loginLocation,
+    String browser,
+    String os,
+    Long loginTime) {
+
+  /** Build the summary of a session. */
+  public static SessionSummary of(LoginUser loginUser) {
+    SysUser user = loginUser.getUser();
+    return new SessionSummary(
+        loginUser.getToken(),
+        loginUser.getUserId(),
+        user != null ? user.getUserName() : null,
+        user != null && user.getDept() != null ? user.getDept().getDeptName() : null,
+        loginUser.getIpaddr(),
+        loginUser.getLoginLocation(),
+        loginUser.getBrowser(),
+        loginUser.getOs(),
+        loginUser.getLoginTime());
+  }
+
+  /** Rebuild a summary from its Redis hash, or null if the hash is empty. */
+  static SessionSummary fromMap(String token, Map<String, Object> map) {
+    if (map == null || map.isEmpty()) {
+      return null;
+    }
+    return new SessionSummary(
+        token,
+        toLong(map.get("userId")),
+        toStr(map.get("userName")),
+        toStr(map.get("deptName")),
+        toStr(map.get("ipaddr")),
+        toStr(map.get("loginLocation")),
+        toStr(map.get("browser")),
+        toStr(map.get("os")),
+        toLong(map.get("loginTime")));
+  }
+
+  /** Hash fields of this summary (null values are omitted). */
+  Map<String, String> toMap() {
+    Map<String, String> map = new HashMap<>();
+    putIfNotNull(map, "userId", userId);
+    putIfNotNull(map, "userName", userName);
+    putIfNotNull(map, "deptName", deptName);
+    putIfNotNull(map, "ipaddr", ipaddr);
+    putIfNotNull(map, "loginLocation", loginLocation);
+    putIfNotNull(map, "browser", browser);
+    putIfNotNull(map, "os", os);
+    putIfNotNull(map, "loginTime", loginTime);
+    return map;
+  }
+
+  private static void putIfNotNull(Map<String, String> map, String field, Object value) {
+    if (value != null) {
+      map.put(field, value.toString());
+    }
+  }
+
+  private static String toStr(Object value) {
+    return value != null ? value.toString() : null;
+  }
+
+  private static Long toLong(Object value) {
+    return value != null ? Long.valueOf(value.toString()) : null;
+  }
+}
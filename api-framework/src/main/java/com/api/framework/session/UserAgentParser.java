@@ -0,0 +1,44 @@
+package com.api.framework.session;
+
+import com.api.common.cache.LocalCache;
+import eu.bitwalker.useragentutils.UserAgent;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Memoizing User-Agent parser.
+ *
+ * <p>Parsing with {@link UserAgent#parseUserAgentString(String)} runs a long list of regexes, while
+ * the set of distinct User-Agent strings seen in practice is small, so results are kept in a
+ * bounded LRU keyed by the raw header.
+ */
+@Component
+public class UserAgentParser {
+
+  @Value("${login.userAgentCache.maxSize:2048}")
+  private int maxSize;
+
+  private LocalCache<String, ClientInfo> cache;
+
+  @PostConstruct
+  public void init() {
+    cache = new LocalCache<>("userAgent", maxSize, Duration.ofHours(12));
+  }
+
+  /** Browser and OS names of a User-Agent header (never null). */
+  public ClientInfo parse(String userAgent) {
+    String key = userAgent != null ? userAgent : "";
+    ClientInfo info = cache.get(key);
+    if (info == null) {
+      UserAgent parsed = UserAgent.parseUserAgentString(userAgent);
+      info = new ClientInfo(parsed.getBrowser().getName(), parsed.getOperatingSystem().getName());
+      cache.put(key, info);
+    }
+    return info;
+  }
+
+  /** Parsed client details. */
+  public record ClientInfo(String browser, String os) {}
+}
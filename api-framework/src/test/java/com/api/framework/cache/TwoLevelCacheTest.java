@@ -0,0 +1,118 @@
+package com.api.framework.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.api.common.constant.CacheConstants;
+import com.api.common.redis.InMemoryRedisCache;
+import com.api.common.redis.RedisCache;
+import com.api.common.redis.RedisUnavailableException;
+import com.api.common.redis.codec.RedisValueCodecs;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class TwoLevelCacheTest {
+
+  private InMemoryRedisCache redisCache;
+  private Cache cache;
+
+  @BeforeEach
+  void setUp() {
+    RedisValueCodecs codecs = new RedisValueCodecs(new ObjectMapper());
+    ReflectionTestUtils.setField(codecs, "defaultCodecName", "json");
+    ReflectionTestUtils.setField(codecs, "prefixMapping", "");
+    ReflectionTestUtils.setField(codecs, "defaultCompression", "none");
+    ReflectionTestUtils.setField(codecs, "compressionMapping", "");
+    codecs.init();
+    redisCache = new InMemoryRedisCache(new ObjectMapper(), codecs);
+    ReflectionTestUtils.setField(redisCache, "scanCount", 100);
+    ReflectionTestUtils.setField(redisCache, "sweepMillis", 60_000L);
+    redisCache.init();
+    TwoLevelCacheProperties properties = new TwoLevelCacheProperties();
+    properties.getDefaults().setEarlyRefreshBeta(0);
+    TwoLevelCacheManager manager =
+        new TwoLevelCacheManager(properties, redisCache, RedisSerializer.json());
+    manager.afterPropertiesSet();
+    cache = manager.getCache("menuTree");
+  }
+
+  @AfterEach
+  void tearDown() {
+    redisCache.shutdown();
+  }
+
+  @Test
+  void everyReadGetsItsOwnCopy() {
+    List<String> first = cache.get(1L, () -> new ArrayList<>(List.of("system", "monitor")));
+    first.add("changed by the first caller");
+
+    List<String> second = cache.get(1L, () -> new ArrayList<>(List.of("loaded again")));
+    List<?> third = cache.get(1L, List.class);
+
+    assertThat(second).containsExactly("system", "monitor").isNotSameAs(third);
+    assertThat(third).isEqualTo(second);
+  }
+
+  @Test
+  void putValuesAreCopiedToo() {
+    List<String> value = new ArrayList<>(List.of("a"));
+    cache.put(2L, value);
+    value.add("b");
+
+    assertThat(cache.get(2L, List.class)).containsExactly("a");
+  }
+
+  @Test
+  void cachesNullsWithoutRunningTheLoaderAgain() {
+    AtomicInteger loads = new AtomicInteger();
+
+    assertThat((Object) cache.get(3L, () -> loads.incrementAndGet() > 0 ? null : "x")).isNull();
+    assertThat((Object) cache.get(3L, () -> loads.incrementAndGet() > 0 ? null : "x")).isNull();
+
+    assertThat(loads).hasValue(1);
+    assertThat(cache.get(3L)).isNotNull();
+  }
+
+  @Test
+  void evictAndClearSurviveRedisOutages() {
+    RedisCache failing = spy(redisCache);
+    RedisUnavailableException down = new RedisUnavailableException("Redis circuit breaker is OPEN");
+    doThrow(down).when(failing).deleteObject(anyString());
+    doThrow(down).when(failing).scan(anyString(), any());
+    TwoLevelCacheManager manager =
+        new TwoLevelCacheManager(new TwoLevelCacheProperties(), failing, RedisSerializer.json());
+    manager.afterPropertiesSet();
+    Cache decorated = manager.getCache("deptTree");
+    TwoLevelCache guarded = (TwoLevelCache) decorated.getNativeCache();
+    decorated.put(1L, "a");
+    decorated.put(2L, "b");
+
+    decorated.evict(1L);
+    assertThat(guarded.stats()).containsEntry("localSize", 1);
+    decorated.clear();
+
+    assertThat(guarded.stats())
+        .containsEntry("localSize", 0)
+        .containsEntry("redisErrors", 2L)
+        .containsEntry("evictions", 2L);
+    // Once for the put, once for the evict
+    verify(failing, times(2))
+        .publish(eq(CacheConstants.CACHE_INVALIDATE_CHANNEL), endsWith("|E|deptTree|1"));
+    verify(failing).publish(eq(CacheConstants.CACHE_INVALIDATE_CHANNEL), endsWith("|C|deptTree"));
+  }
+}
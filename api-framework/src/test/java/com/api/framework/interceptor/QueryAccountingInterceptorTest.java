@@ -0,0 +1,94 @@
+package com.api.framework.interceptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.api.common.constant.HttpStatus;
+import com.api.common.domain.AjaxResult;
+import com.api.common.redis.RedisCache;
+import com.api.common.redis.RedisCircuitBreaker;
+import com.api.framework.annotation.QueryBudget;
+import com.api.framework.exception.GlobalExceptionHandler;
+import com.api.framework.metrics.RequestQueryAccounting;
+import com.api.framework.metrics.SqlFingerprint;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+class QueryAccountingInterceptorTest {
+
+  private RequestQueryAccounting accounting;
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp() {
+    accounting =
+        new RequestQueryAccounting(
+            mock(RedisCache.class),
+            mock(RedisCircuitBreaker.class),
+            mock(ScheduledExecutorService.class));
+    ReflectionTestUtils.setField(accounting, "enabled", true);
+    ReflectionTestUtils.setField(accounting, "threshold", 10);
+    ReflectionTestUtils.setField(accounting, "enforceBudget", true);
+    mockMvc =
+        MockMvcBuilders.standaloneSetup(new UserController(accounting))
+            .addInterceptors(new QueryAccountingInterceptor(accounting))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+  }
+
+  @Test
+  void requestWithinBudgetSucceeds() throws Exception {
+    mockMvc
+        .perform(get("/users/2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.code").value(HttpStatus.SUCCESS));
+
+    assertThat(accounting.isActive()).isFalse();
+  }
+
+  @Test
+  void requestOverBudgetIsRejected() throws Exception {
+    mockMvc
+        .perform(get("/users/3"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.code").value(HttpStatus.ERROR))
+        .andExpect(
+            jsonPath("$.msg")
+                .value(
+                    containsString(
+                        "GET /users/{count} ran more than its budget of 2 SQL statements")))
+        .andExpect(jsonPath("$.msg").value(containsString("select * from sys_user where id=?")));
+
+    assertThat(accounting.isActive()).isFalse();
+  }
+
+  @RestController
+  static class UserController {
+
+    private final RequestQueryAccounting accounting;
+
+    UserController(RequestQueryAccounting accounting) {
+      this.accounting = accounting;
+    }
+
+    @QueryBudget(2)
+    @GetMapping("/users/{count}")
+    public AjaxResult<Void> list(@PathVariable int count) {
+      for (int i = 0; i < count; i++) {
+        accounting.onStatement(SqlFingerprint.of("SELECT * FROM sys_user WHERE id = " + i));
+      }
+      return AjaxResult.success();
+    }
+  }
+}
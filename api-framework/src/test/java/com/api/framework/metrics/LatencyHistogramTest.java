@@ -0,0 +1,80 @@
+package com.api.framework.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  void smallValuesGetABucketEach() {
+    for (int value = 0; value < 16; value++) {
+      assertThat(LatencyHistogram.indexOf(value)).isEqualTo(value);
+      assertThat(LatencyHistogram.highestValueOf(value)).isEqualTo(value);
+    }
+    assertThat(LatencyHistogram.indexOf(-5)).isZero();
+  }
+
+  @Test
+  void bucketsAreContiguous() {
+    for (int index = 0; index < LatencyHistogram.BUCKETS - 1; index++) {
+      long highest = LatencyHistogram.highestValueOf(index);
+      assertThat(LatencyHistogram.indexOf(highest)).isEqualTo(index);
+      assertThat(LatencyHistogram.indexOf(highest + 1)).isEqualTo(index + 1);
+    }
+  }
+
+  @Test
+  void valuesAreKnownWithinOneSixteenth() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = 0; i < 100_000; i++) {
+      long value = random.nextLong(1L << 40);
+      long reported = LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(value));
+
+      assertThat(reported).isGreaterThanOrEqualTo(value);
+      assertThat(reported - value).isLessThanOrEqualTo(value / 16);
+    }
+  }
+
+  @Test
+  void hugeValuesLandInTheLastBucket() {
+    assertThat(LatencyHistogram.indexOf(Long.MAX_VALUE)).isEqualTo(LatencyHistogram.BUCKETS - 1);
+  }
+
+  @Test
+  void percentilesReportTheTopOfTheirBucket() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int value = 1; value <= 100; value++) {
+      histogram.record(value * 1000L);
+    }
+
+    assertThat(histogram.count()).isEqualTo(100);
+    assertThat(histogram.percentile(50)).isBetween(50_000L, 50_000L + 50_000L / 16);
+    assertThat(histogram.percentile(99)).isBetween(99_000L, 99_000L + 99_000L / 16);
+    assertThat(histogram.percentile(100)).isGreaterThanOrEqualTo(100_000L);
+    assertThat(new LatencyHistogram().percentile(99)).isZero();
+  }
+
+  @Test
+  void drainedFieldsMergeLikeHistograms() {
+    LatencyHistogram first = new LatencyHistogram();
+    LatencyHistogram second = new LatencyHistogram();
+    first.record(5);
+    first.record(1_000);
+    second.record(1_000);
+    second.record(250_000);
+
+    Map<String, Long> fields = first.drain();
+    LatencyHistogram stored =
+        new LatencyHistogram().addFields(fields).addFields(Map.of("Count", 3, "Hist:x", 1));
+    stored.merge(second);
+
+    assertThat(first.count()).isZero();
+    assertThat(fields.keySet()).hasSize(2).allMatch(field -> field.startsWith("Hist:"));
+    assertThat(stored.count()).isEqualTo(4);
+    assertThat(stored.percentile(75))
+        .isEqualTo(LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(1_000)));
+  }
+}
@@ -0,0 +1,62 @@
+package com.api.framework.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.api.common.redis.CounterDelta;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class RollingWindowTest {
+
+  @Test
+  void drainHandsOutEachMinuteOnce() {
+    RollingWindow window = new RollingWindow();
+    window.record(100, 1_000, false);
+    window.record(100, 3_000, true);
+    window.record(101, 2_000, false);
+
+    Map<Long, CounterDelta> drained = drain(window);
+
+    assertThat(drained).containsOnlyKeys(100L, 101L);
+    assertThat(drained.get(100L).increments())
+        .containsEntry("Calls", 2L)
+        .containsEntry("Errors", 1L)
+        .containsEntry("TimeTotalMicros", 4_000L);
+    assertThat(drain(window)).isEmpty();
+  }
+
+  @Test
+  void restoredCountsAreDrainedAgain() {
+    RollingWindow window = new RollingWindow();
+    window.record(100, 1_000, true);
+    CounterDelta failed = drain(window).get(100L);
+    window.record(100, 2_000, false);
+
+    assertThat(window.restore(100, failed)).isTrue();
+
+    CounterDelta retried = drain(window).get(100L);
+    assertThat(retried.increments())
+        .containsEntry("Calls", 2L)
+        .containsEntry("Errors", 1L)
+        .containsEntry("TimeTotalMicros", 3_000L);
+    assertThat(new LatencyHistogram().addFields(retried.increments()).count()).isEqualTo(2);
+  }
+
+  @Test
+  void restoreIntoAReusedSlotIsDropped() {
+    RollingWindow window = new RollingWindow();
+    window.record(100, 1_000, false);
+    CounterDelta failed = drain(window).get(100L);
+    window.record(102, 1_000, false);
+
+    assertThat(window.restore(100, failed)).isFalse();
+    assertThat(drain(window)).containsOnlyKeys(102L);
+  }
+
+  private static Map<Long, CounterDelta> drain(RollingWindow window) {
+    Map<Long, CounterDelta> drained = new LinkedHashMap<>();
+    window.drain(drained::put);
+    return drained;
+  }
+}
@@ -0,0 +1,67 @@
+package com.api.framework.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class SqlFingerprintTest {
+
+  @Test
+  void literalsBecomePlaceholders() {
+    assertThat(SqlFingerprint.normalize("SELECT * FROM sys_user WHERE user_id = 42"))
+        .isEqualTo("select * from sys_user where user_id=?");
+    assertThat(SqlFingerprint.normalize("select * from t where name = 'O''Brien' and x = 'a\\'b'"))
+        .isEqualTo("select * from t where name=? and x=?");
+    assertThat(SqlFingerprint.normalize("select * from t where price > 1.5e3"))
+        .isEqualTo("select * from t where price>?");
+  }
+
+  @Test
+  void digitsInsideIdentifiersAreKept() {
+    assertThat(SqlFingerprint.normalize("select col1 from t2 where c3 = 3"))
+        .isEqualTo("select col1 from t2 where c3=?");
+  }
+
+  @Test
+  void quotedIdentifiersKeepTheirCase() {
+    assertThat(SqlFingerprint.normalize("SELECT \"UserName\", `Dept Id` FROM t"))
+        .isEqualTo("select \"UserName\",`Dept Id` from t");
+  }
+
+  @Test
+  void commentsAndWhitespaceDoNotMatter() {
+    String plain = "select a, b from t where c = 1";
+    String noisy = "  SELECT a ,\n\tb  FROM t -- note\n WHERE /* why */ c=1 /* end */ ";
+
+    assertThat(SqlFingerprint.of(noisy)).isEqualTo(SqlFingerprint.of(plain));
+    assertThat(SqlFingerprint.of(plain).normalized()).isEqualTo("select a,b from t where c=?");
+  }
+
+  @Test
+  void inListsCollapseToOneElement() {
+    SqlFingerprint one = SqlFingerprint.of("select * from t where id in (7)");
+    SqlFingerprint many = SqlFingerprint.of("select * from t where id IN (1, 2, 'x')");
+
+    assertThat(many).isEqualTo(one);
+    assertThat(many.normalized()).isEqualTo("select * from t where id in(?)");
+  }
+
+  @Test
+  void multiRowValuesCollapseToOneRow() {
+    SqlFingerprint one = SqlFingerprint.of("insert into t (a, b) values (1, 'x')");
+    SqlFingerprint many = SqlFingerprint.of("insert into t (a, b) values (1, 'x'), (2, 'y')");
+
+    assertThat(many).isEqualTo(one);
+    assertThat(many.normalized()).isEqualTo("insert into t(a,b) values(?,?)");
+  }
+
+  @Test
+  void differentStatementsGetDifferentIds() {
+    SqlFingerprint users = SqlFingerprint.of("select * from sys_user where user_id = 1");
+    SqlFingerprint roles = SqlFingerprint.of("select * from sys_role where role_id = 1");
+
+    assertThat(users.id()).hasSize(16).isNotEqualTo(roles.id());
+    assertThat(SqlFingerprint.of("select * from sys_user where user_id = 2").id())
+        .isEqualTo(users.id());
+  }
+}
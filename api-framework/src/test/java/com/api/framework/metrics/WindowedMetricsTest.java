@@ -0,0 +1,60 @@
+package com.api.framework.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.api.common.redis.BatchResult;
+import com.api.common.redis.CounterDelta;
+import com.api.common.redis.RedisCache;
+import com.api.common.redis.RedisCircuitBreaker;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class WindowedMetricsTest {
+
+  private final RedisCache redisCache = mock(RedisCache.class);
+  private final RedisCircuitBreaker breaker = mock(RedisCircuitBreaker.class);
+  private final WindowedMetrics metrics =
+      new WindowedMetrics(redisCache, breaker, mock(ScheduledExecutorService.class));
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void failedFlushIsRetried() {
+    ReflectionTestUtils.setField(metrics, "retentionMinutes", 60);
+    when(breaker.isAvailable()).thenReturn(true);
+    BatchResult<Boolean> ok = mock(BatchResult.class);
+    when(ok.failures()).thenReturn(Map.of());
+    when(redisCache.mergeCounters(anyMap(), anyLong(), eq(TimeUnit.SECONDS)))
+        .thenThrow(new IllegalStateException("down"))
+        .thenReturn(ok);
+
+    metrics.record(WindowedMetrics.ENDPOINT + "GET /a", 1_000_000, false);
+    metrics.flush();
+    metrics.record(WindowedMetrics.ENDPOINT + "GET /a", 2_000_000, true);
+    metrics.flush();
+
+    ArgumentCaptor<Map<String, CounterDelta>> deltas = ArgumentCaptor.forClass(Map.class);
+    verify(redisCache, times(2)).mergeCounters(deltas.capture(), anyLong(), eq(TimeUnit.SECONDS));
+    List<Map<String, CounterDelta>> calls = deltas.getAllValues();
+    assertThat(sum(calls.get(1), "Calls")).isEqualTo(2);
+    assertThat(sum(calls.get(1), "Errors")).isEqualTo(1);
+    assertThat(sum(calls.get(1), "TimeTotalMicros")).isEqualTo(3_000);
+  }
+
+  private static long sum(Map<String, CounterDelta> deltas, String field) {
+    return deltas.values().stream()
+        .mapToLong(delta -> delta.increments().getOrDefault(field, 0L))
+        .sum();
+  }
+}
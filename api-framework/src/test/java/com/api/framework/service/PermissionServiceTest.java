@@ -0,0 +1,68 @@
+package com.api.framework.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.api.common.constant.Constants;
+import com.api.common.domain.LoginUser;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class PermissionServiceTest {
+
+  private final PermissionService permissionService =
+      new PermissionService(new PermissionRegistry());
+
+  @BeforeEach
+  void setUp() {
+    // PermissionContextHolder records the checked permission on the current request
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+  }
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void hasPermiChecksExactlyOnePermission() {
+    login("system:user:list");
+
+    assertThat(permissionService.hasPermi("system:user:list")).isTrue();
+    assertThat(permissionService.hasPermi(" system:user:list ")).isTrue();
+    assertThat(permissionService.hasPermi("system:user:edit")).isFalse();
+    assertThat(permissionService.hasPermi("system:user:edit,system:user:list")).isFalse();
+    assertThat(permissionService.lacksPermi("system:user:edit")).isTrue();
+  }
+
+  @Test
+  void hasAnyPermiAcceptsAList() {
+    login("system:user:list");
+
+    assertThat(permissionService.hasAnyPermi("system:user:edit,system:user:list")).isTrue();
+    assertThat(permissionService.hasAnyPermi("system:user:edit,system:role:list")).isFalse();
+  }
+
+  @Test
+  void allPermissionGrantsEverything() {
+    login(Constants.ALL_PERMISSION);
+
+    assertThat(permissionService.hasPermi("system:user:remove")).isTrue();
+    assertThat(permissionService.hasAnyPermi("a:b:c,d:e:f")).isTrue();
+  }
+
+  private static void login(String... permissions) {
+    LoginUser loginUser = new LoginUser();
+    loginUser.setPermissions(Set.of(permissions));
+    SecurityContextHolder.getContext()
+        .setAuthentication(new UsernamePasswordAuthenticationToken(loginUser, null, null));
+  }
+}
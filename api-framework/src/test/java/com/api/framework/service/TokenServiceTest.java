@@ -0,0 +1,288 @@
+package com.api.framework.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.api.common.cache.LocalCache;
+import com.api.common.constant.Constants;
+import com.api.common.domain.LoginUser;
+import com.api.common.redis.InMemoryRedisCache;
+import com.api.common.redis.RedisUnavailableException;
+import com.api.common.redis.codec.RedisValueCodecs;
+import com.api.framework.session.SessionIndex;
+import com.api.framework.session.SessionNearCache;
+import com.api.framework.session.SessionPermissionLoader;
+import com.api.framework.session.SessionStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.SignatureException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class TokenServiceTest {
+
+  private static final String SECRET = Base64.getEncoder().encodeToString(new byte[64]);
+
+  private InMemoryRedisCache redisCache;
+  private SessionNearCache sessionNearCache;
+  private SessionStore sessionStore;
+  private SessionIndex sessionIndex;
+  private TokenService tokenService;
+
+  @BeforeEach
+  void setUp() {
+    RedisValueCodecs codecs = new RedisValueCodecs(new ObjectMapper());
+    ReflectionTestUtils.setField(codecs, "defaultCodecName", "json");
+    ReflectionTestUtils.setField(codecs, "prefixMapping", "");
+    ReflectionTestUtils.setField(codecs, "defaultCompression", "none");
+    ReflectionTestUtils.setField(codecs, "compressionMapping", "");
+    codecs.init();
+    redisCache = new InMemoryRedisCache(new ObjectMapper(), codecs);
+    ReflectionTestUtils.setField(redisCache, "scanCount", 100);
+    ReflectionTestUtils.setField(redisCache, "sweepMillis", 60_000L);
+    redisCache.init();
+    sessionNearCache = new SessionNearCache(redisCache);
+    ReflectionTestUtils.setField(sessionNearCache, "maxSize", 100);
+    ReflectionTestUtils.setField(sessionNearCache, "ttlSeconds", 60L);
+    ReflectionTestUtils.setField(sessionNearCache, "staleTtlSeconds", 1800L);
+    ReflectionTestUtils.setField(sessionNearCache, "sessionTtlMinutes", 30);
+    sessionNearCache.init();
+    sessionStore = mock(SessionStore.class);
+    sessionIndex = mock(SessionIndex.class);
+    tokenService = tokenService(sessionStore);
+  }
+
+  @AfterEach
+  void tearDown() {
+    redisCache.shutdown();
+  }
+
+  @Test
+  void verifiesTokensSignedWithTheSecret() {
+    String token = sign(SECRET, "admin");
+
+    assertThat(tokenService.getUsernameFromToken(token)).isEqualTo("admin");
+  }
+
+  @Test
+  void reusesVerifiedClaims() {
+    String token = sign(SECRET, "admin");
+
+    Object first = ReflectionTestUtils.invokeMethod(tokenService, "parseToken", token);
+    Object second = ReflectionTestUtils.invokeMethod(tokenService, "parseToken", token);
+
+    assertThat(second).isSameAs(first);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void verifiedClaimsAreNotKeyedByTheRawToken() {
+    String token = sign(SECRET, "admin");
+    ReflectionTestUtils.invokeMethod(tokenService, "parseToken", token);
+
+    LocalCache<String, Claims> verified =
+        (LocalCache<String, Claims>) ReflectionTestUtils.getField(tokenService, "verifiedTokens");
+
+    assertThat(verified.size()).isEqualTo(1);
+    assertThat(verified.get(token)).isNull();
+  }
+
+  /**
+   * Per-request parse cost, memoized vs a full JWS verification. Run with {@code -Dbenchmark=true}.
+   */
+  @Test
+  @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+  void parseTimeComparedToFullVerification() throws Exception {
+    String token = sign(SECRET, "admin");
+    JwtParser parser = (JwtParser) ReflectionTestUtils.getField(tokenService, "jwtParser");
+
+    double memoNanos = nanosPerCall(() -> tokenService.getUsernameFromToken(token));
+    double fullNanos = nanosPerCall(() -> parser.parseClaimsJws(token).getBody().getSubject());
+
+    System.out.printf(
+        "Token parse: memoized %.0f ns, full verification %.0f ns (%.1fx)%n",
+        memoNanos, fullNanos, fullNanos / memoNanos);
+  }
+
+  @Test
+  void rejectsTokensSignedWithAnotherSecret() {
+    byte[] other = new byte[64];
+    other[0] = 1;
+    String token = sign(Base64.getEncoder().encodeToString(other), "admin");
+
+    assertThatThrownBy(() -> tokenService.getUsernameFromToken(token))
+        .isInstanceOf(SignatureException.class);
+  }
+
+  @Test
+  void logoutWhileRedisIsDownStopsTheSessionOnThisNode() {
+    LoginUser loginUser = session("t1", 1L);
+    sessionNearCache.put(loginUser);
+    RedisUnavailableException down = new RedisUnavailableException("Redis circuit breaker is OPEN");
+    when(sessionStore.load("t1")).thenThrow(down);
+    when(sessionStore.delete("t1")).thenThrow(down);
+    assertThat(tokenService.loadLoginUser("t1")).isSameAs(loginUser);
+
+    assertThatThrownBy(() -> tokenService.delLoginUser("t1")).isSameAs(down);
+
+    assertThat(tokenService.loadLoginUser("t1")).isNull();
+    sessionNearCache.put(loginUser);
+    assertThat(sessionNearCache.getStale("t1")).isNull();
+  }
+
+  @Test
+  void loggedOutSessionIsNotRevivedWhenRedisComesBack() {
+    LoginUser loginUser = session("t2", 2L);
+    when(sessionStore.delete("t2")).thenThrow(new RedisUnavailableException("down"));
+    assertThatThrownBy(() -> tokenService.delLoginUser("t2"))
+        .isInstanceOf(RedisUnavailableException.class);
+
+    // The delete never reached Redis, which still holds the session
+    reset(sessionStore);
+    when(sessionStore.load("t2")).thenReturn(loginUser);
+
+    assertThat(tokenService.loadLoginUser("t2")).isNull();
+  }
+
+  @Test
+  void forceLogoutOfAUserWhileRedisIsDownStopsAllOfItsSessions() {
+    LoginUser first = session("t3", 3L);
+    LoginUser second = session("t4", 3L);
+    sessionNearCache.put(first);
+    sessionNearCache.put(second);
+    when(sessionIndex.tokensOf(3L)).thenThrow(new RedisUnavailableException("down"));
+    when(sessionStore.load(anyString())).thenThrow(new RedisUnavailableException("down"));
+
+    assertThatThrownBy(() -> tokenService.delLoginUsers(3L))
+        .isInstanceOf(RedisUnavailableException.class);
+
+    assertThat(tokenService.loadLoginUser("t3")).isNull();
+    assertThat(tokenService.loadLoginUser("t4")).isNull();
+    LoginUser later = session("t5", 3L);
+    later.setLoginTime(System.currentTimeMillis() + 1);
+    sessionNearCache.put(later);
+    assertThat(tokenService.loadLoginUser("t5")).isSameAs(later);
+  }
+
+  @Test
+  void logoutDeletesFromRedisAndTheNearCache() {
+    sessionNearCache.put(session("t6", 6L));
+    when(sessionStore.delete("t6")).thenReturn(true);
+
+    assertThat(tokenService.delLoginUser("t6")).isTrue();
+
+    verify(sessionStore).delete("t6");
+    assertThat(sessionNearCache.get("t6")).isNull();
+  }
+
+  @Test
+  void enrichingKeepsTheSessionTtl() {
+    SessionStore store = realSessionStore();
+    TokenService service = tokenService(store);
+    LoginUser loginUser = session("t7", 7L);
+    store.save(loginUser, 10, TimeUnit.MINUTES);
+
+    assertThat(service.enrichSession("t7", "Chrome", "Linux", "Berlin")).isTrue();
+
+    LoginUser stored = store.load("t7");
+    assertThat(stored.getBrowser()).isEqualTo("Chrome");
+    assertThat(stored.getLoginLocation()).isEqualTo("Berlin");
+    assertThat(store.getExpireMillis("t7")).isBetween(1L, TimeUnit.MINUTES.toMillis(10));
+    verify(sessionIndex, times(1)).add(any(LoginUser.class), anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  void enrichingASessionLoggedOutMeanwhileDoesNotRecreateIt() {
+    SessionStore store = spy(realSessionStore());
+    TokenService service = tokenService(store);
+    store.save(session("t8", 8L), 10, TimeUnit.MINUTES);
+    doAnswer(
+            invocation -> {
+              Object loaded = invocation.callRealMethod();
+              service.delLoginUser("t8");
+              return loaded;
+            })
+        .when(store)
+        .load("t8");
+
+    service.enrichSession("t8", "Chrome", "Linux", "Berlin");
+
+    assertThat(redisCache.getCacheBytes(store.tokenKey("t8"))).isNull();
+    assertThat(service.loadLoginUser("t8")).isNull();
+    verify(sessionIndex, times(1)).add(any(LoginUser.class), anyLong(), any(TimeUnit.class));
+  }
+
+  private SessionStore realSessionStore() {
+    SessionStore store =
+        new SessionStore(
+            redisCache,
+            sessionIndex,
+            new StaticListableBeanFactory().getBeanProvider(SessionPermissionLoader.class));
+    ReflectionTestUtils.setField(store, "sessionTtlMinutes", 30);
+    return store;
+  }
+
+  private TokenService tokenService(SessionStore store) {
+    TokenService service =
+        new TokenService(
+            sessionNearCache, store, sessionIndex, mock(ApplicationEventPublisher.class));
+    ReflectionTestUtils.setField(service, "secret", SECRET);
+    ReflectionTestUtils.setField(service, "verifiedCacheMaxSize", 100);
+    ReflectionTestUtils.setField(service, "verifiedCacheTtlSeconds", 30L);
+    service.init();
+    return service;
+  }
+
+  private static double nanosPerCall(Callable<?> call) throws Exception {
+    int iterations = 200_000;
+    for (int i = 0; i < iterations; i++) {
+      call.call(); // warm up
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      call.call();
+    }
+    return (System.nanoTime() - start) / (double) iterations;
+  }
+
+  private static LoginUser session(String token, Long userId) {
+    LoginUser loginUser = new LoginUser();
+    loginUser.setToken(token);
+    loginUser.setUserId(userId);
+    loginUser.setLoginTime(System.currentTimeMillis() - 1);
+    loginUser.setExpireTime(System.currentTimeMillis() + 60_000);
+    return loginUser;
+  }
+
+  private static String sign(String secret, String username) {
+    return Jwts.builder()
+        .setClaims(Map.of(Constants.LOGIN_USER_KEY, "uuid", Constants.JWT_USERNAME, username))
+        .signWith(
+            new SecretKeySpec(
+                Base64.getDecoder().decode(secret), SignatureAlgorithm.HS512.getJcaName()))
+        .compact();
+  }
+}
@@ -0,0 +1,223 @@
+package com.api.framework.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.api.common.constant.CacheConstants;
+import com.api.common.domain.LoginUser;
+import com.api.common.domain.SysDept;
+import com.api.common.domain.SysRole;
+import com.api.common.domain.SysUser;
+import com.api.common.redis.codec.RedisValueCodecs;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class LoginUserCodecTest {
+
+  @Test
+  void roundTripsTheSlimSession() {
+    LoginUser loginUser = loginUser(fullUser());
+
+    LoginUserCodec.Decoded decoded =
+        LoginUserCodec.decode(LoginUserCodec.encode(loginUser, "perms:abc"));
+
+    assertThat(decoded.permissionsRef()).isEqualTo("perms:abc");
+    LoginUser copy = decoded.loginUser();
+    assertThat(copy.getUserId()).isEqualTo(7L);
+    assertThat(copy.getDeptId()).isEqualTo(3L);
+    assertThat(copy.getToken()).isEqualTo("token-1");
+    assertThat(copy.getLoginTime()).isEqualTo(1000L);
+    assertThat(copy.getExpireTime()).isEqualTo(2000L);
+    assertThat(copy.getIpaddr()).isEqualTo("10.0.0.1");
+    assertThat(copy.getBrowser()).isEqualTo("Chrome");
+    assertThat(copy.getLoginLocation()).isNull();
+
+    SysUser user = copy.getUser();
+    assertThat(user.getUserId()).isEqualTo(7L);
+    assertThat(user.getUserName()).isEqualTo("gavin");
+    assertThat(user.getNickName()).isEqualTo("Gavin 李");
+    assertThat(user.getDept().getDeptName()).isEqualTo("R&D");
+    assertThat(user.getRoles())
+        .singleElement()
+        .satisfies(
+            role -> {
+              assertThat(role.getRoleId()).isEqualTo(2L);
+              assertThat(role.getRoleKey()).isEqualTo("common");
+              assertThat(role.getDataScope()).isEqualTo("1");
+              assertThat(role.getStatus()).isEqualTo("0");
+            });
+    assertThat(user.getEmail()).isEqualTo("gavin@example.com");
+    assertThat(user.getAvatar()).isEqualTo("/avatar.png");
+    assertThat(user.getStatus()).isEqualTo("0");
+    assertThat(user.getLoginDate()).isEqualTo(new Date(5000L));
+    assertThat(user.getCreateTime()).isEqualTo(new Date(4000L));
+    assertThat(user.getPassword()).isNull();
+    assertThat(LoginUserCodec.hasProfile(user)).isTrue();
+  }
+
+  @Test
+  void decodesSessionsWrittenWithoutTheProfileBlock() {
+    SysUser user = fullUser();
+    user.setEmail(null);
+    user.setPhonenumber(null);
+    user.setSex(null);
+    user.setAvatar(null);
+    user.setStatus(null);
+    user.setUserType(null);
+    user.setLoginIp(null);
+    user.setLoginDate(null);
+    user.setPwdUpdateDate(null);
+    user.setCreateTime(null);
+    byte[] encoded = LoginUserCodec.encode(loginUser(user), "perms:abc");
+    // ten absent profile fields, one presence flag each
+    byte[] legacy = Arrays.copyOf(encoded, encoded.length - 10);
+
+    SysUser decoded = LoginUserCodec.decode(legacy).loginUser().getUser();
+
+    assertThat(decoded.getUserName()).isEqualTo("gavin");
+    assertThat(decoded.getRoles()).hasSize(1);
+    assertThat(LoginUserCodec.hasProfile(decoded)).isFalse();
+  }
+
+  @Test
+  void roundTripsSessionsWithoutUser() {
+    LoginUser loginUser = loginUser(null);
+
+    LoginUser copy = LoginUserCodec.decode(LoginUserCodec.encode(loginUser, null)).loginUser();
+
+    assertThat(copy.getUser()).isNull();
+    assertThat(copy.getToken()).isEqualTo("token-1");
+  }
+
+  @Test
+  void recognizesOnlyItsOwnFrames() {
+    byte[] encoded = LoginUserCodec.encode(loginUser(fullUser()), "perms:abc");
+
+    assertThat(LoginUserCodec.isEncoded(encoded)).isTrue();
+    assertThat(LoginUserCodec.isEncoded("{\"token\":\"x\"}".getBytes(StandardCharsets.UTF_8)))
+        .isFalse();
+    assertThat(LoginUserCodec.isEncoded(null)).isFalse();
+  }
+
+  @Test
+  void rejectsUnknownVersions() {
+    byte[] encoded = LoginUserCodec.encode(loginUser(fullUser()), "perms:abc");
+    encoded[1] = 99;
+
+    assertThatThrownBy(() -> LoginUserCodec.decode(encoded))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void isSmallerThanTheJsonSession() throws Exception {
+    LoginUser loginUser = loginUserWithPermissions(80);
+    byte[] codec = LoginUserCodec.encode(loginUser, "0123456789abcdef0123456789abcdef");
+    byte[] json = jsonCodecs().encode(CacheConstants.LOGIN_TOKEN_KEY + "token-1", loginUser);
+
+    System.out.printf("LoginUser: codec %d bytes, JSON %d bytes%n", codec.length, json.length);
+    assertThat(codec.length).isLessThan(json.length / 4);
+  }
+
+  /** Run with {@code -Dbenchmark=true}. */
+  @Test
+  @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+  void decodeTimeComparedToJson() throws Exception {
+    RedisValueCodecs codecs = jsonCodecs();
+    LoginUser loginUser = loginUserWithPermissions(80);
+    byte[] codec = LoginUserCodec.encode(loginUser, "0123456789abcdef0123456789abcdef");
+    byte[] json = codecs.encode(CacheConstants.LOGIN_TOKEN_KEY + "token-1", loginUser);
+
+    double codecNanos = nanosPerCall(() -> LoginUserCodec.decode(codec));
+    double jsonNanos = nanosPerCall(() -> codecs.decode(json, LoginUser.class));
+
+    System.out.printf(
+        "LoginUser decode: codec %.0f ns, JSON %.0f ns (%.1fx)%n",
+        codecNanos, jsonNanos, jsonNanos / codecNanos);
+  }
+
+  private static double nanosPerCall(Callable<?> call) throws Exception {
+    int iterations = 200_000;
+    for (int i = 0; i < iterations; i++) {
+      call.call(); // warm up
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      call.call();
+    }
+    return (System.nanoTime() - start) / (double) iterations;
+  }
+
+  /** The JSON codec sessions were stored with, on an ObjectMapper configured like Spring Boot's. */
+  private static RedisValueCodecs jsonCodecs() {
+    RedisValueCodecs codecs = new RedisValueCodecs(Jackson2ObjectMapperBuilder.json().build());
+    ReflectionTestUtils.setField(codecs, "defaultCodecName", "json");
+    ReflectionTestUtils.setField(codecs, "prefixMapping", "");
+    ReflectionTestUtils.setField(codecs, "defaultCompression", "none");
+    ReflectionTestUtils.setField(codecs, "compressionMapping", "");
+    codecs.init();
+    return codecs;
+  }
+
+  private static LoginUser loginUserWithPermissions(int count) {
+    LoginUser loginUser = loginUser(fullUser());
+    Set<String> permissions = new HashSet<>();
+    for (int i = 0; i < count; i++) {
+      permissions.add("system:module" + i / 4 + ":action" + i % 4);
+    }
+    loginUser.setPermissions(permissions);
+    return loginUser;
+  }
+
+  private static LoginUser loginUser(SysUser user) {
+    LoginUser loginUser = new LoginUser();
+    loginUser.setUserId(7L);
+    loginUser.setDeptId(3L);
+    loginUser.setToken("token-1");
+    loginUser.setLoginTime(1000L);
+    loginUser.setExpireTime(2000L);
+    loginUser.setIpaddr("10.0.0.1");
+    loginUser.setBrowser("Chrome");
+    loginUser.setUser(user);
+    return loginUser;
+  }
+
+  private static SysUser fullUser() {
+    SysDept dept = new SysDept();
+    dept.setDeptId(3L);
+    dept.setDeptName("R&D");
+    SysRole role = new SysRole();
+    role.setRoleId(2L);
+    role.setRoleKey("common");
+    role.setDataScope("1");
+    role.setStatus("0");
+
+    SysUser user = new SysUser();
+    user.setUserId(7L);
+    user.setDeptId(3L);
+    user.setUserName("gavin");
+    user.setNickName("Gavin 李");
+    user.setPassword("$2a$10$hash");
+    user.setDept(dept);
+    user.setRoles(List.of(role));
+    user.setEmail("gavin@example.com");
+    user.setPhonenumber("13800000000");
+    user.setSex("0");
+    user.setAvatar("/avatar.png");
+    user.setStatus("0");
+    user.setUserType("00");
+    user.setLoginIp("10.0.0.1");
+    user.setLoginDate(new Date(5000L));
+    user.setPwdUpdateDate(new Date(6000L));
+    user.setCreateTime(new Date(4000L));
+    return user;
+  }
+}
@@ -0,0 +1,141 @@
+package com.api.framework.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import com.api.common.constant.CacheConstants;
+import com.api.common.domain.LoginUser;
+import com.api.common.redis.InMemoryRedisCache;
+import com.api.common.redis.RedisBatch;
+import com.api.common.redis.RedisCache;
+import com.api.common.redis.codec.RedisValueCodecs;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class SessionIndexTest {
+
+  private InMemoryRedisCache redisCache;
+  private SessionIndex sessionIndex;
+
+  @BeforeEach
+  void setUp() {
+    RedisValueCodecs codecs = new RedisValueCodecs(new ObjectMapper());
+    ReflectionTestUtils.setField(codecs, "defaultCodecName", "json");
+    ReflectionTestUtils.setField(codecs, "prefixMapping", "");
+    ReflectionTestUtils.setField(codecs, "defaultCompression", "none");
+    ReflectionTestUtils.setField(codecs, "compressionMapping", "");
+    codecs.init();
+    redisCache = new InMemoryRedisCache(new ObjectMapper(), codecs);
+    ReflectionTestUtils.setField(redisCache, "scanCount", 100);
+    ReflectionTestUtils.setField(redisCache, "sweepMillis", 60_000L);
+    redisCache.init();
+    sessionIndex = new SessionIndex(redisCache, mock(ScheduledExecutorService.class));
+  }
+
+  @AfterEach
+  void tearDown() {
+    redisCache.shutdown();
+  }
+
+  @Test
+  void sweepsExpiredSessionsBeforeCounting() throws InterruptedException {
+    sessionIndex.add(session("dead", 1L), 1, TimeUnit.MILLISECONDS);
+    sessionIndex.add(session("alive", 2L), 30, TimeUnit.MINUTES);
+    Thread.sleep(10);
+
+    SessionIndex.SessionPage page = sessionIndex.page(0, 1, null);
+
+    assertThat(page.total()).isEqualTo(1);
+    assertThat(page.rows()).extracting(SessionSummary::token).containsExactly("alive");
+    assertThat(redisCache.zCard(CacheConstants.LOGIN_SESSION_INDEX_KEY)).isEqualTo(1);
+  }
+
+  @Test
+  void extendedSessionsSurviveTheSweep() throws InterruptedException {
+    LoginUser loginUser = session("extended", 1L);
+    sessionIndex.add(loginUser, 200, TimeUnit.MILLISECONDS);
+    sessionIndex.expire(loginUser, 30, TimeUnit.MINUTES);
+    Thread.sleep(250);
+
+    assertThat(sessionIndex.sweep()).isZero();
+    assertThat(sessionIndex.page(0, 10, null).total()).isEqualTo(1);
+  }
+
+  @Test
+  void removedSessionsLeaveTheIndex() {
+    sessionIndex.add(session("gone", 3L), 30, TimeUnit.MINUTES);
+
+    sessionIndex.remove("gone");
+
+    assertThat(sessionIndex.page(0, 10, null).total()).isZero();
+    assertThat(sessionIndex.tokensOf(3L)).isEmpty();
+  }
+
+  @Test
+  void filteredWalkCountsEverySessionWhenExpiredOnesArePruned() {
+    for (int i = 0; i < 600; i++) {
+      sessionIndex.add(session("s" + i, (long) i), 10 + i, TimeUnit.MINUTES);
+    }
+    // Summaries of the most recent 100 sessions are gone: their tokens are pruned by the walk
+    for (int i = 500; i < 600; i++) {
+      redisCache.deleteObject(CacheConstants.LOGIN_SESSION_SUMMARY_KEY + "s" + i);
+    }
+
+    SessionIndex.SessionPage page = sessionIndex.page(490, 20, summary -> true);
+
+    assertThat(page.total()).isEqualTo(500);
+    assertThat(page.rows())
+        .extracting(SessionSummary::token)
+        .containsExactly("s9", "s8", "s7", "s6", "s5", "s4", "s3", "s2", "s1", "s0");
+    assertThat(redisCache.zCard(CacheConstants.LOGIN_SESSION_INDEX_KEY)).isEqualTo(500);
+  }
+
+  @Test
+  void unfilteredPagesAreBackfilledPastExpiredSessions() {
+    for (int i = 0; i < 10; i++) {
+      sessionIndex.add(session("s" + i, (long) i), 10 + i, TimeUnit.MINUTES);
+    }
+    for (int i = 7; i < 10; i++) {
+      redisCache.deleteObject(CacheConstants.LOGIN_SESSION_SUMMARY_KEY + "s" + i);
+    }
+
+    SessionIndex.SessionPage page = sessionIndex.page(0, 5, null);
+
+    assertThat(page.rows())
+        .extracting(SessionSummary::token)
+        .containsExactly("s6", "s5", "s4", "s3", "s2");
+    assertThat(page.total()).isEqualTo(7);
+    assertThat(sessionIndex.page(5, 5, null).rows())
+        .extracting(SessionSummary::token)
+        .containsExactly("s1", "s0");
+  }
+
+  @Test
+  void indexingASessionIsOneRoundTrip() {
+    RedisCache redis = mock(RedisCache.class);
+    SessionIndex index = new SessionIndex(redis, mock(ScheduledExecutorService.class));
+
+    index.add(session("t", 1L), 30, TimeUnit.MINUTES);
+    index.expire(session("t", 1L), 30, TimeUnit.MINUTES);
+
+    verify(redis, times(2)).executeBatch(any(RedisBatch.class));
+    verifyNoMoreInteractions(redis);
+  }
+
+  private static LoginUser session(String token, Long userId) {
+    LoginUser loginUser = new LoginUser();
+    loginUser.setToken(token);
+    loginUser.setUserId(userId);
+    loginUser.setLoginTime(System.currentTimeMillis());
+    return loginUser;
+  }
+}
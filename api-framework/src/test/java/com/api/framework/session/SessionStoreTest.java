@@ -0,0 +1,101 @@
+package com.api.framework.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.api.common.constant.CacheConstants;
+import com.api.common.domain.LoginUser;
+import com.api.common.domain.SysUser;
+import com.api.common.redis.InMemoryRedisCache;
+import com.api.common.redis.codec.RedisValueCodecs;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class SessionStoreTest {
+
+  private InMemoryRedisCache redisCache;
+  private SessionPermissionLoader loader;
+  private StaticListableBeanFactory beans;
+
+  @BeforeEach
+  void setUp() {
+    RedisValueCodecs codecs = new RedisValueCodecs(new ObjectMapper());
+    ReflectionTestUtils.setField(codecs, "defaultCodecName", "json");
+    ReflectionTestUtils.setField(codecs, "prefixMapping", "");
+    ReflectionTestUtils.setField(codecs, "defaultCompression", "none");
+    ReflectionTestUtils.setField(codecs, "compressionMapping", "");
+    codecs.init();
+    redisCache = new InMemoryRedisCache(new ObjectMapper(), codecs);
+    ReflectionTestUtils.setField(redisCache, "scanCount", 100);
+    ReflectionTestUtils.setField(redisCache, "sweepMillis", 60_000L);
+    redisCache.init();
+    loader = mock(SessionPermissionLoader.class);
+    beans = new StaticListableBeanFactory();
+  }
+
+  @AfterEach
+  void tearDown() {
+    redisCache.shutdown();
+  }
+
+  @Test
+  void missingPermissionSetIsReloaded() {
+    beans.addBean("loader", loader);
+    when(loader.loadPermissions(any())).thenReturn(Set.of("system:user:list", "system:role:list"));
+    store().save(session("t1", Set.of("system:user:list")), 30, TimeUnit.MINUTES);
+    dropPermissionSets();
+
+    // A fresh store has no local copy of the set either
+    LoginUser loaded = store().load("t1");
+
+    assertThat(loaded.getPermissions())
+        .containsExactlyInAnyOrder("system:user:list", "system:role:list");
+    assertThat(store().load("t1").getPermissions()).isEqualTo(loaded.getPermissions());
+    verify(loader, times(1)).loadPermissions(any());
+  }
+
+  @Test
+  void sessionIsDroppedWhenItsPermissionsCannotBeReloaded() {
+    store().save(session("t2", Set.of("system:user:list")), 30, TimeUnit.MINUTES);
+    dropPermissionSets();
+
+    assertThat(store().load("t2")).isNull();
+    assertThat(redisCache.getCacheBytes(CacheConstants.LOGIN_TOKEN_KEY + "t2")).isNull();
+  }
+
+  private SessionStore store() {
+    SessionStore store =
+        new SessionStore(
+            redisCache,
+            mock(SessionIndex.class),
+            beans.getBeanProvider(SessionPermissionLoader.class));
+    ReflectionTestUtils.setField(store, "sessionTtlMinutes", 30);
+    return store;
+  }
+
+  private void dropPermissionSets() {
+    redisCache.scan(CacheConstants.LOGIN_PERMS_KEY + "*", redisCache::deleteObject);
+  }
+
+  private static LoginUser session(String token, Set<String> permissions) {
+    SysUser user = new SysUser();
+    user.setUserId(7L);
+    user.setUserName("gavin");
+    LoginUser loginUser = new LoginUser();
+    loginUser.setToken(token);
+    loginUser.setUserId(7L);
+    loginUser.setUser(user);
+    loginUser.setPermissions(permissions);
+    return loginUser;
+  }
+}
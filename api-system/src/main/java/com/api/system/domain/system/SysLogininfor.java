@@ -0,0 +1,59 @@
+package com.api.system.domain.system;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing a login audit record.
+ *
+ * <p>Maps directly to the sys_logininfor database table.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "sys_logininfor")
+public class SysLogininfor {
+
+  /** Primary key */
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "info_id")
+  private Long infoId;
+
+  /** Login account */
+  @Column(name = "user_name", length = 50)
+  private String userName;
+
+  /** Login IP address */
+  @Column(name = "ipaddr", length = 128)
+  private String ipaddr;
+
+  /** Login location derived from IP address */
+  @Column(name = "login_location", length = 255)
+  private String loginLocation;
+
+  /** Browser type */
+  @Column(name = "browser", length = 50)
+  private String browser;
+
+  /** Operating system */
+  @Column(name = "os", length = 50)
+  private String os;
+
+  /** Login status (0=Success, 1=Failure) */
+  @Column(name = "status", length = 1)
+  private String status;
+
+  /** Result message */
+  @Column(name = "msg", length = 255)
+  private String msg;
+
+  /** Login timestamp */
+  @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+  @Column(name = "login_time")
+  private LocalDateTime loginTime;
+}
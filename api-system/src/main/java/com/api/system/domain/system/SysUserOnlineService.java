@@ -1,6 +1,7 @@
 package com.api.system.domain.system;
 
 import com.api.common.domain.LoginUser;
+import com.api.framework.session.SessionSummary;
 import io.micrometer.common.util.StringUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -107,4 +108,23 @@ public class SysUserOnlineService {
         "Converted LoginUser [{}] to SysUserOnline [{}]", user.getUsername(), online.getIpaddr());
     return online;
   }
+
+  /**
+   * Converts an indexed session summary into a SysUserOnline object.
+   *
+   * @param summary The session summary from the Redis session index.
+   * @return The corresponding SysUserOnline object.
+   */
+  public SysUserOnline summaryToUserOnline(SessionSummary summary) {
+    return SysUserOnline.builder()
+        .tokenId(summary.token())
+        .userName(summary.userName())
+        .deptName(summary.deptName())
+        .ipaddr(summary.ipaddr())
+        .loginLocation(summary.loginLocation())
+        .browser(summary.browser())
+        .os(summary.os())
+        .loginTime(summary.loginTime())
+        .build();
+  }
 }
@@ -0,0 +1,72 @@
+package com.api.system.manager;
+
+import com.api.common.utils.ip.AddressUtils;
+import com.api.framework.service.TokenService;
+import com.api.framework.session.LoginEvent;
+import com.api.framework.session.UserAgentParser;
+import com.api.system.domain.system.SysLogininfor;
+import com.api.system.repository.SysUserRepository;
+import com.api.system.service.SysLogininforService;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * Asynchronous post-login stage.
+ *
+ * <p>Runs off the login request thread: parses the User-Agent, resolves the location, patches the
+ * session, updates the user's last login IP/date and queues the login audit record.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LoginEventListener {
+
+  private static final String STATUS_SUCCESS = "0";
+  private static final String STATUS_FAIL = "1";
+
+  private final TokenService tokenService;
+  private final UserAgentParser userAgentParser;
+  private final SysUserRepository userRepository;
+  private final SysLogininforService logininforService;
+
+  @Async("taskExecutor")
+  @EventListener
+  public void onLogin(LoginEvent event) {
+    try {
+      UserAgentParser.ClientInfo client = userAgentParser.parse(event.userAgent());
+      String location = AddressUtils.getRealAddressByIP(event.ipaddr());
+
+      if (event.success()) {
+        if (event.token() != null
+            && !tokenService.enrichSession(event.token(), client.browser(), client.os(), location)) {
+          log.debug("Session {} ended before enrichment", event.token());
+        }
+        if (event.userId() != null) {
+          userRepository.updateLoginInfo(
+              event.userId(), event.ipaddr(), new Date(event.loginTime()));
+        }
+      }
+
+      SysLogininfor logininfor = new SysLogininfor();
+      logininfor.setUserName(event.userName());
+      logininfor.setIpaddr(event.ipaddr());
+      logininfor.setLoginLocation(location);
+      logininfor.setBrowser(client.browser());
+      logininfor.setOs(client.os());
+      logininfor.setStatus(event.success() ? STATUS_SUCCESS : STATUS_FAIL);
+      logininfor.setMsg(event.message());
+      logininfor.setLoginTime(
+          LocalDateTime.ofInstant(Instant.ofEpochMilli(event.loginTime()), ZoneId.systemDefault()));
+      logininforService.record(logininfor);
+    } catch (Exception e) {
+      log.error("Post-login processing failed for user {}", event.userName(), e);
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package com.api.system.repository;
+
+import com.api.system.domain.system.SysLogininfor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for SysLogininfor.
+ *
+ * <p>Provides CRUD and query capabilities via Spring Data JPA.
+ */
+@Repository
+public interface SysLogininforRepository extends JpaRepository<SysLogininfor, Long> {}
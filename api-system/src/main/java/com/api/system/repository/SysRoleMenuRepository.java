@@ -30,4 +30,8 @@ public interface SysRoleMenuRepository
   List<SysRoleMenu> findByRoleId(Long roleId);
 
   boolean existsByMenuId(Long menuId);
+
+  /** Ids of the roles that include a menu */
+  @Query("select distinct rm.roleId from SysRoleMenu rm where rm.menuId = :menuId")
+  List<Long> findRoleIdsByMenuId(Long menuId);
 }
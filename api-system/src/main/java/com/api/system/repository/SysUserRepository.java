@@ -9,7 +9,9 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +32,15 @@ public interface SysUserRepository
   @Query("update SysUser u set u.delFlag = :delFlag where u.userId in :userIds")
   int softDeleteUsers(@Param("userIds") List<Long> userIds, @Param("delFlag") String delFlag);
 
+  @Transactional
+  @Modifying
+  @Query(
+      "update SysUser u set u.loginIp = :loginIp, u.loginDate = :loginDate where u.userId = :userId")
+  int updateLoginInfo(
+      @Param("userId") Long userId,
+      @Param("loginIp") String loginIp,
+      @Param("loginDate") Date loginDate);
+
   boolean existsByUserName(String userName);
 
   boolean existsByPhonenumber(String phonenumber);
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /** Repository for SysUserRole entity. Provides data access methods for user-role associations. */
@@ -45,4 +46,19 @@ public interface SysUserRoleRepository
   """)
   List<Long> findExistingUserIds(
       @Param("roleId") Long roleId, @Param("userIds") List<Long> userIds);
+
+  /** Ids of the users holding any of the given roles. */
+  @Query("select distinct ur.userId from SysUserRole ur where ur.roleId in :roleIds")
+  List<Long> findUserIdsByRoleIds(@Param("roleIds") Collection<Long> roleIds);
+
+  /** (userId, role) pairs of several users, in one query; deleted roles are left out. */
+  @Query(
+      """
+      select ur.userId, r
+      from SysUserRole ur
+      join SysRole r on r.roleId = ur.roleId
+      where ur.userId in :userIds
+        and r.delFlag = 'Normal'
+  """)
+  List<Object[]> findRolesByUserIds(@Param("userIds") Collection<Long> userIds);
 }
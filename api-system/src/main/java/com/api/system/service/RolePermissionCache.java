@@ -0,0 +1,223 @@
+package com.api.system.service;
+
+import com.api.common.cache.LocalCache;
+import com.api.common.cache.SingleFlight;
+import com.api.common.constant.CacheConstants;
+import com.api.common.redis.BatchResult;
+import com.api.common.redis.RedisCache;
+import com.api.common.utils.StringUtils;
+import com.api.common.utils.uuid.IdUtils;
+import com.api.system.repository.SysMenuRepository;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Two-level cache of role id to menu permission set (local {@link LocalCache} in front of Redis).
+ *
+ * <p>Lookups for several roles go local, then one Redis MGET, and load every remaining role with
+ * one database query; concurrent misses for the same roles share that query. Role and menu changes
+ * evict the affected roles after their transaction commits (see {@link SessionPermissionService})
+ * and broadcast the eviction to the other nodes.
+ *
+ * <p>Every eviction bumps a generation counter in Redis before deleting. A load that read the
+ * database before an eviction may only write its result afterwards; it reads the generation before
+ * the query and again after writing, and drops what it wrote when the two differ.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RolePermissionCache {
+
+  private static final String SEPARATOR = "|";
+
+  private final RedisCache redisCache;
+  private final SysMenuRepository sysMenuRepository;
+
+  /** Identifies this node so it can ignore its own invalidation messages. */
+  private final String nodeId = IdUtils.fastSimpleUUID();
+
+  @Value("${permission.roleCache.maxSize:1024}")
+  private int maxSize;
+
+  @Value("${permission.roleCache.localTtlSeconds:600}")
+  private long localTtlSeconds;
+
+  @Value("${permission.roleCache.redisTtlHours:24}")
+  private int redisTtlHours;
+
+  private LocalCache<Long, Set<String>> cache;
+
+  /** Concurrent misses for the same roles (e.g. a burst of logins) share one query. */
+  private final SingleFlight<String, Map<Long, Set<String>>> loads = new SingleFlight<>();
+
+  @PostConstruct
+  public void init() {
+    cache = new LocalCache<>("rolePermissions", maxSize, Duration.ofSeconds(localTtlSeconds));
+    redisCache.subscribe(CacheConstants.ROLE_PERMS_INVALIDATE_CHANNEL, this::onInvalidate);
+  }
+
+  /**
+   * Permission sets of several roles.
+   *
+   * @param roleIds role ids
+   * @return immutable permission set per requested role id
+   */
+  public Map<Long, Set<String>> getAll(Collection<Long> roleIds) {
+    Map<Long, Set<String>> result = new HashMap<>();
+    List<Long> localMisses = new ArrayList<>();
+    for (Long roleId : new LinkedHashSet<>(roleIds)) {
+      Set<String> perms = cache.get(roleId);
+      if (perms != null) {
+        result.put(roleId, perms);
+      } else {
+        localMisses.add(roleId);
+      }
+    }
+
+    List<Long> missing = new ArrayList<>();
+    if (!localMisses.isEmpty()) {
+      // One MGET for every local miss; unreadable values are reloaded like missing ones
+      BatchResult<String[]> stored =
+          redisCache.getCacheObjects(localMisses.stream().map(this::key).toList(), String[].class);
+      for (Long roleId : localMisses) {
+        String[] perms = stored.get(key(roleId));
+        if (perms != null) {
+          Set<String> set = Set.of(perms);
+          cache.put(roleId, set);
+          result.put(roleId, set);
+        } else {
+          missing.add(roleId);
+        }
+      }
+    }
+
+    if (!missing.isEmpty()) {
+      missing.sort(null);
+      String flightKey = missing.stream().map(String::valueOf).collect(Collectors.joining(","));
+      try {
+        result.putAll(loads.load(flightKey, () -> loadAndCache(missing)));
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new IllegalStateException("Failed to load permissions of roles " + missing, e);
+      }
+    }
+    return result;
+  }
+
+  /** Load roles from the database and fill both levels; coalesced per set of role ids. */
+  private Map<Long, Set<String>> loadAndCache(List<Long> roleIds) {
+    long generation = generation();
+    Map<Long, Set<String>> loaded = load(roleIds);
+    Map<Long, Set<String>> result = new HashMap<>();
+    Map<String, String[]> stored = new HashMap<>();
+    for (Long roleId : roleIds) {
+      Set<String> perms = Set.copyOf(loaded.getOrDefault(roleId, Set.of()));
+      stored.put(key(roleId), perms.toArray(String[]::new));
+      cache.put(roleId, perms);
+      result.put(roleId, perms);
+    }
+    redisCache.setCacheObjects(stored, redisTtlHours, TimeUnit.HOURS);
+    if (generation() != generation) {
+      // Evicted while loading: the permissions may predate the change, keep them out of the cache
+      cache.invalidateAll(roleIds);
+      redisCache.deleteObject(roleIds.stream().map(this::key).toList());
+      log.debug("Discarded permissions of roles {} loaded during an eviction", roleIds);
+      return result;
+    }
+    log.debug("Loaded permissions of roles {} from the database", roleIds);
+    return result;
+  }
+
+  /**
+   * Evict roles on every node. Inside a transaction the eviction runs after commit, so no node can
+   * reload the old data in between.
+   */
+  public void evict(Collection<Long> roleIds) {
+    if (roleIds == null || roleIds.isEmpty()) {
+      return;
+    }
+    List<Long> ids = List.copyOf(roleIds);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              evictNow(ids);
+            }
+          });
+    } else {
+      evictNow(ids);
+    }
+  }
+
+  /** Load the menu permissions of several roles with one query (comma-separated perms split). */
+  private Map<Long, Set<String>> load(Collection<Long> roleIds) {
+    Map<Long, Set<String>> result = new HashMap<>();
+    for (Object[] row : sysMenuRepository.findPermsByRoleIds(roleIds)) {
+      String perms = (String) row[1];
+      if (StringUtils.isBlank(perms)) {
+        continue;
+      }
+      Set<String> rolePerms = result.computeIfAbsent((Long) row[0], k -> new HashSet<>());
+      for (String perm : perms.trim().split(",")) {
+        rolePerms.add(perm);
+      }
+    }
+    return result;
+  }
+
+  private void evictNow(List<Long> roleIds) {
+    redisCache.increment(CacheConstants.ROLE_PERMS_GENERATION_KEY, 1);
+    cache.invalidateAll(roleIds);
+    redisCache.deleteObject(roleIds.stream().map(this::key).toList());
+    redisCache.publish(
+        CacheConstants.ROLE_PERMS_INVALIDATE_CHANNEL,
+        nodeId
+            + SEPARATOR
+            + roleIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+    log.info("Evicted cached permissions of roles {}", roleIds);
+  }
+
+  private void onInvalidate(String message) {
+    if (StringUtils.isEmpty(message)) {
+      return;
+    }
+    int idx = message.indexOf(SEPARATOR);
+    if (idx <= 0 || nodeId.equals(message.substring(0, idx))) {
+      return;
+    }
+    List<Long> roleIds =
+        Arrays.stream(message.substring(idx + 1).split(","))
+            .filter(StringUtils::isNotBlank)
+            .map(Long::valueOf)
+            .toList();
+    cache.invalidateAll(roleIds);
+  }
+
+  /** Current eviction generation; incrementing by zero reads it atomically. */
+  private long generation() {
+    return redisCache.increment(CacheConstants.ROLE_PERMS_GENERATION_KEY, 0);
+  }
+
+  private String key(Long roleId) {
+    return CacheConstants.ROLE_PERMS_KEY + roleId;
+  }
+}
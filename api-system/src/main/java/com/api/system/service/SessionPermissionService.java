@@ -0,0 +1,188 @@
+package com.api.system.service;
+
+import com.api.common.constant.CacheConstants;
+import com.api.common.domain.SysRole;
+import com.api.common.enums.StatusEnum;
+import com.api.common.utils.StringUtils;
+import com.api.framework.service.TokenService;
+import com.api.framework.session.SessionIndex;
+import com.api.framework.session.SessionNearCache;
+import com.api.framework.session.SessionStore;
+import com.api.framework.session.SessionStore.SessionPatch;
+import com.api.system.repository.SysUserRoleRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Pushes role and user-role changes into live sessions, so logged-in users pick up new permissions
+ * without logging in again.
+ *
+ * <p>After the changing transaction commits, the affected users are resolved through the
+ * role-to-users mapping, each affected role's permission set is computed once (through {@link
+ * RolePermissionCache}), and only those users' sessions are rewritten in batched, pipelined writes
+ * that keep their TTL. Their near-cache copies and cached menu trees are then dropped on every
+ * node. Sessions of deleted users are logged out instead.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SessionPermissionService {
+
+  private final RolePermissionCache rolePermissionCache;
+  private final SysUserRoleRepository userRoleRepository;
+  private final SessionIndex sessionIndex;
+  private final SessionStore sessionStore;
+  private final SessionNearCache sessionNearCache;
+  private final ApplicationEventPublisher eventPublisher;
+  private final CacheManager cacheManager;
+  private final TokenService tokenService;
+
+  /** The menus, status or existence of roles changed. */
+  public void rolesChanged(Collection<Long> roleIds) {
+    Set<Long> ids = nonNull(roleIds);
+    if (ids.isEmpty()) {
+      return;
+    }
+    rolePermissionCache.evict(ids);
+    eventPublisher.publishEvent(new PermissionsChanged(ids, Set.of()));
+  }
+
+  /** The role assignments of users changed. */
+  public void usersChanged(Collection<Long> userIds) {
+    Set<Long> ids = nonNull(userIds);
+    if (!ids.isEmpty()) {
+      eventPublisher.publishEvent(new PermissionsChanged(Set.of(), ids));
+    }
+  }
+
+  /** Users were deleted: their sessions must stop working. */
+  public void usersDeleted(Collection<Long> userIds) {
+    Set<Long> ids = nonNull(userIds);
+    if (!ids.isEmpty()) {
+      eventPublisher.publishEvent(new UsersDeleted(ids));
+    }
+  }
+
+  /** Log out every session of the deleted users once the deletion is committed. */
+  @Async("taskExecutor")
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUsersDeleted(UsersDeleted event) {
+    Cache menuTrees = cacheManager.getCache(CacheConstants.MENU_TREE_CACHE);
+    int removed = 0;
+    for (Long userId : event.userIds()) {
+      if (menuTrees != null) {
+        menuTrees.evict(userId);
+      }
+      try {
+        removed += tokenService.delLoginUsers(userId);
+      } catch (Exception e) {
+        log.error("Failed to log out the sessions of deleted user {}", userId, e);
+      }
+    }
+    log.info("Logged out {} sessions of deleted users {}", removed, event.userIds());
+  }
+
+  /** Patch the sessions of every affected user once the change is committed. */
+  @Async("taskExecutor")
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onPermissionsChanged(PermissionsChanged event) {
+    try {
+      Set<Long> userIds = new HashSet<>(event.userIds());
+      if (!event.roleIds().isEmpty()) {
+        userIds.addAll(userRoleRepository.findUserIdsByRoleIds(event.roleIds()));
+      }
+      userIds.removeIf(SessionPermissionService::isAdminUser); // always "*:*:*"
+
+      // Their menu trees follow the same roles
+      Cache menuTrees = cacheManager.getCache(CacheConstants.MENU_TREE_CACHE);
+      if (menuTrees != null) {
+        userIds.forEach(menuTrees::evict);
+      }
+
+      // Only users with live sessions
+      Map<Long, Set<String>> tokensByUser = new HashMap<>();
+      for (Long userId : userIds) {
+        Set<String> tokens = sessionIndex.tokensOf(userId);
+        if (!tokens.isEmpty()) {
+          tokensByUser.put(userId, tokens);
+        }
+      }
+      if (tokensByUser.isEmpty()) {
+        return;
+      }
+
+      Map<Long, List<SysRole>> rolesByUser = new HashMap<>();
+      for (Object[] row : userRoleRepository.findRolesByUserIds(tokensByUser.keySet())) {
+        rolesByUser.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((SysRole) row[1]);
+      }
+      Set<Long> enabledRoleIds =
+          rolesByUser.values().stream()
+              .flatMap(List::stream)
+              .filter(SessionPermissionService::grantsMenuPermissions)
+              .map(SysRole::getRoleId)
+              .collect(Collectors.toSet());
+      Map<Long, Set<String>> rolePerms = rolePermissionCache.getAll(enabledRoleIds);
+
+      Map<String, SessionPatch> patches = new HashMap<>();
+      tokensByUser.forEach(
+          (userId, tokens) -> {
+            List<SysRole> roles = rolesByUser.getOrDefault(userId, List.of());
+            Set<String> perms = new HashSet<>();
+            roles.stream()
+                .filter(SessionPermissionService::grantsMenuPermissions)
+                .forEach(role -> perms.addAll(rolePerms.getOrDefault(role.getRoleId(), Set.of())));
+            SessionPatch patch = new SessionPatch(Set.copyOf(perms), roles);
+            tokens.forEach(token -> patches.put(token, patch));
+          });
+
+      int patched = sessionStore.patchAll(patches);
+      sessionNearCache.invalidateAll(patches.keySet());
+      log.info(
+          "Pushed permission changes to {} sessions of {} users (roles={}, users={})",
+          patched,
+          tokensByUser.size(),
+          event.roleIds(),
+          event.userIds());
+    } catch (Exception e) {
+      log.error("Failed to push permission changes to live sessions: {}", event, e);
+    }
+  }
+
+  /** Same rule as {@code SysPermissionService.getMenuPermission}. */
+  private static boolean grantsMenuPermissions(SysRole role) {
+    return StringUtils.equals(role.getStatus(), StatusEnum.ENABLED.getCode()) && !role.isAdmin();
+  }
+
+  /** Same rule as {@code SysUser.isAdmin}. */
+  private static boolean isAdminUser(Long userId) {
+    return userId != null && userId == 1L;
+  }
+
+  private static Set<Long> nonNull(Collection<Long> ids) {
+    if (ids == null) {
+      return Set.of();
+    }
+    return ids.stream().filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet());
+  }
+
+  /** Published inside the changing transaction and handled after it commits. */
+  public record PermissionsChanged(Set<Long> roleIds, Set<Long> userIds) {}
+
+  /** Published inside the deleting transaction and handled after it commits. */
+  public record UsersDeleted(Set<Long> userIds) {}
+}
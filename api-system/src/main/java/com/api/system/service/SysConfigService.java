@@ -4,33 +4,82 @@ import com.api.common.constant.CacheConstants;
 import com.api.common.constant.UserConstants;
 import com.api.common.redis.RedisCache;
 import com.api.common.utils.StringUtils;
+import com.api.common.utils.uuid.IdUtils;
 import com.api.framework.exception.ServiceException;
 import com.api.system.domain.system.SysConfig;
 import com.api.system.repository.SysConfigRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-/** Implementation of system configuration service. */
+/**
+ * Implementation of system configuration service.
+ *
+ * <p>Every configuration is held in memory as one immutable snapshot, so {@link #findByKey} is a
+ * map read. Inserts, updates and deletes replace the snapshot after commit and announce the change
+ * on {@link CacheConstants#SYS_CONFIG_CHANGED_CHANNEL}; the other nodes reload theirs from the
+ * database.
+ *
+ * <p>Pub/sub is best-effort, so every change also bumps a version counter in Redis ({@link
+ * CacheConstants#SYS_CONFIG_VERSION_KEY}). Each node compares it with the version of its snapshot
+ * every {@code sysConfig.versionCheckSeconds} and reloads when they differ, so a node that missed
+ * a notification catches up. A bump that fails while Redis is down is retried by the next check.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class SysConfigService {
 
+  private static final String SEPARATOR = "|";
+
+  private static final long UNKNOWN_VERSION = -1;
+
   private final SysConfigRepository configRepository;
 
   private final RedisCache redisCache;
 
+  private final ScheduledExecutorService scheduledExecutorService;
+
+  @Value("${sysConfig.versionCheckSeconds:30}")
+  private long versionCheckSeconds;
+
+  /** Identifies this node so it can ignore its own change notifications. */
+  private final String nodeId = IdUtils.fastSimpleUUID();
+
+  /** Config key to value; never modified, replaced as a whole. Null until first loaded. */
+  private volatile Map<String, String> snapshot;
+
+  /** Redis version the snapshot was loaded at, {@link #UNKNOWN_VERSION} if it was unavailable. */
+  private volatile long snapshotVersion = UNKNOWN_VERSION;
+
+  /** A change whose version bump has not reached Redis yet. */
+  private volatile boolean bumpPending;
+
+  @PostConstruct
+  public void init() {
+    redisCache.subscribe(CacheConstants.SYS_CONFIG_CHANGED_CHANNEL, this::onChanged);
+    scheduledExecutorService.scheduleWithFixedDelay(
+        this::checkVersion, versionCheckSeconds, versionCheckSeconds, TimeUnit.SECONDS);
+  }
+
   /** Initialize configuration cache after the app is fully started */
   @EventListener(ApplicationReadyEvent.class)
   public void initAfterStartup() {
     log.info("🚀 Application started. Initializing system configuration cache...");
-    reloadCache();
+    reloadSnapshot();
   }
 
   public SysConfig findById(Long id) {
@@ -40,20 +89,21 @@ public class SysConfigService {
   }
 
   public SysConfig findByKey(String key) {
-    String cacheKey = getCacheKey(key);
-    String cachedValue = redisCache.getCacheObject(cacheKey);
-
-    if (StringUtils.isNotEmpty(cachedValue)) {
-      return SysConfig.builder().configKey(key).configValue(cachedValue).build();
+    Map<String, String> configs = snapshot();
+    if (!configs.containsKey(key)) {
+      throw new ServiceException("Configuration not found for key: " + key);
     }
+    return SysConfig.builder().configKey(key).configValue(configs.get(key)).build();
+  }
 
-    SysConfig config =
-        configRepository
-            .findByConfigKey(key)
-            .orElseThrow(() -> new ServiceException("Configuration not found for key: " + key));
-
-    redisCache.setCacheObject(cacheKey, config.getConfigValue());
-    return config;
+  /**
+   * Value of a configuration from the in-memory snapshot.
+   *
+   * @param key config key
+   * @return the value, or null if the key does not exist
+   */
+  public String selectConfigByKey(String key) {
+    return snapshot().get(key);
   }
 
   public List<SysConfig> findAll(SysConfig filter) {
@@ -66,19 +116,15 @@ public class SysConfigService {
     }
 
     SysConfig saved = configRepository.save(config);
-    redisCache.setCacheObject(getCacheKey(saved.getConfigKey()), saved.getConfigValue());
+    afterCommit(this::publishChange);
     return saved;
   }
 
   public SysConfig update(SysConfig config) {
-    SysConfig existing = findById(config.getConfigId());
-
-    if (!existing.getConfigKey().equals(config.getConfigKey())) {
-      redisCache.deleteObject(getCacheKey(existing.getConfigKey()));
-    }
+    findById(config.getConfigId());
 
     SysConfig updated = configRepository.save(config);
-    redisCache.setCacheObject(getCacheKey(updated.getConfigKey()), updated.getConfigValue());
+    afterCommit(this::publishChange);
     return updated;
   }
 
@@ -92,8 +138,8 @@ public class SysConfigService {
       }
 
       configRepository.deleteById(id);
-      redisCache.deleteObject(getCacheKey(config.getConfigKey()));
     }
+    afterCommit(this::publishChange);
   }
 
   public boolean isKeyUnique(SysConfig config) {
@@ -103,30 +149,110 @@ public class SysConfigService {
         .orElse(true);
   }
 
+  /** Reload the snapshot from the database on every node. */
   public void reloadCache() {
+    log.info("♻️ Reloading system configuration cache...");
+    publishChange();
+  }
+
+  private Map<String, String> snapshot() {
+    Map<String, String> current = snapshot;
+    if (current == null) {
+      synchronized (this) {
+        if (snapshot == null) {
+          reloadSnapshot();
+        }
+        current = snapshot;
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Read every configuration with one query and swap the snapshot in. The version is read first, so
+   * a change committed during the query is picked up by the next check.
+   */
+  private synchronized void reloadSnapshot() {
+    long version = currentVersion();
+    Map<String, String> configs = new HashMap<>();
+    for (SysConfig cfg : configRepository.findAll()) {
+      configs.put(cfg.getConfigKey(), cfg.getConfigValue());
+    }
+    snapshot = Collections.unmodifiableMap(configs);
+    snapshotVersion = version;
+    log.info("✅ Configuration cache successfully loaded ({} entries)", configs.size());
+  }
+
+  private void publishChange() {
+    bumpPending = true;
+    bumpVersion();
+    reloadSnapshot();
+    redisCache.publish(CacheConstants.SYS_CONFIG_CHANGED_CHANNEL, nodeId + SEPARATOR);
+  }
+
+  private void onChanged(String message) {
+    if (StringUtils.isEmpty(message)) {
+      return;
+    }
+    int idx = message.indexOf(SEPARATOR);
+    if (idx <= 0 || nodeId.equals(message.substring(0, idx))) {
+      return;
+    }
+    try {
+      reloadSnapshot();
+    } catch (Exception e) {
+      // Keep serving the previous snapshot; the next version check retries
+      log.error("❌ Failed to reload configuration after a change on another node", e);
+    }
+  }
+
+  /** Reload if the Redis version moved past the snapshot's, e.g. after a missed notification. */
+  void checkVersion() {
     try {
-      log.info("♻️ Reloading system configuration cache...");
-      clearCache();
-
-      // Load all configurations from the database
-      configRepository
-          .findAll()
-          .forEach(
-              cfg ->
-                  redisCache.setCacheObject(getCacheKey(cfg.getConfigKey()), cfg.getConfigValue()));
-      log.info("✅ Configuration cache successfully loaded ({} entries)", configRepository.count());
+      if (bumpPending) {
+        bumpVersion();
+      }
+      long version = currentVersion();
+      if (version != UNKNOWN_VERSION && version != snapshotVersion && snapshot != null) {
+        log.info("Configuration version changed to {}, reloading", version);
+        reloadSnapshot();
+      }
     } catch (Exception e) {
-      log.error("❌ Failed to initialize configuration cache", e);
+      log.warn("Configuration version check failed: {}", e.getMessage());
     }
   }
 
-  /** Clears the entire system configuration cache. */
-  public void clearCache() {
-    Collection<String> keys = redisCache.keys(CacheConstants.SYS_CONFIG_KEY + "*");
-    redisCache.deleteObject(keys);
+  /** Tell the other nodes a change happened; left pending while Redis is unavailable. */
+  private void bumpVersion() {
+    try {
+      redisCache.increment(CacheConstants.SYS_CONFIG_VERSION_KEY, 1);
+      bumpPending = false;
+    } catch (Exception e) {
+      log.warn("Failed to bump the configuration version, will retry: {}", e.getMessage());
+    }
   }
 
-  private String getCacheKey(String configKey) {
-    return CacheConstants.SYS_CONFIG_KEY + configKey;
+  /** Incrementing by zero reads the counter atomically. */
+  private long currentVersion() {
+    try {
+      return redisCache.increment(CacheConstants.SYS_CONFIG_VERSION_KEY, 0);
+    } catch (Exception e) {
+      return UNKNOWN_VERSION;
+    }
+  }
+
+  /** Run after the current transaction commits (immediately without one). */
+  private static void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    } else {
+      action.run();
+    }
   }
 }
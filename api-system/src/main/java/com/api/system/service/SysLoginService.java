@@ -3,11 +3,15 @@ package com.api.system.service;
 import com.api.common.domain.LoginUser;
 import com.api.common.domain.SysUser;
 import com.api.common.redis.RedisCache;
+import com.api.common.utils.ServletUtils;
+import com.api.common.utils.ip.IpUtils;
 import com.api.framework.security.context.AuthenticationContextHolder;
 import com.api.framework.service.TokenService;
+import com.api.framework.session.LoginEvent;
 import com.api.system.repository.SysUserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -31,6 +35,7 @@ public class SysLoginService {
   private final AuthenticationManager authenticationManager;
   private final RedisCache redisCache;
   private final SysUserRepository sysUserRepository;
+  private final ApplicationEventPublisher eventPublisher;
 
   //  private final  userService;
   //  private final ISysConfigService configService;
@@ -79,14 +84,20 @@ public class SysLoginService {
     // MessageUtils.message("user.login.success")));
 
     LoginUser loginUser = (LoginUser) authentication.getPrincipal();
-    recordLoginInfo(loginUser.getUserId());
 
-    // Return generated JWT
+    // Return generated JWT; login info and audit are recorded asynchronously (LoginEventListener)
     return tokenService.createToken(loginUser);
   }
 
   /** Handle authentication failures. */
   private void handleAuthenticationFailure(String username, Exception e) {
+    eventPublisher.publishEvent(
+        LoginEvent.failure(
+            username,
+            IpUtils.getIpAddr(),
+            ServletUtils.getRequest().getHeader("User-Agent"),
+            e.getMessage()));
+
     //    if (e instanceof BadCredentialsException) {
     //      AsyncManager.me()
     //          .execute(
@@ -171,9 +182,4 @@ public class SysLoginService {
     // MessageUtils.message("user.password.not.match")));
     //    throw new UserPasswordNotMatchException();
   }
-
-  /** Record login info (last login IP + timestamp). */
-  public void recordLoginInfo(Long userId) {
-    //    userService.updateLoginInfo(userId, IpUtils.getIpAddr(), DateUtils.getNowDate());
-  }
 }
@@ -0,0 +1,112 @@
+package com.api.system.service;
+
+import com.api.system.domain.system.SysLogininfor;
+import com.api.system.repository.SysLogininforRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Login audit service.
+ *
+ * <p>Records are buffered in memory and written with one {@code saveAll} (one transaction) per
+ * batch, either every {@code login.audit.flushMillis} or as soon as {@code login.audit.batchSize}
+ * records are pending. The ids are IDENTITY columns, so Hibernate still sends one INSERT per
+ * record: batching takes the writes off the login thread and shares a transaction, it is not a
+ * JDBC batch.
+ *
+ * <p>A batch that fails to write goes back to the head of the buffer and is retried on the next
+ * flush. The buffer is capped; beyond the cap the oldest records are dropped and counted in an
+ * error log.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SysLogininforService {
+
+  /** Buffer cap, in batches, before records are dropped. */
+  private static final int MAX_PENDING_BATCHES = 100;
+
+  private final SysLogininforRepository repository;
+  private final ScheduledExecutorService scheduledExecutorService;
+
+  @Value("${login.audit.batchSize:100}")
+  private int batchSize;
+
+  @Value("${login.audit.flushMillis:2000}")
+  private long flushMillis;
+
+  private final ConcurrentLinkedDeque<SysLogininfor> pending = new ConcurrentLinkedDeque<>();
+  private final AtomicInteger pendingCount = new AtomicInteger();
+
+  @PostConstruct
+  public void init() {
+    scheduledExecutorService.scheduleWithFixedDelay(
+        this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /** Queue a login record for the next batch write. */
+  public void record(SysLogininfor logininfor) {
+    pending.add(logininfor);
+    int count = pendingCount.incrementAndGet();
+    if (count > maxPending() && pending.pollFirst() != null) {
+      pendingCount.decrementAndGet();
+      log.warn("Login audit buffer full, dropping oldest record");
+    }
+    if (count == batchSize) {
+      scheduledExecutorService.execute(this::flush);
+    }
+  }
+
+  /** Write every pending record, one batch at a time; a failed batch is kept for the next run. */
+  @PreDestroy
+  public synchronized void flush() {
+    while (!pending.isEmpty()) {
+      List<SysLogininfor> batch = new ArrayList<>(batchSize);
+      SysLogininfor next;
+      while (batch.size() < batchSize && (next = pending.pollFirst()) != null) {
+        batch.add(next);
+      }
+      pendingCount.addAndGet(-batch.size());
+      try {
+        repository.saveAll(batch);
+        log.debug("Wrote {} login audit records", batch.size());
+      } catch (Exception e) {
+        log.error("Failed to write {} login audit records, will retry", batch.size(), e);
+        requeue(batch);
+        return;
+      }
+    }
+  }
+
+  /** Put a failed batch back at the head in order, dropping the oldest records over the cap. */
+  private void requeue(List<SysLogininfor> batch) {
+    for (int i = batch.size() - 1; i >= 0; i--) {
+      pending.addFirst(batch.get(i));
+    }
+    int dropped = 0;
+    for (int count = pendingCount.addAndGet(batch.size()); count > maxPending(); count--) {
+      if (pending.pollFirst() == null) {
+        break;
+      }
+      pendingCount.decrementAndGet();
+      dropped++;
+    }
+    if (dropped > 0) {
+      log.error("Login audit buffer full, dropped {} unwritten records", dropped);
+    }
+  }
+
+  private int maxPending() {
+    return batchSize * MAX_PENDING_BATCHES;
+  }
+}
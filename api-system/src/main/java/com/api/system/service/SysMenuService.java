@@ -1,5 +1,6 @@
 package com.api.system.service;
 
+import com.api.common.constant.CacheConstants;
 import com.api.common.constant.Constants;
 import com.api.common.constant.UserConstants;
 import com.api.common.domain.SysMenuDTOs;
@@ -9,6 +10,7 @@ import com.api.common.utils.StringUtils;
 import com.api.common.utils.jpa.SpecificationBuilder;
 import com.api.common.domain.SysMenu;
 import com.api.framework.exception.ServiceException;
+import com.api.framework.service.PermissionRegistry;
 import com.api.system.repository.SysMenuRepository;
 import com.api.system.repository.SysRoleMenuRepository;
 import com.api.system.repository.SysRoleRepository;
@@ -18,6 +20,10 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
@@ -32,6 +38,14 @@ public class SysMenuService {
   private final SysMenuRepository sysMenuRepository;
   private final SysRoleRepository sysRoleRepository;
   private final SysRoleMenuRepository sysRoleMenuRepository;
+  private final PermissionRegistry permissionRegistry;
+  private final SessionPermissionService sessionPermissionService;
+
+  /** Intern every menu permission once the app is fully started */
+  @EventListener(ApplicationReadyEvent.class)
+  public void registerPermissions() {
+    permissionRegistry.registerAll(toPermSet(sysMenuRepository.findAllPerms()));
+  }
 
   /** Query all menus with dynamic filter conditions. */
   public List<SysMenu> getMenuList(SysMenu menu) {
@@ -66,13 +80,19 @@ public class SysMenuService {
 
   /** Create a new menu. */
   @Transactional
+  @CacheEvict(cacheNames = CacheConstants.MENU_TREE_CACHE, allEntries = true)
   public SysMenu createMenu(SysMenu menu) {
+    registerPermissions(menu);
     return sysMenuRepository.save(menu);
   }
 
   /** Update an existing menu. */
   @Transactional
+  @CacheEvict(cacheNames = CacheConstants.MENU_TREE_CACHE, allEntries = true)
   public SysMenu updateMenu(SysMenu menu) {
+    registerPermissions(menu);
+    sessionPermissionService.rolesChanged(
+        sysRoleMenuRepository.findRoleIdsByMenuId(menu.getMenuId()));
     return sysMenuRepository.save(menu);
   }
 
@@ -122,11 +142,14 @@ public class SysMenuService {
   }
 
   /** Insert a menu (simple wrapper around save). */
+  @CacheEvict(cacheNames = CacheConstants.MENU_TREE_CACHE, allEntries = true)
   public SysMenu insertMenu(SysMenu menu) {
+    registerPermissions(menu);
     return sysMenuRepository.save(menu);
   }
 
   @Transactional
+  @CacheEvict(cacheNames = CacheConstants.MENU_TREE_CACHE, allEntries = true)
   public int updateMenuOrders(List<SysMenuDTOs.OrderUpdateRequest> updates, String updateBy) {
     if (updates == null || updates.isEmpty()) {
       log.info("Skip updating menu orders: empty request.");
@@ -171,10 +194,12 @@ public class SysMenuService {
 
   /** Delete a menu by id. */
   @Transactional
+  @CacheEvict(cacheNames = CacheConstants.MENU_TREE_CACHE, allEntries = true)
   public void deleteMenuById(Long menuId) {
     if (!sysMenuRepository.existsById(menuId)) {
       throw new EntityNotFoundException("Menu does not exist: " + menuId);
     }
+    sessionPermissionService.rolesChanged(sysRoleMenuRepository.findRoleIdsByMenuId(menuId));
     sysMenuRepository.deleteById(menuId);
   }
 
@@ -190,6 +215,11 @@ public class SysMenuService {
     return toPermSet(perms);
   }
 
+  /** Intern the permissions of a created/updated menu. */
+  private void registerPermissions(SysMenu menu) {
+    permissionRegistry.registerAll(toPermSet(Collections.singletonList(menu.getPerms())));
+  }
+
   /** Convert list of comma-separated permissions to a clean Set. */
   private Set<String> toPermSet(List<String> perms) {
     Set<String> permsSet = new HashSet<>();
@@ -202,14 +232,14 @@ public class SysMenuService {
   }
 
   /**
-   * Select menu tree by user id, respecting visibility and role permissions.
+   * Select menu tree by user id, respecting visibility and role permissions. Cached per user;
+   * evicted on menu changes and when the user's roles or their menus change.
    *
    * @param userId user id
    * @return menu tree for the user
    */
-  public List<SysMenu> selectMenuTreeByUserId() {
-    Long userId = SecurityUtils.getUserId();
-
+  @Cacheable(cacheNames = CacheConstants.MENU_TREE_CACHE, key = "#userId", sync = true)
+  public List<SysMenu> selectMenuTreeByUserId(Long userId) {
     List<SysMenu> menus =
         SecurityUtils.isAdmin(userId)
             ? sysMenuRepository.findAllVisibleMenus()
@@ -235,7 +265,7 @@ public class SysMenuService {
     return menus.stream()
         .filter(menu -> parentId.equals(menu.getParentId()))
         .peek(menu -> menu.setChildren(getChildPerms(menus, menu.getMenuId())))
-        .toList();
+        .collect(Collectors.toCollection(ArrayList::new)); // mutable, cached as JSON
   }
 
   /**
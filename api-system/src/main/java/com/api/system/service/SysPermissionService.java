@@ -1,10 +1,12 @@
 package com.api.system.service;
 
 import com.api.common.constant.UserConstants;
+import com.api.common.domain.LoginUser;
 import com.api.common.domain.SysRole;
 import com.api.common.domain.SysUser;
 import com.api.common.enums.StatusEnum;
 import com.api.common.utils.StringUtils;
+import com.api.framework.session.SessionPermissionLoader;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -12,6 +14,7 @@ import org.springframework.util.CollectionUtils;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -28,10 +31,11 @@ import java.util.Set;
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class SysPermissionService {
+public class SysPermissionService implements SessionPermissionLoader {
 
   private final SysRoleService roleService;
   private final SysMenuService menuService;
+  private final RolePermissionCache rolePermissionCache;
 
   /**
    * Retrieve role permissions for a user.
@@ -67,12 +71,20 @@ public class SysPermissionService {
 
     List<SysRole> roles = user.getRoles();
     if (!CollectionUtils.isEmpty(roles)) {
-      for (SysRole role : roles) {
-        if (StringUtils.equals(role.getStatus(), StatusEnum.ENABLED.getCode()) && !role.isAdmin()) {
-          Set<String> rolePerms = menuService.selectMenuPermsByRoleId(role.getRoleId());
-          role.setPermissions(rolePerms); // assign perms back to role for reference
-          perms.addAll(rolePerms);
-        }
+      List<SysRole> enabledRoles =
+          roles.stream()
+              .filter(
+                  role ->
+                      StringUtils.equals(role.getStatus(), StatusEnum.ENABLED.getCode())
+                          && !role.isAdmin())
+              .toList();
+      // At most one query for all roles missing from the cache
+      Map<Long, Set<String>> rolePerms =
+          rolePermissionCache.getAll(enabledRoles.stream().map(SysRole::getRoleId).toList());
+      for (SysRole role : enabledRoles) {
+        Set<String> permsOfRole = rolePerms.getOrDefault(role.getRoleId(), Set.of());
+        role.setPermissions(permsOfRole); // assign perms back to role for reference
+        perms.addAll(permsOfRole);
       }
     } else {
       perms.addAll(menuService.selectMenuPermsByUserId(user.getUserId()));
@@ -80,4 +92,10 @@ public class SysPermissionService {
 
     return perms;
   }
+
+  /** Menu permissions of a session's user, from the roles stored in the session. */
+  @Override
+  public Set<String> loadPermissions(LoginUser loginUser) {
+    return getMenuPermission(loginUser.getUser());
+  }
 }
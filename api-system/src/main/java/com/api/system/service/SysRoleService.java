@@ -35,6 +35,7 @@ public class SysRoleService {
   private final SysRoleRepository roleRepository;
 
   private final SysRoleMenuRepository sysRoleMenuRepository;
+  private final SessionPermissionService sessionPermissionService;
 
   private final SysUserRepository sysUserRepository;
 
@@ -127,6 +128,7 @@ public class SysRoleService {
 
     // 2) Update role-menu relations (bridge table)
     updateRoleMenus(saved.getRoleId(), req.getMenuIds());
+    sessionPermissionService.rolesChanged(List.of(saved.getRoleId()));
 
     return saved;
   }
@@ -162,6 +164,7 @@ public class SysRoleService {
   /** Soft delete role */
   @Transactional
   public int deleteRoleById(Long roleId) {
+    sessionPermissionService.rolesChanged(List.of(roleId));
     return roleRepository.softDeleteById(roleId);
   }
 
@@ -178,6 +181,7 @@ public class SysRoleService {
     //    }
 
     sysRoleMenuRepository.deleteByRoleIds(roleIds);
+    sessionPermissionService.rolesChanged(Arrays.asList(roleIds));
     // roleDeptMapper.deleteRoleDept(roleIds);
     return roleRepository.softDeleteByIds(roleIds);
   }
@@ -233,6 +237,7 @@ public class SysRoleService {
 
     // Save role-menu associations
     saveRoleMenus(savedRole);
+    sessionPermissionService.rolesChanged(List.of(savedRole.getRoleId()));
 
     return savedRole;
   }
@@ -315,6 +320,7 @@ public class SysRoleService {
     if (ids.isEmpty()) return 0L;
 
     Long affected = sysUserRoleRepository.deleteByRoleIdAndUserIdIn(roleId, ids);
+    sessionPermissionService.usersChanged(ids);
     log.info("Batch revoke users from role. roleId={}, affected={}", roleId, affected);
     return affected;
   }
@@ -345,6 +351,7 @@ public class SysRoleService {
     if (toInsert.isEmpty()) return 0;
 
     sysUserRoleRepository.saveAll(toInsert);
+    sessionPermissionService.usersChanged(toInsert.stream().map(SysUserRole::getUserId).toList());
     log.info("Batch assign users to role. roleId={}, inserted={}", roleId, toInsert.size());
     return toInsert.size();
   }
@@ -28,6 +28,7 @@ public class SysUserService {
   private final SysUserPostService userPostService;
   private final SysUserRoleService userRoleService;
   private final SysUserRepository userRepository;
+  private final SessionPermissionService sessionPermissionService;
 
   public Page<SysUserDTO> selectUserList(
       SysUserDTO user, Map<String, Object> params, Pageable pageable) {
@@ -75,6 +76,7 @@ public class SysUserService {
 
   public void deleteUserById(Long userId) {
     userRepository.deleteById(userId);
+    sessionPermissionService.usersDeleted(List.of(userId));
   }
 
   @Transactional
@@ -150,6 +152,7 @@ public class SysUserService {
     if (req.getRoleIds() != null) {
       userRoleService.deleteByUserId(userId);
       userRoleService.insertUserRole(userId, req.getRoleIds());
+      sessionPermissionService.usersChanged(List.of(userId));
     }
 
     if (req.getPostIds() != null) {
@@ -172,7 +175,8 @@ public class SysUserService {
     userRoleService.deleteByUserIds(ids);
     userPostService.deleteByUser_UserIdIn(ids);
 
-    // Soft delete users
+    // Soft delete users and log out their sessions
+    sessionPermissionService.usersDeleted(ids);
     return userRepository.softDeleteUsers(ids, DelFlagEnum.DELETED.getCode());
   }
 
@@ -0,0 +1,196 @@
+package com.api.system.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.api.common.domain.LoginUser;
+import com.api.common.domain.SysDept;
+import com.api.common.domain.SysRole;
+import com.api.common.domain.SysUser;
+import com.api.common.redis.codec.RedisValueCodecs;
+import com.api.system.domain.system.SysConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Bytes and ser/de time per Redis value codec on the values this application caches. "legacy" is
+ * the JSON string that RedisCache used to hand to GenericJackson2JsonRedisSerializer, which quoted
+ * and escaped it a second time; "raw" stores JSON text the caller produced itself.
+ */
+class CachedValueCodecsTest {
+
+  private static final List<String> CODECS = List.of("json", "smile", "raw");
+
+  private ObjectMapper objectMapper;
+  private RedisValueCodecs codecs;
+  private GenericJackson2JsonRedisSerializer legacy;
+
+  @BeforeEach
+  void setUp() {
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    codecs = new RedisValueCodecs(objectMapper);
+    ReflectionTestUtils.setField(codecs, "defaultCodecName", "json");
+    ReflectionTestUtils.setField(codecs, "prefixMapping", "smile:=smile,raw:=raw");
+    ReflectionTestUtils.setField(codecs, "defaultCompression", "none");
+    ReflectionTestUtils.setField(codecs, "compressionMapping", "");
+    codecs.init();
+    legacy = new GenericJackson2JsonRedisSerializer();
+  }
+
+  @Test
+  void everyCodecIsSmallerThanTheDoubleEncodedJson() throws Exception {
+    for (Map.Entry<String, Object> value : values().entrySet()) {
+      int legacyBytes = legacyEncode(value.getValue()).length;
+      Map<String, Integer> sizes = new LinkedHashMap<>();
+      for (String codec : CODECS) {
+        byte[] bytes = encode(codec, value.getValue());
+        Object decoded = decode(codec, bytes, value.getValue().getClass());
+        assertThat(encode(codec, decoded)).isEqualTo(bytes);
+        sizes.put(codec, bytes.length);
+      }
+      System.out.printf("%s: %s bytes, legacy %d bytes%n", value.getKey(), sizes, legacyBytes);
+
+      assertThat(sizes.get("json")).isLessThan(legacyBytes);
+      assertThat(sizes.get("smile")).isLessThan(sizes.get("json"));
+    }
+  }
+
+  /** Run with {@code -Dbenchmark=true}. */
+  @Test
+  @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+  void serDeTimePerCodec() throws Exception {
+    for (Map.Entry<String, Object> value : values().entrySet()) {
+      Object object = value.getValue();
+      Class<?> type = object.getClass();
+      Map<String, String> times = new LinkedHashMap<>();
+      for (String codec : CODECS) {
+        byte[] bytes = encode(codec, object);
+        double ser = nanosPerCall(() -> encode(codec, object));
+        double de = nanosPerCall(() -> decode(codec, bytes, type));
+        times.put(codec, String.format("%.0f/%.0f ns", ser, de));
+      }
+      byte[] legacyBytes = legacyEncode(object);
+      double ser = nanosPerCall(() -> legacyEncode(object));
+      double de =
+          nanosPerCall(
+              () -> objectMapper.readValue((String) legacy.deserialize(legacyBytes), type));
+      times.put("legacy", String.format("%.0f/%.0f ns", ser, de));
+      System.out.printf("%s ser/de: %s%n", value.getKey(), times);
+    }
+  }
+
+  private byte[] encode(String codec, Object value) throws Exception {
+    return codec.equals("raw")
+        ? codecs.encode("raw:", objectMapper.writeValueAsString(value))
+        : codecs.encode(codec + ":", value);
+  }
+
+  private Object decode(String codec, byte[] bytes, Class<?> type) throws Exception {
+    return codec.equals("raw")
+        ? objectMapper.readValue(codecs.decode(bytes, String.class), type)
+        : codecs.decode(bytes, type);
+  }
+
+  private byte[] legacyEncode(Object value) throws Exception {
+    return legacy.serialize(objectMapper.writeValueAsString(value));
+  }
+
+  private static double nanosPerCall(Callable<?> call) throws Exception {
+    int iterations = 200_000;
+    for (int i = 0; i < iterations; i++) {
+      call.call(); // warm up
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      call.call();
+    }
+    return (System.nanoTime() - start) / (double) iterations;
+  }
+
+  private static Map<String, Object> values() {
+    Map<String, Object> values = new LinkedHashMap<>();
+    values.put("LoginUser", loginUser());
+    values.put("SysConfig", sysConfig());
+    values.put("Metric map", metricMap());
+    return values;
+  }
+
+  private static LoginUser loginUser() {
+    SysDept dept = new SysDept();
+    dept.setDeptId(3L);
+    dept.setDeptName("R&D");
+    SysRole role = new SysRole();
+    role.setRoleId(2L);
+    role.setRoleKey("common");
+    role.setDataScope("1");
+    role.setStatus("0");
+    SysUser user = new SysUser();
+    user.setUserId(7L);
+    user.setDeptId(3L);
+    user.setUserName("gavin");
+    user.setNickName("Gavin");
+    user.setDept(dept);
+    user.setRoles(List.of(role));
+    user.setEmail("gavin@example.com");
+    user.setStatus("0");
+    user.setLoginIp("10.0.0.1");
+    user.setLoginDate(new Date(5000L));
+    user.setCreateTime(new Date(4000L));
+
+    LoginUser loginUser = new LoginUser();
+    loginUser.setUserId(7L);
+    loginUser.setDeptId(3L);
+    loginUser.setToken("0123456789abcdef0123456789abcdef");
+    loginUser.setLoginTime(1000L);
+    loginUser.setExpireTime(2000L);
+    loginUser.setIpaddr("10.0.0.1");
+    loginUser.setBrowser("Chrome");
+    loginUser.setUser(user);
+    Set<String> permissions = new HashSet<>();
+    for (int i = 0; i < 80; i++) {
+      permissions.add("system:module" + i / 4 + ":action" + i % 4);
+    }
+    loginUser.setPermissions(permissions);
+    return loginUser;
+  }
+
+  private static SysConfig sysConfig() {
+    SysConfig config =
+        new SysConfig()
+            .setConfigId(4L)
+            .setConfigName("Account self-service - enable registration")
+            .setConfigKey("sys.account.registerUser")
+            .setConfigValue("false")
+            .setConfigType("Y");
+    config.setCreateBy("admin");
+    config.setCreateTime(new Date(4000L));
+    config.setRemark("Whether to enable the user registration feature");
+    return config;
+  }
+
+  /** A merged SQL stats hash: counters plus latency buckets. */
+  private static Map<String, Object> metricMap() {
+    Map<String, Object> metrics = new LinkedHashMap<>();
+    metrics.put("ExecuteCount", 18_432L);
+    metrics.put("SuccessCount", 18_430L);
+    metrics.put("FailCount", 2L);
+    metrics.put("Rows", 96_117L);
+    metrics.put("TotalTimeMicros", 41_870_552L);
+    metrics.put("TimeMillisMax", 812L);
+    for (int i = 0; i < 8; i++) {
+      metrics.put("Histogram" + i, 1_000L * (8 - i));
+    }
+    return metrics;
+  }
+}
@@ -0,0 +1,121 @@
+package com.api.system.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.api.common.constant.CacheConstants;
+import com.api.common.redis.InMemoryRedisCache;
+import com.api.common.redis.RedisCache;
+import com.api.common.redis.codec.RedisValueCodecs;
+import com.api.system.repository.SysMenuRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class RolePermissionCacheTest {
+
+  private InMemoryRedisCache redisCache;
+  private SysMenuRepository sysMenuRepository;
+  private RolePermissionCache rolePermissionCache;
+
+  @BeforeEach
+  void setUp() {
+    RedisValueCodecs codecs = new RedisValueCodecs(new ObjectMapper());
+    ReflectionTestUtils.setField(codecs, "defaultCodecName", "json");
+    ReflectionTestUtils.setField(codecs, "prefixMapping", "");
+    ReflectionTestUtils.setField(codecs, "defaultCompression", "none");
+    ReflectionTestUtils.setField(codecs, "compressionMapping", "");
+    codecs.init();
+    redisCache = new InMemoryRedisCache(new ObjectMapper(), codecs);
+    ReflectionTestUtils.setField(redisCache, "scanCount", 100);
+    ReflectionTestUtils.setField(redisCache, "sweepMillis", 60_000L);
+    redisCache.init();
+    sysMenuRepository = mock(SysMenuRepository.class);
+    rolePermissionCache = new RolePermissionCache(redisCache, sysMenuRepository);
+    ReflectionTestUtils.setField(rolePermissionCache, "maxSize", 16);
+    ReflectionTestUtils.setField(rolePermissionCache, "localTtlSeconds", 600L);
+    ReflectionTestUtils.setField(rolePermissionCache, "redisTtlHours", 24);
+    rolePermissionCache.init();
+  }
+
+  @AfterEach
+  void tearDown() {
+    redisCache.shutdown();
+  }
+
+  @Test
+  void cachesLoadedPermissions() {
+    when(sysMenuRepository.findPermsByRoleIds(anyCollection()))
+        .thenReturn(rows(new Object[] {1L, "system:user:list,system:user:add"}));
+
+    assertThat(rolePermissionCache.getAll(List.of(1L)).get(1L))
+        .containsExactlyInAnyOrder("system:user:list", "system:user:add");
+    assertThat(rolePermissionCache.getAll(List.of(1L)).get(1L)).hasSize(2);
+
+    verify(sysMenuRepository, times(1)).findPermsByRoleIds(anyCollection());
+    assertThat(redisCache.hasKey(CacheConstants.ROLE_PERMS_KEY + 1)).isTrue();
+  }
+
+  @Test
+  void loadOverlappingAnEvictionIsNotCached() {
+    when(sysMenuRepository.findPermsByRoleIds(anyCollection()))
+        .thenAnswer(
+            invocation -> {
+              // The role changes and is evicted after this query read the old permissions
+              rolePermissionCache.evict(List.of(1L));
+              return rows(new Object[] {1L, "system:user:remove"});
+            })
+        .thenReturn(rows(new Object[] {1L, "system:user:list"}));
+
+    assertThat(rolePermissionCache.getAll(List.of(1L)).get(1L))
+        .containsExactly("system:user:remove");
+    assertThat(redisCache.hasKey(CacheConstants.ROLE_PERMS_KEY + 1)).isFalse();
+
+    assertThat(rolePermissionCache.getAll(List.of(1L)).get(1L))
+        .containsExactly("system:user:list");
+    verify(sysMenuRepository, times(2)).findPermsByRoleIds(anyCollection());
+  }
+
+  @Test
+  void localMissesAreReadFromRedisInOneCall() {
+    redisCache.setCacheObject(CacheConstants.ROLE_PERMS_KEY + 1, new String[] {"system:user:list"});
+    redisCache.setCacheObject(CacheConstants.ROLE_PERMS_KEY + 2, new String[] {"system:role:list"});
+    when(sysMenuRepository.findPermsByRoleIds(List.of(3L)))
+        .thenReturn(rows(new Object[] {3L, "system:menu:list"}));
+    RedisCache redis = spy(redisCache);
+    RolePermissionCache cold = new RolePermissionCache(redis, sysMenuRepository);
+    ReflectionTestUtils.setField(cold, "maxSize", 16);
+    ReflectionTestUtils.setField(cold, "localTtlSeconds", 600L);
+    ReflectionTestUtils.setField(cold, "redisTtlHours", 24);
+    cold.init();
+
+    Map<Long, Set<String>> perms = cold.getAll(List.of(1L, 2L, 3L));
+
+    assertThat(perms)
+        .containsEntry(1L, Set.of("system:user:list"))
+        .containsEntry(2L, Set.of("system:role:list"))
+        .containsEntry(3L, Set.of("system:menu:list"));
+    verify(redis, times(1)).getCacheObjects(anyCollection(), eq(String[].class));
+    verify(redis, never()).getCacheObject(anyString(), any());
+    verify(sysMenuRepository).findPermsByRoleIds(List.of(3L));
+  }
+
+  private static List<Object[]> rows(Object[]... rows) {
+    return new ArrayList<>(List.of(rows));
+  }
+}
@@ -0,0 +1,68 @@
+package com.api.system.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.api.common.constant.CacheConstants;
+import com.api.common.redis.RedisUnavailableException;
+import com.api.framework.service.TokenService;
+import com.api.framework.session.SessionIndex;
+import com.api.framework.session.SessionNearCache;
+import com.api.framework.session.SessionStore;
+import com.api.system.repository.SysUserRoleRepository;
+import com.api.system.service.SessionPermissionService.UsersDeleted;
+import java.util.LinkedHashSet;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+class SessionPermissionServiceTest {
+
+  private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+  private final CacheManager cacheManager = mock(CacheManager.class);
+  private final Cache menuTrees = mock(Cache.class);
+  private final TokenService tokenService = mock(TokenService.class);
+  private SessionPermissionService service;
+
+  @BeforeEach
+  void setUp() {
+    when(cacheManager.getCache(CacheConstants.MENU_TREE_CACHE)).thenReturn(menuTrees);
+    service =
+        new SessionPermissionService(
+            mock(RolePermissionCache.class),
+            mock(SysUserRoleRepository.class),
+            mock(SessionIndex.class),
+            mock(SessionStore.class),
+            mock(SessionNearCache.class),
+            eventPublisher,
+            cacheManager,
+            tokenService);
+  }
+
+  @Test
+  void deletingUsersPublishesOneEvent() {
+    service.usersDeleted(List.of(5L, 6L));
+    service.usersDeleted(List.of());
+
+    verify(eventPublisher).publishEvent(any(UsersDeleted.class));
+  }
+
+  @Test
+  void deletedUsersAreLoggedOutEvenIfOneFails() {
+    when(tokenService.delLoginUsers(5L)).thenThrow(new RedisUnavailableException("down"));
+
+    service.onUsersDeleted(new UsersDeleted(new LinkedHashSet<>(List.of(5L, 6L))));
+
+    verify(tokenService).delLoginUsers(5L);
+    verify(tokenService).delLoginUsers(6L);
+    verify(menuTrees).evict(5L);
+    verify(menuTrees).evict(6L);
+    verify(eventPublisher, never()).publishEvent(any());
+  }
+}
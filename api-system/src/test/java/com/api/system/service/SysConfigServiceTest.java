@@ -0,0 +1,115 @@
+package com.api.system.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import com.api.common.constant.CacheConstants;
+import com.api.common.redis.InMemoryRedisCache;
+import com.api.common.redis.RedisCache;
+import com.api.common.redis.RedisUnavailableException;
+import com.api.common.redis.codec.RedisValueCodecs;
+import com.api.system.domain.system.SysConfig;
+import com.api.system.repository.SysConfigRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class SysConfigServiceTest {
+
+  private InMemoryRedisCache redisCache;
+  private SysConfigRepository repository;
+  private final AtomicReference<String> skin = new AtomicReference<>("skin-blue");
+
+  @BeforeEach
+  void setUp() {
+    RedisValueCodecs codecs = new RedisValueCodecs(new ObjectMapper());
+    ReflectionTestUtils.setField(codecs, "defaultCodecName", "json");
+    ReflectionTestUtils.setField(codecs, "prefixMapping", "");
+    ReflectionTestUtils.setField(codecs, "defaultCompression", "none");
+    ReflectionTestUtils.setField(codecs, "compressionMapping", "");
+    codecs.init();
+    redisCache = new InMemoryRedisCache(new ObjectMapper(), codecs);
+    ReflectionTestUtils.setField(redisCache, "scanCount", 100);
+    ReflectionTestUtils.setField(redisCache, "sweepMillis", 60_000L);
+    redisCache.init();
+    repository = mock(SysConfigRepository.class);
+    when(repository.findAll()).thenAnswer(invocation -> List.of(config(skin.get())));
+    when(repository.findById(1L)).thenAnswer(invocation -> Optional.of(config(skin.get())));
+    when(repository.save(any(SysConfig.class)))
+        .thenAnswer(
+            invocation -> {
+              SysConfig saved = invocation.getArgument(0);
+              skin.set(saved.getConfigValue());
+              return saved;
+            });
+  }
+
+  @AfterEach
+  void tearDown() {
+    redisCache.shutdown();
+  }
+
+  @Test
+  void nodeThatMissedTheNotificationCatchesUpOnTheNextCheck() {
+    SysConfigService changing = node(redisCache);
+    // Never subscribed: every notification is lost on it
+    SysConfigService missing = node(redisCache);
+    assertThat(missing.selectConfigByKey("sys.index.skinName")).isEqualTo("skin-blue");
+
+    changing.update(config("skin-green"));
+    assertThat(missing.selectConfigByKey("sys.index.skinName")).isEqualTo("skin-blue");
+
+    missing.checkVersion();
+
+    assertThat(missing.selectConfigByKey("sys.index.skinName")).isEqualTo("skin-green");
+  }
+
+  @Test
+  void versionBumpThatFailedIsRetried() {
+    RedisCache flaky = spy(redisCache);
+    SysConfigService changing = node(flaky);
+    SysConfigService other = node(redisCache);
+    other.selectConfigByKey("sys.index.skinName");
+    doThrow(new RedisUnavailableException("down"))
+        .when(flaky)
+        .increment(eq(CacheConstants.SYS_CONFIG_VERSION_KEY), anyLong());
+
+    changing.update(config("skin-green"));
+    other.checkVersion();
+    assertThat(other.selectConfigByKey("sys.index.skinName")).isEqualTo("skin-blue");
+
+    doCallRealMethod().when(flaky).increment(eq(CacheConstants.SYS_CONFIG_VERSION_KEY), anyLong());
+    changing.checkVersion();
+    other.checkVersion();
+
+    assertThat(other.selectConfigByKey("sys.index.skinName")).isEqualTo("skin-green");
+  }
+
+  private SysConfigService node(RedisCache cache) {
+    SysConfigService service =
+        new SysConfigService(repository, cache, mock(ScheduledExecutorService.class));
+    ReflectionTestUtils.setField(service, "versionCheckSeconds", 30L);
+    return service;
+  }
+
+  private static SysConfig config(String skin) {
+    SysConfig config = new SysConfig();
+    config.setConfigId(1L);
+    config.setConfigKey("sys.index.skinName");
+    config.setConfigValue(skin);
+    return config;
+  }
+}
@@ -0,0 +1,76 @@
+package com.api.system.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import com.api.system.domain.system.SysLogininfor;
+import com.api.system.repository.SysLogininforRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class SysLogininforServiceTest {
+
+  private final List<String> written = new ArrayList<>();
+  private boolean databaseDown;
+  private SysLogininforService service;
+
+  @BeforeEach
+  void setUp() {
+    SysLogininforRepository repository = mock(SysLogininforRepository.class);
+    doAnswer(
+            invocation -> {
+              if (databaseDown) {
+                throw new DataAccessResourceFailureException("down");
+              }
+              List<SysLogininfor> batch = invocation.getArgument(0);
+              batch.forEach(record -> written.add(record.getUserName()));
+              return batch;
+            })
+        .when(repository)
+        .saveAll(anyList());
+    service = new SysLogininforService(repository, mock(ScheduledExecutorService.class));
+    ReflectionTestUtils.setField(service, "batchSize", 2);
+  }
+
+  @Test
+  void retriesFailedBatchesInOrder() {
+    databaseDown = true;
+    record("a", "b", "c");
+    service.flush();
+    record("d");
+
+    databaseDown = false;
+    service.flush();
+
+    assertThat(written).containsExactly("a", "b", "c", "d");
+  }
+
+  @Test
+  void dropsTheOldestRecordsBeyondTheCap() {
+    databaseDown = true;
+    for (int i = 0; i < 201; i++) {
+      record("r" + i);
+    }
+    service.flush();
+
+    databaseDown = false;
+    service.flush();
+
+    assertThat(written).hasSize(200).startsWith("r1").endsWith("r200");
+  }
+
+  private void record(String... userNames) {
+    for (String userName : userNames) {
+      SysLogininfor logininfor = new SysLogininfor();
+      logininfor.setUserName(userName);
+      service.record(logininfor);
+    }
+  }
+}